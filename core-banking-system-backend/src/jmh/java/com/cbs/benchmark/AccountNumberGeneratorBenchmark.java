@@ -0,0 +1,80 @@
+package com.cbs.benchmark;
+
+import com.cbs.model.enums.AccountType;
+import com.cbs.util.AccountNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account number allocation, with serial blocks reserved from an in-memory stand-in or from
+ * {@code account_number_sequences} on H2. One number in every block of 100 pays for the
+ * reservation, so the difference between the two is the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountNumberGeneratorBenchmark {
+
+    @Param({"memory", "h2"})
+    public String store;
+
+    private ConfigurableApplicationContext context;
+    private AccountNumberGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("h2".equals(store)) {
+            context = BenchmarkContext.start();
+            generator = context.getBean(AccountNumberGenerator.class);
+        } else {
+            generator = new AccountNumberGenerator(InMemoryRepositories.accountNumberSequences(),
+                    InMemoryRepositories.accounts(), InMemoryRepositories.transactionManager(), 100);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void rewindSeries() {
+        if (context != null) {
+            // A series holds a million serials; start over so a long run never exhausts it
+            context.getBean(JdbcTemplate.class).update("UPDATE account_number_sequences SET next_value = 0");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateSingleThread() {
+        return generator.generateAccountNumber(AccountType.SAVINGS);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateContended() {
+        return generator.generateAccountNumber(AccountType.SAVINGS);
+    }
+}
@@ -0,0 +1,113 @@
+package com.cbs.benchmark;
+
+import com.cbs.annotation.Auditable;
+import com.cbs.aspect.AuditAspect;
+import com.cbs.model.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@link AuditAspect} adds to an {@code @Auditable} call: the same method called directly
+ * and through a proxy carrying the aspect bean of the application on H2. The event is queued for
+ * the background writer; overflow is dropped (see {@link BenchmarkContext}). On a machine with a
+ * single core the drainer's inserts share the CPU with the caller and show up in the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditAspectBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private Postings plain;
+    private Postings audited;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        plain = new Postings();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Postings());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(context.getBean(AuditAspect.class));
+        audited = factory.getProxy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long direct(SignedInRequest request) {
+        return plain.transfer(request.accountId);
+    }
+
+    @Benchmark
+    public Long throughAspect(SignedInRequest request) {
+        return audited.transfer(request.accountId);
+    }
+
+    /**
+     * The request and security context the aspect reads, bound to each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class SignedInRequest {
+
+        Long accountId = 11L;
+
+        @Setup(Level.Trial)
+        public void bind() {
+            HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                    HttpServletRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getRemoteAddr" -> "203.0.113.10";
+                        case "getHeader" -> "User-Agent".equals(args[0]) ? "Mozilla/5.0" : null;
+                        default -> null;
+                    });
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+            User user = new User();
+            user.setUserId(7L);
+            user.setUsername("jdoe");
+            SecurityContextHolder.getContext()
+                    .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        }
+
+        @TearDown(Level.Trial)
+        public void unbind() {
+            RequestContextHolder.resetRequestAttributes();
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static class Postings {
+
+        @Auditable
+        public Long transfer(Long accountId) {
+            return accountId;
+        }
+    }
+}
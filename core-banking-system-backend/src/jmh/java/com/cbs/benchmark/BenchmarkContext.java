@@ -0,0 +1,47 @@
+package com.cbs.benchmark;
+
+import com.cbs.CbsApplication;
+import org.springframework.aop.framework.Advised;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application on the in-memory H2 database of the {@code local} profile, for harnesses that
+ * need real beans. Booted once per trial; the schema is created from the entities.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param properties further {@code --name=value} arguments, for properties not set here
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        // As arguments, so they win over application.yml and the local profile
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=local",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--cbs.journal.directory=target/benchmark/audit-journal",
+                "--cbs.archive.directory=target/benchmark/archive",
+                // Audit overflow is dropped so harnesses measure the request thread, not the drainer
+                "--cbs.audit.backpressure=DROP"));
+        args.addAll(List.of(properties));
+        return new SpringApplicationBuilder(CbsApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * The bean behind any transaction or AOP proxy, for calling its private methods.
+     */
+    static Object target(Object bean) throws Exception {
+        while (bean instanceof Advised advised) {
+            bean = advised.getTargetSource().getTarget();
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,95 @@
+package com.cbs.benchmark;
+
+import com.cbs.model.entity.AccountNumberSequence;
+import com.cbs.repository.AccountNumberSequenceRepository;
+import com.cbs.repository.AccountRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-ins for the repositories a harness touches, so a hot path can be measured without a
+ * database next to the same path on H2. Only the methods the harnesses call are implemented.
+ */
+final class InMemoryRepositories {
+
+    private static final long SERIALS_PER_SERIES = 1_000_000;
+
+    private InMemoryRepositories() {
+    }
+
+    /**
+     * Account number series kept in a map. A series wraps around instead of running out, so a
+     * long measurement never exhausts it.
+     */
+    static AccountNumberSequenceRepository accountNumberSequences() {
+        Map<String, AccountNumberSequence> sequences = new ConcurrentHashMap<>();
+        return proxy(AccountNumberSequenceRepository.class, (method, args) -> switch (method) {
+            case "findBySeriesForUpdate" -> Optional.ofNullable(sequences.get((String) args[0]))
+                    .map(sequence -> {
+                        if (sequence.getNextValue() >= SERIALS_PER_SERIES) {
+                            sequence.setNextValue(0L);
+                        }
+                        return sequence;
+                    });
+            case "save", "saveAndFlush" -> {
+                AccountNumberSequence sequence = (AccountNumberSequence) args[0];
+                sequences.put(sequence.getSeries(), sequence);
+                yield sequence;
+            }
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * An empty accounts table.
+     */
+    static AccountRepository accounts() {
+        return proxy(AccountRepository.class, (method, args) -> switch (method) {
+            case "findAccountNumbersBetween" -> List.of();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * Runs transaction callbacks without a transaction.
+     */
+    static PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> "InMemory" + type.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> handler.handle(method.getName(), args);
+                }));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+}
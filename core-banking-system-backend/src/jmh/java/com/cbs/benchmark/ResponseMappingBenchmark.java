@@ -0,0 +1,176 @@
+package com.cbs.benchmark;
+
+import com.cbs.model.dto.response.AccountResponse;
+import com.cbs.model.dto.response.KYCResponse;
+import com.cbs.model.dto.response.TransactionResponse;
+import com.cbs.model.dto.response.UserResponse;
+import com.cbs.model.entity.Account;
+import com.cbs.model.entity.KYC;
+import com.cbs.model.entity.Transaction;
+import com.cbs.model.entity.User;
+import com.cbs.model.enums.AccountStatus;
+import com.cbs.model.enums.AccountType;
+import com.cbs.model.enums.DocumentType;
+import com.cbs.model.enums.KYCStatus;
+import com.cbs.model.enums.TransactionStatus;
+import com.cbs.model.enums.TransactionType;
+import com.cbs.model.enums.UserStatus;
+import com.cbs.service.interface_.AccountService;
+import com.cbs.service.interface_.KYCService;
+import com.cbs.service.interface_.TransactionService;
+import com.cbs.service.interface_.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The private {@code convertToResponse} mappers of the services, called on the service beans of
+ * the application on H2. Transactions are mapped a page of 20 at a time, as history reads do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 15, 10, 30);
+
+    private ConfigurableApplicationContext context;
+    private MethodHandle transactionMapper;
+    private MethodHandle accountMapper;
+    private MethodHandle userMapper;
+    private MethodHandle kycMapper;
+
+    private List<Transaction> transactions;
+    private Account account;
+    private User user;
+    private KYC kyc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        transactionMapper = mapper(TransactionService.class, TransactionResponse.class, Transaction.class);
+        accountMapper = mapper(AccountService.class, AccountResponse.class, Account.class);
+        userMapper = mapper(UserService.class, UserResponse.class, User.class);
+        kycMapper = mapper(KYCService.class, KYCResponse.class, KYC.class);
+
+        transactions = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(id);
+            transaction.setTransactionReference("TXN2403150000" + id);
+            transaction.setTransactionType(TransactionType.TRANSFER);
+            transaction.setAmount(new BigDecimal("1250.0000"));
+            transaction.setFeeAmount(new BigDecimal("6.25"));
+            transaction.setBalanceAfter(new BigDecimal("98743.7500"));
+            transaction.setSourceAccountId(11L);
+            transaction.setDestinationAccountId(12L);
+            transaction.setUserId(7L);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setDescription("Rent");
+            transaction.setTransactionDate(NOW.minusMinutes(id));
+            transaction.setCreatedAt(NOW.minusMinutes(id));
+            transaction.setUpdatedAt(NOW.minusMinutes(id));
+            transactions.add(transaction);
+        }
+
+        account = new Account();
+        account.setAccountId(11L);
+        account.setAccountNumber("SB240000017");
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(new BigDecimal("98743.7500"));
+        account.setUserId(7L);
+        account.setBranchId(1L);
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setCreatedAt(NOW);
+        account.setUpdatedAt(NOW);
+        account.setMinimumBalance(new BigDecimal("1000.0000"));
+        account.setInterestRate(new BigDecimal("0.0350"));
+        account.setOverdraftLimit(BigDecimal.ZERO);
+
+        user = new User();
+        user.setUserId(7L);
+        user.setUsername("jdoe");
+        user.setEmail("jdoe@example.com");
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setPhoneNumber("+15550100");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setCreatedAt(NOW);
+        user.setUpdatedAt(NOW);
+
+        kyc = new KYC();
+        kyc.setKycId(3L);
+        kyc.setUserId(7L);
+        kyc.setDocumentType(DocumentType.PASSPORT);
+        kyc.setDocumentNumber("X1234567");
+        kyc.setDocumentUrl("kyc/7/passport.pdf");
+        kyc.setDocumentHash("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        kyc.setStatus(KYCStatus.APPROVED);
+        kyc.setSubmissionDate(NOW);
+        kyc.setVerificationDate(NOW);
+        kyc.setVerifiedBy(1L);
+        kyc.setExpiryDate(NOW.plusYears(10));
+        kyc.setCreatedAt(NOW);
+        kyc.setUpdatedAt(NOW);
+        kyc.setIsPrimaryDocument(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TransactionResponse> transactionPage() throws Throwable {
+        List<TransactionResponse> page = new ArrayList<>(PAGE_SIZE);
+        for (Transaction transaction : transactions) {
+            page.add((TransactionResponse) transactionMapper.invoke(transaction));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public AccountResponse account() throws Throwable {
+        return (AccountResponse) accountMapper.invoke(account);
+    }
+
+    @Benchmark
+    public UserResponse user() throws Throwable {
+        return (UserResponse) userMapper.invoke(user);
+    }
+
+    @Benchmark
+    public KYCResponse kyc() throws Throwable {
+        return (KYCResponse) kycMapper.invoke(kyc);
+    }
+
+    private MethodHandle mapper(Class<?> service, Class<?> response, Class<?> entity) throws Exception {
+        Object target = BenchmarkContext.target(context.getBean(service));
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(target.getClass(), MethodHandles.lookup());
+        return lookup.findVirtual(target.getClass(), "convertToResponse", MethodType.methodType(response, entity))
+                .bindTo(target);
+    }
+}
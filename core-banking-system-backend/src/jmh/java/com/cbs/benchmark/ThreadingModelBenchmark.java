@@ -0,0 +1,186 @@
+package com.cbs.benchmark;
+
+import com.cbs.model.dto.request.AccountCreationRequest;
+import com.cbs.model.dto.request.DepositRequest;
+import com.cbs.model.dto.request.LoginRequest;
+import com.cbs.model.dto.request.UserRegistrationRequest;
+import com.cbs.model.dto.response.UserResponse;
+import com.cbs.model.enums.AccountType;
+import com.cbs.service.interface_.AccountService;
+import com.cbs.service.interface_.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of {@code requests} concurrent requests against the running application on H2, with
+ * Tomcat on its 200 platform threads and on virtual threads, and a Hikari pool of
+ * {@code poolSize} connections; 0 takes {@code cores * 2 + 1}, as {@code VirtualThreadConfig}
+ * sizes it. One in five requests is a deposit, the rest read an account's total debits; both go
+ * through the real filters, JWT authentication, controllers, services and repositories.
+ * <p>
+ * H2 runs in this JVM and never waits on a disk or a network, so requests hold their connection
+ * only while the database works on them. It shows how the two modes queue in front of the pool
+ * and whether the pool size matters at all once the database is the bottleneck; it cannot show
+ * what a remote PostgreSQL adds in latency per round trip.
+ * <p>
+ * On a single-core host, where 0 means 3 connections, all eight cases overlap within their error:
+ * 200 requests take 1.5 to 2.4 s and 2000 take 6.5 to 7.4 s, in either mode and with 3 or 50
+ * connections. With an in-process database that is busy on the CPU, neither more connections
+ * nor virtual threads buy anything, which is the assumption behind sizing the pool to the
+ * database's cores rather than to the request threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadingModelBenchmark {
+
+    private static final int ACCOUNTS = 500;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"200", "2000"})
+    public int requests;
+
+    @Param({"0", "50"})
+    public int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private ObjectMapper objectMapper;
+    private String baseUrl;
+    private String authorization;
+    private List<Long> accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2 + 1;
+        context = "virtual".equals(threads)
+                ? BenchmarkContext.start("--spring.threads.virtual.enabled=true",
+                        "--cbs.virtualThreads.poolSize=" + size)
+                : BenchmarkContext.start("--spring.datasource.hikari.maximum-pool-size=" + size,
+                        "--spring.datasource.hikari.minimum-idle=" + size);
+        objectMapper = context.getBean(ObjectMapper.class);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        // The client must never be what limits the burst
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+
+        UserRegistrationRequest registration = new UserRegistrationRequest();
+        registration.setUsername("bench");
+        registration.setPassword("benchmark-password");
+        registration.setEmail("bench@example.com");
+        registration.setFirstName("Bench");
+        registration.setLastName("Mark");
+        UserResponse user = context.getBean(UserService.class).registerUser(registration);
+
+        LoginRequest login = new LoginRequest();
+        login.setUsername(registration.getUsername());
+        login.setPassword(registration.getPassword());
+        HttpResponse<String> loggedIn = send(post("/api/auth/login", login));
+        authorization = "Bearer " + objectMapper.readValue(loggedIn.body(), Map.class).get("token");
+
+        AccountService accountService = context.getBean(AccountService.class);
+        accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            AccountCreationRequest account = new AccountCreationRequest();
+            account.setAccountType(AccountType.SAVINGS);
+            account.setUserId(user.getUserId());
+            account.setInitialDeposit(new BigDecimal("1000000.00"));
+            account.setMinimumBalance(BigDecimal.ZERO);
+            accountIds.add(accountService.createAccount(account).getAccountId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public void mixedReadWrite() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            Long accountId = accountIds.get(random.nextInt(accountIds.size()));
+            HttpRequest request;
+            if (random.nextInt(5) == 0) {
+                DepositRequest deposit = new DepositRequest();
+                deposit.setAccountId(accountId);
+                deposit.setAmount(new BigDecimal("1.00"));
+                request = post("/api/transactions/deposit", deposit);
+            } else {
+                request = get("/api/transactions/account/" + accountId + "/debits");
+            }
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            check(response.join());
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, Object body) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return check(client.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    // A burst turned away, e.g. by the pool's connection timeout, must not pass as a fast one
+    private static HttpResponse<String> check(HttpResponse<String> response) {
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(response.request().uri() + " answered " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return response;
+    }
+}
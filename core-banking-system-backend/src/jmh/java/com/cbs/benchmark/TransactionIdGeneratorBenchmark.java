@@ -0,0 +1,48 @@
+package com.cbs.benchmark;
+
+import com.cbs.util.TransactionIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference generation cost, single-threaded and with 32 threads sharing one generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdGeneratorBenchmark {
+
+    private TransactionIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new TransactionIdGenerator(1, Clock.systemDefaultZone());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateSingleThread() {
+        return generator.generateTransactionId();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String generateContended() {
+        return generator.generateTransactionId();
+    }
+}
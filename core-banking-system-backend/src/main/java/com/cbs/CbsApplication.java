@@ -6,10 +6,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.beans.factory.annotation.Autowired;
 import jakarta.annotation.PostConstruct;
 
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
-
 @SpringBootApplication
-@EnableJpaAuditing
 public class CbsApplication {
 
     public static void main(String[] args) {
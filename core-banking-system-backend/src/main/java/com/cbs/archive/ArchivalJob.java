@@ -0,0 +1,73 @@
+package com.cbs.archive;
+
+import com.cbs.service.interface_.ArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves whole months older than {@code cbs.archive.retentionMonths} out of the live tables into
+ * the {@link ArchiveStore}, oldest first, every {@code cbs.archive.checkIntervalMs}.
+ * <p>
+ * Archived rows are read-only: they still show up in history, audit and error listings and in
+ * statements, but can no longer be looked up by id, updated or reversed.
+ * <p>
+ * Disabled by default ({@code cbs.archive.enabled}). Run it on one node only, against an archive
+ * directory every node can read.
+ */
+@Component
+@ConditionalOnProperty(name = "cbs.archive.enabled", havingValue = "true")
+public class ArchivalJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivalJob.class);
+
+    private static final List<ArchiveCodec<?>> TABLES =
+            List.of(ArchiveCodec.TRANSACTIONS, ArchiveCodec.AUDIT_LOGS, ArchiveCodec.ERROR_LOGS);
+
+    private final ArchiveService archiveService;
+    private final Clock clock;
+    private final int retentionMonths;
+
+    @Autowired
+    public ArchivalJob(ArchiveService archiveService, Clock clock,
+                       @Value("${cbs.archive.retentionMonths:12}") int retentionMonths) {
+        this.archiveService = archiveService;
+        this.clock = clock;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${cbs.archive.checkIntervalMs:21600000}")
+    public void archive() {
+        long archived = archiveDueMonths();
+        if (archived > 0) {
+            logger.info("Archived {} rows older than {} months", archived, retentionMonths);
+        }
+    }
+
+    /**
+     * Archives every month that has fallen out of retention.
+     *
+     * @return the number of rows archived
+     */
+    public long archiveDueMonths() {
+        YearMonth cutoff = YearMonth.now(clock).minusMonths(retentionMonths);
+        long archived = 0;
+        for (ArchiveCodec<?> codec : TABLES) {
+            Optional<YearMonth> oldest;
+            while ((oldest = archiveService.findOldestLiveMonth(codec)).isPresent()
+                    && oldest.get().isBefore(cutoff)) {
+                archived += archiveService.archiveMonth(codec, oldest.get());
+            }
+        }
+        return archived;
+    }
+}
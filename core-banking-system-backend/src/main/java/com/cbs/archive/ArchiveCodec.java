@@ -0,0 +1,170 @@
+package com.cbs.archive;
+
+import com.cbs.archive.ColumnarArchive.Column;
+import com.cbs.archive.ColumnarArchive.ColumnType;
+import com.cbs.model.entity.AuditLog;
+import com.cbs.model.entity.ErrorLog;
+import com.cbs.model.entity.Transaction;
+import com.cbs.model.enums.AuditAction;
+import com.cbs.model.enums.ErrorLevel;
+import com.cbs.model.enums.TransactionStatus;
+import com.cbs.model.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Maps an archived table's entity to and from archive columns. The first column is the id and
+ * the second the timestamp rows are archived and listed by.
+ */
+public final class ArchiveCodec<T> {
+
+    public static final ArchiveCodec<Transaction> TRANSACTIONS = new ArchiveCodec<>("transactions",
+            "transactionDate", Transaction::new, List.of(
+            longField("transaction_id", Transaction::getTransactionId, Transaction::setTransactionId),
+            timeField("transaction_date", Transaction::getTransactionDate, Transaction::setTransactionDate),
+            stringField("transaction_reference", Transaction::getTransactionReference,
+                    Transaction::setTransactionReference),
+            enumField("transaction_type", TransactionType.class, Transaction::getTransactionType,
+                    Transaction::setTransactionType),
+            decimalField("amount", Transaction::getAmount, Transaction::setAmount),
+            longField("source_account_id", Transaction::getSourceAccountId, Transaction::setSourceAccountId),
+            longField("destination_account_id", Transaction::getDestinationAccountId,
+                    Transaction::setDestinationAccountId),
+            longField("user_id", Transaction::getUserId, Transaction::setUserId),
+            enumField("status", TransactionStatus.class, Transaction::getStatus, Transaction::setStatus),
+            stringField("description", Transaction::getDescription, Transaction::setDescription),
+            timeField("created_at", Transaction::getCreatedAt, Transaction::setCreatedAt),
+            timeField("updated_at", Transaction::getUpdatedAt, Transaction::setUpdatedAt),
+            decimalField("balance_after", Transaction::getBalanceAfter, Transaction::setBalanceAfter),
+            decimalField("fee_amount", Transaction::getFeeAmount, Transaction::setFeeAmount),
+            longField("related_transaction_id", Transaction::getRelatedTransactionId,
+                    Transaction::setRelatedTransactionId)));
+
+    public static final ArchiveCodec<AuditLog> AUDIT_LOGS = new ArchiveCodec<>("audit_logs",
+            "createdAt", AuditLog::new, List.of(
+            longField("audit_id", AuditLog::getAuditId, AuditLog::setAuditId),
+            timeField("created_at", AuditLog::getCreatedAt, AuditLog::setCreatedAt),
+            longField("user_id", AuditLog::getUserId, AuditLog::setUserId),
+            enumField("action", AuditAction.class, AuditLog::getAction, AuditLog::setAction),
+            stringField("entity_type", AuditLog::getEntityType, AuditLog::setEntityType),
+            longField("entity_id", AuditLog::getEntityId, AuditLog::setEntityId),
+            stringField("old_values", AuditLog::getOldValues, AuditLog::setOldValues),
+            stringField("new_values", AuditLog::getNewValues, AuditLog::setNewValues),
+            stringField("ip_address", AuditLog::getIpAddress, AuditLog::setIpAddress),
+            stringField("user_agent", AuditLog::getUserAgent, AuditLog::setUserAgent)));
+
+    public static final ArchiveCodec<ErrorLog> ERROR_LOGS = new ArchiveCodec<>("error_logs",
+            "createdAt", ErrorLog::new, List.of(
+            longField("error_id", ErrorLog::getErrorId, ErrorLog::setErrorId),
+            timeField("created_at", ErrorLog::getCreatedAt, ErrorLog::setCreatedAt),
+            enumField("error_level", ErrorLevel.class, ErrorLog::getErrorLevel, ErrorLog::setErrorLevel),
+            stringField("error_message", ErrorLog::getErrorMessage, ErrorLog::setErrorMessage),
+            stringField("stack_trace", ErrorLog::getStackTrace, ErrorLog::setStackTrace),
+            longField("user_id", ErrorLog::getUserId, ErrorLog::setUserId),
+            stringField("request_url", ErrorLog::getRequestUrl, ErrorLog::setRequestUrl),
+            stringField("request_method", ErrorLog::getRequestMethod, ErrorLog::setRequestMethod),
+            stringField("ip_address", ErrorLog::getIpAddress, ErrorLog::setIpAddress),
+            stringField("user_agent", ErrorLog::getUserAgent, ErrorLog::setUserAgent),
+            stringField("entity_type", ErrorLog::getEntityType, ErrorLog::setEntityType),
+            longField("entity_id", ErrorLog::getEntityId, ErrorLog::setEntityId)));
+
+    static final int ID_COLUMN = 0;
+    static final int TIME_COLUMN = 1;
+
+    private final String table;
+    private final String timeProperty;
+    private final Supplier<T> factory;
+    private final List<Field<T>> fields;
+    private final List<Column> columns;
+
+    private ArchiveCodec(String table, String timeProperty, Supplier<T> factory, List<Field<T>> fields) {
+        this.table = table;
+        this.timeProperty = timeProperty;
+        this.factory = factory;
+        this.fields = fields;
+        this.columns = fields.stream().map(field -> field.column).toList();
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * The entity property of the time column, as used in a {@code Sort}.
+     */
+    public String getTimeProperty() {
+        return timeProperty;
+    }
+
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    Object[] encode(T entity) {
+        Object[] row = new Object[fields.size()];
+        for (int c = 0; c < row.length; c++) {
+            row[c] = fields.get(c).getter.apply(entity);
+        }
+        return row;
+    }
+
+    /**
+     * Builds the entity for {@code row} from decoded block columns.
+     */
+    T decode(Object[][] columnValues, int row) {
+        T entity = factory.get();
+        for (int c = 0; c < fields.size(); c++) {
+            fields.get(c).setter.accept(entity, columnValues[c][row]);
+        }
+        return entity;
+    }
+
+    private static final class Field<T> {
+        private final Column column;
+        private final Function<T, Object> getter;
+        private final BiConsumer<T, Object> setter;
+
+        private Field(Column column, Function<T, Object> getter, BiConsumer<T, Object> setter) {
+            this.column = column;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private static <T> Field<T> longField(String name, Function<T, Long> getter, BiConsumer<T, Long> setter) {
+        return new Field<>(new Column(name, ColumnType.LONG), getter::apply,
+                (entity, value) -> setter.accept(entity, (Long) value));
+    }
+
+    private static <T> Field<T> timeField(String name, Function<T, LocalDateTime> getter,
+                                          BiConsumer<T, LocalDateTime> setter) {
+        return new Field<>(new Column(name, ColumnType.TIMESTAMP), getter::apply,
+                (entity, value) -> setter.accept(entity, (LocalDateTime) value));
+    }
+
+    private static <T> Field<T> decimalField(String name, Function<T, BigDecimal> getter,
+                                             BiConsumer<T, BigDecimal> setter) {
+        return new Field<>(new Column(name, ColumnType.DECIMAL), getter::apply,
+                (entity, value) -> setter.accept(entity, (BigDecimal) value));
+    }
+
+    private static <T> Field<T> stringField(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+        return new Field<>(new Column(name, ColumnType.STRING), getter::apply,
+                (entity, value) -> setter.accept(entity, (String) value));
+    }
+
+    private static <T, E extends Enum<E>> Field<T> enumField(String name, Class<E> type, Function<T, E> getter,
+                                                             BiConsumer<T, E> setter) {
+        return new Field<>(new Column(name, ColumnType.STRING),
+                entity -> {
+                    E value = getter.apply(entity);
+                    return value == null ? null : value.name();
+                },
+                (entity, value) -> setter.accept(entity, value == null ? null : Enum.valueOf(type, (String) value)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.cbs.archive;
+
+import com.cbs.util.HistoryCursor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Which archived rows to read. Time bounds, the keyset position and column equalities are
+ * checked against block statistics first, so blocks that cannot match are never decoded; the
+ * {@link #where} predicate runs on the decoded entities that are left.
+ */
+public final class ArchiveQuery<T> {
+
+    private final ArchiveCodec<T> codec;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private HistoryCursor before;
+    private final Map<String, Long> anyOf = new LinkedHashMap<>();
+    private Predicate<T> where;
+
+    private ArchiveQuery(ArchiveCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    public static <T> ArchiveQuery<T> of(ArchiveCodec<T> codec) {
+        return new ArchiveQuery<>(codec);
+    }
+
+    /**
+     * Rows with a time in {@code [from, to]}; either bound may be null.
+     */
+    public ArchiveQuery<T> between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Rows strictly before {@code cursor} in {@code (time, id)} order.
+     */
+    public ArchiveQuery<T> before(HistoryCursor cursor) {
+        this.before = cursor;
+        return this;
+    }
+
+    /**
+     * Rows whose {@code column} equals {@code value}. Several calls match a row if any of them does,
+     * e.g. an account on either side of a transfer.
+     */
+    public ArchiveQuery<T> orEquals(String column, Long value) {
+        anyOf.put(column, value);
+        return this;
+    }
+
+    public ArchiveQuery<T> where(Predicate<T> predicate) {
+        this.where = this.where == null ? predicate : this.where.and(predicate);
+        return this;
+    }
+
+    ArchiveCodec<T> getCodec() {
+        return codec;
+    }
+
+    LocalDateTime getFrom() {
+        return from;
+    }
+
+    LocalDateTime getTo() {
+        return to;
+    }
+
+    HistoryCursor getBefore() {
+        return before;
+    }
+
+    Map<String, Long> getAnyOf() {
+        return anyOf;
+    }
+
+    Predicate<T> getWhere() {
+        return where;
+    }
+}
@@ -0,0 +1,396 @@
+package com.cbs.archive;
+
+import com.cbs.archive.ColumnarArchive.Block;
+import com.cbs.archive.ColumnarArchive.Reader;
+import com.cbs.util.CacheInvalidationBus;
+import com.cbs.util.HistoryCursor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for rows moved out of {@code transactions}, {@code audit_logs} and {@code error_logs}.
+ * <p>
+ * Each archived month of a table is one {@link ColumnarArchive} file,
+ * {@code <directory>/<table>/<yyyy-MM>.cba}. Archived months are always older than every row
+ * left in the live table, so readers page through the live table first and continue here, newest
+ * first, once it runs out; see {@link #newestFirst} and {@link #extend}. Only footers are held in
+ * memory; blocks are read on demand and skipped on their time and id ranges.
+ * <p>
+ * A month becomes visible to readers once the transaction that deleted its live rows commits.
+ * Should the process die in between, the file is picked up on the next start while the rows are
+ * still live; {@link ArchivalJob} then archives that month again and the duplicates go away.
+ * <p>
+ * Several nodes must share the directory for all of them to see the archive. The node that
+ * archives a month announces it on the {@link CacheInvalidationBus} when its transaction commits,
+ * and the others open the new file then; after the bus reconnects they rescan the directory.
+ */
+@Component
+public class ArchiveStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveStore.class);
+
+    private static final String FILE_SUFFIX = ".cba";
+
+    static final String ARCHIVE_TOPIC = "archive";
+    private static final char MONTH_SEPARATOR = '/';
+
+    private final CacheInvalidationBus invalidationBus;
+    private final Path directory;
+    private final int blockRows;
+    private final Map<String, NavigableMap<YearMonth, Reader>> archives = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ArchiveStore(CacheInvalidationBus invalidationBus,
+                        @Value("${cbs.archive.directory:archive}") String directory,
+                        @Value("${cbs.archive.blockRows:4096}") int blockRows) {
+        this.invalidationBus = invalidationBus;
+        this.directory = Paths.get(directory);
+        this.blockRows = blockRows;
+
+        invalidationBus.subscribe(ARCHIVE_TOPIC, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void invalidate(String key) {
+                int separator = key.indexOf(MONTH_SEPARATOR);
+                open(key.substring(0, separator), YearMonth.parse(key.substring(separator + 1)));
+            }
+
+            @Override
+            public void invalidateAll() {
+                scanDirectory(false);
+            }
+        });
+    }
+
+    @PostConstruct
+    public void load() {
+        scanDirectory(true);
+    }
+
+    /**
+     * Opens every archive file on disk. Only at startup are unfinished writes cleaned up; later,
+     * another node sharing the directory may be in the middle of one.
+     */
+    private void scanDirectory(boolean startup) {
+        for (ArchiveCodec<?> codec : List.of(ArchiveCodec.TRANSACTIONS, ArchiveCodec.AUDIT_LOGS,
+                ArchiveCodec.ERROR_LOGS)) {
+            Path tableDirectory = directory.resolve(codec.getTable());
+            if (!Files.isDirectory(tableDirectory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(tableDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(FILE_SUFFIX)) {
+                        YearMonth month = YearMonth.parse(name.substring(0, name.length() - FILE_SUFFIX.length()));
+                        months(codec.getTable()).put(month, Reader.open(file));
+                    } else if (startup) {
+                        // Left behind by a write that never finished
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load archive directory " + tableDirectory, e);
+            }
+            logger.info("Loaded {} archived months of {}", months(codec.getTable()).size(), codec.getTable());
+        }
+    }
+
+    /**
+     * Picks up a month another node has archived.
+     */
+    private void open(String table, YearMonth month) {
+        Path file = directory.resolve(table).resolve(month + FILE_SUFFIX);
+        if (!Files.exists(file)) {
+            logger.warn("Archive file {} announced by another node is not in the shared directory", file);
+            return;
+        }
+        months(table).put(month, Reader.open(file));
+        logger.info("Opened {} archived by another node", file);
+    }
+
+    public boolean hasArchive(ArchiveCodec<?> codec) {
+        return !months(codec).isEmpty();
+    }
+
+    public List<YearMonth> getArchivedMonths(ArchiveCodec<?> codec) {
+        return new ArrayList<>(months(codec).keySet());
+    }
+
+    /**
+     * Writes one month of rows, in {@code (time, id)} order, replacing any earlier file for it.
+     * Readers see it once the current transaction commits, or straight away outside one.
+     *
+     * @return the number of rows written; no file is written for none
+     */
+    public <T> long archive(ArchiveCodec<T> codec, YearMonth month, Stream<T> rows) {
+        Path file = directory.resolve(codec.getTable()).resolve(month + FILE_SUFFIX);
+        long written;
+        try (ColumnarArchive.Writer writer = new ColumnarArchive.Writer(file, codec.getColumns(), blockRows)) {
+            rows.forEach(row -> writer.append(codec.encode(row)));
+            written = writer.getRowCount();
+            if (written == 0) {
+                return 0;
+            }
+            writer.finish();
+        }
+
+        Reader reader = Reader.open(file);
+        afterCommit(() -> months(codec).put(month, reader));
+        // Sent on commit, like the local update above
+        invalidationBus.publish(ARCHIVE_TOPIC, codec.getTable() + MONTH_SEPARATOR + month);
+        logger.info("Archived {} rows of {} for {} to {}", written, codec.getTable(), month, file);
+        return written;
+    }
+
+    /**
+     * Archived rows matching {@code query}, newest first, after skipping {@code offset} of them.
+     */
+    public <T> List<T> newestFirst(ArchiveQuery<T> query, long offset, int limit) {
+        List<T> rows = new ArrayList<>(limit);
+        if (limit <= 0) {
+            return rows;
+        }
+        long[] skip = {offset};
+        scan(query, true, true, row -> {
+            if (skip[0] > 0) {
+                skip[0]--;
+                return true;
+            }
+            rows.add(row);
+            return rows.size() < limit;
+        });
+        return rows;
+    }
+
+    /**
+     * Every archived row matching {@code query}, oldest first.
+     */
+    public <T> void forEachOldestFirst(ArchiveQuery<T> query, Consumer<T> action) {
+        scan(query, false, true, row -> {
+            action.accept(row);
+            return true;
+        });
+    }
+
+    public <T> long count(ArchiveQuery<T> query) {
+        long[] count = {0};
+        // Without a predicate on the entity, rows are counted from the filter columns alone
+        scan(query, true, query.getWhere() != null, row -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Continues a live page, sorted newest first by the codec's time property, into the archive.
+     * The total counts archived rows too. Pages in any other order only cover the live table.
+     */
+    public <T> Page<T> extend(Page<T> live, ArchiveQuery<T> query) {
+        Pageable pageable = live.getPageable();
+        if (!hasArchive(query.getCodec()) || pageable.isUnpaged()
+                || !isNewestFirst(pageable.getSort(), query.getCodec())) {
+            return live;
+        }
+        long archived = count(query);
+        if (archived == 0) {
+            return live;
+        }
+
+        List<T> content = new ArrayList<>(live.getContent());
+        int missing = pageable.getPageSize() - content.size();
+        if (missing > 0) {
+            long skip = Math.max(0, pageable.getOffset() - live.getTotalElements());
+            content.addAll(newestFirst(query, skip, missing));
+        }
+        return new PageImpl<>(content, pageable, live.getTotalElements() + archived);
+    }
+
+    private boolean isNewestFirst(Sort sort, ArchiveCodec<?> codec) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        Iterator<Sort.Order> orders = sort.iterator();
+        Sort.Order first = orders.next();
+        return first.getProperty().equals(codec.getTimeProperty()) && first.isDescending();
+    }
+
+    private <T> void scan(ArchiveQuery<T> query, boolean newestFirst, boolean materialize, Predicate<T> visitor) {
+        ArchiveCodec<T> codec = query.getCodec();
+        NavigableMap<YearMonth, Reader> months = newestFirst ? months(codec).descendingMap() : months(codec);
+        LocalDateTime upper = upperBound(query);
+        long low = query.getFrom() == null ? Long.MIN_VALUE : ColumnarArchive.toMicros(query.getFrom());
+        long high = upper == null ? Long.MAX_VALUE : ColumnarArchive.toMicros(upper);
+
+        for (Map.Entry<YearMonth, Reader> month : months.entrySet()) {
+            LocalDateTime monthStart = month.getKey().atDay(1).atStartOfDay();
+            LocalDateTime monthEnd = month.getKey().plusMonths(1).atDay(1).atStartOfDay();
+            if ((upper != null && monthStart.isAfter(upper))
+                    || (query.getFrom() != null && !monthEnd.isAfter(query.getFrom()))) {
+                continue;
+            }
+            if (!scanFile(month.getValue(), query, newestFirst, materialize, low, high, visitor)) {
+                return;
+            }
+        }
+    }
+
+    private <T> boolean scanFile(Reader reader, ArchiveQuery<T> query, boolean newestFirst, boolean materialize,
+                                 long low, long high, Predicate<T> visitor) {
+        ArchiveCodec<T> codec = query.getCodec();
+        int columns = reader.getColumns().size();
+        int[] anyOfColumns = query.getAnyOf().keySet().stream().mapToInt(reader::columnIndex).toArray();
+        long[] anyOfValues = query.getAnyOf().values().stream().mapToLong(Long::longValue).toArray();
+        List<Block> blocks = reader.getBlocks();
+
+        try (FileChannel channel = reader.openChannel()) {
+            for (int b = 0; b < blocks.size(); b++) {
+                Block block = blocks.get(newestFirst ? blocks.size() - 1 - b : b);
+                if (!block.mayContain(ArchiveCodec.TIME_COLUMN, low, high)
+                        || !mayMatchAny(block, anyOfColumns, anyOfValues)) {
+                    continue;
+                }
+
+                Object[][] values = new Object[columns][];
+                values[ArchiveCodec.TIME_COLUMN] = reader.readColumn(channel, block, ArchiveCodec.TIME_COLUMN);
+                values[ArchiveCodec.ID_COLUMN] = reader.readColumn(channel, block, ArchiveCodec.ID_COLUMN);
+                for (int column : anyOfColumns) {
+                    if (values[column] == null) {
+                        values[column] = reader.readColumn(channel, block, column);
+                    }
+                }
+
+                List<Integer> matches = new ArrayList<>();
+                for (int i = 0; i < block.getRows(); i++) {
+                    int row = newestFirst ? block.getRows() - 1 - i : i;
+                    if (matches(values, row, query, anyOfColumns, anyOfValues)) {
+                        matches.add(row);
+                    }
+                }
+                if (matches.isEmpty()) {
+                    continue;
+                }
+
+                if (materialize) {
+                    for (int column = 0; column < columns; column++) {
+                        if (values[column] == null) {
+                            values[column] = reader.readColumn(channel, block, column);
+                        }
+                    }
+                }
+                for (int row : matches) {
+                    T entity = materialize ? codec.decode(values, row) : null;
+                    if (entity != null && query.getWhere() != null && !query.getWhere().test(entity)) {
+                        continue;
+                    }
+                    if (!visitor.test(entity)) {
+                        return false;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive file " + reader.getFile(), e);
+        }
+        return true;
+    }
+
+    private boolean mayMatchAny(Block block, int[] columns, long[] values) {
+        if (columns.length == 0) {
+            return true;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (block.mayContain(columns[i], values[i], values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(Object[][] values, int row, ArchiveQuery<?> query, int[] anyOfColumns,
+                            long[] anyOfValues) {
+        LocalDateTime time = (LocalDateTime) values[ArchiveCodec.TIME_COLUMN][row];
+        if (query.getFrom() != null && time.isBefore(query.getFrom())) {
+            return false;
+        }
+        if (query.getTo() != null && time.isAfter(query.getTo())) {
+            return false;
+        }
+        HistoryCursor before = query.getBefore();
+        if (before != null) {
+            int order = time.compareTo(before.getTransactionDate());
+            long id = (Long) values[ArchiveCodec.ID_COLUMN][row];
+            if (order > 0 || (order == 0 && id >= before.getTransactionId())) {
+                return false;
+            }
+        }
+        if (anyOfColumns.length == 0) {
+            return true;
+        }
+        for (int i = 0; i < anyOfColumns.length; i++) {
+            Object value = values[anyOfColumns[i]][row];
+            if (value != null && (Long) value == anyOfValues[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LocalDateTime upperBound(ArchiveQuery<?> query) {
+        LocalDateTime to = query.getTo();
+        HistoryCursor before = query.getBefore();
+        if (before == null) {
+            return to;
+        }
+        return to == null || before.getTransactionDate().isBefore(to) ? before.getTransactionDate() : to;
+    }
+
+    private NavigableMap<YearMonth, Reader> months(ArchiveCodec<?> codec) {
+        return months(codec.getTable());
+    }
+
+    private NavigableMap<YearMonth, Reader> months(String table) {
+        return archives.computeIfAbsent(table, key -> new ConcurrentSkipListMap<>());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,515 @@
+package com.cbs.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable columnar file of archived rows.
+ * <p>
+ * Rows are appended in {@code (time, id)} order and cut into blocks. Within a block each column
+ * is stored on its own as a Deflate-compressed chunk, so a reader decodes only the columns it
+ * filters on and touches the rest only for blocks that have a match. Numbers and timestamps are
+ * delta-encoded as zigzag varints, which Deflate then squeezes further; nulls are a bitmap.
+ * <p>
+ * The footer lists every block with, per column, the chunk's length and CRC32 and, for number
+ * and timestamp columns, the minimum and maximum value. Readers skip whole blocks on those ranges
+ * without reading them. Layout:
+ * <pre>
+ *   magic, version
+ *   block*          one chunk per column, back to back
+ *   footer          columns (name, type), then per block: offset, rows, per column its chunk
+ *                   (length, raw length, crc32, has range, min, max)
+ *   footer offset, magic
+ * </pre>
+ * Files are written under a temporary name and moved into place once complete and on disk.
+ */
+final class ColumnarArchive {
+
+    private static final int MAGIC = 0x43425341; // "CBSA"
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 12;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private ColumnarArchive() {
+    }
+
+    enum ColumnType {
+        LONG, TIMESTAMP, DECIMAL, STRING
+    }
+
+    static final class Column {
+        private final String name;
+        private final ColumnType type;
+
+        Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        ColumnType getType() {
+            return type;
+        }
+    }
+
+    /**
+     * Location and statistics of one block, from the footer.
+     */
+    static final class Block {
+        private final long offset;
+        private final int rows;
+        private final int[] lengths;
+        private final int[] rawLengths;
+        private final long[] checksums;
+        private final boolean[] hasRange;
+        private final long[] min;
+        private final long[] max;
+
+        private Block(long offset, int rows, int columns) {
+            this.offset = offset;
+            this.rows = rows;
+            this.lengths = new int[columns];
+            this.rawLengths = new int[columns];
+            this.checksums = new long[columns];
+            this.hasRange = new boolean[columns];
+            this.min = new long[columns];
+            this.max = new long[columns];
+        }
+
+        int getRows() {
+            return rows;
+        }
+
+        /**
+         * Whether some value of {@code column} may lie in {@code [low, high]}. Blocks where the
+         * column is all null never match.
+         */
+        boolean mayContain(int column, long low, long high) {
+            return hasRange[column] && min[column] <= high && max[column] >= low;
+        }
+
+        private long chunkOffset(int column) {
+            long position = offset;
+            for (int i = 0; i < column; i++) {
+                position += lengths[i];
+            }
+            return position;
+        }
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Appends rows to a new file. Nothing is visible under the final name until {@link #finish()};
+     * closing an unfinished writer discards the file.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+        private final Path temp;
+        private final List<Column> columns;
+        private final int blockRows;
+        private final FileChannel channel;
+        private final List<Block> blocks = new ArrayList<>();
+        private final List<Object[]> pending = new ArrayList<>();
+        private final Deflater deflater = new Deflater();
+        private long position;
+        private long rowCount;
+        private boolean finished;
+
+        Writer(Path file, List<Column> columns, int blockRows) {
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            this.columns = columns;
+            this.blockRows = blockRows;
+            try {
+                Files.createDirectories(file.getParent());
+                this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(header);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create archive file " + file, e);
+            }
+        }
+
+        /**
+         * @param row one value per column, in column order; rows must come in {@code (time, id)} order
+         */
+        void append(Object[] row) {
+            pending.add(row);
+            rowCount++;
+            if (pending.size() >= blockRows) {
+                flushBlock();
+            }
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+
+        void finish() {
+            flushBlock();
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream footer = new DataOutputStream(bytes);
+                footer.writeInt(columns.size());
+                for (Column column : columns) {
+                    footer.writeUTF(column.getName());
+                    footer.writeByte(column.getType().ordinal());
+                }
+                footer.writeInt(blocks.size());
+                for (Block block : blocks) {
+                    footer.writeLong(block.offset);
+                    footer.writeInt(block.rows);
+                    for (int c = 0; c < columns.size(); c++) {
+                        footer.writeInt(block.lengths[c]);
+                        footer.writeInt(block.rawLengths[c]);
+                        footer.writeLong(block.checksums[c]);
+                        footer.writeBoolean(block.hasRange[c]);
+                        footer.writeLong(block.min[c]);
+                        footer.writeLong(block.max[c]);
+                    }
+                }
+                long footerOffset = position;
+                writeFully(ByteBuffer.wrap(bytes.toByteArray()));
+                writeFully(ByteBuffer.allocate(TRAILER_SIZE).putLong(footerOffset).putInt(MAGIC).flip());
+                channel.force(true);
+                channel.close();
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                finished = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not finish archive file " + file, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+            if (finished) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not discard archive file " + temp, e);
+            }
+        }
+
+        private void flushBlock() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Block block = new Block(position, pending.size(), columns.size());
+            try {
+                for (int c = 0; c < columns.size(); c++) {
+                    byte[] raw = encode(columns.get(c).getType(), c, block);
+                    byte[] compressed = deflate(raw);
+                    CRC32 crc = new CRC32();
+                    crc.update(compressed);
+                    block.lengths[c] = compressed.length;
+                    block.rawLengths[c] = raw.length;
+                    block.checksums[c] = crc.getValue();
+                    writeFully(ByteBuffer.wrap(compressed));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write archive block to " + temp, e);
+            }
+            blocks.add(block);
+            pending.clear();
+        }
+
+        private byte[] encode(ColumnType type, int column, Block block) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] nulls = new byte[(pending.size() + 7) / 8];
+            for (int row = 0; row < pending.size(); row++) {
+                if (pending.get(row)[column] == null) {
+                    nulls[row >> 3] |= (byte) (1 << (row & 7));
+                }
+            }
+            bytes.write(nulls);
+
+            long previous = 0;
+            for (Object[] row : pending) {
+                Object value = row[column];
+                if (value == null) {
+                    continue;
+                }
+                switch (type) {
+                    case LONG, TIMESTAMP -> {
+                        long number = type == ColumnType.LONG ? (Long) value : toMicros((LocalDateTime) value);
+                        if (!block.hasRange[column]) {
+                            block.hasRange[column] = true;
+                            block.min[column] = number;
+                            block.max[column] = number;
+                        } else {
+                            block.min[column] = Math.min(block.min[column], number);
+                            block.max[column] = Math.max(block.max[column], number);
+                        }
+                        writeVarLong(bytes, zigzag(number - previous));
+                        previous = number;
+                    }
+                    case DECIMAL -> {
+                        BigDecimal decimal = (BigDecimal) value;
+                        writeVarLong(bytes, zigzag(decimal.scale()));
+                        writeBytes(bytes, decimal.unscaledValue().toByteArray());
+                    }
+                    case STRING -> writeBytes(bytes, ((String) value).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        private byte[] deflate(byte[] raw) {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            return compressed.toByteArray();
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * The footer of an archive file. Chunks are read on demand through a channel the caller opens,
+     * so one instance can serve concurrent readers, and a file replaced under it keeps serving
+     * the old contents to channels already open.
+     */
+    static final class Reader {
+        private final Path file;
+        private final List<Column> columns;
+        private final List<Block> blocks;
+        private final long rowCount;
+
+        private Reader(Path file, List<Column> columns, List<Block> blocks) {
+            this.file = file;
+            this.columns = columns;
+            this.blocks = blocks;
+            this.rowCount = blocks.stream().mapToLong(Block::getRows).sum();
+        }
+
+        static Reader open(Path file) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer trailer = readAt(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+                long footerOffset = trailer.getLong();
+                ByteBuffer header = readAt(channel, 0, 8);
+                if (trailer.getInt() != MAGIC || header.getInt() != MAGIC) {
+                    throw new IllegalStateException("Not an archive file: " + file);
+                }
+                if (header.getInt() != VERSION) {
+                    throw new IllegalStateException("Unsupported archive version in " + file);
+                }
+
+                ByteBuffer footerBytes = readAt(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+                DataInputStream footer = new DataInputStream(
+                        new ByteArrayInputStream(footerBytes.array(), 0, footerBytes.limit()));
+                int columnCount = footer.readInt();
+                List<Column> columns = new ArrayList<>(columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    String name = footer.readUTF();
+                    columns.add(new Column(name, ColumnType.values()[footer.readByte()]));
+                }
+                int blockCount = footer.readInt();
+                List<Block> blocks = new ArrayList<>(blockCount);
+                for (int b = 0; b < blockCount; b++) {
+                    Block block = new Block(footer.readLong(), footer.readInt(), columnCount);
+                    for (int c = 0; c < columnCount; c++) {
+                        block.lengths[c] = footer.readInt();
+                        block.rawLengths[c] = footer.readInt();
+                        block.checksums[c] = footer.readLong();
+                        block.hasRange[c] = footer.readBoolean();
+                        block.min[c] = footer.readLong();
+                        block.max[c] = footer.readLong();
+                    }
+                    blocks.add(block);
+                }
+                return new Reader(file, Collections.unmodifiableList(columns), Collections.unmodifiableList(blocks));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open archive file " + file, e);
+            }
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        List<Column> getColumns() {
+            return columns;
+        }
+
+        List<Block> getBlocks() {
+            return blocks;
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+
+        int columnIndex(String name) {
+            for (int c = 0; c < columns.size(); c++) {
+                if (columns.get(c).getName().equals(name)) {
+                    return c;
+                }
+            }
+            throw new IllegalArgumentException("No column " + name + " in " + file);
+        }
+
+        FileChannel openChannel() throws IOException {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        /**
+         * Decodes one column of one block.
+         *
+         * @return one value per row: Long, LocalDateTime, BigDecimal or String, or null
+         */
+        Object[] readColumn(FileChannel channel, Block block, int column) throws IOException {
+            ByteBuffer compressed = readAt(channel, block.chunkOffset(column), block.lengths[column]);
+            CRC32 crc = new CRC32();
+            crc.update(compressed.array(), 0, compressed.limit());
+            if (crc.getValue() != block.checksums[column]) {
+                throw new IllegalStateException("Corrupt archive block in " + file);
+            }
+            byte[] raw = inflate(compressed, block.rawLengths[column]);
+
+            ByteBuffer in = ByteBuffer.wrap(raw);
+            int rows = block.rows;
+            byte[] nulls = new byte[(rows + 7) / 8];
+            in.get(nulls);
+            ColumnType type = columns.get(column).getType();
+            Object[] values = new Object[rows];
+            long previous = 0;
+            for (int row = 0; row < rows; row++) {
+                if ((nulls[row >> 3] & (1 << (row & 7))) != 0) {
+                    continue;
+                }
+                switch (type) {
+                    case LONG -> {
+                        previous += unzigzag(readVarLong(in));
+                        values[row] = previous;
+                    }
+                    case TIMESTAMP -> {
+                        previous += unzigzag(readVarLong(in));
+                        values[row] = fromMicros(previous);
+                    }
+                    case DECIMAL -> {
+                        int scale = (int) unzigzag(readVarLong(in));
+                        values[row] = new BigDecimal(new BigInteger(readBytes(in)), scale);
+                    }
+                    case STRING -> values[row] = new String(readBytes(in), StandardCharsets.UTF_8);
+                }
+            }
+            return values;
+        }
+
+        private byte[] inflate(ByteBuffer compressed, int rawLength) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed.array(), 0, compressed.limit());
+                byte[] raw = new byte[rawLength];
+                int read = 0;
+                while (read < rawLength && !inflater.finished()) {
+                    read += inflater.inflate(raw, read, rawLength - read);
+                }
+                return raw;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt archive block in " + file, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return bytes;
+    }
+}
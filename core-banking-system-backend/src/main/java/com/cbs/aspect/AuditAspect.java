@@ -1,10 +1,10 @@
 // src/main/java/com/cbs/aspect/AuditAspect.java
 package com.cbs.aspect;
 
+import com.cbs.audit.AsyncAuditWriter;
+import com.cbs.audit.AuditEvent;
 import com.cbs.model.entity.User;
-import com.cbs.service.interface_.AuditService;
 import com.cbs.model.enums.AuditAction;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -20,13 +20,11 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 @Component
 public class AuditAspect {
 
-    private final AuditService auditService;
-    private final ObjectMapper objectMapper;
+    private final AsyncAuditWriter auditWriter;
 
     @Autowired
-    public AuditAspect(AuditService auditService, ObjectMapper objectMapper) {
-        this.auditService = auditService;
-        this.objectMapper = objectMapper;
+    public AuditAspect(AsyncAuditWriter auditWriter) {
+        this.auditWriter = auditWriter;
     }
 
     @Around("@annotation(com.cbs.annotation.Auditable)")
@@ -69,41 +67,33 @@ public class AuditAspect {
         // Determine action based on method name
         AuditAction action = determineAction(methodName);
 
-        // Execute the method
-        Object result = null;
+        // Values are snapshotted to JSON here, before the method or the caller can change them
         String oldValues = null;
         String newValues = null;
 
         try {
-            // For update operations, try to capture old values
-            if (action == AuditAction.UPDATE && args.length > 0 && args[0] != null) {
-                try {
-                    oldValues = objectMapper.writeValueAsString(args[0]);
-                } catch (Exception e) {
-                    // Ignore if serialization fails
-                }
+            // For update operations, capture the incoming values
+            if (action == AuditAction.UPDATE && args.length > 0) {
+                oldValues = auditWriter.snapshot(args[0]);
             }
 
             // Proceed with the method execution
-            result = joinPoint.proceed();
-
-            // For create/update operations, try to capture new values
-            if ((action == AuditAction.CREATE || action == AuditAction.UPDATE) && result != null) {
-                try {
-                    newValues = objectMapper.writeValueAsString(result);
-                } catch (Exception e) {
-                    // Ignore if serialization fails
-                }
+            Object result = joinPoint.proceed();
+
+            // For create/update operations, capture the new values
+            if (action == AuditAction.CREATE || action == AuditAction.UPDATE) {
+                newValues = auditWriter.snapshot(result);
             }
 
             // Log the successful action
-            auditService.logAction(userId, action, entityType, entityId, oldValues, newValues, ipAddress, userAgent);
+            auditWriter.submit(new AuditEvent(userId, action, entityType, entityId, oldValues, newValues,
+                    ipAddress, userAgent));
 
             return result;
         } catch (Exception e) {
             // Log the failed action
-            auditService.logAction(userId, action, entityType, entityId, oldValues, "Error: " + e.getMessage(),
-                    ipAddress, userAgent);
+            auditWriter.submit(new AuditEvent(userId, action, entityType, entityId, oldValues,
+                    "Error: " + e.getMessage(), ipAddress, userAgent));
             throw e;
         }
     }
@@ -1,9 +1,15 @@
 package com.cbs.aspect;
 
+import com.cbs.audit.AuditJournal;
+import com.cbs.audit.ErrorRecord;
+import com.cbs.model.entity.ErrorLog;
 import com.cbs.model.entity.User;
+import com.cbs.model.enums.ErrorLevel;
 import com.cbs.service.ErrorService;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,15 +19,23 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+
 @Aspect
 @Component
 public class ErrorLoggingAspect {
 
+    private static final Logger logger = LoggerFactory.getLogger(ErrorLoggingAspect.class);
+
     private final ErrorService errorService;
+    private final AuditJournal auditJournal;
 
     @Autowired
-    public ErrorLoggingAspect(ErrorService errorService) {
+    public ErrorLoggingAspect(ErrorService errorService, AuditJournal auditJournal) {
         this.errorService = errorService;
+        this.auditJournal = auditJournal;
     }
 
     @AfterThrowing(pointcut = "execution(* com.cbs.controller..*(..)) || execution(* com.cbs.service..*(..))", throwing = "ex")
@@ -45,9 +59,23 @@ public class ErrorLoggingAspect {
             errorService.logError(ex, userId, requestUrl, requestMethod, ipAddress, userAgent);
 
         } catch (Exception e) {
-            // Fallback to prevent infinite recursion if logging itself fails
-            System.err.println("Failed to log error: " + e.getMessage());
-            e.printStackTrace();
+            // Fallback to prevent infinite recursion if logging itself fails: keep the error in
+            // the local journal so it still reaches error_logs once the database is back
+            journalFallback(ex, e);
+        }
+    }
+
+    private void journalFallback(Exception ex, Exception loggingFailure) {
+        try {
+            StringWriter stackTrace = new StringWriter();
+            ex.printStackTrace(new PrintWriter(stackTrace));
+            String message = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName();
+            ErrorLog errorLog = new ErrorLog(ex instanceof RuntimeException ? ErrorLevel.FATAL : ErrorLevel.ERROR,
+                    message, stackTrace.toString());
+            errorLog.setCreatedAt(LocalDateTime.now());
+            auditJournal.appendError(new ErrorRecord(errorLog));
+        } catch (Exception journalFailure) {
+            logger.error("Failed to log error: {}", loggingFailure.getMessage(), ex);
         }
     }
 }
\ No newline at end of file
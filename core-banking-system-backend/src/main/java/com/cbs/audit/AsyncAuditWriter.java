@@ -0,0 +1,264 @@
+package com.cbs.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes audit events off the request thread. Events go into a bounded queue; a single background
+ * drainer inserts them into {@code audit_logs} with JDBC batches. Callers {@link #snapshot}
+ * old and new values into JSON themselves before submitting.
+ * <p>
+ * When the queue is full the configured {@link AuditBackpressurePolicy} applies. With
+ * {@code SPILL}, overflow (and batches the database rejected) is appended to the
+ * {@link AuditJournal}, from where {@link AuditJournalReplayer} ships it once the database is
+ * healthy again. On shutdown the drainer is stopped and whatever is
+ * still queued is written before the application context closes.
+ */
+@Component
+public class AsyncAuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAuditWriter.class);
+
+    private final LogBatchWriter logBatchWriter;
+    private final AuditJournal journal;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<AuditEvent> queue;
+    private final AuditBackpressurePolicy backpressurePolicy;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Thread drainer;
+
+    private volatile boolean running;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public AsyncAuditWriter(LogBatchWriter logBatchWriter,
+                            AuditJournal journal,
+                            ObjectMapper objectMapper,
+                            @Value("${cbs.audit.queueCapacity:8192}") int queueCapacity,
+                            @Value("${cbs.audit.batchSize:256}") int batchSize,
+                            @Value("${cbs.audit.flushIntervalMs:200}") long flushIntervalMs,
+                            @Value("${cbs.audit.backpressure:SPILL}") AuditBackpressurePolicy backpressurePolicy) {
+        this.logBatchWriter = logBatchWriter;
+        this.journal = journal;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.backpressurePolicy = backpressurePolicy;
+
+        this.drainer = new Thread(this::drainLoop, "audit-drainer");
+        this.drainer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer.start();
+        logger.info("Async audit writer started (batch size {}, backpressure {})", batchSize, backpressurePolicy);
+    }
+
+    /**
+     * Queues an event for writing. Only blocks when the queue is full and the policy is BLOCK.
+     */
+    public void submit(AuditEvent event) {
+        submitted.incrementAndGet();
+        if (!running) {
+            // Late events during shutdown are written straight through
+            writeBatch(List.of(new AuditRecord(event)));
+            return;
+        }
+        if (queue.offer(event)) {
+            return;
+        }
+
+        switch (backpressurePolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    handled.incrementAndGet();
+                }
+            }
+            case DROP -> {
+                dropped.incrementAndGet();
+                handled.incrementAndGet();
+            }
+            case SPILL -> spill(List.of(new AuditRecord(event)));
+        }
+    }
+
+    /**
+     * Turns an audited value into the JSON stored with its event. Call it on the thread that owns
+     * the value, before anything else can change it.
+     *
+     * @return the JSON, or {@code null} when the value cannot be serialized
+     */
+    public String snapshot(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            // Same as before: an unserializable value is simply not recorded
+            return null;
+        }
+    }
+
+    /**
+     * Waits until every event submitted so far has been written, dropped or spilled.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (handled.get() < submitted.get()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        drainer.join(Math.max(flushIntervalMs * 5, 5000));
+
+        List<AuditEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(toRecords(remaining));
+        }
+        logger.info("Async audit writer stopped: {} written, {} dropped, {} spilled, {} failed",
+                written.get(), dropped.get(), spilled.get(), failed.get());
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(toRecords(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Audit drainer iteration failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private List<AuditRecord> toRecords(List<AuditEvent> events) {
+        List<AuditRecord> records = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            records.add(new AuditRecord(event));
+        }
+        return records;
+    }
+
+    private void writeBatch(List<AuditRecord> records) {
+        try {
+            logBatchWriter.insertAudits(records);
+            written.addAndGet(records.size());
+        } catch (Exception e) {
+            if (backpressurePolicy == AuditBackpressurePolicy.SPILL) {
+                logger.warn("Audit batch of {} could not be written, spilling to the journal: {}", records.size(), e.getMessage());
+                spill(records);
+                return;
+            }
+            discard(insertIndividually(records));
+        }
+        handled.addAndGet(records.size());
+    }
+
+    /**
+     * Retries a rejected batch row by row so one bad record does not take the others with it.
+     *
+     * @return the records that still could not be written
+     */
+    private List<AuditRecord> insertIndividually(List<AuditRecord> records) {
+        List<AuditRecord> rejected = new ArrayList<>();
+        for (AuditRecord record : records) {
+            try {
+                logBatchWriter.insertAudits(List.of(record));
+                written.incrementAndGet();
+            } catch (Exception e) {
+                rejected.add(record);
+            }
+        }
+        return rejected;
+    }
+
+    private void discard(List<AuditRecord> records) {
+        for (AuditRecord record : records) {
+            failed.incrementAndGet();
+            logger.error("Dropping audit record for user {} action {} that the database rejected",
+                    record.getUserId(), record.getAction());
+        }
+    }
+
+    private void spill(List<AuditRecord> records) {
+        for (AuditRecord record : records) {
+            try {
+                journal.appendAudit(record);
+                spilled.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                logger.error("Could not spill audit record for user {} action {} to the journal",
+                        record.getUserId(), record.getAction(), e);
+            }
+        }
+        handled.addAndGet(records.size());
+    }
+}
@@ -0,0 +1,13 @@
+package com.cbs.audit;
+
+/**
+ * What {@link AsyncAuditWriter} does with a new event when its queue is full.
+ */
+public enum AuditBackpressurePolicy {
+    /** Wait for the drainer to make room; audited calls slow down but nothing is lost. */
+    BLOCK,
+    /** Discard the event and count it. */
+    DROP,
+    /** Append the event to the local {@link AuditJournal}; the journal replayer ships it later. */
+    SPILL
+}
@@ -0,0 +1,71 @@
+package com.cbs.audit;
+
+import com.cbs.model.enums.AuditAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * An audited call as captured on the request thread. Old and new values are JSON taken with
+ * {@link AsyncAuditWriter#snapshot} before the event is queued, so the drainer never reads
+ * objects the caller may still be changing.
+ */
+public class AuditEvent {
+    private final Long userId;
+    private final AuditAction action;
+    private final String entityType;
+    private final Long entityId;
+    private final String oldValues;
+    private final String newValues;
+    private final String ipAddress;
+    private final String userAgent;
+    private final LocalDateTime occurredAt;
+
+    public AuditEvent(Long userId, AuditAction action, String entityType, Long entityId, String oldValues,
+            String newValues, String ipAddress, String userAgent) {
+        this.userId = userId;
+        this.action = action;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+        this.ipAddress = ipAddress;
+        this.userAgent = userAgent;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getOldValues() {
+        return oldValues;
+    }
+
+    public String getNewValues() {
+        return newValues;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,491 @@
+package com.cbs.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal for audit and error records, kept in memory-mapped segment files.
+ * <p>
+ * Appending is a copy into the mapped segment, so it costs the same whether or not the database
+ * is reachable; {@link AuditJournalReplayer} ships entries to {@code audit_logs}/{@code error_logs}
+ * afterwards and acknowledges them here. A record is {@code length, type, crc32, payload}; the
+ * length is written last, and recovery stops at the first record whose length or checksum does
+ * not check out, so a torn write is never replayed. Mapped pages survive a process crash; they
+ * reach the disk whenever the replayer calls {@link #force()}, which bounds what an OS crash can
+ * lose to one replay interval.
+ * <p>
+ * The next segment is created and zero-filled on a background thread while the current one fills
+ * up, and a full segment is flushed there too, so rolling over is a pointer swap for the appender.
+ * {@link #force()} still covers records in a segment that was rolled away from.
+ * <p>
+ * The acknowledged position is kept in a small checkpoint file, replaced atomically. Segments
+ * wholly before it are deleted. Replay is at-least-once: a crash between a committed insert and
+ * the checkpoint update sends that batch again.
+ * <p>
+ * The {@code com.cbs.ledger} engine keeps its own instance, in its own directory, for
+ * {@link RecordType#POSTING} records.
+ */
+@Component
+public class AuditJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final int HEADER_SIZE = 9;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    public enum RecordType {
+        AUDIT(1), ERROR(2), POSTING(3);
+
+        private final byte code;
+
+        RecordType(int code) {
+            this.code = (byte) code;
+        }
+
+        static RecordType of(byte code) {
+            for (RecordType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean writeAhead;
+
+    private final Map<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment active;
+
+    // Serializes appends, rolls and checkpoint updates; a lock rather than a monitor so an
+    // appender parked on it, or on the checkpoint write, does not pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Creates the next segment ahead of time and flushes full ones, off the appending threads
+    private final ExecutorService segmentWorker;
+    // Guarded by lock: the segment after the active one, being prepared by segmentWorker
+    private CompletableFuture<Segment> nextSegment;
+
+    // Guarded by lock: read and acknowledged by the replayer thread only, but appenders share the lock
+    private long checkpointSegment;
+    private int checkpointOffset;
+
+    @Autowired
+    public AuditJournal(ObjectMapper objectMapper,
+                        @Value("${cbs.journal.directory:journal}") String directory,
+                        @Value("${cbs.journal.segmentSize:16777216}") int segmentSize,
+                        @Value("${cbs.journal.writeAhead:true}") boolean writeAhead) {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("Journal segment size must be at least 4096 bytes");
+        }
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.segmentSize = segmentSize;
+        this.writeAhead = writeAhead;
+
+        try {
+            Files.createDirectories(this.directory);
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize audit journal in " + this.directory, e);
+        }
+        this.segmentWorker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-segments-" + this.directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        lock.lock();
+        try {
+            nextSegment = prepare(active.id + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether {@code AuditServiceImpl} and {@code ErrorServiceImpl} write here instead of to the
+     * database. When off, the journal only takes audit spill and failed error logging.
+     */
+    public boolean isWriteAhead() {
+        return writeAhead;
+    }
+
+    public void appendAudit(AuditRecord record) {
+        append(RecordType.AUDIT, toBytes(record));
+    }
+
+    public void appendError(ErrorRecord record) {
+        append(RecordType.ERROR, toBytes(record));
+    }
+
+    public void append(RecordType type, byte[] payload) {
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        }
+        lock.lock();
+        try {
+            Segment segment = active;
+            if (segment.limit + size > segmentSize) {
+                segment = roll(segment);
+            }
+
+            int position = segment.limit;
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.put(position + 4, type.code);
+            buffer.putInt(position + 5, checksum(type.code, payload));
+            buffer.put(position + HEADER_SIZE, payload);
+            // Length last: until it is non-zero recovery treats the slot as the end of the journal
+            buffer.putInt(position, payload.length);
+            segment.limit = position + size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code max} entries after the acknowledged position without consuming them.
+     */
+    public List<Entry> read(int max) {
+        long segmentId;
+        int offset;
+        lock.lock();
+        try {
+            segmentId = checkpointSegment;
+            offset = checkpointOffset;
+        } finally {
+            lock.unlock();
+        }
+
+        List<Entry> entries = new ArrayList<>(Math.min(max, 1024));
+        Segment segment = segments.get(segmentId);
+        while (segment != null && entries.size() < max) {
+            if (offset < segment.limit) {
+                Entry entry = readAt(segment, offset);
+                entries.add(entry);
+                offset = entry.nextOffset;
+            } else if (segment.sealed && offset >= segment.limit) {
+                // limit is published before sealed, so a sealed segment's limit is final here
+                segment = segments.get(segment.id + 1);
+                offset = 0;
+            } else {
+                break;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Marks everything up to and including {@code entry} as shipped and deletes segments that are
+     * no longer needed.
+     */
+    public void acknowledge(Entry entry) {
+        lock.lock();
+        try {
+            try {
+                Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+                ByteBuffer checkpoint = ByteBuffer.allocate(12).putLong(entry.segmentId).putInt(entry.nextOffset);
+                Files.write(temp, checkpoint.array());
+                Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not update audit journal checkpoint", e);
+            }
+            checkpointSegment = entry.segmentId;
+            checkpointOffset = entry.nextOffset;
+
+            for (Segment segment : List.copyOf(segments.values())) {
+                if (segment.id >= checkpointSegment) {
+                    break;
+                }
+                segments.remove(segment.id);
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete replayed journal segment {}", segment.path, e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes mapped pages of the active segment to disk, and of any full segment whose
+     * background flush has not finished yet.
+     */
+    public void force() {
+        Segment current = active;
+        for (Segment segment : segments.values()) {
+            if (segment.id >= current.id) {
+                break;
+            }
+            if (!segment.flushed) {
+                flush(segment);
+            }
+        }
+        current.buffer.force();
+    }
+
+    public <T> T decode(Entry entry, Class<T> type) throws IOException {
+        return objectMapper.readValue(entry.payload, type);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            segmentWorker.shutdown();
+            try {
+                // Let a segment being prepared finish, so nothing writes to the directory after close
+                if (!segmentWorker.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Audit journal segment worker in {} did not stop in time", directory);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] toBytes(Object record) {
+        try {
+            return objectMapper.writeValueAsBytes(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize journal record", e);
+        }
+    }
+
+    private Entry readAt(Segment segment, int offset) {
+        MappedByteBuffer buffer = segment.buffer;
+        int length = buffer.getInt(offset);
+        RecordType type = RecordType.of(buffer.get(offset + 4));
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_SIZE, payload);
+        return new Entry(type, payload, segment.id, offset + HEADER_SIZE + length);
+    }
+
+    private Segment roll(Segment current) {
+        Segment next;
+        try {
+            // Normally ready long before the current segment fills up
+            next = nextSegment.join();
+        } catch (CompletionException e) {
+            // Try again on the next roll rather than keep the failure
+            nextSegment = prepare(current.id + 1);
+            throw new UncheckedIOException("Could not create audit journal segment",
+                    e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause()));
+        }
+        segments.put(next.id, next);
+        current.sealed = true;
+        active = next;
+        segmentWorker.execute(() -> flush(current));
+        nextSegment = prepare(next.id + 1);
+        return next;
+    }
+
+    private CompletableFuture<Segment> prepare(long id) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return openSegment(id, true);
+            } catch (IOException e) {
+                logger.error("Could not create audit journal segment {}", segmentPath(id), e);
+                throw new UncheckedIOException(e);
+            }
+        }, segmentWorker);
+    }
+
+    private static void flush(Segment segment) {
+        segment.buffer.force();
+        segment.flushed = true;
+    }
+
+    private void recover() throws IOException {
+        List<Long> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointFile)) {
+            ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+            checkpointSegment = checkpoint.getLong();
+            checkpointOffset = checkpoint.getInt();
+        } else {
+            checkpointSegment = ids.isEmpty() ? 0 : ids.get(0);
+            checkpointOffset = 0;
+        }
+
+        Segment last = null;
+        for (Long id : ids) {
+            if (id < checkpointSegment) {
+                Files.deleteIfExists(segmentPath(id));
+                continue;
+            }
+            Segment segment = openSegment(id, false);
+            segment.limit = scan(segment);
+            if (last != null) {
+                last.sealed = true;
+                last.flushed = true;
+            }
+            segments.put(id, segment);
+            last = segment;
+        }
+
+        if (last == null) {
+            last = openSegment(checkpointSegment, true);
+            segments.put(last.id, last);
+            checkpointOffset = 0;
+        } else if (!segments.containsKey(checkpointSegment)) {
+            // The checkpointed segment is gone; start from the oldest one still on disk
+            checkpointSegment = segments.keySet().iterator().next();
+            checkpointOffset = 0;
+        }
+        active = last;
+
+        long pending = segments.values().stream().mapToLong(segment -> segment.limit).sum() - checkpointOffset;
+        if (pending > 0) {
+            logger.info("Audit journal recovered with {} unreplayed bytes in {}", pending, directory);
+        }
+    }
+
+    private int scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte code = buffer.get(offset + 4);
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            if (RecordType.of(code) == null || buffer.getInt(offset + 5) != checksum(code, payload)) {
+                logger.warn("Audit journal segment {} ends in a torn record at offset {}", segment.path, offset);
+                break;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private Segment openSegment(long id, boolean create) throws IOException {
+        Path path = segmentPath(id);
+        if (create) {
+            // Zero-fill up front so a full disk fails here with an IOException instead of as a
+            // fault on a later write into the mapping. Only ever called for ids past the active
+            // segment, so an existing file is a leftover of an earlier failed attempt.
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer zeros = ByteBuffer.allocate(64 * 1024);
+                for (long written = 0; written < segmentSize; written += zeros.capacity()) {
+                    zeros.clear().limit((int) Math.min(zeros.capacity(), segmentSize - written));
+                    while (zeros.hasRemaining()) {
+                        channel.write(zeros);
+                    }
+                }
+                channel.force(true);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static int checksum(byte code, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(code);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        // Written only under the journal lock; volatile so the replayer sees complete records
+        private volatile int limit;
+        private volatile boolean sealed;
+        // Set once a sealed segment's pages are on disk
+        private volatile boolean flushed;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * One journal record and the position just after it.
+     */
+    public static final class Entry {
+        private final RecordType type;
+        private final byte[] payload;
+        private final long segmentId;
+        private final int nextOffset;
+
+        private Entry(RecordType type, byte[] payload, long segmentId, int nextOffset) {
+            this.type = type;
+            this.payload = payload;
+            this.segmentId = segmentId;
+            this.nextOffset = nextOffset;
+        }
+
+        public RecordType getType() {
+            return type;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.cbs.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ships {@link AuditJournal} entries into {@code audit_logs} and {@code error_logs}.
+ * <p>
+ * A single background thread reads a batch, inserts its audit and error records in one
+ * transaction and then acknowledges the batch in the journal. While the database is unreachable
+ * it backs off, doubling the wait up to {@code cbs.journal.maxBackoffMs}, and leaves the entries
+ * where they are. A batch the database rejects while otherwise healthy is retried record by record.
+ * Records refused for their content (a constraint or data error) are logged and skipped, so one
+ * bad row cannot hold up the journal; any other failure keeps the rest of the batch for the next
+ * round.
+ */
+@Component
+public class AuditJournalReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournalReplayer.class);
+
+    private final AuditJournal journal;
+    private final LogBatchWriter logBatchWriter;
+    private final int batchSize;
+    private final long intervalMs;
+    private final long maxBackoffMs;
+    private final Thread replayer;
+
+    private volatile boolean running;
+
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public AuditJournalReplayer(AuditJournal journal,
+                                LogBatchWriter logBatchWriter,
+                                @Value("${cbs.journal.replayBatchSize:500}") int batchSize,
+                                @Value("${cbs.journal.replayIntervalMs:500}") long intervalMs,
+                                @Value("${cbs.journal.maxBackoffMs:30000}") long maxBackoffMs) {
+        this.journal = journal;
+        this.logBatchWriter = logBatchWriter;
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.replayer = new Thread(this::replayLoop, "audit-journal-replayer");
+        this.replayer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        replayer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        replayer.interrupt();
+        replayer.join(5000);
+        logger.info("Audit journal replayer stopped: {} replayed, {} rejected", replayed.get(), rejected.get());
+    }
+
+    public long getReplayedCount() {
+        return replayed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private void replayLoop() {
+        long backoff = intervalMs;
+        while (running) {
+            try {
+                journal.force();
+                boolean shipped = replayBatch();
+                if (shipped) {
+                    backoff = intervalMs;
+                    continue;
+                }
+                Thread.sleep(backoff);
+                if (!journal.read(1).isEmpty()) {
+                    // Entries are waiting, so the last attempt failed: wait longer next time
+                    backoff = Math.min(backoff * 2, maxBackoffMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Audit journal replay iteration failed", e);
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Ships one batch.
+     *
+     * @return true if entries were shipped (or skipped as rejected), false if there was nothing to
+     * ship or the database is unavailable
+     */
+    boolean replayBatch() {
+        List<AuditJournal.Entry> entries = journal.read(batchSize);
+        if (entries.isEmpty()) {
+            return false;
+        }
+
+        // In journal order, null where an entry could not be decoded
+        List<Object> records = new ArrayList<>(entries.size());
+        List<AuditRecord> audits = new ArrayList<>();
+        List<ErrorRecord> errors = new ArrayList<>();
+        for (AuditJournal.Entry entry : entries) {
+            Object record = null;
+            try {
+                if (entry.getType() == AuditJournal.RecordType.AUDIT) {
+                    AuditRecord audit = journal.decode(entry, AuditRecord.class);
+                    audits.add(audit);
+                    record = audit;
+                } else if (entry.getType() == AuditJournal.RecordType.ERROR) {
+                    ErrorRecord error = journal.decode(entry, ErrorRecord.class);
+                    errors.add(error);
+                    record = error;
+                }
+            } catch (Exception e) {
+                rejected.incrementAndGet();
+                logger.error("Skipping undecodable {} entry in the audit journal", entry.getType(), e);
+            }
+            records.add(record);
+        }
+
+        try {
+            logBatchWriter.insert(audits, errors);
+            replayed.addAndGet(audits.size() + errors.size());
+        } catch (Exception e) {
+            if (!logBatchWriter.databaseAvailable()) {
+                logger.warn("Database unavailable, {} journal entries kept for later: {}", entries.size(), e.getMessage());
+                return false;
+            }
+            return insertIndividually(entries, records);
+        }
+
+        journal.acknowledge(entries.get(entries.size() - 1));
+        return true;
+    }
+
+    /**
+     * Inserts the batch one record at a time, skipping only records the database refuses for
+     * their content. Any other failure stops the batch: the records before it are acknowledged
+     * and the rest stay in the journal.
+     *
+     * @return whether the whole batch was dealt with
+     */
+    private boolean insertIndividually(List<AuditJournal.Entry> entries, List<Object> records) {
+        for (int index = 0; index < entries.size(); index++) {
+            Object record = records.get(index);
+            try {
+                if (record instanceof AuditRecord audit) {
+                    logBatchWriter.insertAudits(List.of(audit));
+                } else if (record instanceof ErrorRecord error) {
+                    logBatchWriter.insertErrors(List.of(error));
+                }
+                if (record != null) {
+                    replayed.incrementAndGet();
+                }
+            } catch (DataIntegrityViolationException | TypeMismatchDataAccessException e) {
+                rejected.incrementAndGet();
+                logger.error("Dropping journaled {} that the database rejected", describe(record), e);
+            } catch (Exception e) {
+                logger.warn("Replay stopped at a journaled {}, keeping it and {} more for later: {}",
+                        describe(record), entries.size() - index - 1, e.getMessage());
+                if (index > 0) {
+                    journal.acknowledge(entries.get(index - 1));
+                }
+                return false;
+            }
+        }
+        journal.acknowledge(entries.get(entries.size() - 1));
+        return true;
+    }
+
+    private static String describe(Object record) {
+        if (record instanceof AuditRecord audit) {
+            return "audit record for user " + audit.getUserId() + " action " + audit.getAction();
+        }
+        return "error record '" + ((ErrorRecord) record).getErrorMessage() + "'";
+    }
+}
@@ -0,0 +1,122 @@
+package com.cbs.audit;
+
+import com.cbs.model.entity.AuditLog;
+import com.cbs.model.enums.AuditAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row-shaped, fully serialized form of an {@link AuditEvent}: what is inserted into
+ * {@code audit_logs} and what is written to the {@link AuditJournal}.
+ */
+public class AuditRecord {
+    private Long userId;
+    private AuditAction action;
+    private String entityType;
+    private Long entityId;
+    private String oldValues;
+    private String newValues;
+    private String ipAddress;
+    private String userAgent;
+    private LocalDateTime createdAt;
+
+    public AuditRecord() {
+    }
+
+    public AuditRecord(AuditEvent event) {
+        this.userId = event.getUserId();
+        this.action = event.getAction();
+        this.entityType = event.getEntityType();
+        this.entityId = event.getEntityId();
+        this.oldValues = event.getOldValues();
+        this.newValues = event.getNewValues();
+        this.ipAddress = event.getIpAddress();
+        this.userAgent = event.getUserAgent();
+        this.createdAt = event.getOccurredAt();
+    }
+
+    public AuditRecord(AuditLog auditLog) {
+        this.userId = auditLog.getUserId();
+        this.action = auditLog.getAction();
+        this.entityType = auditLog.getEntityType();
+        this.entityId = auditLog.getEntityId();
+        this.oldValues = auditLog.getOldValues();
+        this.newValues = auditLog.getNewValues();
+        this.ipAddress = auditLog.getIpAddress();
+        this.userAgent = auditLog.getUserAgent();
+        this.createdAt = auditLog.getCreatedAt();
+    }
+
+    // Getters and setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public void setAction(AuditAction action) {
+        this.action = action;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getOldValues() {
+        return oldValues;
+    }
+
+    public void setOldValues(String oldValues) {
+        this.oldValues = oldValues;
+    }
+
+    public String getNewValues() {
+        return newValues;
+    }
+
+    public void setNewValues(String newValues) {
+        this.newValues = newValues;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public void setIpAddress(String ipAddress) {
+        this.ipAddress = ipAddress;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
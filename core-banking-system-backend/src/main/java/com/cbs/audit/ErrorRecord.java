@@ -0,0 +1,130 @@
+package com.cbs.audit;
+
+import com.cbs.model.entity.ErrorLog;
+import com.cbs.model.enums.ErrorLevel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row-shaped form of an {@link ErrorLog}: what is written to the {@link AuditJournal} and later
+ * inserted into {@code error_logs}.
+ */
+public class ErrorRecord {
+    private ErrorLevel errorLevel;
+    private String errorMessage;
+    private String stackTrace;
+    private Long userId;
+    private String requestUrl;
+    private String requestMethod;
+    private String ipAddress;
+    private String userAgent;
+    private String entityType;
+    private Long entityId;
+    private LocalDateTime createdAt;
+
+    public ErrorRecord() {
+    }
+
+    public ErrorRecord(ErrorLog errorLog) {
+        this.errorLevel = errorLog.getErrorLevel();
+        this.errorMessage = errorLog.getErrorMessage();
+        this.stackTrace = errorLog.getStackTrace();
+        this.userId = errorLog.getUserId();
+        this.requestUrl = errorLog.getRequestUrl();
+        this.requestMethod = errorLog.getRequestMethod();
+        this.ipAddress = errorLog.getIpAddress();
+        this.userAgent = errorLog.getUserAgent();
+        this.entityType = errorLog.getEntityType();
+        this.entityId = errorLog.getEntityId();
+        this.createdAt = errorLog.getCreatedAt();
+    }
+
+    // Getters and setters
+    public ErrorLevel getErrorLevel() {
+        return errorLevel;
+    }
+
+    public void setErrorLevel(ErrorLevel errorLevel) {
+        this.errorLevel = errorLevel;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getStackTrace() {
+        return stackTrace;
+    }
+
+    public void setStackTrace(String stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getRequestUrl() {
+        return requestUrl;
+    }
+
+    public void setRequestUrl(String requestUrl) {
+        this.requestUrl = requestUrl;
+    }
+
+    public String getRequestMethod() {
+        return requestMethod;
+    }
+
+    public void setRequestMethod(String requestMethod) {
+        this.requestMethod = requestMethod;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public void setIpAddress(String ipAddress) {
+        this.ipAddress = ipAddress;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
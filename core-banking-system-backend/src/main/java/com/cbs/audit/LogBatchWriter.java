@@ -0,0 +1,101 @@
+package com.cbs.audit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch inserts into {@code audit_logs} and {@code error_logs}, shared by the async audit
+ * drainer and the journal replayer. Each call runs in its own transaction so a batch is either
+ * written completely or not at all.
+ */
+@Component
+public class LogBatchWriter {
+
+    private static final String AUDIT_INSERT_SQL =
+            "INSERT INTO audit_logs (user_id, action, entity_type, entity_id, old_values, new_values, " +
+            "ip_address, user_agent, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] AUDIT_INSERT_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP };
+
+    private static final String ERROR_INSERT_SQL =
+            "INSERT INTO error_logs (error_level, error_message, stack_trace, user_id, request_url, " +
+            "request_method, ip_address, user_agent, entity_type, entity_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] ERROR_INSERT_TYPES = {
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public LogBatchWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void insertAudits(List<AuditRecord> records) {
+        insert(records, List.of());
+    }
+
+    public void insertErrors(List<ErrorRecord> records) {
+        insert(List.of(), records);
+    }
+
+    public void insert(List<AuditRecord> auditRecords, List<ErrorRecord> errorRecords) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!auditRecords.isEmpty()) {
+                jdbcTemplate.batchUpdate(AUDIT_INSERT_SQL, auditRows(auditRecords), AUDIT_INSERT_TYPES);
+            }
+            if (!errorRecords.isEmpty()) {
+                jdbcTemplate.batchUpdate(ERROR_INSERT_SQL, errorRows(errorRecords), ERROR_INSERT_TYPES);
+            }
+        });
+    }
+
+    public boolean databaseAvailable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private List<Object[]> auditRows(List<AuditRecord> records) {
+        List<Object[]> rows = new ArrayList<>(records.size());
+        for (AuditRecord record : records) {
+            rows.add(new Object[] {
+                    record.getUserId(), record.getAction().name(), record.getEntityType(), record.getEntityId(),
+                    record.getOldValues(), record.getNewValues(), record.getIpAddress(), record.getUserAgent(),
+                    timestamp(record.getCreatedAt()) });
+        }
+        return rows;
+    }
+
+    private List<Object[]> errorRows(List<ErrorRecord> records) {
+        List<Object[]> rows = new ArrayList<>(records.size());
+        for (ErrorRecord record : records) {
+            rows.add(new Object[] {
+                    record.getErrorLevel().name(), record.getErrorMessage(), record.getStackTrace(),
+                    record.getUserId(), record.getRequestUrl(), record.getRequestMethod(), record.getIpAddress(),
+                    record.getUserAgent(), record.getEntityType(), record.getEntityId(),
+                    timestamp(record.getCreatedAt()) });
+        }
+        return rows;
+    }
+
+    private Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime != null ? dateTime : LocalDateTime.now());
+    }
+}
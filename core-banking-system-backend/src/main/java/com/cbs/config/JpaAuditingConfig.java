@@ -0,0 +1,13 @@
+package com.cbs.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * Turns on {@code @CreatedDate}/{@code @LastModifiedDate}. Kept off the application class so
+ * {@code @WebMvcTest} slices, which have no JPA metamodel, do not pick it up.
+ */
+@Configuration
+@EnableJpaAuditing
+public class JpaAuditingConfig {
+}
@@ -0,0 +1,25 @@
+package com.cbs.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
+
+/**
+ * Runs the {@code @Scheduled} background jobs: archival, KYC expiry and partition maintenance.
+ * Each job is only a bean when its {@code enabled} flag is set; the pool is sized by
+ * {@code spring.task.scheduling.pool.size}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * The time the jobs work from; tests construct the jobs with a fixed clock instead.
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cbs.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Request execution on virtual threads.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} Spring Boot runs Tomcat requests, and the
+ * application task executor that writes streamed responses such as statement exports, on virtual
+ * threads, so a request waiting on JDBC no longer holds one of Tomcat's 200 platform threads. The
+ * ceiling then moves to the connection pool: thousands of requests can be in flight, but only as
+ * many as there are connections reach the database. The pool is therefore sized for the database
+ * rather than for the request threads (see {@link #hikariPoolSizing}), and waiters give up sooner
+ * so a burst is turned away instead of queueing for the full connection timeout.
+ * <p>
+ * CPU-bound work such as BCrypt gains nothing; it still competes for one carrier per core.
+ * Blocking inside {@code synchronized} pins the carrier, which {@code VirtualThreadPinningMonitor}
+ * reports. The PostgreSQL driver (42.6+) and HikariCP guard their I/O with locks rather than
+ * monitors, and so do {@code AuditJournal} and {@code AccountNumberGenerator}, so the usual paths
+ * do not pin.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Fixes the Hikari pool at {@code cbs.virtualThreads.poolSize} connections, or at
+     * {@code databaseCores * 2 + 1} when no size is given, the usual starting point for a
+     * PostgreSQL server on SSDs. {@code cbs.virtualThreads.databaseCores} defaults to the cores of
+     * this host. Only applies in virtual-thread mode; otherwise {@code spring.datasource.hikari}
+     * is used as configured.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public static BeanPostProcessor hikariPoolSizing(Environment environment) {
+        int poolSize = environment.getProperty("cbs.virtualThreads.poolSize", Integer.class, 0);
+        int databaseCores = environment.getProperty("cbs.virtualThreads.databaseCores", Integer.class,
+                Runtime.getRuntime().availableProcessors());
+        long connectionTimeoutMs = environment.getProperty("cbs.virtualThreads.connectionTimeoutMs",
+                Long.class, 5000L);
+        int size = poolSize > 0 ? poolSize : databaseCores * 2 + 1;
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Runs after spring.datasource.hikari is bound and before the pool starts
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.setMaximumPoolSize(size);
+                    // A fixed-size pool never opens connections on the request path
+                    dataSource.setMinimumIdle(size);
+                    dataSource.setConnectionTimeout(connectionTimeoutMs);
+                    logger.info("Virtual threads enabled; {} sized to {} connections, {} ms connection timeout",
+                            beanName, size, connectionTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -2,14 +2,24 @@ package com.cbs.controller;
 
 import com.cbs.model.dto.request.AccountCreationRequest;
 import com.cbs.model.dto.response.AccountResponse;
+import com.cbs.model.enums.StatementFormat;
 import com.cbs.service.interface_.AccountService;
+import com.cbs.service.interface_.StatementService;
+import com.cbs.util.AccountCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -18,10 +28,17 @@ import java.util.Map;
 public class AccountController {
     
     private final AccountService accountService;
+    private final StatementService statementService;
+    private final ObjectMapper objectMapper;
+    private final AccountCache accountCache;
     
     @Autowired
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, StatementService statementService,
+                             ObjectMapper objectMapper, AccountCache accountCache) {
         this.accountService = accountService;
+        this.statementService = statementService;
+        this.objectMapper = objectMapper;
+        this.accountCache = accountCache;
     }
     
     @PostMapping
@@ -90,6 +107,50 @@ public class AccountController {
         }
     }
     
+    @GetMapping("/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format) {
+        StatementFormat statementFormat;
+        try {
+            statementFormat = StatementFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return statementError(HttpStatus.BAD_REQUEST, "Unsupported statement format: " + format);
+        }
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.withDayOfYear(1);
+        if (fromDate.isAfter(toDate)) {
+            return statementError(HttpStatus.BAD_REQUEST, "Statement start date is after its end date");
+        }
+        // Checked up front: once rows start streaming the status can no longer change
+        if (accountService.getAccountById(accountId).isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        StreamingResponseBody body = outputStream ->
+                statementService.writeStatement(accountId, fromDate, toDate, statementFormat, outputStream);
+        String fileName = "statement-" + accountId + "-" + fromDate + "-" + toDate + "." + statementFormat.name().toLowerCase();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(statementFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+    
+    // A streaming endpoint cannot return a Map body, so errors are written as the same JSON
+    private ResponseEntity<StreamingResponseBody> statementError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, Map.of("error", message)));
+    }
+    
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        return ResponseEntity.ok(accountCache.stats());
+    }
+    
     @GetMapping("/low-balance")
     public ResponseEntity<List<AccountResponse>> getAccountsWithLowBalance() {
         List<AccountResponse> accounts = accountService.getAccountsWithLowBalance();
@@ -1,16 +1,24 @@
 package com.cbs.controller;
 
+import com.cbs.kyc.KycDocumentPipeline;
+import com.cbs.model.dto.request.KYCBatchVerificationRequest;
 import com.cbs.model.dto.request.KYCUploadRequest;
 import com.cbs.model.dto.request.KYCVerificationRequest;
+import com.cbs.model.dto.response.ExpiringKYCResponse;
+import com.cbs.model.dto.response.KYCBatchVerificationResponse;
 import com.cbs.model.dto.response.KYCResponse;
+import com.cbs.security.UserPrincipal;
 import com.cbs.service.interface_.KYCService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,10 +29,12 @@ import java.util.Map;
 public class KYCController {
     
     private final KYCService kycService;
+    private final KycDocumentPipeline documentPipeline;
     
     @Autowired
-    public KYCController(KYCService kycService) {
+    public KYCController(KYCService kycService, KycDocumentPipeline documentPipeline) {
         this.kycService = kycService;
+        this.documentPipeline = documentPipeline;
     }
     
     @PostMapping("/upload")
@@ -34,9 +44,25 @@ public class KYCController {
     }
     
     @PostMapping("/upload-with-file")
-    public ResponseEntity<KYCResponse> uploadDocumentWithFile(
+    public ResponseEntity<?> uploadDocumentWithFile(
             @RequestPart("request") @Valid KYCUploadRequest request,
             @RequestPart("file") MultipartFile file) {
+        if (documentPipeline.isEnabled()) {
+            // Accepted for processing; the record's status shows when the document is ready for review
+            try {
+                KYCResponse kycResponse = kycService.submitDocumentWithFile(request, file);
+                return ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                                .path("/api/kyc/{kycId}")
+                                .buildAndExpand(kycResponse.getKycId())
+                                .toUri())
+                        .body(kycResponse);
+            } catch (KycDocumentPipeline.BusyException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(Map.of("error", e.getMessage()));
+            }
+        }
         KYCResponse kycResponse = kycService.uploadDocumentWithFile(request, file);
         return new ResponseEntity<>(kycResponse, HttpStatus.CREATED);
     }
@@ -77,8 +103,8 @@ public class KYCController {
     public ResponseEntity<KYCResponse> verifyKyc(
             @PathVariable Long kycId,
             @RequestBody KYCVerificationRequest verificationRequest,
-            @RequestHeader(value = "X-Verified-By", required = false) Long verifiedBy) {
-        KYCResponse kycResponse = kycService.verifyKyc(kycId, verificationRequest, verifiedBy);
+            @AuthenticationPrincipal UserPrincipal reviewer) {
+        KYCResponse kycResponse = kycService.verifyKyc(kycId, verificationRequest, reviewer.getUserId());
         return new ResponseEntity<>(kycResponse, HttpStatus.OK);
     }
     
@@ -86,12 +112,39 @@ public class KYCController {
     public ResponseEntity<KYCResponse> rejectKyc(
             @PathVariable Long kycId,
             @RequestBody Map<String, String> request,
-            @RequestHeader(value = "X-Verified-By", required = false) Long verifiedBy) {
+            @AuthenticationPrincipal UserPrincipal reviewer) {
         String rejectionReason = request.get("rejectionReason");
-        KYCResponse kycResponse = kycService.rejectKyc(kycId, rejectionReason, verifiedBy);
+        KYCResponse kycResponse = kycService.rejectKyc(kycId, rejectionReason, reviewer.getUserId());
         return new ResponseEntity<>(kycResponse, HttpStatus.OK);
     }
     
+    @PostMapping("/verify/batch")
+    public ResponseEntity<?> verifyKycBatch(
+            @Valid @RequestBody KYCBatchVerificationRequest request,
+            @AuthenticationPrincipal UserPrincipal reviewer) {
+        try {
+            KYCBatchVerificationResponse batchResponse = kycService.verifyKycBatch(request, reviewer.getUserId());
+            return new ResponseEntity<>(batchResponse, HttpStatus.OK);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Each call returns the reviewer's current page: documents they still hold, topped up with
+    // unclaimed ones. Deciding a document releases it. Claims and decisions belong to the
+    // authenticated user, never to an id the client supplies.
+    @PostMapping("/review-queue/claim")
+    public ResponseEntity<?> claimReviewQueue(
+            @AuthenticationPrincipal UserPrincipal reviewer,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<KYCResponse> kycList = kycService.claimReviewQueue(reviewer.getUserId(), limit);
+            return new ResponseEntity<>(kycList, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/pending")
     public ResponseEntity<List<KYCResponse>> getPendingKyc() {
         List<KYCResponse> kycList = kycService.getPendingKyc();
@@ -104,6 +157,13 @@ public class KYCController {
         return new ResponseEntity<>(kycList, HttpStatus.OK);
     }
     
+    @GetMapping("/expiring")
+    public ResponseEntity<List<ExpiringKYCResponse>> getExpiringKyc(
+            @RequestParam(defaultValue = "30") int days) {
+        List<ExpiringKYCResponse> kycList = kycService.getExpiringKyc(days);
+        return new ResponseEntity<>(kycList, HttpStatus.OK);
+    }
+    
     @GetMapping("/user/{userId}/completed")
     public ResponseEntity<Map<String, Object>> checkUserKycStatus(@PathVariable Long userId) {
         boolean isCompleted = kycService.hasUserCompletedKYC(userId);
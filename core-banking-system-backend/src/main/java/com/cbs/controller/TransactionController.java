@@ -1,9 +1,14 @@
 package com.cbs.controller;
 
+import com.cbs.ledger.ShardedLedger;
+import com.cbs.model.dto.request.BatchPostingRequest;
 import com.cbs.model.dto.request.DepositRequest;
 import com.cbs.model.dto.request.TransferRequest;
 import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.BatchPostingResponse;
+import com.cbs.model.dto.response.CursorPage;
 import com.cbs.model.dto.response.TransactionResponse;
+import com.cbs.service.interface_.IdempotencyService;
 import com.cbs.service.interface_.TransactionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,34 +26,88 @@ import java.util.Map;
 @RequestMapping("/api/transactions")
 public class TransactionController {
     
+    private static final String DEFAULT_PAGE_SIZE = "50";
+    
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final ShardedLedger shardedLedger;
     
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, IdempotencyService idempotencyService,
+                                 ShardedLedger shardedLedger) {
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
+        this.shardedLedger = shardedLedger;
     }
     
+    // Money-moving endpoints accept an optional Idempotency-Key header: a retry with the same key
+    // and body returns the original response instead of posting again. With the in-memory ledger
+    // engine enabled, deposits, withdrawals and transfers are posted there instead of in the
+    // database, and the engine journals the key with the posting. A posting the engine does not
+    // answer for in time gets a 504, since it may still be applied.
+    
     @PostMapping("/deposit")
-    public ResponseEntity<TransactionResponse> deposit(@Valid @RequestBody DepositRequest request) {
-        TransactionResponse transactionResponse = transactionService.deposit(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(transactionResponse);
+    public ResponseEntity<?> deposit(@Valid @RequestBody DepositRequest request,
+                                     @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws Exception {
+        try {
+            TransactionResponse transactionResponse = shardedLedger.isEnabled()
+                    ? shardedLedger.deposit(request, idempotencyKey)
+                    : idempotencyService.execute(idempotencyKey, "DEPOSIT", request,
+                            () -> transactionService.deposit(request));
+            return ResponseEntity.status(HttpStatus.CREATED).body(transactionResponse);
+        } catch (IdempotencyService.KeyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (ShardedLedger.OutcomeUnknownException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @PostMapping("/withdraw")
-    public ResponseEntity<?> withdraw(@Valid @RequestBody WithdrawalRequest request) {
+    public ResponseEntity<?> withdraw(@Valid @RequestBody WithdrawalRequest request,
+                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         try {
-            TransactionResponse transactionResponse = transactionService.withdraw(request);
+            TransactionResponse transactionResponse = shardedLedger.isEnabled()
+                    ? shardedLedger.withdraw(request, idempotencyKey)
+                    : idempotencyService.execute(idempotencyKey, "WITHDRAWAL", request,
+                            () -> transactionService.withdraw(request));
             return ResponseEntity.status(HttpStatus.CREATED).body(transactionResponse);
+        } catch (IdempotencyService.KeyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (ShardedLedger.OutcomeUnknownException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         }
     }
     
     @PostMapping("/transfer")
-    public ResponseEntity<?> transfer(@Valid @RequestBody TransferRequest request) {
+    public ResponseEntity<?> transfer(@Valid @RequestBody TransferRequest request,
+                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         try {
-            TransactionResponse transactionResponse = transactionService.transfer(request);
+            TransactionResponse transactionResponse = shardedLedger.isEnabled()
+                    ? shardedLedger.transfer(request, idempotencyKey)
+                    : idempotencyService.execute(idempotencyKey, "TRANSFER", request,
+                            () -> transactionService.transfer(request));
             return ResponseEntity.status(HttpStatus.CREATED).body(transactionResponse);
+        } catch (IdempotencyService.KeyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (ShardedLedger.OutcomeUnknownException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/batch")
+    public ResponseEntity<?> postBatch(@Valid @RequestBody BatchPostingRequest request) {
+        try {
+            BatchPostingResponse batchResponse = transactionService.postBatch(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(batchResponse);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         }
@@ -68,46 +127,89 @@ public class TransactionController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // History listings are keyset-paginated: pass the previous page's nextCursor as cursor
+    
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<TransactionResponse>> getTransactionsByAccountId(@PathVariable Long accountId) {
-        List<TransactionResponse> transactions = transactionService.getTransactionsByAccountId(accountId);
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<?> getTransactionsByAccountId(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            CursorPage<TransactionResponse> transactions = transactionService.getTransactionsByAccountId(accountId, cursor, limit);
+            return ResponseEntity.ok(transactions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<TransactionResponse>> getTransactionsByUserId(@PathVariable Long userId) {
-        List<TransactionResponse> transactions = transactionService.getTransactionsByUserId(userId);
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<?> getTransactionsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            CursorPage<TransactionResponse> transactions = transactionService.getTransactionsByUserId(userId, cursor, limit);
+            return ResponseEntity.ok(transactions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/user/{userId}/status/{status}")
-    public ResponseEntity<List<TransactionResponse>> getTransactionsByUserIdAndStatus(
-            @PathVariable Long userId, @PathVariable String status) {
-        List<TransactionResponse> transactions = transactionService.getTransactionsByUserIdAndStatus(userId, status);
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<?> getTransactionsByUserIdAndStatus(
+            @PathVariable Long userId, @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            CursorPage<TransactionResponse> transactions =
+                    transactionService.getTransactionsByUserIdAndStatus(userId, status, cursor, limit);
+            return ResponseEntity.ok(transactions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping
-    public ResponseEntity<List<TransactionResponse>> getAllTransactions() {
-        List<TransactionResponse> transactions = transactionService.getAllTransactions();
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<?> getAllTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            CursorPage<TransactionResponse> transactions = transactionService.getAllTransactions(cursor, limit);
+            return ResponseEntity.ok(transactions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/date-range")
-    public ResponseEntity<List<TransactionResponse>> getTransactionsByDateRange(
+    public ResponseEntity<?> getTransactionsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        List<TransactionResponse> transactions = transactionService.getTransactionsByDateRange(startDate, endDate);
-        return ResponseEntity.ok(transactions);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            CursorPage<TransactionResponse> transactions =
+                    transactionService.getTransactionsByDateRange(startDate, endDate, cursor, limit);
+            return ResponseEntity.ok(transactions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/user/{userId}/date-range")
-    public ResponseEntity<List<TransactionResponse>> getTransactionsByUserIdAndDateRange(
+    public ResponseEntity<?> getTransactionsByUserIdAndDateRange(
             @PathVariable Long userId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        List<TransactionResponse> transactions = transactionService.getTransactionsByUserIdAndDateRange(userId, startDate, endDate);
-        return ResponseEntity.ok(transactions);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            CursorPage<TransactionResponse> transactions =
+                    transactionService.getTransactionsByUserIdAndDateRange(userId, startDate, endDate, cursor, limit);
+            return ResponseEntity.ok(transactions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
     
     @PutMapping("/{transactionId}/status")
@@ -0,0 +1,289 @@
+package com.cbs.kyc;
+
+import com.cbs.model.entity.KycDocumentBlob;
+import com.cbs.repository.KycDocumentBlobRepository;
+import com.cbs.util.DocumentFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * KYC document files addressed by their SHA-256, so a document uploaded again is stored once.
+ * <p>
+ * A file lives at {@code ab/cd/abcd...} under {@code kyc.upload.directory}, two directory levels
+ * taken from the hash. 65,536 leaf directories keep each one small at millions of files, and a
+ * file is found from its hash without a listing. Uploads are streamed into {@code .staging} first
+ * and hashed on the way, then {@link #publish published} under their hash.
+ * <p>
+ * {@code kyc_document_blobs} counts the {@code kyc} rows per file. Publishing and
+ * {@link #release releasing} lock the file's row in the caller's transaction, and a file is only
+ * moved out of the way while that lock is held, so a re-upload can never find a file that is
+ * about to disappear. A rolled-back upload may leave a file without a row; the next upload of
+ * the same bytes takes it over.
+ * <p>
+ * Files from before the store sit flat in the same directory under {@code UUID_name} and are
+ * not counted; see {@link #isKey}.
+ */
+@Component
+public class DocumentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentStore.class);
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}");
+
+    private final KycDocumentBlobRepository blobRepository;
+    private final Path root;
+    private final Path staging;
+
+    @Autowired
+    public DocumentStore(KycDocumentBlobRepository blobRepository,
+                         @Value("${kyc.upload.directory:uploads/kyc}") String directory) {
+        this.blobRepository = blobRepository;
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        this.staging = root.resolve(".staging");
+        try {
+            Files.createDirectories(staging);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize KYC document store at " + root, e);
+        }
+    }
+
+    /**
+     * Streams a document into the staging area, hashing it as it is written. Reading stops one
+     * byte past {@code maxSize}, so a larger document shows up as {@code size > maxSize} without
+     * being read in full.
+     */
+    public StagedDocument stage(InputStream source, long maxSize) throws IOException {
+        Path path = staging.resolve(UUID.randomUUID() + ".part");
+        try (DigestInputStream in = new DigestInputStream(source, sha256());
+             FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] head = new byte[DocumentFormat.SNIFF_LENGTH];
+            int headLength = in.readNBytes(head, 0, head.length);
+            channel.write(ByteBuffer.wrap(head, 0, headLength));
+            long size = headLength
+                    + channel.transferFrom(Channels.newChannel(in), headLength, Math.max(0, maxSize - headLength + 1));
+            return new StagedDocument(path, HexFormat.of().formatHex(in.getMessageDigest().digest()), size,
+                    head, headLength);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * A fresh path in the staging area, for a caller that writes the upload there itself and
+     * {@link #stage(Path) stages} it later.
+     */
+    public Path newStagingFile() {
+        return staging.resolve(UUID.randomUUID() + ".part");
+    }
+
+    public Path getStagingDirectory() {
+        return staging;
+    }
+
+    /**
+     * Hashes a document already written to the staging area, ready to {@link #publish}.
+     */
+    public StagedDocument stage(Path file) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), sha256())) {
+            byte[] head = new byte[DocumentFormat.SNIFF_LENGTH];
+            int headLength = in.readNBytes(head, 0, head.length);
+            in.transferTo(OutputStream.nullOutputStream());
+            return new StagedDocument(file, HexFormat.of().formatHex(in.getMessageDigest().digest()),
+                    Files.size(file), head, headLength);
+        }
+    }
+
+    /**
+     * Adds a reference to the staged document's content, storing the file unless the same bytes
+     * are stored already.
+     *
+     * @return the key to keep in {@code kyc.document_url}
+     */
+    public String publish(StagedDocument staged) {
+        String hash = staged.getHash();
+        // Counted first: an upload of the same bytes racing this one waits here until it commits
+        int references = blobRepository.addReference(hash, staged.getSize());
+        try {
+            if (references == 1) {
+                Path target = resolve(keyOf(hash));
+                Files.createDirectories(target.getParent());
+                // Replaces a file left by a rolled-back upload; the bytes are the same
+                Files.move(staged.getPath(), target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(staged.getPath());
+                logger.debug("Document {} is already stored", hash);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store document " + hash, e);
+        }
+        return keyOf(hash);
+    }
+
+    /**
+     * Drops a staged document that will not be published.
+     */
+    public void discard(StagedDocument staged) {
+        try {
+            Files.deleteIfExists(staged.getPath());
+        } catch (IOException e) {
+            logger.warn("Failed to delete staged document {}", staged.getPath(), e);
+        }
+    }
+
+    /**
+     * Removes a reference to a stored document; the file goes with the last one, once the
+     * caller's transaction commits.
+     */
+    public void release(String key) {
+        String hash = hashOf(key);
+        KycDocumentBlob blob = blobRepository.findByContentHashForUpdate(hash).orElse(null);
+        if (blob == null) {
+            logger.warn("Document {} has no reference count; leaving the file in place", key);
+            return;
+        }
+        if (blob.getReferenceCount() > 1) {
+            blob.setReferenceCount(blob.getReferenceCount() - 1);
+            blobRepository.save(blob);
+            return;
+        }
+
+        blobRepository.delete(blob);
+        Path file = resolve(key);
+        Path removed = staging.resolve(hash + "." + UUID.randomUUID() + ".removed");
+        try {
+            // Moved aside while the row is locked, so an upload waiting for the lock stores afresh
+            Files.move(file, removed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to remove document file {}", file, e);
+            return;
+        }
+        afterCompletion(committed -> {
+            try {
+                if (committed) {
+                    Files.deleteIfExists(removed);
+                } else {
+                    Files.move(removed, file, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to finish removing document file {}", file, e);
+            }
+        });
+    }
+
+    /**
+     * Whether a {@code kyc.document_url} points into this store rather than at a legacy file.
+     */
+    public static boolean isKey(String documentUrl) {
+        return documentUrl != null && KEY.matcher(documentUrl).matches();
+    }
+
+    public Path resolve(String key) {
+        return root.resolve(key);
+    }
+
+    static String keyOf(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+
+    private static String hashOf(String key) {
+        if (!isKey(key)) {
+            throw new IllegalArgumentException("Not a document key: " + key);
+        }
+        return key.substring(6);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void afterCompletion(CompletionAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CompletionAction {
+        void run(boolean committed);
+    }
+
+    /**
+     * An upload written to the staging area and not yet published.
+     */
+    public static final class StagedDocument {
+        private final Path path;
+        private final String hash;
+        private final long size;
+        private final byte[] head;
+        private final int headLength;
+
+        private StagedDocument(Path path, String hash, long size, byte[] head, int headLength) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+            this.head = head;
+            this.headLength = headLength;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * The first {@link #getHeadLength()} bytes of the document, for recognising its format.
+         */
+        public byte[] getHead() {
+            return head;
+        }
+
+        public int getHeadLength() {
+            return headLength;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.cbs.kyc;
+
+import com.cbs.model.entity.KYC;
+import com.cbs.model.enums.DocumentType;
+import com.cbs.model.enums.KYCStatus;
+import com.cbs.repository.KYCRepository;
+import com.cbs.util.DocumentFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes KYC document uploads off the request thread.
+ * <p>
+ * The request only {@link #receive receives} the upload into the {@link DocumentStore}'s staging
+ * area (a rename when the container has already spooled the part to disk), records the
+ * {@code kyc} row as {@code SUBMITTED} and returns. Once that commits the upload passes through
+ * two stages, each with its own fixed pool of workers:
+ * <ol>
+ *   <li>scan ({@code cbs.kyc.pipeline.scanThreads}): hash the file and check its format against
+ *       the document type. A virus scanner would plug in here.</li>
+ *   <li>persist ({@code cbs.kyc.pipeline.persistThreads}): publish the file to the store and move
+ *       the row to {@code UNDER_REVIEW}, or to {@code REJECTED} when the scan failed. A row that
+ *       is no longer {@code SUBMITTED} (decided on another node, or deleted) is left alone.</li>
+ * </ol>
+ * At most {@code cbs.kyc.pipeline.capacity} uploads are in the pipeline at a time. Beyond that
+ * {@link #receive} throws {@link BusyException}, so a slow scanner turns into requests the client
+ * retries rather than an ever-growing staging directory.
+ * <p>
+ * An accepted upload waits in the staging area as {@code kyc-<id>.upload} until it is persisted,
+ * and is picked up again on the next start if the application stops first. When the persist
+ * transaction fails the row is marked {@code RESUBMISSION_REQUIRED}; if even that fails the upload
+ * stays in the staging area for the next start. Disabled by default
+ * ({@code cbs.kyc.pipeline.enabled}).
+ */
+@Component
+public class KycDocumentPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycDocumentPipeline.class);
+
+    private static final String UPLOAD_PREFIX = "kyc-";
+    private static final String UPLOAD_SUFFIX = ".upload";
+
+    private final KYCRepository kycRepository;
+    private final DocumentStore documentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int scanThreads;
+    private final int persistThreads;
+    private final long maxFileSize;
+    private final Semaphore capacity;
+    private final Set<Long> processing = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService scanExecutor;
+    private ExecutorService persistExecutor;
+
+    @Autowired
+    public KycDocumentPipeline(KYCRepository kycRepository,
+                               DocumentStore documentStore,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${cbs.kyc.pipeline.enabled:false}") boolean enabled,
+                               @Value("${cbs.kyc.pipeline.scanThreads:2}") int scanThreads,
+                               @Value("${cbs.kyc.pipeline.persistThreads:2}") int persistThreads,
+                               @Value("${cbs.kyc.pipeline.capacity:200}") int capacity,
+                               @Value("${kyc.max.file.size:10485760}") long maxFileSize) {
+        this.kycRepository = kycRepository;
+        this.documentStore = documentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.scanThreads = scanThreads;
+        this.persistThreads = persistThreads;
+        this.maxFileSize = maxFileSize;
+        this.capacity = new Semaphore(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scanExecutor = Executors.newFixedThreadPool(scanThreads, daemonThreads("kyc-scan"));
+        persistExecutor = Executors.newFixedThreadPool(persistThreads, daemonThreads("kyc-persist"));
+        resubmitLeftovers();
+        logger.info("KYC document pipeline started ({} scan, {} persist workers)", scanThreads, persistThreads);
+    }
+
+    /**
+     * Stops the workers. Uploads still in the pipeline stay in the staging area and are processed
+     * on the next start.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scanExecutor == null) {
+            return;
+        }
+        scanExecutor.shutdownNow();
+        persistExecutor.shutdownNow();
+        scanExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        persistExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the document of this KYC record has not been through the pipeline yet.
+     */
+    public boolean isProcessing(Long kycId) {
+        return processing.contains(kycId);
+    }
+
+    /**
+     * Takes a place in the pipeline and moves the upload into the staging area.
+     *
+     * @throws BusyException if the pipeline is full
+     */
+    public Path receive(MultipartFile file) throws IOException {
+        if (!capacity.tryAcquire()) {
+            throw new BusyException();
+        }
+        Path received = documentStore.newStagingFile();
+        try {
+            file.transferTo(received);
+            return received;
+        } catch (IOException | RuntimeException e) {
+            abandon(received);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back the place taken by {@link #receive} for an upload that will not be submitted.
+     */
+    public void abandon(Path received) {
+        capacity.release();
+        deleteQuietly(received);
+    }
+
+    /**
+     * Queues a {@link #receive received} upload for the KYC record once the caller's transaction
+     * commits; on rollback the upload is {@link #abandon abandoned}.
+     */
+    public void submit(Long kycId, Path received, DocumentType documentType, String declaredContentType) {
+        processing.add(kycId);
+        afterCompletion(committed -> {
+            if (!committed) {
+                processing.remove(kycId);
+                abandon(received);
+                return;
+            }
+            Upload upload = new Upload(kycId, uploadFile(kycId), documentType, declaredContentType, true);
+            try {
+                Files.move(received, upload.file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.error("Failed to queue document for KYC ID: {}", kycId, e);
+                upload.failed = true;
+                upload.file = received;
+            }
+            scanExecutor.execute(() -> scan(upload));
+        });
+    }
+
+    /**
+     * Hashes and checks the upload, then hands it to the persist stage whatever the outcome.
+     */
+    private void scan(Upload upload) {
+        if (!upload.failed) {
+            try {
+                DocumentStore.StagedDocument staged = documentStore.stage(upload.file);
+                upload.staged = staged;
+                upload.valid = staged.getSize() <= maxFileSize
+                        && DocumentFormat.isAllowed(DocumentFormat.sniff(staged.getHead(), staged.getHeadLength()),
+                                upload.documentType, upload.declaredContentType);
+            } catch (IOException e) {
+                logger.error("Failed to read document for KYC ID: {}", upload.kycId, e);
+                upload.failed = true;
+            }
+        }
+        persistExecutor.execute(() -> persist(upload));
+    }
+
+    private void persist(Upload upload) {
+        boolean done = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> record(upload));
+            done = true;
+        } catch (Exception e) {
+            logger.error("Failed to record document for KYC ID: {}", upload.kycId, e);
+            done = requestResubmission(upload);
+        } finally {
+            if (done) {
+                // Still there unless it was published
+                deleteQuietly(upload.file);
+            }
+            if (upload.counted) {
+                capacity.release();
+            }
+            processing.remove(upload.kycId);
+        }
+    }
+
+    private void record(Upload upload) {
+        LocalDateTime now = LocalDateTime.now();
+        if (upload.failed) {
+            resolve(upload, KYCStatus.RESUBMISSION_REQUIRED, "Document could not be processed", now);
+        } else if (!upload.valid) {
+            logger.error("Rejected document of {} bytes for KYC ID: {}", upload.staged.getSize(), upload.kycId);
+            resolve(upload, KYCStatus.REJECTED, "Invalid document file", now);
+        } else {
+            // Moved first, so a record decided or deleted meanwhile takes no reference to the file
+            if (resolve(upload, KYCStatus.UNDER_REVIEW, null, now)) {
+                kycRepository.attachDocument(upload.kycId, documentStore.publish(upload.staged),
+                        upload.staged.getHash());
+            }
+        }
+    }
+
+    private boolean resolve(Upload upload, KYCStatus status, String rejectionReason, LocalDateTime now) {
+        if (kycRepository.resolveSubmitted(upload.kycId, status, rejectionReason, now) == 0) {
+            logger.info("KYC ID: {} was decided or deleted before its document was processed", upload.kycId);
+            return false;
+        }
+        logger.info("KYC document processed for ID: {} with status: {}", upload.kycId, status);
+        return true;
+    }
+
+    /**
+     * Asks for the document again after the persist transaction failed.
+     *
+     * @return whether the row was updated; if not, the upload is left for the next start
+     */
+    private boolean requestResubmission(Upload upload) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> kycRepository.resolveSubmitted(upload.kycId,
+                    KYCStatus.RESUBMISSION_REQUIRED, "Document could not be processed", LocalDateTime.now()));
+            return true;
+        } catch (Exception e) {
+            logger.error("Could not mark KYC ID: {} for resubmission; keeping {} for the next start",
+                    upload.kycId, upload.file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Queues uploads accepted before the last stop. They do not count against the capacity.
+     */
+    private void resubmitLeftovers() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(documentStore.getStagingDirectory(),
+                UPLOAD_PREFIX + "*" + UPLOAD_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Long kycId = Long.valueOf(name.substring(UPLOAD_PREFIX.length(), name.length() - UPLOAD_SUFFIX.length()));
+                Optional<KYC> kyc = kycRepository.findById(kycId);
+                if (kyc.isEmpty()) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                processing.add(kycId);
+                Upload upload = new Upload(kycId, file, kyc.get().getDocumentType(), null, false);
+                scanExecutor.execute(() -> scan(upload));
+                logger.info("Resubmitted document for KYC ID: {}", kycId);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to resubmit KYC documents left in {}", documentStore.getStagingDirectory(), e);
+        }
+    }
+
+    private Path uploadFile(Long kycId) {
+        return documentStore.getStagingDirectory().resolve(UPLOAD_PREFIX + kycId + UPLOAD_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete staged document {}", file, e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void afterCompletion(CompletionAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CompletionAction {
+        void run(boolean committed);
+    }
+
+    /**
+     * Thrown when the pipeline already holds as many uploads as it is allowed to.
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Too many KYC documents are being processed, please retry shortly");
+        }
+    }
+
+    /**
+     * One upload on its way through the stages; each stage hands it to the next through an
+     * executor, which publishes its fields to the next worker.
+     */
+    private static final class Upload {
+        private final Long kycId;
+        private final DocumentType documentType;
+        private final String declaredContentType;
+        private final boolean counted;
+        private Path file;
+        private boolean failed;
+        private DocumentStore.StagedDocument staged;
+        private boolean valid;
+
+        private Upload(Long kycId, Path file, DocumentType documentType, String declaredContentType,
+                       boolean counted) {
+            this.kycId = kycId;
+            this.file = file;
+            this.documentType = documentType;
+            this.declaredContentType = declaredContentType;
+            this.counted = counted;
+        }
+    }
+}
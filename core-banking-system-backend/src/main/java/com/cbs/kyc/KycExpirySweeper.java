@@ -0,0 +1,121 @@
+package com.cbs.kyc;
+
+import com.cbs.model.entity.KYC;
+import com.cbs.repository.KYCRepository;
+import com.cbs.repository.KycExpiringDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Marks approved KYC documents past their expiry date as {@code EXPIRED}, every
+ * {@code cbs.kyc.expiry.checkIntervalMs}.
+ * <p>
+ * Each sweep walks the approved documents that have expired in {@code (expiry_date, kyc_id)}
+ * order, {@code cbs.kyc.expiry.batchSize} at a time, and flips each batch with one bulk update in
+ * its own transaction, so no sweep holds locks on more than a batch of rows. It then rebuilds
+ * {@code kyc_expiring_documents} with the documents expiring within
+ * {@code cbs.kyc.expiry.horizonDays}, which is what the "expiring soon" listing reads.
+ * <p>
+ * Disabled by default ({@code cbs.kyc.expiry.enabled}); without it there is no sweeper and the
+ * "expiring soon" listing queries {@code kyc} directly. Run it on one node only.
+ */
+@Component
+@ConditionalOnProperty(name = "cbs.kyc.expiry.enabled", havingValue = "true")
+public class KycExpirySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycExpirySweeper.class);
+
+    // Starting point of the keyset walk, before any expiry date
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1, 1, 1, 0, 0);
+
+    private final KYCRepository kycRepository;
+    private final KycExpiringDocumentRepository expiringRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int batchSize;
+    private final int horizonDays;
+
+    @Autowired
+    public KycExpirySweeper(KYCRepository kycRepository,
+                            KycExpiringDocumentRepository expiringRepository,
+                            PlatformTransactionManager transactionManager,
+                            Clock clock,
+                            @Value("${cbs.kyc.expiry.batchSize:500}") int batchSize,
+                            @Value("${cbs.kyc.expiry.horizonDays:30}") int horizonDays) {
+        this.kycRepository = kycRepository;
+        this.expiringRepository = expiringRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.horizonDays = horizonDays;
+    }
+
+    @Scheduled(fixedDelayString = "${cbs.kyc.expiry.checkIntervalMs:3600000}")
+    public void sweep() {
+        int expired = expireDueDocuments();
+        if (expired > 0) {
+            logger.info("Marked {} KYC documents as expired", expired);
+        }
+        int expiring = refreshExpiringDocuments();
+        logger.debug("{} KYC documents expire within {} days", expiring, horizonDays);
+    }
+
+    /**
+     * How far ahead {@code kyc_expiring_documents} looks.
+     */
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    /**
+     * Expires every approved document past its expiry date.
+     *
+     * @return the number of documents marked {@code EXPIRED}
+     */
+    public int expireDueDocuments() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime afterDate = BEGINNING;
+        Long afterId = 0L;
+        int expired = 0;
+        while (true) {
+            List<KYC> batch = kycRepository.findExpiredAfter(now, afterDate, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return expired;
+            }
+            List<Long> kycIds = batch.stream().map(KYC::getKycId).toList();
+            Integer updated = transactionTemplate.execute(status -> kycRepository.markExpired(kycIds, now));
+            expired += updated == null ? 0 : updated;
+
+            KYC last = batch.get(batch.size() - 1);
+            afterDate = last.getExpiryDate();
+            afterId = last.getKycId();
+        }
+    }
+
+    /**
+     * Replaces the contents of {@code kyc_expiring_documents} with the approved documents
+     * expiring within the horizon. Readers see either the old or the new set.
+     *
+     * @return the number of documents in the table now
+     */
+    public int refreshExpiringDocuments() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Integer queued = transactionTemplate.execute(status -> {
+            expiringRepository.clear();
+            return expiringRepository.fill(now, now.plusDays(horizonDays));
+        });
+        return queued == null ? 0 : queued;
+    }
+}
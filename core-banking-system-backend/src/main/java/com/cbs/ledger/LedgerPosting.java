@@ -0,0 +1,189 @@
+package com.cbs.ledger;
+
+import com.cbs.model.dto.response.TransactionResponse;
+import com.cbs.model.enums.TransactionStatus;
+import com.cbs.model.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A deposit, withdrawal or transfer accepted by the {@link ShardedLedger}, as journaled and later
+ * written behind to the database. The balances are the ones the ledger produced, so the rows
+ * written later carry the same {@code balanceAfter} the client was given. A posting made with an
+ * {@code Idempotency-Key} carries the key, so it is recorded together with the rows.
+ */
+public class LedgerPosting {
+    private TransactionType transactionType;
+    private String transactionReference;
+    // Reference of the credit row of a transfer; null for deposits and withdrawals
+    private String creditReference;
+    private Long sourceAccountId;
+    private Long destinationAccountId;
+    private Long sourceUserId;
+    private Long destinationUserId;
+    private BigDecimal amount;
+    private BigDecimal feeAmount;
+    private BigDecimal sourceBalanceAfter;
+    private BigDecimal destinationBalanceAfter;
+    private String description;
+    private LocalDateTime postedAt;
+    // Set only for postings requested with an Idempotency-Key
+    private String idempotencyKey;
+    private String idempotencyOperation;
+    private String requestHash;
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public String getTransactionReference() {
+        return transactionReference;
+    }
+
+    public void setTransactionReference(String transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+
+    public String getCreditReference() {
+        return creditReference;
+    }
+
+    public void setCreditReference(String creditReference) {
+        this.creditReference = creditReference;
+    }
+
+    public Long getSourceAccountId() {
+        return sourceAccountId;
+    }
+
+    public void setSourceAccountId(Long sourceAccountId) {
+        this.sourceAccountId = sourceAccountId;
+    }
+
+    public Long getDestinationAccountId() {
+        return destinationAccountId;
+    }
+
+    public void setDestinationAccountId(Long destinationAccountId) {
+        this.destinationAccountId = destinationAccountId;
+    }
+
+    public Long getSourceUserId() {
+        return sourceUserId;
+    }
+
+    public void setSourceUserId(Long sourceUserId) {
+        this.sourceUserId = sourceUserId;
+    }
+
+    public Long getDestinationUserId() {
+        return destinationUserId;
+    }
+
+    public void setDestinationUserId(Long destinationUserId) {
+        this.destinationUserId = destinationUserId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getFeeAmount() {
+        return feeAmount;
+    }
+
+    public void setFeeAmount(BigDecimal feeAmount) {
+        this.feeAmount = feeAmount;
+    }
+
+    public BigDecimal getSourceBalanceAfter() {
+        return sourceBalanceAfter;
+    }
+
+    public void setSourceBalanceAfter(BigDecimal sourceBalanceAfter) {
+        this.sourceBalanceAfter = sourceBalanceAfter;
+    }
+
+    public BigDecimal getDestinationBalanceAfter() {
+        return destinationBalanceAfter;
+    }
+
+    public void setDestinationBalanceAfter(BigDecimal destinationBalanceAfter) {
+        this.destinationBalanceAfter = destinationBalanceAfter;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getPostedAt() {
+        return postedAt;
+    }
+
+    public void setPostedAt(LocalDateTime postedAt) {
+        this.postedAt = postedAt;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyOperation() {
+        return idempotencyOperation;
+    }
+
+    public void setIdempotencyOperation(String idempotencyOperation) {
+        this.idempotencyOperation = idempotencyOperation;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    /**
+     * The response the client was given for this posting. It carries no transaction id, which is
+     * only assigned when the row is written.
+     */
+    public TransactionResponse toResponse() {
+        TransactionResponse response = new TransactionResponse();
+        response.setTransactionReference(transactionReference);
+        response.setTransactionType(transactionType);
+        response.setAmount(amount);
+        response.setSourceAccountId(sourceAccountId);
+        response.setDestinationAccountId(destinationAccountId);
+        response.setStatus(TransactionStatus.COMPLETED);
+        response.setDescription(description);
+        response.setTransactionDate(postedAt);
+        response.setFeeAmount(feeAmount);
+        // Like the database path: a transfer answers with its debit row
+        if (sourceAccountId != null) {
+            response.setUserId(sourceUserId);
+            response.setBalanceAfter(sourceBalanceAfter);
+        } else {
+            response.setUserId(destinationUserId);
+            response.setBalanceAfter(destinationBalanceAfter);
+        }
+        return response;
+    }
+}
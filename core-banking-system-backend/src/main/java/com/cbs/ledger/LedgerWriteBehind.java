@@ -0,0 +1,151 @@
+package com.cbs.ledger;
+
+import com.cbs.audit.AuditJournal;
+import com.cbs.service.interface_.TransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the postings journaled by {@link ShardedLedger} to the database.
+ * <p>
+ * A single background thread reads a batch from the posting journal, records it through
+ * {@link TransactionService#recordLedgerPostings} in one transaction and then acknowledges it.
+ * While that fails it backs off, doubling the wait up to {@code cbs.ledgerEngine.maxBackoffMs},
+ * and keeps the batch; postings are money, so unlike audit records none is ever skipped. Replay
+ * after a crash is at-least-once, and postings already written are recognised by their
+ * transaction reference. Each round also flushes the journal's mapped pages, which bounds what an
+ * OS crash can lose to one interval.
+ */
+@Component
+public class LedgerWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerWriteBehind.class);
+
+    private final TransactionService transactionService;
+    private final int batchSize;
+    private final long intervalMs;
+    private final long maxBackoffMs;
+
+    private AuditJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong written = new AtomicLong();
+
+    @Autowired
+    public LedgerWriteBehind(TransactionService transactionService,
+                             @Value("${cbs.ledgerEngine.batchSize:1000}") int batchSize,
+                             @Value("${cbs.ledgerEngine.writeBehindIntervalMs:50}") long intervalMs,
+                             @Value("${cbs.ledgerEngine.maxBackoffMs:30000}") long maxBackoffMs) {
+        this.transactionService = transactionService;
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Writes everything already in {@code journal} before returning, then keeps writing new
+     * postings in the background.
+     */
+    public void start(AuditJournal journal) {
+        this.journal = journal;
+        long recovered = 0;
+        int shipped;
+        while ((shipped = writeBatch()) > 0) {
+            recovered += shipped;
+        }
+        if (recovered > 0) {
+            logger.info("Wrote {} ledger postings left in the journal by the previous run", recovered);
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the background thread and writes what is left, as far as the database allows.
+     */
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        try {
+            while (writeBatch() > 0) {
+                // keep going until the journal is empty
+            }
+        } catch (Exception e) {
+            logger.warn("Ledger postings left in the journal at shutdown will be written on the next start: {}",
+                    e.getMessage());
+        }
+        logger.info("Ledger write-behind stopped: {} postings written", written.get());
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    private void writeLoop() {
+        long backoff = intervalMs;
+        while (running) {
+            try {
+                journal.force();
+                if (writeBatch() > 0) {
+                    backoff = intervalMs;
+                    continue;
+                }
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Ledger write-behind failed, retrying in {} ms", backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Writes and acknowledges one batch.
+     *
+     * @return the number of postings written, 0 if the journal is drained
+     */
+    int writeBatch() {
+        List<AuditJournal.Entry> entries = journal.read(batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<LedgerPosting> postings = new ArrayList<>(entries.size());
+        for (AuditJournal.Entry entry : entries) {
+            try {
+                postings.add(journal.decode(entry, LedgerPosting.class));
+            } catch (Exception e) {
+                // The checksum passed, so this is a bug rather than a torn write; do not lose money silently
+                throw new IllegalStateException("Undecodable posting in the ledger journal", e);
+            }
+        }
+
+        transactionService.recordLedgerPostings(postings);
+        journal.acknowledge(entries.get(entries.size() - 1));
+        written.addAndGet(postings.size());
+        return postings.size();
+    }
+}
@@ -0,0 +1,553 @@
+package com.cbs.ledger;
+
+import com.cbs.audit.AuditJournal;
+import com.cbs.model.dto.request.DepositRequest;
+import com.cbs.model.dto.request.TransferRequest;
+import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.TransactionResponse;
+import com.cbs.model.entity.Account;
+import com.cbs.model.enums.AccountStatus;
+import com.cbs.model.enums.TransactionType;
+import com.cbs.repository.AccountRepository;
+import com.cbs.service.interface_.IdempotencyService;
+import com.cbs.util.AccountCache;
+import com.cbs.util.CacheInvalidationBus;
+import com.cbs.util.TransactionIdGenerator;
+import com.cbs.util.TransferFees;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Optional posting engine that keeps account balances in memory, for peaks where row updates on
+ * {@code accounts} are the bottleneck ({@code cbs.ledgerEngine.enabled}, off by default).
+ * <p>
+ * Accounts are partitioned by id over a fixed number of shards. Each shard is one thread that
+ * alone owns its accounts' balances, so postings need no locks: a deposit or withdrawal runs
+ * entirely on its account's shard, a transfer checks the destination on its shard, debits the
+ * source on the source's shard and credits the destination back on its own. A posting is appended
+ * to a local {@link AuditJournal} before its effect is applied, which makes the journal the
+ * durable record; {@link LedgerWriteBehind} turns it into {@code transactions} rows and balance
+ * updates in batches. The caller only hears about a posting once the journal has been forced to
+ * disk, and one that waits longer than {@code cbs.ledgerEngine.timeoutMs} gets an
+ * {@link OutcomeUnknownException}: the posting may still be applied. One sync thread does that for every posting appended since its last
+ * force, so concurrent postings share the cost of a flush and shards never wait for the disk.
+ * <p>
+ * A posting requested with an {@code Idempotency-Key} carries the key into the journal, and the
+ * write-behind records the key in the transaction that writes the posting. Until then the
+ * {@link IdempotencyService} holds it as pending, so a retry, even one made after the first
+ * caller timed out, gets the original posting rather than a second one.
+ * <p>
+ * An account's balance is read from the database the first time its shard touches it and kept
+ * from then on. Its status and limits are read again before the next posting after
+ * {@link AccountCache#invalidateStatus} reports a change on any node, so a frozen or closed
+ * account stops taking postings; one already queued on the shard is still posted, as it would
+ * have been had it reached the row first. Keeping the balance is only correct while this node is the sole writer of the account: with the
+ * engine on, deposits, withdrawals and transfers must all go through it, and it must run on one
+ * node only. Batch postings, reversals and the account endpoints still write the database
+ * directly and are not seen by balances already in memory. Balances read from the database lag
+ * by the write-behind interval, and responses carry no transaction id, which is only assigned
+ * when the row is written; the transaction reference identifies the posting.
+ */
+@Component
+public class ShardedLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedLedger.class);
+
+    private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final LedgerWriteBehind writeBehind;
+    private final IdempotencyService idempotencyService;
+    private final AccountCache accountCache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int shardCount;
+    private final String directory;
+    private final int segmentSize;
+    private final long timeoutMs;
+
+    private Shard[] shards;
+    private AuditJournal journal;
+
+    // Completions of postings appended but not forced yet, handed to the sync thread
+    private final BlockingQueue<Runnable> unsynced = new LinkedBlockingQueue<>();
+    private Thread syncer;
+
+    @Autowired
+    public ShardedLedger(AccountRepository accountRepository,
+                         TransactionIdGenerator transactionIdGenerator,
+                         LedgerWriteBehind writeBehind,
+                         IdempotencyService idempotencyService,
+                         AccountCache accountCache,
+                         ObjectMapper objectMapper,
+                         @Value("${cbs.ledgerEngine.enabled:false}") boolean enabled,
+                         @Value("${cbs.ledgerEngine.shards:8}") int shardCount,
+                         @Value("${cbs.ledgerEngine.directory:ledger-journal}") String directory,
+                         @Value("${cbs.ledgerEngine.segmentSize:67108864}") int segmentSize,
+                         @Value("${cbs.ledgerEngine.timeoutMs:5000}") long timeoutMs) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The ledger engine needs at least one shard");
+        }
+        this.accountRepository = accountRepository;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.writeBehind = writeBehind;
+        this.idempotencyService = idempotencyService;
+        this.accountCache = accountCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.shardCount = shardCount;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        journal = new AuditJournal(objectMapper, directory, segmentSize, false);
+        // Postings left over from the last run reach the database before any balance is loaded
+        writeBehind.start(journal);
+
+        syncer = new Thread(this::syncLoop, "ledger-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+
+        shards = new Shard[shardCount];
+        for (int index = 0; index < shardCount; index++) {
+            shards[index] = new Shard(index);
+        }
+        accountCache.subscribeStatus(new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void invalidate(String key) {
+                Long accountId = Long.valueOf(key);
+                onShards(() -> submit(accountId, shard -> {
+                    AccountState account = shard.accounts.get(accountId);
+                    if (account != null) {
+                        account.stale = true;
+                    }
+                    return null;
+                }));
+            }
+
+            @Override
+            public void invalidateAll() {
+                onShards(() -> {
+                    for (Shard shard : shards) {
+                        shard.executor.execute(() -> shard.accounts.values().forEach(account -> account.stale = true));
+                    }
+                });
+            }
+        });
+        logger.info("Ledger engine started with {} shards, journaling to {}", shardCount, journal.getDirectory());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (shards == null) {
+            return;
+        }
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            shard.executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        syncer.interrupt();
+        syncer.join(timeoutMs);
+        writeBehind.stop();
+        // Forces every segment, so postings the sync thread did not get to are durable as well
+        journal.close();
+        List<Runnable> leftover = new ArrayList<>();
+        unsynced.drainTo(leftover);
+        leftover.forEach(Runnable::run);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TransactionResponse deposit(DepositRequest request) throws Exception {
+        return deposit(request, null);
+    }
+
+    public TransactionResponse deposit(DepositRequest request, String idempotencyKey) throws Exception {
+        return post(idempotencyKey, TransactionType.DEPOSIT, request, tag -> postDeposit(request, tag));
+    }
+
+    public TransactionResponse withdraw(WithdrawalRequest request) throws Exception {
+        return withdraw(request, null);
+    }
+
+    public TransactionResponse withdraw(WithdrawalRequest request, String idempotencyKey) throws Exception {
+        return post(idempotencyKey, TransactionType.WITHDRAWAL, request, tag -> postWithdrawal(request, tag));
+    }
+
+    public TransactionResponse transfer(TransferRequest request) throws Exception {
+        return transfer(request, null);
+    }
+
+    public TransactionResponse transfer(TransferRequest request, String idempotencyKey) throws Exception {
+        if (request.getSourceAccountId().equals(request.getDestinationAccountId())) {
+            throw new RuntimeException("Source and destination accounts must be different");
+        }
+        return post(idempotencyKey, TransactionType.TRANSFER, request, tag -> postTransfer(request, tag));
+    }
+
+    /**
+     * The balance this engine holds for an account, if one of its shards has loaded it.
+     */
+    public Optional<BigDecimal> getBalance(Long accountId) throws Exception {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return await(submit(accountId, shard -> {
+            AccountState account = shard.accounts.get(accountId);
+            return Optional.ofNullable(account == null ? null : account.balance);
+        }));
+    }
+
+    /**
+     * Runs a posting, through the idempotency service when a key is given, and answers once it
+     * is forced to the journal.
+     */
+    private TransactionResponse post(String idempotencyKey, TransactionType transactionType, Object request,
+                                     Function<IdempotencyTag, CompletableFuture<LedgerPosting>> posting)
+            throws Exception {
+        if (idempotencyKey == null) {
+            return await(posting.apply(null).thenCompose(this::forced)).toResponse();
+        }
+        // The same operation names as the database path, so a key means the same request in both
+        String operation = transactionType.name();
+        return await(idempotencyService.executeJournaled(idempotencyKey, operation, request,
+                requestHash -> posting.apply(new IdempotencyTag(idempotencyKey, operation, requestHash))
+                        .thenCompose(this::forced)
+                        .thenApply(LedgerPosting::toResponse)));
+    }
+
+    private CompletableFuture<LedgerPosting> postDeposit(DepositRequest request, IdempotencyTag tag) {
+        Long accountId = request.getAccountId();
+        return submit(accountId, shard -> {
+            AccountState account = shard.load(accountId, "Account not found");
+            if (account.status != AccountStatus.ACTIVE) {
+                throw new RuntimeException("Cannot deposit to inactive account");
+            }
+            BigDecimal balanceAfter = account.balance.add(request.getAmount());
+
+            LedgerPosting deposit = newPosting(TransactionType.DEPOSIT, request.getAmount(), request.getDescription(),
+                    tag);
+            deposit.setDestinationAccountId(accountId);
+            deposit.setDestinationUserId(account.userId);
+            deposit.setDestinationBalanceAfter(balanceAfter);
+            append(deposit);
+            account.balance = balanceAfter;
+            return deposit;
+        });
+    }
+
+    private CompletableFuture<LedgerPosting> postWithdrawal(WithdrawalRequest request, IdempotencyTag tag) {
+        Long accountId = request.getAccountId();
+        return submit(accountId, shard -> {
+            AccountState account = shard.load(accountId, "Account not found");
+            if (account.status != AccountStatus.ACTIVE) {
+                throw new RuntimeException("Cannot withdraw from inactive account");
+            }
+            BigDecimal balanceAfter = account.balance.subtract(request.getAmount());
+            if (!account.withinLimits(balanceAfter)) {
+                throw new Exception("Insufficient balance");
+            }
+
+            LedgerPosting withdrawal = newPosting(TransactionType.WITHDRAWAL, request.getAmount(),
+                    request.getDescription(), tag);
+            withdrawal.setSourceAccountId(accountId);
+            withdrawal.setSourceUserId(account.userId);
+            withdrawal.setSourceBalanceAfter(balanceAfter);
+            append(withdrawal);
+            account.balance = balanceAfter;
+            return withdrawal;
+        });
+    }
+
+    private CompletableFuture<LedgerPosting> postTransfer(TransferRequest request, IdempotencyTag tag) {
+        Long sourceAccountId = request.getSourceAccountId();
+        Long destinationAccountId = request.getDestinationAccountId();
+        BigDecimal amount = request.getAmount();
+
+        // The steps are chained on the shards rather than driven from here, so a caller that
+        // gives up waiting never leaves a debit without its credit or refund
+        CompletableFuture<LedgerPosting> transfer = submit(destinationAccountId, shard -> {
+            // Check the destination first, so a debit is only taken when the credit can be made
+            AccountState destination = shard.load(destinationAccountId, "Destination account not found");
+            if (destination.status != AccountStatus.ACTIVE) {
+                throw new RuntimeException("Cannot transfer to inactive destination account");
+            }
+            return destination.userId;
+        }).thenCompose(destinationUserId -> submit(sourceAccountId, shard -> {
+            // Same checks as the database path; the debit is journaled together with the credit
+            AccountState source = shard.load(sourceAccountId, "Source account not found");
+            if (source.status != AccountStatus.ACTIVE) {
+                throw new RuntimeException("Cannot transfer from inactive source account");
+            }
+            if (!source.withinLimits(source.balance.subtract(amount))) {
+                throw new Exception("Insufficient balance in source account");
+            }
+            BigDecimal feeAmount = TransferFees.forAmount(amount);
+            BigDecimal totalAmount = amount.add(feeAmount);
+            if (totalAmount.compareTo(source.balance) > 0) {
+                throw new Exception("Insufficient balance to cover transfer amount and fee");
+            }
+
+            LedgerPosting posting = newPosting(TransactionType.TRANSFER, amount, request.getDescription(), tag);
+            posting.setCreditReference(transactionIdGenerator.generateTransactionId());
+            posting.setSourceAccountId(sourceAccountId);
+            posting.setSourceUserId(source.userId);
+            posting.setDestinationAccountId(destinationAccountId);
+            posting.setDestinationUserId(destinationUserId);
+            posting.setFeeAmount(feeAmount);
+            source.balance = source.balance.subtract(totalAmount);
+            posting.setSourceBalanceAfter(source.balance);
+            return posting;
+        })).thenCompose(posting -> submit(destinationAccountId, shard -> {
+            AccountState destination = shard.load(destinationAccountId, "Destination account not found");
+            BigDecimal balanceAfter = destination.balance.add(amount);
+            posting.setDestinationBalanceAfter(balanceAfter);
+            append(posting);
+            destination.balance = balanceAfter;
+            return posting;
+        }).exceptionallyCompose(failure -> submit(sourceAccountId, shard -> {
+            // Nothing was journaled, so hand the debit back
+            AccountState source = shard.load(sourceAccountId, "Source account not found");
+            source.balance = source.balance.add(amount).add(posting.getFeeAmount());
+            return null;
+        }).thenCompose(refunded -> CompletableFuture.<LedgerPosting>failedFuture(failure))));
+        return transfer;
+    }
+
+    private <T> CompletableFuture<T> submit(Long accountId, ShardTask<T> task) {
+        if (!enabled) {
+            throw new IllegalStateException("The ledger engine is not enabled");
+        }
+        Shard shard = shards[Math.floorMod(Long.hashCode(accountId), shards.length)];
+        CompletableFuture<T> result = new CompletableFuture<>();
+        shard.executor.execute(() -> {
+            try {
+                result.complete(task.run(shard));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private <T> T await(CompletableFuture<T> result) throws Exception {
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new OutcomeUnknownException();
+        }
+    }
+
+    private void onShards(Runnable task) {
+        try {
+            task.run();
+        } catch (RejectedExecutionException e) {
+            // Stopping; the balances held in memory go with the shards
+        }
+    }
+
+    private LedgerPosting newPosting(TransactionType transactionType, BigDecimal amount, String description,
+                                     IdempotencyTag tag) {
+        LedgerPosting posting = new LedgerPosting();
+        posting.setTransactionType(transactionType);
+        posting.setTransactionReference(transactionIdGenerator.generateTransactionId());
+        posting.setAmount(amount);
+        posting.setDescription(description);
+        posting.setPostedAt(LocalDateTime.now());
+        if (tag != null) {
+            posting.setIdempotencyKey(tag.key);
+            posting.setIdempotencyOperation(tag.operation);
+            posting.setRequestHash(tag.requestHash);
+        }
+        return posting;
+    }
+
+    private void append(LedgerPosting posting) {
+        try {
+            journal.append(AuditJournal.RecordType.POSTING, objectMapper.writeValueAsBytes(posting));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize ledger posting", e);
+        }
+    }
+
+    /**
+     * Completes once the journal, with {@code posting} in it, has been forced to disk.
+     */
+    private CompletableFuture<LedgerPosting> forced(LedgerPosting posting) {
+        CompletableFuture<LedgerPosting> durable = new CompletableFuture<>();
+        unsynced.add(() -> durable.complete(posting));
+        return durable;
+    }
+
+    private void syncLoop() {
+        List<Runnable> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(unsynced.take());
+                // Everything queued so far was appended before this force starts
+                unsynced.drainTo(batch);
+                forceJournal();
+            } catch (InterruptedException e) {
+                // stop() forces and completes whatever is left
+                unsynced.addAll(batch);
+                return;
+            }
+            batch.forEach(Runnable::run);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Forces the journal, retrying until it works. The postings are applied already and will be
+     * written behind either way, so their callers wait (and time out) rather than see a failure
+     * that a retry would turn into a second posting.
+     */
+    private void forceJournal() throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            try {
+                journal.force();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Could not force the ledger journal, retrying in {} ms", backoff, e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, timeoutMs);
+            }
+        }
+    }
+
+    /**
+     * The engine did not answer within {@code cbs.ledgerEngine.timeoutMs}. The posting may still be
+     * applied; a retry with the same {@code Idempotency-Key} returns it if it was.
+     */
+    public static class OutcomeUnknownException extends RuntimeException {
+        public OutcomeUnknownException() {
+            super("The ledger engine did not answer in time; the posting may still be applied. "
+                    + "Retry with the same Idempotency-Key to get its outcome");
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardTask<T> {
+        T run(Shard shard) throws Exception;
+    }
+
+    private final class Shard {
+        private final int index;
+        private final ExecutorService executor;
+        // Only ever touched by this shard's thread
+        private final Map<Long, AccountState> accounts = new HashMap<>();
+
+        private Shard(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private AccountState load(Long accountId, String notFoundMessage) {
+            AccountState account = accounts.get(accountId);
+            if (account == null || account.stale) {
+                Account row = accountRepository.findById(accountId)
+                        .orElseThrow(() -> new RuntimeException(notFoundMessage));
+                if (account == null) {
+                    account = new AccountState(row);
+                    accounts.put(accountId, account);
+                } else {
+                    // The balance held here is ahead of the row, so only the rest is taken from it
+                    account.refresh(row);
+                }
+            }
+            return account;
+        }
+    }
+
+    private static final class IdempotencyTag {
+        private final String key;
+        private final String operation;
+        private final String requestHash;
+
+        private IdempotencyTag(String key, String operation, String requestHash) {
+            this.key = key;
+            this.operation = operation;
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final class AccountState {
+        private final Long userId;
+        private AccountStatus status;
+        private BigDecimal minimumBalance;
+        private BigDecimal overdraftLimit;
+        private BigDecimal balance;
+        // Set when the status changed in the database since it was read
+        private boolean stale;
+
+        private AccountState(Account account) {
+            this.userId = account.getUserId();
+            this.balance = account.getBalance();
+            refresh(account);
+        }
+
+        private void refresh(Account account) {
+            this.status = account.getStatus();
+            this.minimumBalance = account.getMinimumBalance();
+            this.overdraftLimit = account.getOverdraftLimit();
+            this.stale = false;
+        }
+
+        private boolean withinLimits(BigDecimal newBalance) {
+            if (minimumBalance == null || newBalance.compareTo(minimumBalance) >= 0) {
+                return true;
+            }
+            // Below the minimum is only allowed when an overdraft limit covers it
+            return overdraftLimit != null && newBalance.compareTo(overdraftLimit.negate()) >= 0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.cbs.model.dto.request;
+
+import com.cbs.model.enums.TransactionType;
+import java.math.BigDecimal;
+
+/**
+ * One line of a batch posting. Items are validated individually by the service so that a
+ * bad line is reported in its own result instead of rejecting the whole file.
+ */
+public class BatchPostingItem {
+    
+    private TransactionType transactionType;
+    
+    private Long sourceAccountId;
+    
+    private Long destinationAccountId;
+    
+    private BigDecimal amount;
+    
+    private String description;
+    
+    // Getters and setters
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+    
+    public void setTransactionType(TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+    
+    public Long getSourceAccountId() {
+        return sourceAccountId;
+    }
+    
+    public void setSourceAccountId(Long sourceAccountId) {
+        this.sourceAccountId = sourceAccountId;
+    }
+    
+    public Long getDestinationAccountId() {
+        return destinationAccountId;
+    }
+    
+    public void setDestinationAccountId(Long destinationAccountId) {
+        this.destinationAccountId = destinationAccountId;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
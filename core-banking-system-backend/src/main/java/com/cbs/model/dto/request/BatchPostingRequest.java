@@ -0,0 +1,21 @@
+package com.cbs.model.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchPostingRequest {
+    
+    @NotEmpty(message = "At least one posting is required")
+    @Size(max = 10000, message = "A batch must not exceed 10000 postings")
+    private List<BatchPostingItem> postings;
+    
+    // Getters and setters
+    public List<BatchPostingItem> getPostings() {
+        return postings;
+    }
+    
+    public void setPostings(List<BatchPostingItem> postings) {
+        this.postings = postings;
+    }
+}
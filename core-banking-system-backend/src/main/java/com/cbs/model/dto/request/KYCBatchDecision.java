@@ -0,0 +1,41 @@
+package com.cbs.model.dto.request;
+
+import com.cbs.model.enums.KYCStatus;
+
+/**
+ * One reviewer decision in a batch verification. Decisions are validated individually by the
+ * service so that a bad one is reported in its own result instead of rejecting the batch.
+ */
+public class KYCBatchDecision {
+    
+    private Long kycId;
+    
+    private KYCStatus status;
+    
+    private String rejectionReason;
+    
+    // Getters and setters
+    public Long getKycId() {
+        return kycId;
+    }
+    
+    public void setKycId(Long kycId) {
+        this.kycId = kycId;
+    }
+    
+    public KYCStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(KYCStatus status) {
+        this.status = status;
+    }
+    
+    public String getRejectionReason() {
+        return rejectionReason;
+    }
+    
+    public void setRejectionReason(String rejectionReason) {
+        this.rejectionReason = rejectionReason;
+    }
+}
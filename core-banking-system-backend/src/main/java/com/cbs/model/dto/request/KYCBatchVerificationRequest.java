@@ -0,0 +1,21 @@
+package com.cbs.model.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class KYCBatchVerificationRequest {
+    
+    @NotEmpty(message = "At least one decision is required")
+    @Size(max = 1000, message = "A batch must not exceed 1000 decisions")
+    private List<KYCBatchDecision> decisions;
+    
+    // Getters and setters
+    public List<KYCBatchDecision> getDecisions() {
+        return decisions;
+    }
+    
+    public void setDecisions(List<KYCBatchDecision> decisions) {
+        this.decisions = decisions;
+    }
+}
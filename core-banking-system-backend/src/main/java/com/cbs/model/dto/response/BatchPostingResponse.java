@@ -0,0 +1,53 @@
+package com.cbs.model.dto.response;
+
+import java.util.List;
+
+public class BatchPostingResponse {
+    private int totalCount;
+    private int completedCount;
+    private int failedCount;
+    private List<BatchPostingResult> results;
+    
+    public BatchPostingResponse() {
+    }
+    
+    public BatchPostingResponse(List<BatchPostingResult> results) {
+        this.results = results;
+        this.totalCount = results.size();
+        this.failedCount = (int) results.stream().filter(result -> result.getError() != null).count();
+        this.completedCount = totalCount - failedCount;
+    }
+    
+    // Getters and setters
+    public int getTotalCount() {
+        return totalCount;
+    }
+    
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+    
+    public int getCompletedCount() {
+        return completedCount;
+    }
+    
+    public void setCompletedCount(int completedCount) {
+        this.completedCount = completedCount;
+    }
+    
+    public int getFailedCount() {
+        return failedCount;
+    }
+    
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+    
+    public List<BatchPostingResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<BatchPostingResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,81 @@
+package com.cbs.model.dto.response;
+
+import com.cbs.model.enums.TransactionStatus;
+import java.math.BigDecimal;
+
+public class BatchPostingResult {
+    private int index;
+    private TransactionStatus status;
+    private Long transactionId;
+    private String transactionReference;
+    private BigDecimal balanceAfter;
+    private String error;
+    
+    public static BatchPostingResult completed(int index, Long transactionId, String transactionReference,
+                                               BigDecimal balanceAfter) {
+        BatchPostingResult result = new BatchPostingResult();
+        result.setIndex(index);
+        result.setStatus(TransactionStatus.COMPLETED);
+        result.setTransactionId(transactionId);
+        result.setTransactionReference(transactionReference);
+        result.setBalanceAfter(balanceAfter);
+        return result;
+    }
+    
+    public static BatchPostingResult failed(int index, String error) {
+        BatchPostingResult result = new BatchPostingResult();
+        result.setIndex(index);
+        result.setStatus(TransactionStatus.FAILED);
+        result.setError(error);
+        return result;
+    }
+    
+    // Getters and setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public TransactionStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(TransactionStatus status) {
+        this.status = status;
+    }
+    
+    public Long getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public String getTransactionReference() {
+        return transactionReference;
+    }
+    
+    public void setTransactionReference(String transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+    
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+    
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,47 @@
+package com.cbs.model.dto.response;
+
+import com.cbs.model.enums.DocumentType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+
+public class ExpiringKYCResponse {
+    private Long kycId;
+    private Long userId;
+    private DocumentType documentType;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime expiryDate;
+    
+    // Getters and setters
+    public Long getKycId() {
+        return kycId;
+    }
+    
+    public void setKycId(Long kycId) {
+        this.kycId = kycId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public DocumentType getDocumentType() {
+        return documentType;
+    }
+    
+    public void setDocumentType(DocumentType documentType) {
+        this.documentType = documentType;
+    }
+    
+    public LocalDateTime getExpiryDate() {
+        return expiryDate;
+    }
+    
+    public void setExpiryDate(LocalDateTime expiryDate) {
+        this.expiryDate = expiryDate;
+    }
+}
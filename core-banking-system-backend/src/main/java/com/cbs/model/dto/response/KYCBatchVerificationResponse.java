@@ -0,0 +1,53 @@
+package com.cbs.model.dto.response;
+
+import java.util.List;
+
+public class KYCBatchVerificationResponse {
+    private int totalCount;
+    private int verifiedCount;
+    private int failedCount;
+    private List<KYCBatchVerificationResult> results;
+    
+    public KYCBatchVerificationResponse() {
+    }
+    
+    public KYCBatchVerificationResponse(List<KYCBatchVerificationResult> results) {
+        this.results = results;
+        this.totalCount = results.size();
+        this.failedCount = (int) results.stream().filter(result -> result.getError() != null).count();
+        this.verifiedCount = totalCount - failedCount;
+    }
+    
+    // Getters and setters
+    public int getTotalCount() {
+        return totalCount;
+    }
+    
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+    
+    public int getVerifiedCount() {
+        return verifiedCount;
+    }
+    
+    public void setVerifiedCount(int verifiedCount) {
+        this.verifiedCount = verifiedCount;
+    }
+    
+    public int getFailedCount() {
+        return failedCount;
+    }
+    
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+    
+    public List<KYCBatchVerificationResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<KYCBatchVerificationResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,59 @@
+package com.cbs.model.dto.response;
+
+import com.cbs.model.enums.KYCStatus;
+
+public class KYCBatchVerificationResult {
+    private int index;
+    private Long kycId;
+    private KYCStatus status;
+    private String error;
+    
+    public static KYCBatchVerificationResult verified(int index, Long kycId, KYCStatus status) {
+        KYCBatchVerificationResult result = new KYCBatchVerificationResult();
+        result.setIndex(index);
+        result.setKycId(kycId);
+        result.setStatus(status);
+        return result;
+    }
+    
+    public static KYCBatchVerificationResult failed(int index, Long kycId, String error) {
+        KYCBatchVerificationResult result = new KYCBatchVerificationResult();
+        result.setIndex(index);
+        result.setKycId(kycId);
+        result.setError(error);
+        return result;
+    }
+    
+    // Getters and setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public Long getKycId() {
+        return kycId;
+    }
+    
+    public void setKycId(Long kycId) {
+        this.kycId = kycId;
+    }
+    
+    public KYCStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(KYCStatus status) {
+        this.status = status;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -34,6 +34,10 @@ public class KYCResponse {
     
     private String additionalInfo;
     private Boolean isPrimaryDocument;
+    private Long claimedBy;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime claimedUntil;
     
     // Getters and setters
     public Long getKycId() {
@@ -163,4 +167,20 @@ public class KYCResponse {
     public void setIsPrimaryDocument(Boolean isPrimaryDocument) {
         this.isPrimaryDocument = isPrimaryDocument;
     }
+    
+    public Long getClaimedBy() {
+        return claimedBy;
+    }
+    
+    public void setClaimedBy(Long claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+    
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.cbs.model.dto.response;
+
+import com.cbs.model.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of an account statement, from the account's point of view: debits and credits are
+ * the amounts that left or reached this account.
+ */
+public class StatementLine {
+    private LocalDateTime transactionDate;
+    private String transactionReference;
+    private TransactionType transactionType;
+    private String description;
+    private BigDecimal debit;
+    private BigDecimal credit;
+    private BigDecimal fee;
+    private BigDecimal balance;
+    
+    // Getters and setters
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+    
+    public void setTransactionDate(LocalDateTime transactionDate) {
+        this.transactionDate = transactionDate;
+    }
+    
+    public String getTransactionReference() {
+        return transactionReference;
+    }
+    
+    public void setTransactionReference(String transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+    
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+    
+    public void setTransactionType(TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public BigDecimal getDebit() {
+        return debit;
+    }
+    
+    public void setDebit(BigDecimal debit) {
+        this.debit = debit;
+    }
+    
+    public BigDecimal getCredit() {
+        return credit;
+    }
+    
+    public void setCredit(BigDecimal credit) {
+        this.credit = credit;
+    }
+    
+    public BigDecimal getFee() {
+        return fee;
+    }
+    
+    public void setFee(BigDecimal fee) {
+        this.fee = fee;
+    }
+    
+    public BigDecimal getBalance() {
+        return balance;
+    }
+    
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
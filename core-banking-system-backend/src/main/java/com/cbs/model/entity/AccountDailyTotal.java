@@ -0,0 +1,134 @@
+package com.cbs.model.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Money moved through one account on one business day, summed over every posted transaction leg.
+ * Rows are maintained incrementally as transactions are posted, so account totals are a sum over
+ * days rather than over transactions.
+ */
+@Entity
+@Table(name = "account_daily_totals")
+@IdClass(AccountDailyTotal.Key.class)
+public class AccountDailyTotal {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+    
+    @Id
+    @Column(name = "business_date")
+    private LocalDate businessDate;
+    
+    @Column(name = "debit_total", nullable = false, precision = 19, scale = 4)
+    private BigDecimal debitTotal = BigDecimal.ZERO;
+    
+    @Column(name = "credit_total", nullable = false, precision = 19, scale = 4)
+    private BigDecimal creditTotal = BigDecimal.ZERO;
+    
+    @Column(name = "fee_total", nullable = false, precision = 19, scale = 4)
+    private BigDecimal feeTotal = BigDecimal.ZERO;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Default constructor
+    public AccountDailyTotal() {
+    }
+    
+    // Getters and setters
+    public Long getAccountId() {
+        return accountId;
+    }
+    
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+    
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+    
+    public void setBusinessDate(LocalDate businessDate) {
+        this.businessDate = businessDate;
+    }
+    
+    public BigDecimal getDebitTotal() {
+        return debitTotal;
+    }
+    
+    public void setDebitTotal(BigDecimal debitTotal) {
+        this.debitTotal = debitTotal;
+    }
+    
+    public BigDecimal getCreditTotal() {
+        return creditTotal;
+    }
+    
+    public void setCreditTotal(BigDecimal creditTotal) {
+        this.creditTotal = creditTotal;
+    }
+    
+    public BigDecimal getFeeTotal() {
+        return feeTotal;
+    }
+    
+    public void setFeeTotal(BigDecimal feeTotal) {
+        this.feeTotal = feeTotal;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate businessDate;
+    
+        public Key() {
+        }
+    
+        public Key(Long accountId, LocalDate businessDate) {
+            this.accountId = accountId;
+            this.businessDate = businessDate;
+        }
+    
+        public Long getAccountId() {
+            return accountId;
+        }
+    
+        public LocalDate getBusinessDate() {
+            return businessDate;
+        }
+    
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(accountId, key.accountId) && Objects.equals(businessDate, key.businessDate);
+        }
+    
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, businessDate);
+        }
+    }
+}
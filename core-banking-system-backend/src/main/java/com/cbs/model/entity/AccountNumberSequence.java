@@ -0,0 +1,62 @@
+package com.cbs.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark for one account number series (type prefix + two-digit year, e.g. {@code SB25}).
+ * Application nodes reserve blocks of serial numbers from it and hand them out from memory.
+ */
+@Entity
+@Table(name = "account_number_sequences")
+public class AccountNumberSequence {
+    @Id
+    @Column(name = "series", length = 8)
+    private String series;
+    
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Default constructor
+    public AccountNumberSequence() {
+    }
+    
+    public AccountNumberSequence(String series) {
+        this.series = series;
+        this.nextValue = 0L;
+    }
+    
+    // Getters and setters
+    public String getSeries() {
+        return series;
+    }
+    
+    public void setSeries(String series) {
+        this.series = series;
+    }
+    
+    public Long getNextValue() {
+        return nextValue;
+    }
+    
+    public void setNextValue(Long nextValue) {
+        this.nextValue = nextValue;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -27,7 +27,7 @@ public class ErrorLog {
     @Column(name = "error_message", nullable = false, columnDefinition = "TEXT")
     private String errorMessage;
 
-    @Column(name = "stack_trace", columnDefinition = "LONGTEXT")
+    @Column(name = "stack_trace", columnDefinition = "TEXT")
     private String stackTrace;
 
     @Column(name = "user_id")
@@ -6,7 +6,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "kyc")
+@Table(name = "kyc", indexes = {
+    @Index(name = "idx_kyc_status_expiry", columnList = "status, expiry_date, kyc_id"),
+    @Index(name = "idx_kyc_review_queue", columnList = "status, submission_date, kyc_id")
+})
 public class KYC {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -60,6 +63,13 @@ public class KYC {
     @Column(name = "is_primary_document")
     private Boolean isPrimaryDocument;
     
+    // Reviewer working on the document, and until when other reviewers are kept off it
+    @Column(name = "claimed_by")
+    private Long claimedBy;
+    
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    
     // Default constructor
     public KYC() {
         this.createdAt = LocalDateTime.now();
@@ -196,6 +206,22 @@ public class KYC {
         this.isPrimaryDocument = isPrimaryDocument;
     }
     
+    public Long getClaimedBy() {
+        return claimedBy;
+    }
+    
+    public void setClaimedBy(Long claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+    
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
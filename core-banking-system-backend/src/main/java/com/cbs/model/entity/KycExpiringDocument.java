@@ -0,0 +1,66 @@
+package com.cbs.model.entity;
+
+import com.cbs.model.enums.DocumentType;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An approved {@link KYC} document that expires soon. The whole table is rebuilt by each expiry
+ * sweep, so it is at most one sweep interval out of date.
+ */
+@Entity
+@Table(name = "kyc_expiring_documents", indexes = {
+    @Index(name = "idx_kyc_expiring_expiry_date", columnList = "expiry_date")
+})
+public class KycExpiringDocument {
+    @Id
+    @Column(name = "kyc_id")
+    private Long kycId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "document_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DocumentType documentType;
+    
+    @Column(name = "expiry_date", nullable = false)
+    private LocalDateTime expiryDate;
+    
+    // Default constructor
+    public KycExpiringDocument() {
+    }
+    
+    // Getters and setters
+    public Long getKycId() {
+        return kycId;
+    }
+    
+    public void setKycId(Long kycId) {
+        this.kycId = kycId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public DocumentType getDocumentType() {
+        return documentType;
+    }
+    
+    public void setDocumentType(DocumentType documentType) {
+        this.documentType = documentType;
+    }
+    
+    public LocalDateTime getExpiryDate() {
+        return expiryDate;
+    }
+    
+    public void setExpiryDate(LocalDateTime expiryDate) {
+        this.expiryDate = expiryDate;
+    }
+}
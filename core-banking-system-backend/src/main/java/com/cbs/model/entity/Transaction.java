@@ -7,10 +7,21 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    // History pages are keyset scans on (transaction_date, transaction_id); see V11. In PostgreSQL
+    // the table is partitioned by month of transaction_date (V15), where references cannot be a
+    // unique constraint; there transaction_references keeps them unique (V19)
+    @Index(name = "idx_transaction_source_date", columnList = "source_account_id, transaction_date, transaction_id"),
+    @Index(name = "idx_transaction_destination_date", columnList = "destination_account_id, transaction_date, transaction_id"),
+    @Index(name = "idx_transaction_user_date", columnList = "user_id, transaction_date, transaction_id"),
+    @Index(name = "idx_transaction_date_id", columnList = "transaction_date, transaction_id")
+})
 public class Transaction {
+    // Sequence ids (rather than IDENTITY) let Hibernate batch inserts; ids are handed out in
+    // blocks of 50, matching the sequence increment set in V9
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id_seq")
+    @SequenceGenerator(name = "transaction_id_seq", sequenceName = "transactions_transaction_id_seq", allocationSize = 50)
     @Column(name = "transaction_id")
     private Long transactionId;
     
@@ -0,0 +1,21 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.AccountDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface AccountDailyTotalRepository
+        extends JpaRepository<AccountDailyTotal, AccountDailyTotal.Key>, AccountDailyTotalRepositoryCustom {
+    
+    // Fees leave the account alongside the amount they were charged on, so they count as debits
+    @Query("SELECT COALESCE(SUM(d.debitTotal + d.feeTotal), 0) FROM AccountDailyTotal d WHERE d.accountId = :accountId")
+    BigDecimal sumDebitsByAccountId(@Param("accountId") Long accountId);
+    
+    @Query("SELECT COALESCE(SUM(d.creditTotal), 0) FROM AccountDailyTotal d WHERE d.accountId = :accountId")
+    BigDecimal sumCreditsByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,17 @@
+package com.cbs.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface AccountDailyTotalRepositoryCustom {
+    
+    /**
+     * Adds the given amounts to the account's totals for {@code businessDate} in a single
+     * statement, creating the row on the first posting of the day. Negative amounts take a
+     * posting back out again.
+     * <p>
+     * The statement bypasses the persistence context, so any managed {@code AccountDailyTotal}
+     * for the same key is stale afterwards.
+     */
+    void addToDailyTotals(Long accountId, LocalDate businessDate, BigDecimal debit, BigDecimal credit, BigDecimal fee);
+}
@@ -0,0 +1,69 @@
+package com.cbs.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class AccountDailyTotalRepositoryCustomImpl implements AccountDailyTotalRepositoryCustom {
+    
+    private static final String UPSERT_POSTGRES =
+            "INSERT INTO account_daily_totals " +
+            "(account_id, business_date, debit_total, credit_total, fee_total, updated_at) " +
+            "VALUES (:accountId, :businessDate, :debit, :credit, :fee, :updatedAt) " +
+            "ON CONFLICT (account_id, business_date) DO UPDATE SET " +
+            "debit_total = account_daily_totals.debit_total + EXCLUDED.debit_total, " +
+            "credit_total = account_daily_totals.credit_total + EXCLUDED.credit_total, " +
+            "fee_total = account_daily_totals.fee_total + EXCLUDED.fee_total, " +
+            "updated_at = EXCLUDED.updated_at";
+    
+    // SQL:2003 MERGE for everything else (H2 in tests)
+    private static final String UPSERT_MERGE =
+            "MERGE INTO account_daily_totals d " +
+            "USING (VALUES (CAST(:accountId AS BIGINT), CAST(:businessDate AS DATE), " +
+            "CAST(:debit AS DECIMAL(19, 4)), CAST(:credit AS DECIMAL(19, 4)), CAST(:fee AS DECIMAL(19, 4)), " +
+            "CAST(:updatedAt AS TIMESTAMP))) " +
+            "AS s (account_id, business_date, debit_total, credit_total, fee_total, updated_at) " +
+            "ON d.account_id = s.account_id AND d.business_date = s.business_date " +
+            "WHEN MATCHED THEN UPDATE SET debit_total = d.debit_total + s.debit_total, " +
+            "credit_total = d.credit_total + s.credit_total, fee_total = d.fee_total + s.fee_total, " +
+            "updated_at = s.updated_at " +
+            "WHEN NOT MATCHED THEN INSERT (account_id, business_date, debit_total, credit_total, fee_total, updated_at) " +
+            "VALUES (s.account_id, s.business_date, s.debit_total, s.credit_total, s.fee_total, s.updated_at)";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Dialect dialect;
+    
+    @Override
+    public void addToDailyTotals(Long accountId, LocalDate businessDate, BigDecimal debit, BigDecimal credit,
+                                 BigDecimal fee) {
+        String upsert = dialect() instanceof PostgreSQLDialect ? UPSERT_POSTGRES : UPSERT_MERGE;
+        entityManager.createNativeQuery(upsert)
+                .setParameter("accountId", accountId)
+                .setParameter("businessDate", Date.valueOf(businessDate))
+                .setParameter("debit", debit)
+                .setParameter("credit", credit)
+                .setParameter("fee", fee)
+                .setParameter("updatedAt", Timestamp.valueOf(LocalDateTime.now()))
+                .executeUpdate();
+    }
+    
+    private Dialect dialect() {
+        if (dialect == null) {
+            dialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect();
+        }
+        return dialect;
+    }
+}
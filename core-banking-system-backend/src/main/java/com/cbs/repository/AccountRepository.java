@@ -3,20 +3,53 @@ package com.cbs.repository;
 import com.cbs.model.entity.Account;
 import com.cbs.model.enums.AccountStatus;
 import com.cbs.model.enums.AccountType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
     
     Optional<Account> findByAccountNumber(String accountNumber);
     
+    /**
+     * Loads an account and takes a row-level write lock (SELECT ... FOR UPDATE) that is held
+     * until the surrounding transaction ends. Callers locking more than one account must
+     * acquire the locks in ascending account-id order to stay deadlock-free.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId = :accountId")
+    Optional<Account> findByIdForUpdate(@Param("accountId") Long accountId);
+    
+    /**
+     * Batch variant of {@link #findByIdForUpdate(Long)}: locks every listed account in a single
+     * statement, in ascending account-id order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountId IN :accountIds ORDER BY a.accountId")
+    List<Account> findAllByIdForUpdate(@Param("accountIds") Collection<Long> accountIds);
+    
+    /**
+     * Adds {@code delta} to a balance unconditionally, for postings whose checks already ran
+     * elsewhere. See {@link #applyBalanceDelta} for the checked form.
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta, a.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE a.accountId = :accountId")
+    int addToBalance(@Param("accountId") Long accountId, @Param("delta") BigDecimal delta);
+    
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.accountNumber BETWEEN :fromNumber AND :toNumber")
+    List<String> findAccountNumbersBetween(@Param("fromNumber") String fromNumber, @Param("toNumber") String toNumber);
+    
     List<Account> findByUserId(Long userId);
     
     List<Account> findByUserIdAndStatus(Long userId, AccountStatus status);
@@ -0,0 +1,20 @@
+package com.cbs.repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface AccountRepositoryCustom {
+    
+    /**
+     * Adds {@code delta} to the balance of an ACTIVE account in a single statement and returns
+     * the resulting balance. A negative delta is only applied when the account stays at or
+     * above its minimum balance, or within its overdraft limit.
+     * <p>
+     * The update goes straight to the database and bypasses the persistence context, so any
+     * managed {@code Account} instance for the same id is stale afterwards.
+     *
+     * @return the new balance, or empty when the account is missing, not ACTIVE, or the
+     *         debit would breach its limits
+     */
+    Optional<BalanceUpdate> applyBalanceDelta(Long accountId, BigDecimal delta);
+}
@@ -0,0 +1,112 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.Account;
+import com.cbs.model.enums.AccountStatus;
+import com.cbs.model.enums.AccountType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+    
+    private static final String UPDATE_BALANCE =
+            "UPDATE accounts SET balance = balance + :delta, updated_at = :updatedAt " +
+            "WHERE account_id = :accountId AND status = 'ACTIVE'";
+    
+    // Everything the callers build their responses from, so none of them reads the row again
+    private static final String COLUMNS =
+            "account_id, account_number, account_type, balance, user_id, branch_id, status, created_at, " +
+            "updated_at, minimum_balance, interest_rate, overdraft_limit";
+    
+    // Mirrors the Java-side rule: a debit may take the balance below the minimum only
+    // when the account has an overdraft limit that still covers it
+    private static final String DEBIT_GUARD =
+            " AND (minimum_balance IS NULL OR balance + :delta >= minimum_balance" +
+            " OR (overdraft_limit IS NOT NULL AND balance + :delta >= -overdraft_limit))";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Dialect dialect;
+    
+    @Override
+    public Optional<BalanceUpdate> applyBalanceDelta(Long accountId, BigDecimal delta) {
+        String update = delta.signum() < 0 ? UPDATE_BALANCE + DEBIT_GUARD : UPDATE_BALANCE;
+        Dialect currentDialect = dialect();
+        
+        if (currentDialect instanceof PostgreSQLDialect) {
+            return readBack(bind(entityManager.createNativeQuery(update + " RETURNING " + COLUMNS),
+                    accountId, delta));
+        }
+        if (currentDialect instanceof H2Dialect) {
+            return readBack(bind(entityManager.createNativeQuery(
+                    "SELECT " + COLUMNS + " FROM FINAL TABLE (" + update + ")"), accountId, delta));
+        }
+        
+        // No single-statement form available: the row stays locked by the update, so the
+        // follow-up read still sees exactly the balance this call produced
+        int updated = bind(entityManager.createNativeQuery(update), accountId, delta).executeUpdate();
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        return readBack(entityManager.createNativeQuery(
+                "SELECT " + COLUMNS + " FROM accounts WHERE account_id = :accountId")
+                .setParameter("accountId", accountId));
+    }
+    
+    private Query bind(Query query, Long accountId, BigDecimal delta) {
+        return query.setParameter("delta", delta)
+                .setParameter("updatedAt", Timestamp.valueOf(LocalDateTime.now()))
+                .setParameter("accountId", accountId);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Optional<BalanceUpdate> readBack(Query query) {
+        List<Object[]> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        Account account = new Account();
+        account.setAccountId(((Number) row[0]).longValue());
+        account.setAccountNumber((String) row[1]);
+        account.setAccountType(AccountType.valueOf((String) row[2]));
+        account.setBalance((BigDecimal) row[3]);
+        account.setUserId(((Number) row[4]).longValue());
+        account.setBranchId(row[5] == null ? null : ((Number) row[5]).longValue());
+        account.setStatus(AccountStatus.valueOf((String) row[6]));
+        account.setCreatedAt(toLocalDateTime(row[7]));
+        account.setUpdatedAt(toLocalDateTime(row[8]));
+        account.setMinimumBalance((BigDecimal) row[9]);
+        account.setInterestRate((BigDecimal) row[10]);
+        account.setOverdraftLimit((BigDecimal) row[11]);
+        return Optional.of(new BalanceUpdate(account));
+    }
+    
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+    
+    private Dialect dialect() {
+        if (dialect == null) {
+            dialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect();
+        }
+        return dialect;
+    }
+}
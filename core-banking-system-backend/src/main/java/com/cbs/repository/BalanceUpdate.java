@@ -0,0 +1,30 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of a conditional balance update: the account row as the update left it, read back by
+ * the same statement that applied the delta. The account is a detached snapshot, not managed by
+ * the persistence context, and must not be saved.
+ */
+public class BalanceUpdate {
+    private final Account account;
+    
+    public BalanceUpdate(Account account) {
+        this.account = account;
+    }
+    
+    public Account getAccount() {
+        return account;
+    }
+    
+    public BigDecimal getBalanceAfter() {
+        return account.getBalance();
+    }
+    
+    public Long getUserId() {
+        return account.getUserId();
+    }
+}
@@ -4,12 +4,17 @@ import com.cbs.model.entity.ErrorLog;
 import com.cbs.model.enums.ErrorLevel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 @Repository
 public interface ErrorLogRepository extends JpaRepository<ErrorLog, Long> {
@@ -23,4 +28,18 @@ public interface ErrorLogRepository extends JpaRepository<ErrorLog, Long> {
 
     @Query("SELECT COUNT(e) FROM ErrorLog e WHERE e.errorLevel = :errorLevel AND e.createdAt BETWEEN :startDate AND :endDate")
     long countByErrorLevelAndDateRange(@Param("errorLevel") ErrorLevel errorLevel, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    @Query("SELECT MIN(e.createdAt) FROM ErrorLog e")
+    LocalDateTime findEarliestCreatedAt();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM ErrorLog e WHERE e.createdAt >= :from AND e.createdAt < :to ORDER BY e.createdAt, e.errorId")
+    Stream<ErrorLog> streamByCreatedAtRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM ErrorLog e WHERE e.createdAt >= :from AND e.createdAt < :to")
+    int deleteByCreatedAtRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,46 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Inserts the key straight away rather than at flush time. A second transaction claiming the
+     * same key blocks on the primary key until the first one finishes, and then fails if it
+     * committed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, operation, request_hash, created_at) " +
+                   "VALUES (:key, :operation, :requestHash, :createdAt)", nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("operation") String operation,
+              @Param("requestHash") String requestHash,
+              @Param("createdAt") LocalDateTime createdAt);
+    
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.transactionId = :transactionId, r.responseBody = :responseBody " +
+           "WHERE r.idempotencyKey = :key")
+    int complete(@Param("key") String key,
+                 @Param("transactionId") Long transactionId,
+                 @Param("responseBody") String responseBody);
+    
+    /**
+     * Deletes up to {@code limit} of the oldest keys created before {@code cutoff}, found through
+     * {@code idx_idempotency_created_at}.
+     *
+     * @return the number of keys deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE idempotency_key IN (" +
+                   "SELECT idempotency_key FROM idempotency_keys WHERE created_at < :cutoff " +
+                   "ORDER BY created_at LIMIT :limit)", nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -3,12 +3,20 @@ package com.cbs.repository;
 import com.cbs.model.entity.KYC;
 import com.cbs.model.enums.DocumentType;
 import com.cbs.model.enums.KYCStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,9 +50,75 @@ public interface KYCRepository extends JpaRepository<KYC, Long> {
     @Query("SELECT COUNT(k) FROM KYC k WHERE k.userId = :userId AND k.status = :status")
     long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") KYCStatus status);
     
-    @Query("SELECT k FROM KYC k WHERE k.expiryDate < :currentDate AND k.status = 'APPROVED'")
+    // Swept documents, and approved ones the sweeper has not reached yet
+    @Query("SELECT k FROM KYC k WHERE k.status = 'EXPIRED' " +
+           "OR (k.status = 'APPROVED' AND k.expiryDate < :currentDate)")
     List<KYC> findExpiredKYCDocuments(@Param("currentDate") LocalDateTime currentDate);
     
+    // Keyset batches for the expiry sweeper: approved documents expired before currentDate and
+    // strictly after (afterDate, afterId), oldest first, read through idx_kyc_status_expiry. The
+    // Pageable only carries the batch size.
+    @Query("SELECT k FROM KYC k WHERE k.status = 'APPROVED' AND k.expiryDate < :currentDate " +
+           "AND k.expiryDate >= :afterDate " +
+           "AND (k.expiryDate > :afterDate OR k.kycId > :afterId) " +
+           "ORDER BY k.expiryDate ASC, k.kycId ASC")
+    List<KYC> findExpiredAfter(@Param("currentDate") LocalDateTime currentDate,
+                               @Param("afterDate") LocalDateTime afterDate,
+                               @Param("afterId") Long afterId,
+                               Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE KYC k SET k.status = 'EXPIRED', k.updatedAt = :updatedAt " +
+           "WHERE k.kycId IN :kycIds AND k.status = 'APPROVED'")
+    int markExpired(@Param("kycIds") List<Long> kycIds, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Moves a document out of {@code SUBMITTED}, unless a reviewer on any node has already moved
+     * it on or it was deleted. A successful update holds the row until commit.
+     *
+     * @return {@code 1} if the document was still submitted, {@code 0} otherwise
+     */
+    @Modifying
+    @Query("UPDATE KYC k SET k.status = :status, k.rejectionReason = :rejectionReason, k.updatedAt = :updatedAt " +
+           "WHERE k.kycId = :kycId AND k.status = 'SUBMITTED'")
+    int resolveSubmitted(@Param("kycId") Long kycId,
+                         @Param("status") KYCStatus status,
+                         @Param("rejectionReason") String rejectionReason,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Modifying
+    @Query("UPDATE KYC k SET k.documentUrl = :documentUrl, k.documentHash = :documentHash WHERE k.kycId = :kycId")
+    int attachDocument(@Param("kycId") Long kycId,
+                       @Param("documentUrl") String documentUrl,
+                       @Param("documentHash") String documentHash);
+    
+    @Query("SELECT k FROM KYC k WHERE k.status = 'APPROVED' AND k.expiryDate >= :from AND k.expiryDate < :until " +
+           "ORDER BY k.expiryDate ASC")
+    List<KYC> findExpiringBetween(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+    
+    /**
+     * Loads and locks the given documents with one statement, in ascending id order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT k FROM KYC k WHERE k.kycId IN :kycIds ORDER BY k.kycId")
+    List<KYC> findAllByIdForUpdate(@Param("kycIds") Collection<Long> kycIds);
+    
+    /**
+     * The next page of the review backlog for a reviewer: documents in one of {@code statuses}
+     * that are unclaimed, already claimed by them, or whose claim has lapsed, oldest submission
+     * first. Rows locked by another reviewer's claim in progress are skipped rather than waited
+     * for (SKIP LOCKED), so concurrent claims never return the same document.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2")) // LockOptions.SKIP_LOCKED
+    @Query("SELECT k FROM KYC k WHERE k.status IN :statuses " +
+           "AND (k.claimedUntil IS NULL OR k.claimedUntil < :now OR k.claimedBy = :reviewerId) " +
+           "ORDER BY k.submissionDate ASC, k.kycId ASC")
+    List<KYC> findClaimableForUpdate(@Param("statuses") Collection<KYCStatus> statuses,
+                                     @Param("reviewerId") Long reviewerId,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable pageable);
+    
     @Query("SELECT k FROM KYC k WHERE k.isPrimaryDocument = true AND k.userId = :userId")
     Optional<KYC> findPrimaryDocumentByUserId(@Param("userId") Long userId);
     
@@ -0,0 +1,20 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.KycDocumentBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface KycDocumentBlobRepository extends JpaRepository<KycDocumentBlob, String>,
+        KycDocumentBlobRepositoryCustom {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM KycDocumentBlob b WHERE b.contentHash = :contentHash")
+    Optional<KycDocumentBlob> findByContentHashForUpdate(@Param("contentHash") String contentHash);
+}
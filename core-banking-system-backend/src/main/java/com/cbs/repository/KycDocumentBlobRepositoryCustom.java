@@ -0,0 +1,16 @@
+package com.cbs.repository;
+
+public interface KycDocumentBlobRepositoryCustom {
+    
+    /**
+     * Counts one more reference to the content in a single statement, creating its row on the
+     * first one. A concurrent first upload of the same bytes waits on the row until this
+     * transaction finishes and then counts itself on top, instead of failing on the key.
+     * <p>
+     * The statement bypasses the persistence context, so any managed {@code KycDocumentBlob}
+     * for the same hash is stale afterwards.
+     *
+     * @return the reference count including this one; {@code 1} means the content is new
+     */
+    int addReference(String contentHash, long sizeBytes);
+}
@@ -0,0 +1,63 @@
+package com.cbs.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+public class KycDocumentBlobRepositoryCustomImpl implements KycDocumentBlobRepositoryCustom {
+    
+    private static final String UPSERT_POSTGRES =
+            "INSERT INTO kyc_document_blobs (content_hash, reference_count, size_bytes, created_at, updated_at) " +
+            "VALUES (:contentHash, 1, :sizeBytes, :now, :now) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET " +
+            "reference_count = kyc_document_blobs.reference_count + 1, " +
+            "updated_at = EXCLUDED.updated_at";
+    
+    // SQL:2003 MERGE for everything else (H2 in tests)
+    private static final String UPSERT_MERGE =
+            "MERGE INTO kyc_document_blobs b " +
+            "USING (VALUES (CAST(:contentHash AS CHAR(64)), CAST(:sizeBytes AS BIGINT), CAST(:now AS TIMESTAMP))) " +
+            "AS s (content_hash, size_bytes, now) " +
+            "ON b.content_hash = s.content_hash " +
+            "WHEN MATCHED THEN UPDATE SET reference_count = b.reference_count + 1, updated_at = s.now " +
+            "WHEN NOT MATCHED THEN INSERT (content_hash, reference_count, size_bytes, created_at, updated_at) " +
+            "VALUES (s.content_hash, 1, s.size_bytes, s.now, s.now)";
+    
+    private static final String REFERENCE_COUNT =
+            "SELECT reference_count FROM kyc_document_blobs WHERE content_hash = :contentHash";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Dialect dialect;
+    
+    @Override
+    public int addReference(String contentHash, long sizeBytes) {
+        String upsert = dialect() instanceof PostgreSQLDialect ? UPSERT_POSTGRES : UPSERT_MERGE;
+        entityManager.createNativeQuery(upsert)
+                .setParameter("contentHash", contentHash)
+                .setParameter("sizeBytes", sizeBytes)
+                .setParameter("now", Timestamp.valueOf(LocalDateTime.now()))
+                .executeUpdate();
+        // The upsert holds the row until commit, so the count cannot move in between
+        Number references = (Number) entityManager.createNativeQuery(REFERENCE_COUNT)
+                .setParameter("contentHash", contentHash)
+                .getSingleResult();
+        return references.intValue();
+    }
+    
+    private Dialect dialect() {
+        if (dialect == null) {
+            dialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect();
+        }
+        return dialect;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.KycExpiringDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface KycExpiringDocumentRepository extends JpaRepository<KycExpiringDocument, Long> {
+    
+    List<KycExpiringDocument> findByExpiryDateBeforeOrderByExpiryDateAsc(LocalDateTime before);
+    
+    @Modifying
+    @Query("DELETE FROM KycExpiringDocument")
+    int clear();
+    
+    /**
+     * Copies the approved documents expiring in {@code [from, until)} in one statement, read
+     * through the {@code (status, expiry_date)} index.
+     */
+    @Modifying
+    @Query("INSERT INTO KycExpiringDocument (kycId, userId, documentType, expiryDate) " +
+           "SELECT k.kycId, k.userId, k.documentType, k.expiryDate FROM KYC k " +
+           "WHERE k.status = com.cbs.model.enums.KYCStatus.APPROVED " +
+           "AND k.expiryDate >= :from AND k.expiryDate < :until")
+    int fill(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+}
@@ -3,21 +3,49 @@ package com.cbs.repository;
 import com.cbs.model.entity.Transaction;
 import com.cbs.model.enums.TransactionStatus;
 import com.cbs.model.enums.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
+    String HISTORY_BEFORE = "AND t.transactionDate <= :beforeDate " +
+            "AND (t.transactionDate < :beforeDate OR t.transactionId < :beforeId) ";
+    String HISTORY_ORDER = "ORDER BY t.transactionDate DESC, t.transactionId DESC";
+    
+    // Effect of a row on :accountId's balance. A transfer is stored as two rows that both name
+    // the source and destination: the debit leg carries the fee and moves the source, the credit
+    // leg moves the destination. The other leg of a transfer comes out as zero.
+    String STATEMENT_AMOUNT = "CASE " +
+            "WHEN t.transactionType = com.cbs.model.enums.TransactionType.TRANSFER " +
+            "AND t.sourceAccountId IS NOT NULL AND t.destinationAccountId IS NOT NULL THEN " +
+            "CASE WHEN t.feeAmount IS NOT NULL AND t.sourceAccountId = :accountId THEN 0 - (t.amount + t.feeAmount) " +
+            "WHEN t.feeAmount IS NULL AND t.destinationAccountId = :accountId THEN t.amount " +
+            "ELSE 0 END " +
+            "WHEN t.destinationAccountId = :accountId THEN t.amount " +
+            "ELSE 0 - (t.amount + COALESCE(t.feeAmount, 0)) END";
+    String STATEMENT_ROWS = "(t.sourceAccountId = :accountId OR t.destinationAccountId = :accountId) " +
+            "AND t.status IN :statuses ";
+    
     Optional<Transaction> findByTransactionReference(String transactionReference);
     
+    @Query("SELECT t.transactionReference FROM Transaction t WHERE t.transactionReference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+    
     List<Transaction> findBySourceAccountId(Long sourceAccountId);
     
     List<Transaction> findByDestinationAccountId(Long destinationAccountId);
@@ -42,6 +70,72 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
                                                            @Param("startDate") LocalDateTime startDate,
                                                            @Param("endDate") LocalDateTime endDate);
     
+    // Keyset history pages, newest first. Each returns the rows strictly before
+    // (beforeDate, beforeId); the Pageable only carries the page size. The redundant
+    // "transactionDate <= :beforeDate" bounds the index range scan.
+    
+    @Query("SELECT t FROM Transaction t WHERE t.sourceAccountId = :accountId " + HISTORY_BEFORE + HISTORY_ORDER)
+    List<Transaction> findSourceHistoryBefore(@Param("accountId") Long accountId,
+                                              @Param("beforeDate") LocalDateTime beforeDate,
+                                              @Param("beforeId") Long beforeId,
+                                              Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.destinationAccountId = :accountId " + HISTORY_BEFORE + HISTORY_ORDER)
+    List<Transaction> findDestinationHistoryBefore(@Param("accountId") Long accountId,
+                                                   @Param("beforeDate") LocalDateTime beforeDate,
+                                                   @Param("beforeId") Long beforeId,
+                                                   Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " + HISTORY_BEFORE + HISTORY_ORDER)
+    List<Transaction> findUserHistoryBefore(@Param("userId") Long userId,
+                                            @Param("beforeDate") LocalDateTime beforeDate,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.status = :status " + HISTORY_BEFORE + HISTORY_ORDER)
+    List<Transaction> findUserHistoryByStatusBefore(@Param("userId") Long userId,
+                                                    @Param("status") TransactionStatus status,
+                                                    @Param("beforeDate") LocalDateTime beforeDate,
+                                                    @Param("beforeId") Long beforeId,
+                                                    Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate >= :startDate " + HISTORY_BEFORE + HISTORY_ORDER)
+    List<Transaction> findHistoryBefore(@Param("startDate") LocalDateTime startDate,
+                                        @Param("beforeDate") LocalDateTime beforeDate,
+                                        @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.transactionDate >= :startDate " +
+           HISTORY_BEFORE + HISTORY_ORDER)
+    List<Transaction> findUserHistoryBetweenBefore(@Param("userId") Long userId,
+                                                   @Param("startDate") LocalDateTime startDate,
+                                                   @Param("beforeDate") LocalDateTime beforeDate,
+                                                   @Param("beforeId") Long beforeId,
+                                                   Pageable pageable);
+    
+    /**
+     * Statement rows as {@code [Transaction, signed amount]}, oldest first. Read through a
+     * forward-only cursor in chunks of the fetch size; callers must consume the stream inside a
+     * transaction and close it.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t, " + STATEMENT_AMOUNT + " FROM Transaction t WHERE " + STATEMENT_ROWS +
+           "AND t.transactionDate >= :from AND t.transactionDate < :to " +
+           "ORDER BY t.transactionDate, t.transactionId")
+    Stream<Object[]> streamStatement(@Param("accountId") Long accountId,
+                                     @Param("statuses") Collection<TransactionStatus> statuses,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+    
+    @Query("SELECT COALESCE(SUM(" + STATEMENT_AMOUNT + "), 0) FROM Transaction t WHERE " + STATEMENT_ROWS +
+           "AND t.transactionDate >= :from")
+    BigDecimal sumStatementAmountsSince(@Param("accountId") Long accountId,
+                                        @Param("statuses") Collection<TransactionStatus> statuses,
+                                        @Param("from") LocalDateTime from);
+    
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.sourceAccountId = :accountId AND t.status = :status AND t.transactionType = :type")
     BigDecimal sumDebitsByAccountIdAndStatus(@Param("accountId") Long accountId,
                                            @Param("status") TransactionStatus status,
@@ -57,4 +151,22 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     @Query("SELECT t FROM Transaction t WHERE t.relatedTransactionId = :transactionId")
     List<Transaction> findByRelatedTransactionId(@Param("transactionId") Long transactionId);
+    
+    // Archival (see ArchiveServiceImpl): one month at a time, in archive order
+    
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t")
+    LocalDateTime findEarliestTransactionDate();
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate >= :from AND t.transactionDate < :to " +
+           "ORDER BY t.transactionDate, t.transactionId")
+    Stream<Transaction> streamByTransactionDateRange(@Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.transactionDate >= :from AND t.transactionDate < :to")
+    int deleteByTransactionDateRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.cbs.security;
+
+import com.cbs.model.entity.User;
+import com.cbs.model.enums.UserStatus;
+import com.cbs.repository.UserRepository;
+import com.cbs.util.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bounded, TTL-evicted cache of the principals behind JWTs, keyed by user id, so an authenticated
+ * request normally reaches the controller without touching {@code users}. Unknown and inactive
+ * users are cached too, as disabled principals, so a stream of requests with a revoked token
+ * does not turn into a stream of queries.
+ * <p>
+ * Entries are evicted when the user is changed, on every node through the
+ * {@link CacheInvalidationBus}; the TTL bounds how long a change made behind the application's
+ * back (a direct SQL update) can go unnoticed.
+ */
+@Component
+public class PrincipalCache {
+
+    static final String USER_TOPIC = "user";
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<Long, UserPrincipal> principals;
+    private final Cache<String, Long> userIds;
+
+    @Autowired
+    public PrincipalCache(UserRepository userRepository,
+                          CacheInvalidationBus invalidationBus,
+                          @Value("${cbs.app.principalCacheMaxSize:10000}") long maxSize,
+                          @Value("${cbs.app.principalCacheTtlMs:300000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+        this.userIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+
+        invalidationBus.subscribe(USER_TOPIC, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void invalidate(String key) {
+                principals.invalidate(Long.valueOf(key));
+            }
+
+            @Override
+            public void invalidateAll() {
+                principals.invalidateAll();
+                userIds.invalidateAll();
+            }
+        });
+    }
+
+    public UserPrincipal get(Long userId) {
+        return principals.get(userId, id -> userRepository.findById(id)
+                .map(this::toPrincipal)
+                .orElseGet(() -> new UserPrincipal(id, "", "", false, List.of())));
+    }
+
+    /**
+     * Resolves a principal for a token that predates the user id claim. The username is mapped to
+     * its user id once and the principal cached under the id like any other entry. A mapping whose
+     * principal no longer carries the username (the user was renamed) is looked up again.
+     */
+    public UserPrincipal getByUsername(String username) {
+        Long userId = userIds.getIfPresent(username);
+        if (userId != null) {
+            UserPrincipal principal = get(userId);
+            if (username.equals(principal.getUsername())) {
+                return principal;
+            }
+            userIds.invalidate(username);
+        }
+        return userRepository.findByUsername(username)
+                .map(user -> {
+                    userIds.put(username, user.getUserId());
+                    return principals.get(user.getUserId(), id -> toPrincipal(user));
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Drops the cached principal now and again once the surrounding transaction commits, so a
+     * request racing the change cannot put the old row back for a whole TTL. Other nodes drop
+     * theirs when the change commits.
+     */
+    public void invalidate(Long userId) {
+        invalidationBus.publish(USER_TOPIC, userId);
+        principals.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principals.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private UserPrincipal toPrincipal(User user) {
+        return new UserPrincipal(user.getUserId(), user.getUsername(), "",
+                user.getStatus() == UserStatus.ACTIVE, List.of());
+    }
+}
@@ -0,0 +1,25 @@
+package com.cbs.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Authenticated user as seen by the security layer. Carries the user id next to the username so
+ * ownership checks such as {@link UserSecurity#isCurrentUser(Long)} need no lookup.
+ */
+public class UserPrincipal extends User {
+
+    private final Long userId;
+
+    public UserPrincipal(Long userId, String username, String password, boolean enabled,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
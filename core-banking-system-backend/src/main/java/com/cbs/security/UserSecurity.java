@@ -1,6 +1,5 @@
 package com.cbs.security;
 
-import com.cbs.model.entity.User;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -15,8 +14,8 @@ public class UserSecurity {
         }
 
         Object principal = authentication.getPrincipal();
-        if (principal instanceof User) {
-            Long currentUserId = ((User) principal).getUserId();
+        if (principal instanceof UserPrincipal) {
+            Long currentUserId = ((UserPrincipal) principal).getUserId();
             return currentUserId != null && currentUserId.equals(userId);
         }
 
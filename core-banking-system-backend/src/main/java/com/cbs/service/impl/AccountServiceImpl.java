@@ -6,7 +6,9 @@ import com.cbs.model.entity.Account;
 import com.cbs.model.enums.AccountStatus;
 import com.cbs.model.enums.AccountType;
 import com.cbs.repository.AccountRepository;
+import com.cbs.repository.BalanceUpdate;
 import com.cbs.service.interface_.AccountService;
+import com.cbs.util.AccountCache;
 import com.cbs.util.AccountNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,12 +29,15 @@ public class AccountServiceImpl implements AccountService {
     
     private final AccountRepository accountRepository;
     private final AccountNumberGenerator accountNumberGenerator;
+    private final AccountCache accountCache;
     
     @Autowired
     public AccountServiceImpl(AccountRepository accountRepository, 
-                             AccountNumberGenerator accountNumberGenerator) {
+                             AccountNumberGenerator accountNumberGenerator,
+                             AccountCache accountCache) {
         this.accountRepository = accountRepository;
         this.accountNumberGenerator = accountNumberGenerator;
+        this.accountCache = accountCache;
     }
     
     @Override
@@ -42,14 +47,9 @@ public class AccountServiceImpl implements AccountService {
         // Validate user exists (you might want to add a UserRepository dependency)
         // For now, we'll assume the user exists
         
-        // Generate unique account number
-        String accountNumber;
-        do {
-            accountNumber = accountNumberGenerator.generateAccountNumber(request.getAccountType());
-        } while (accountRepository.existsByAccountNumber(accountNumber));
-        
+        // Numbers come from a reserved serial block, so they are unique without a lookup
         Account account = new Account();
-        account.setAccountNumber(accountNumber);
+        account.setAccountNumber(accountNumberGenerator.generateAccountNumber(request.getAccountType()));
         account.setAccountType(request.getAccountType());
         account.setUserId(request.getUserId());
         account.setBranchId(request.getBranchId());
@@ -75,6 +75,7 @@ public class AccountServiceImpl implements AccountService {
         }
         
         Account savedAccount = accountRepository.save(account);
+        accountCache.invalidateUser(savedAccount.getUserId());
         logger.info("Account created successfully with ID: {}", savedAccount.getAccountId());
         
         return convertToResponse(savedAccount);
@@ -83,21 +84,21 @@ public class AccountServiceImpl implements AccountService {
     @Override
     @Transactional(readOnly = true)
     public Optional<AccountResponse> getAccountById(Long accountId) {
-        return accountRepository.findById(accountId)
+        return accountCache.getById(accountId)
                 .map(this::convertToResponse);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Optional<AccountResponse> getAccountByNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber)
+        return accountCache.getByNumber(accountNumber)
                 .map(this::convertToResponse);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<AccountResponse> getAccountsByUserId(Long userId) {
-        List<Account> accounts = accountRepository.findByUserId(userId);
+        List<Account> accounts = accountCache.getByUserId(userId);
         return accounts.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
@@ -131,6 +132,7 @@ public class AccountServiceImpl implements AccountService {
         account.setStatus(newStatus);
         
         Account updatedAccount = accountRepository.save(account);
+        accountCache.invalidateStatus(accountId, account.getUserId());
         logger.info("Account status updated to {} for account ID: {}", newStatus, accountId);
         
         return convertToResponse(updatedAccount);
@@ -142,18 +144,13 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
         
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new RuntimeException("Cannot deposit to inactive account");
-        }
-        
-        account.setBalance(account.getBalance().add(amount));
-        Account updatedAccount = accountRepository.save(account);
+        BalanceUpdate update = accountRepository.applyBalanceDelta(accountId, amount)
+                .orElseThrow(() -> BalanceUpdateFailures.accountUnavailable(accountRepository, accountId,
+                        "Cannot deposit to inactive account"));
+        accountCache.invalidate(accountId, update.getUserId());
         
         logger.info("Deposited {} to account ID: {}", amount, accountId);
-        return convertToResponse(updatedAccount);
+        return convertToResponse(update.getAccount());
     }
     
     @Override
@@ -162,30 +159,14 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
         
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new RuntimeException("Cannot withdraw from inactive account");
-        }
-        
-        BigDecimal newBalance = account.getBalance().subtract(amount);
-        
-        // Check minimum balance
-        if (account.getMinimumBalance() != null && 
-            newBalance.compareTo(account.getMinimumBalance()) < 0) {
-            // Check if overdraft is allowed
-            if (account.getOverdraftLimit() == null || 
-                newBalance.compareTo(account.getOverdraftLimit().negate()) < 0) {
-                throw new Exception("Insufficient balance");
-            }
-        }
-        
-        account.setBalance(newBalance);
-        Account updatedAccount = accountRepository.save(account);
+        // The minimum-balance and overdraft rules are checked by the update itself, so two
+        // concurrent withdrawals cannot both pass against the same starting balance
+        BalanceUpdate update = accountRepository.applyBalanceDelta(accountId, amount.negate())
+                .orElseThrow(() -> BalanceUpdateFailures.withdrawalRejected(accountRepository, accountId));
         
+        accountCache.invalidate(accountId, update.getUserId());
         logger.info("Withdrew {} from account ID: {}", amount, accountId);
-        return convertToResponse(updatedAccount);
+        return convertToResponse(update.getAccount());
     }
     
     @Override
@@ -210,6 +191,7 @@ public class AccountServiceImpl implements AccountService {
         
         account.setStatus(AccountStatus.CLOSED);
         accountRepository.save(account);
+        accountCache.invalidateStatus(accountId, account.getUserId());
         
         logger.info("Account {} marked as closed", accountId);
     }
@@ -231,6 +213,11 @@ public class AccountServiceImpl implements AccountService {
         }
     }
     
+    /**
+     * Builds the response for an account whose balance was just changed by a direct update.
+     * The entity may have been loaded before the update, so the balance is taken from the
+     * update result rather than from the persistence context.
+     */
     private AccountResponse convertToResponse(Account account) {
         AccountResponse response = new AccountResponse();
         response.setAccountId(account.getAccountId());
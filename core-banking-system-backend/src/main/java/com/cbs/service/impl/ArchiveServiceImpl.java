@@ -0,0 +1,115 @@
+package com.cbs.service.impl;
+
+import com.cbs.archive.ArchiveCodec;
+import com.cbs.archive.ArchiveStore;
+import com.cbs.repository.AuditLogRepository;
+import com.cbs.repository.ErrorLogRepository;
+import com.cbs.repository.TransactionRepository;
+import com.cbs.service.interface_.ArchiveService;
+import com.cbs.util.TransactionPartitionMaintainer;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+@Transactional
+public class ArchiveServiceImpl implements ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveServiceImpl.class);
+
+    private final ArchiveStore archiveStore;
+    private final Optional<TransactionPartitionMaintainer> partitionMaintainer;
+    private final EntityManager entityManager;
+    private final Map<ArchiveCodec<?>, LiveTable<?>> liveTables;
+
+    @Autowired
+    public ArchiveServiceImpl(ArchiveStore archiveStore,
+                              Optional<TransactionPartitionMaintainer> partitionMaintainer,
+                              EntityManager entityManager,
+                              TransactionRepository transactionRepository,
+                              AuditLogRepository auditLogRepository,
+                              ErrorLogRepository errorLogRepository) {
+        this.archiveStore = archiveStore;
+        this.partitionMaintainer = partitionMaintainer;
+        this.entityManager = entityManager;
+        this.liveTables = Map.of(
+                ArchiveCodec.TRANSACTIONS, new LiveTable<>(transactionRepository::findEarliestTransactionDate,
+                        transactionRepository::streamByTransactionDateRange,
+                        transactionRepository::deleteByTransactionDateRange),
+                ArchiveCodec.AUDIT_LOGS, new LiveTable<>(auditLogRepository::findEarliestCreatedAt,
+                        auditLogRepository::streamByCreatedAtRange,
+                        auditLogRepository::deleteByCreatedAtRange),
+                ArchiveCodec.ERROR_LOGS, new LiveTable<>(errorLogRepository::findEarliestCreatedAt,
+                        errorLogRepository::streamByCreatedAtRange,
+                        errorLogRepository::deleteByCreatedAtRange));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<YearMonth> findOldestLiveMonth(ArchiveCodec<?> codec) {
+        return Optional.ofNullable(liveTable(codec).earliest.get()).map(YearMonth::from);
+    }
+
+    @Override
+    public long archiveMonth(ArchiveCodec<?> codec, YearMonth month) {
+        return archive(codec, month);
+    }
+
+    private <T> long archive(ArchiveCodec<T> codec, YearMonth month) {
+        LiveTable<T> table = liveTable(codec);
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        long archived;
+        try (Stream<T> rows = table.stream.apply(from, to)) {
+            // Keep the persistence context empty so memory stays flat however big the month is
+            archived = archiveStore.archive(codec, month, rows.peek(entityManager::detach));
+        }
+
+        // Only present with cbs.partitions.enabled
+        TransactionPartitionMaintainer partitions = partitionMaintainer.orElse(null);
+        if (codec == ArchiveCodec.TRANSACTIONS && partitions != null && partitions.hasPartition(month)) {
+            // Dropping the month's partition is instant and leaves no dead rows behind
+            partitions.drop(partitions.detach(month));
+        } else {
+            int deleted = table.delete.apply(from, to);
+            if (deleted != archived) {
+                // Rows written in between would be lost; undo the delete and try again next round
+                throw new IllegalStateException("Archived " + archived + " rows of " + codec.getTable()
+                        + " for " + month + " but " + deleted + " were deleted");
+            }
+        }
+        logger.info("Moved {} rows of {} for {} to the archive", archived, codec.getTable(), month);
+        return archived;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> LiveTable<T> liveTable(ArchiveCodec<T> codec) {
+        return (LiveTable<T>) liveTables.get(codec);
+    }
+
+    private static final class LiveTable<T> {
+        private final Supplier<LocalDateTime> earliest;
+        private final BiFunction<LocalDateTime, LocalDateTime, Stream<T>> stream;
+        private final BiFunction<LocalDateTime, LocalDateTime, Integer> delete;
+
+        private LiveTable(Supplier<LocalDateTime> earliest,
+                          BiFunction<LocalDateTime, LocalDateTime, Stream<T>> stream,
+                          BiFunction<LocalDateTime, LocalDateTime, Integer> delete) {
+            this.earliest = earliest;
+            this.stream = stream;
+            this.delete = delete;
+        }
+    }
+}
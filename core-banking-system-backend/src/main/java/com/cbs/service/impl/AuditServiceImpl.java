@@ -1,15 +1,23 @@
 // src/main/java/com/cbs/service/impl/AuditServiceImpl.java
 package com.cbs.service.impl;
 
+import com.cbs.archive.ArchiveCodec;
+import com.cbs.archive.ArchiveQuery;
+import com.cbs.archive.ArchiveStore;
+import com.cbs.audit.AuditJournal;
+import com.cbs.audit.AuditRecord;
 import com.cbs.model.entity.AuditLog;
 import com.cbs.model.enums.AuditAction;
 import com.cbs.repository.AuditLogRepository;
 import com.cbs.service.interface_.AuditService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -18,14 +26,23 @@ import java.time.LocalDateTime;
 @Transactional
 public class AuditServiceImpl implements AuditService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuditServiceImpl.class);
+
     private final AuditLogRepository auditLogRepository;
+    private final AuditJournal auditJournal;
+    private final ArchiveStore archiveStore;
 
     @Autowired
-    public AuditServiceImpl(AuditLogRepository auditLogRepository) {
+    public AuditServiceImpl(AuditLogRepository auditLogRepository, AuditJournal auditJournal,
+            ArchiveStore archiveStore) {
         this.auditLogRepository = auditLogRepository;
+        this.auditJournal = auditJournal;
+        this.archiveStore = archiveStore;
     }
 
+    // SUPPORTS: with the journal in front, logging must not wait for a database connection
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public AuditLog logAction(Long userId, AuditAction action, String entityType, Long entityId, String oldValues,
             String newValues, String ipAddress, String userAgent) {
         AuditLog auditLog = new AuditLog(userId, action, entityType, entityId);
@@ -34,10 +51,21 @@ public class AuditServiceImpl implements AuditService {
         auditLog.setIpAddress(ipAddress);
         auditLog.setUserAgent(userAgent);
 
+        if (auditJournal.isWriteAhead()) {
+            auditLog.setCreatedAt(LocalDateTime.now());
+            try {
+                // Journaled entries reach audit_logs through the replayer, so no id is assigned yet
+                auditJournal.appendAudit(new AuditRecord(auditLog));
+                return auditLog;
+            } catch (RuntimeException e) {
+                logger.warn("Could not journal audit record, writing it directly: {}", e.getMessage());
+            }
+        }
         return auditLogRepository.save(auditLog);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public AuditLog logAction(Long userId, AuditAction action, String entityType, Long entityId) {
         return logAction(userId, action, entityType, entityId, null, null, null, null);
     }
@@ -45,49 +73,64 @@ public class AuditServiceImpl implements AuditService {
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAllAuditLogs(Pageable pageable) {
-        return auditLogRepository.findAll(pageable);
+        return archiveStore.extend(auditLogRepository.findAll(pageable), archived());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogsByUserId(Long userId, Pageable pageable) {
-        return auditLogRepository.findByUserId(userId, pageable);
+        return archiveStore.extend(auditLogRepository.findByUserId(userId, pageable),
+                archived().orEquals("user_id", userId));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogsByAction(AuditAction action, Pageable pageable) {
-        return auditLogRepository.findByAction(action, pageable);
+        return archiveStore.extend(auditLogRepository.findByAction(action, pageable),
+                archived().where(auditLog -> auditLog.getAction() == action));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogsByEntityType(String entityType, Pageable pageable) {
-        return auditLogRepository.findByEntityType(entityType, pageable);
+        return archiveStore.extend(auditLogRepository.findByEntityType(entityType, pageable),
+                archived().where(auditLog -> entityType.equals(auditLog.getEntityType())));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogsByUserIdAndAction(Long userId, AuditAction action, Pageable pageable) {
-        return auditLogRepository.findByUserIdAndAction(userId, action, pageable);
+        return archiveStore.extend(auditLogRepository.findByUserIdAndAction(userId, action, pageable),
+                archived().orEquals("user_id", userId).where(auditLog -> auditLog.getAction() == action));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogsByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return auditLogRepository.findByDateRange(startDate, endDate, pageable);
+        return archiveStore.extend(auditLogRepository.findByDateRange(startDate, endDate, pageable),
+                archived().between(startDate, endDate));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogsByUserIdAndDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate,
             Pageable pageable) {
-        return auditLogRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable);
+        return archiveStore.extend(auditLogRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable),
+                archived().between(startDate, endDate).orEquals("user_id", userId));
     }
 
     @Override
     @Transactional(readOnly = true)
     public long countActionsByTypeAndDateRange(AuditAction action, LocalDateTime startDate, LocalDateTime endDate) {
-        return auditLogRepository.countByActionAndDateRange(action, startDate, endDate);
+        long archivedCount = archiveStore.hasArchive(ArchiveCodec.AUDIT_LOGS)
+                ? archiveStore.count(archived().between(startDate, endDate)
+                        .where(auditLog -> auditLog.getAction() == action))
+                : 0;
+        return auditLogRepository.countByActionAndDateRange(action, startDate, endDate) + archivedCount;
+    }
+
+    // Audit logs older than the archival cutoff live in the archive; listings continue there
+    private ArchiveQuery<AuditLog> archived() {
+        return ArchiveQuery.of(ArchiveCodec.AUDIT_LOGS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.cbs.service.impl;
+
+import com.cbs.model.enums.AccountStatus;
+import com.cbs.repository.AccountRepository;
+
+/**
+ * Works out why {@link AccountRepository#applyBalanceDelta} touched no row, reporting the same
+ * errors the read-then-write path used to raise. Only called on the failure path, so the extra
+ * read costs nothing on a successful update.
+ */
+final class BalanceUpdateFailures {
+
+    private BalanceUpdateFailures() {
+    }
+
+    static RuntimeException accountUnavailable(AccountRepository accountRepository, Long accountId,
+                                               String inactiveMessage) {
+        return accountRepository.findById(accountId)
+                .map(account -> new RuntimeException(inactiveMessage))
+                .orElseGet(() -> new RuntimeException("Account not found"));
+    }
+
+    /**
+     * A debit that touched no row was refused either for the balance rules or because the
+     * account is missing or not active.
+     */
+    static Exception withdrawalRejected(AccountRepository accountRepository, Long accountId) {
+        boolean active = accountRepository.findById(accountId)
+                .map(account -> account.getStatus() == AccountStatus.ACTIVE)
+                .orElse(false);
+        return active
+                ? new Exception("Insufficient balance")
+                : accountUnavailable(accountRepository, accountId, "Cannot withdraw from inactive account");
+    }
+}
@@ -2,6 +2,7 @@ package com.cbs.service.impl;
 
 import com.cbs.model.entity.User;
 import com.cbs.repository.UserRepository;
+import com.cbs.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -23,9 +24,12 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
-        return new org.springframework.security.core.userdetails.User(
+        // The id rides along so the issued token can carry it
+        return new UserPrincipal(
+                user.getUserId(),
                 user.getUsername(),
                 user.getPassword(),
+                true,
                 new ArrayList<>());
     }
 }
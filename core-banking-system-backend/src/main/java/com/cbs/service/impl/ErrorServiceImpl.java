@@ -1,13 +1,21 @@
 package com.cbs.service.impl;
 
+import com.cbs.archive.ArchiveCodec;
+import com.cbs.archive.ArchiveQuery;
+import com.cbs.archive.ArchiveStore;
+import com.cbs.audit.AuditJournal;
+import com.cbs.audit.ErrorRecord;
 import com.cbs.model.entity.ErrorLog;
 import com.cbs.model.enums.ErrorLevel;
 import com.cbs.repository.ErrorLogRepository;
 import com.cbs.service.ErrorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.PrintWriter;
@@ -18,14 +26,23 @@ import java.time.LocalDateTime;
 @Transactional
 public class ErrorServiceImpl implements ErrorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ErrorServiceImpl.class);
+
     private final ErrorLogRepository errorLogRepository;
+    private final AuditJournal auditJournal;
+    private final ArchiveStore archiveStore;
 
     @Autowired
-    public ErrorServiceImpl(ErrorLogRepository errorLogRepository) {
+    public ErrorServiceImpl(ErrorLogRepository errorLogRepository, AuditJournal auditJournal,
+            ArchiveStore archiveStore) {
         this.errorLogRepository = errorLogRepository;
+        this.auditJournal = auditJournal;
+        this.archiveStore = archiveStore;
     }
 
+    // SUPPORTS: with the journal in front, logging must not wait for a database connection
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ErrorLog logError(ErrorLevel level, String message, String stackTrace, Long userId, String requestUrl,
             String requestMethod, String ipAddress, String userAgent) {
         ErrorLog errorLog = new ErrorLog(level, message, stackTrace);
@@ -34,10 +51,21 @@ public class ErrorServiceImpl implements ErrorService {
         errorLog.setRequestMethod(requestMethod);
         errorLog.setIpAddress(ipAddress);
         errorLog.setUserAgent(userAgent);
+
+        if (auditJournal.isWriteAhead()) {
+            errorLog.setCreatedAt(LocalDateTime.now());
+            try {
+                auditJournal.appendError(new ErrorRecord(errorLog));
+                return errorLog;
+            } catch (RuntimeException e) {
+                logger.warn("Could not journal error record, writing it directly: {}", e.getMessage());
+            }
+        }
         return errorLogRepository.save(errorLog);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ErrorLog logError(Exception ex, Long userId, String requestUrl, String requestMethod, String ipAddress,
             String userAgent) {
         StringWriter sw = new StringWriter();
@@ -62,30 +90,42 @@ public class ErrorServiceImpl implements ErrorService {
     @Override
     @Transactional(readOnly = true)
     public Page<ErrorLog> getErrorLogs(Pageable pageable) {
-        return errorLogRepository.findAll(pageable);
+        return archiveStore.extend(errorLogRepository.findAll(pageable), archived());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ErrorLog> getErrorLogsByLevel(ErrorLevel errorLevel, Pageable pageable) {
-        return errorLogRepository.findByErrorLevel(errorLevel, pageable);
+        return archiveStore.extend(errorLogRepository.findByErrorLevel(errorLevel, pageable),
+                archived().where(errorLog -> errorLog.getErrorLevel() == errorLevel));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ErrorLog> getErrorLogsByUser(Long userId, Pageable pageable) {
-        return errorLogRepository.findByUserId(userId, pageable);
+        return archiveStore.extend(errorLogRepository.findByUserId(userId, pageable),
+                archived().orEquals("user_id", userId));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ErrorLog> getErrorLogsByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return errorLogRepository.findByDateRange(startDate, endDate, pageable);
+        return archiveStore.extend(errorLogRepository.findByDateRange(startDate, endDate, pageable),
+                archived().between(startDate, endDate));
     }
 
     @Override
     @Transactional(readOnly = true)
     public long countErrorsByLevelAndDateRange(ErrorLevel errorLevel, LocalDateTime startDate, LocalDateTime endDate) {
-        return errorLogRepository.countByErrorLevelAndDateRange(errorLevel, startDate, endDate);
+        long archivedCount = archiveStore.hasArchive(ArchiveCodec.ERROR_LOGS)
+                ? archiveStore.count(archived().between(startDate, endDate)
+                        .where(errorLog -> errorLog.getErrorLevel() == errorLevel))
+                : 0;
+        return errorLogRepository.countByErrorLevelAndDateRange(errorLevel, startDate, endDate) + archivedCount;
+    }
+
+    // Error logs older than the archival cutoff live in the archive; listings continue there
+    private ArchiveQuery<ErrorLog> archived() {
+        return ArchiveQuery.of(ArchiveCodec.ERROR_LOGS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.cbs.service.impl;
+
+import com.cbs.model.dto.response.TransactionResponse;
+import com.cbs.model.entity.IdempotencyRecord;
+import com.cbs.repository.IdempotencyRecordRepository;
+import com.cbs.service.interface_.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Keys live in {@code idempotency_keys}, written in the same transaction as the postings, with
+ * a bounded in-memory window of recently completed keys in front so that the usual quick retry
+ * is answered without a query. Concurrent duplicates on this node wait on the first request's
+ * future; duplicates on other nodes block on the key's primary key until the first transaction
+ * commits and then read its stored response.
+ * <p>
+ * Keys of journaled actions are held in memory from the moment the action starts until the
+ * journal writer has {@link #record recorded} them, which is what stops a retry from posting
+ * twice while the key is not in {@code idempotency_keys} yet.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+    
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final long waitTimeoutMs;
+    
+    private final Cache<String, StoredResponse> completed;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    // Journaled actions whose key is not in idempotency_keys yet
+    private final Map<String, CompletableFuture<StoredResponse>> journaled = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${cbs.idempotency.windowSize:10000}") long windowSize,
+                                  @Value("${cbs.idempotency.windowMs:600000}") long windowMs,
+                                  @Value("${cbs.idempotency.waitTimeoutMs:30000}") long waitTimeoutMs) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(windowSize)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+    }
+    
+    @Override
+    public TransactionResponse execute(String idempotencyKey, String operation, Object request,
+                                       Callable<TransactionResponse> action) throws Exception {
+        if (idempotencyKey == null) {
+            return action.call();
+        }
+        checkKey(idempotencyKey);
+        String requestHash = fingerprint(operation, request);
+        
+        StoredResponse recent = completed.getIfPresent(idempotencyKey);
+        if (recent != null) {
+            return replay(recent, requestHash);
+        }
+        
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(idempotencyKey, mine);
+        if (running != null) {
+            return replay(await(running), requestHash);
+        }
+        
+        try {
+            StoredResponse response = executeOnce(idempotencyKey, operation, requestHash, action);
+            completed.put(idempotencyKey, response);
+            mine.complete(response);
+            return replay(response, requestHash);
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<TransactionResponse> executeJournaled(
+            String idempotencyKey, String operation, Object request,
+            Function<String, CompletableFuture<TransactionResponse>> action) throws Exception {
+        if (idempotencyKey == null) {
+            return action.apply(null);
+        }
+        checkKey(idempotencyKey);
+        String requestHash = fingerprint(operation, request);
+        
+        StoredResponse recent = completed.getIfPresent(idempotencyKey);
+        if (recent != null) {
+            return CompletableFuture.completedFuture(replay(recent, requestHash));
+        }
+        
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> pending = journaled.putIfAbsent(idempotencyKey, mine);
+        if (pending != null) {
+            return pending.thenApply(response -> replayUnchecked(response, requestHash));
+        }
+        
+        // Checked after taking the key: a writer that recorded it has committed before letting go
+        StoredResponse stored = findStored(idempotencyKey);
+        if (stored != null) {
+            journaled.remove(idempotencyKey, mine);
+            completed.put(idempotencyKey, stored);
+            mine.complete(stored);
+            return CompletableFuture.completedFuture(replay(stored, requestHash));
+        }
+        
+        CompletableFuture<TransactionResponse> started;
+        try {
+            started = action.apply(requestHash);
+        } catch (RuntimeException e) {
+            journaled.remove(idempotencyKey, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        started.whenComplete((response, failure) -> {
+            if (failure != null) {
+                // Nothing was journaled, so a retry may run again
+                journaled.remove(idempotencyKey, mine);
+                mine.completeExceptionally(failure);
+                return;
+            }
+            StoredResponse outcome = new StoredResponse(requestHash, toJson(response));
+            completed.put(idempotencyKey, outcome);
+            mine.complete(outcome);
+        });
+        return mine.thenApply(response -> replayUnchecked(response, requestHash));
+    }
+    
+    @Override
+    public void record(String idempotencyKey, String operation, String requestHash, TransactionResponse response) {
+        if (idempotencyRecordRepository.existsById(idempotencyKey)) {
+            logger.info("Idempotency key {} is already on file", idempotencyKey);
+        } else {
+            idempotencyRecordRepository.claim(idempotencyKey, operation, requestHash, LocalDateTime.now());
+            idempotencyRecordRepository.complete(idempotencyKey, response.getTransactionId(), toJson(response));
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            journaled.remove(idempotencyKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                journaled.remove(idempotencyKey);
+            }
+        });
+    }
+    
+    private StoredResponse executeOnce(String idempotencyKey, String operation, String requestHash,
+                                       Callable<TransactionResponse> action) throws Exception {
+        StoredResponse stored = findStored(idempotencyKey);
+        if (stored != null) {
+            return stored;
+        }
+        
+        try {
+            return transactionTemplate.execute(status -> {
+                // Claim first: a duplicate on another node now waits here until this commits
+                try {
+                    idempotencyRecordRepository.claim(idempotencyKey, operation, requestHash, LocalDateTime.now());
+                } catch (DataIntegrityViolationException e) {
+                    throw new KeyTakenException();
+                }
+                TransactionResponse response;
+                try {
+                    response = action.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new ActionFailedException(e);
+                }
+                String body = toJson(response);
+                idempotencyRecordRepository.complete(idempotencyKey, response.getTransactionId(), body);
+                return new StoredResponse(requestHash, body);
+            });
+        } catch (ActionFailedException e) {
+            throw (Exception) e.getCause();
+        } catch (KeyTakenException e) {
+            // Another node claimed the key first and has committed by now
+            stored = findStored(idempotencyKey);
+            if (stored == null) {
+                throw new KeyConflictException("A request with this Idempotency-Key is still being processed");
+            }
+            logger.info("Idempotency key {} was completed by a concurrent request", idempotencyKey);
+            return stored;
+        }
+    }
+    
+    private StoredResponse findStored(String idempotencyKey) {
+        return idempotencyRecordRepository.findById(idempotencyKey)
+                .filter(record -> record.getResponseBody() != null)
+                .map(record -> new StoredResponse(record.getRequestHash(), record.getResponseBody()))
+                .orElse(null);
+    }
+    
+    private StoredResponse await(CompletableFuture<StoredResponse> running) throws Exception {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The first request failed and left nothing behind; its caller sees the same error
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            throw new KeyConflictException("A request with this Idempotency-Key is still being processed");
+        }
+    }
+    
+    private TransactionResponse replay(StoredResponse response, String requestHash) throws JsonProcessingException {
+        if (!response.requestHash.equals(requestHash)) {
+            throw new KeyConflictException("Idempotency-Key was already used for a different request");
+        }
+        // A fresh copy per caller; the stored body is shared
+        return objectMapper.readValue(response.body, TransactionResponse.class);
+    }
+    
+    private TransactionResponse replayUnchecked(StoredResponse response, String requestHash) {
+        try {
+            return replay(response, requestHash);
+        } catch (JsonProcessingException e) {
+            throw new CompletionException(e);
+        }
+    }
+    
+    private static void checkKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+    
+    private String fingerprint(String operation, Object request) throws JsonProcessingException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private String toJson(TransactionResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transaction response", e);
+        }
+    }
+    
+    private static final class StoredResponse {
+        private final String requestHash;
+        private final String body;
+        
+        private StoredResponse(String requestHash, String body) {
+            this.requestHash = requestHash;
+            this.body = body;
+        }
+    }
+    
+    // Carries a checked exception out of the transaction callback, rolling the transaction back
+    private static final class ActionFailedException extends RuntimeException {
+        private ActionFailedException(Exception cause) {
+            super(cause);
+        }
+    }
+    
+    private static final class KeyTakenException extends RuntimeException {
+        private KeyTakenException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,24 +1,40 @@
 package com.cbs.service.impl;
 
+import com.cbs.kyc.DocumentStore;
+import com.cbs.kyc.KycDocumentPipeline;
+import com.cbs.kyc.KycExpirySweeper;
+import com.cbs.model.dto.request.KYCBatchDecision;
+import com.cbs.model.dto.request.KYCBatchVerificationRequest;
 import com.cbs.model.dto.request.KYCUploadRequest;
 import com.cbs.model.dto.request.KYCVerificationRequest;
+import com.cbs.model.dto.response.ExpiringKYCResponse;
+import com.cbs.model.dto.response.KYCBatchVerificationResponse;
+import com.cbs.model.dto.response.KYCBatchVerificationResult;
 import com.cbs.model.dto.response.KYCResponse;
 import com.cbs.model.entity.KYC;
+import com.cbs.model.entity.KycExpiringDocument;
 import com.cbs.model.enums.DocumentType;
 import com.cbs.model.enums.KYCStatus;
 import com.cbs.repository.KYCRepository;
+import com.cbs.repository.KycExpiringDocumentRepository;
 import com.cbs.service.interface_.KYCService;
+import com.cbs.util.DocumentFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.*;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,18 +45,39 @@ public class KYCServiceImpl implements KYCService {
 
     private static final Logger logger = LoggerFactory.getLogger(KYCServiceImpl.class);
 
+    private static final Set<KYCStatus> REVIEWABLE = EnumSet.of(KYCStatus.SUBMITTED, KYCStatus.UNDER_REVIEW);
+    // With the pipeline on, SUBMITTED means the document is still in it, possibly on another node
+    private static final Set<KYCStatus> PROCESSED = EnumSet.of(KYCStatus.UNDER_REVIEW);
+    private static final Set<KYCStatus> DECISIONS =
+            EnumSet.of(KYCStatus.APPROVED, KYCStatus.REJECTED, KYCStatus.RESUBMISSION_REQUIRED);
+
     private final KYCRepository kycRepository;
+    private final DocumentStore documentStore;
+    private final KycDocumentPipeline documentPipeline;
+    private final KycExpiringDocumentRepository expiringRepository;
+    private final Optional<KycExpirySweeper> expirySweeper;
     private final Path uploadPath;
     private final long maxFileSize;
+    private final Duration claimDuration;
 
     public KYCServiceImpl(
             KYCRepository kycRepository,
+            DocumentStore documentStore,
+            KycDocumentPipeline documentPipeline,
+            KycExpiringDocumentRepository expiringRepository,
+            Optional<KycExpirySweeper> expirySweeper,
             @Value("${kyc.upload.directory:uploads/kyc}") String uploadDirectory,
-            @Value("${kyc.max.file.size:10485760}") long maxFileSize
+            @Value("${kyc.max.file.size:10485760}") long maxFileSize,
+            @Value("${cbs.kyc.review.claimMinutes:15}") long claimMinutes
     ) {
         this.kycRepository = kycRepository;
+        this.documentStore = documentStore;
+        this.documentPipeline = documentPipeline;
+        this.expiringRepository = expiringRepository;
+        this.expirySweeper = expirySweeper;
         this.uploadPath = Paths.get(uploadDirectory).toAbsolutePath().normalize();
         this.maxFileSize = maxFileSize;
+        this.claimDuration = Duration.ofMinutes(claimMinutes);
 
         try {
             Files.createDirectories(this.uploadPath);
@@ -55,14 +92,32 @@ public class KYCServiceImpl implements KYCService {
     public KYCResponse uploadDocument(KYCUploadRequest request) {
         logger.info("Uploading KYC document for user ID: {}", request.getUserId());
 
-        // Validate duplicates
+        validateNotDuplicate(request);
+        return saveDocument(request, directStatus());
+    }
+
+    private void validateNotDuplicate(KYCUploadRequest request) {
         if (kycRepository.existsByUserIdAndDocumentType(request.getUserId(), request.getDocumentType())) {
             throw new RuntimeException("Document of this type already exists for this user");
         }
         if (kycRepository.existsByDocumentNumber(request.getDocumentNumber())) {
             throw new RuntimeException("Document number already exists");
         }
+    }
 
+    /**
+     * Status of a document stored on the request thread. There is nothing left to process, so
+     * with the pipeline on it goes straight to review rather than waiting as {@code SUBMITTED}.
+     */
+    private KYCStatus directStatus() {
+        return documentPipeline.isEnabled() ? KYCStatus.UNDER_REVIEW : KYCStatus.SUBMITTED;
+    }
+
+    private Set<KYCStatus> reviewable() {
+        return documentPipeline.isEnabled() ? PROCESSED : REVIEWABLE;
+    }
+
+    private KYCResponse saveDocument(KYCUploadRequest request, KYCStatus status) {
         KYC kyc = new KYC();
         kyc.setUserId(request.getUserId());
         kyc.setDocumentType(request.getDocumentType());
@@ -72,7 +127,7 @@ public class KYCServiceImpl implements KYCService {
         kyc.setExpiryDate(request.getExpiryDate());
         kyc.setAdditionalInfo(request.getAdditionalInfo());
         kyc.setIsPrimaryDocument(request.getIsPrimaryDocument() != null && request.getIsPrimaryDocument());
-        kyc.setStatus(KYCStatus.SUBMITTED);
+        kyc.setStatus(status);
         kyc.setSubmissionDate(LocalDateTime.now());
 
         KYC savedKyc = kycRepository.save(kyc);
@@ -84,17 +139,57 @@ public class KYCServiceImpl implements KYCService {
     public KYCResponse uploadDocumentWithFile(KYCUploadRequest request, MultipartFile file) {
         logger.info("Uploading KYC document with file for user ID: {}", request.getUserId());
 
-        if (!validateDocument(file, request.getDocumentType())) {
+        if (file.getSize() > maxFileSize) {
+            logger.error("File size exceeds maximum limit: {}", file.getSize());
             throw new RuntimeException("Invalid document file");
         }
 
-        String documentHash = generateDocumentHash(file);
-        String fileName = saveFile(file);
+        // Checked before anything is written, so a rejected upload costs no I/O
+        validateNotDuplicate(request);
+
+        DocumentStore.StagedDocument staged = stageFile(file);
+        if (staged.getSize() > maxFileSize
+                || !DocumentFormat.isAllowed(DocumentFormat.sniff(staged.getHead(), staged.getHeadLength()),
+                        request.getDocumentType(), file.getContentType())) {
+            documentStore.discard(staged);
+            logger.error("Rejected document of {} bytes for user ID: {}", staged.getSize(), request.getUserId());
+            throw new RuntimeException("Invalid document file");
+        }
 
-        request.setDocumentUrl(fileName);
-        request.setDocumentHash(documentHash);
+        request.setDocumentUrl(documentStore.publish(staged));
+        request.setDocumentHash(staged.getHash());
 
-        return uploadDocument(request);
+        return saveDocument(request, directStatus());
+    }
+
+    @Override
+    public KYCResponse submitDocumentWithFile(KYCUploadRequest request, MultipartFile file) {
+        logger.info("Submitting KYC document with file for user ID: {}", request.getUserId());
+
+        if (file.getSize() > maxFileSize) {
+            logger.error("File size exceeds maximum limit: {}", file.getSize());
+            throw new RuntimeException("Invalid document file");
+        }
+        validateNotDuplicate(request);
+
+        Path received;
+        try {
+            received = documentPipeline.receive(file);
+        } catch (IOException e) {
+            logger.error("Failed to save file", e);
+            throw new RuntimeException("Failed to save document file", e);
+        }
+
+        KYCResponse response;
+        try {
+            response = saveDocument(request, KYCStatus.SUBMITTED);
+        } catch (RuntimeException e) {
+            documentPipeline.abandon(received);
+            throw e;
+        }
+        // Hashed, checked and stored by the pipeline; the record stays SUBMITTED until then
+        documentPipeline.submit(response.getKycId(), received, request.getDocumentType(), file.getContentType());
+        return response;
     }
 
     @Override
@@ -148,17 +243,9 @@ public class KYCServiceImpl implements KYCService {
         KYC kyc = kycRepository.findById(kycId)
                 .orElseThrow(() -> new RuntimeException("KYC document not found"));
 
-        if (kyc.getStatus() != KYCStatus.SUBMITTED && kyc.getStatus() != KYCStatus.UNDER_REVIEW) {
-            throw new RuntimeException("KYC document is not in a verifiable state");
-        }
-
-        kyc.setStatus(verificationRequest.getStatus());
-        kyc.setVerificationDate(LocalDateTime.now());
-        kyc.setVerifiedBy(verifiedBy);
-
-        if (verificationRequest.getStatus() == KYCStatus.REJECTED) {
-            kyc.setRejectionReason(verificationRequest.getRejectionReason());
-        }
+        LocalDateTime now = LocalDateTime.now();
+        checkVerifiable(kyc, verifiedBy, now);
+        applyDecision(kyc, verificationRequest.getStatus(), verificationRequest.getRejectionReason(), verifiedBy, now);
 
         KYC updatedKyc = kycRepository.save(kyc);
         logger.info("KYC document verified with status: {}", verificationRequest.getStatus());
@@ -173,6 +260,111 @@ public class KYCServiceImpl implements KYCService {
         return verifyKyc(kycId, req, verifiedBy);
     }
 
+    @Override
+    public KYCBatchVerificationResponse verifyKycBatch(KYCBatchVerificationRequest request, Long verifiedBy) {
+        List<KYCBatchDecision> decisions = request.getDecisions();
+        logger.info("Verifying batch of {} KYC decisions", decisions.size());
+
+        // Lock every document the batch touches with one query, in ascending id order
+        Set<Long> kycIds = new TreeSet<>();
+        for (KYCBatchDecision decision : decisions) {
+            if (decision.getKycId() != null) {
+                kycIds.add(decision.getKycId());
+            }
+        }
+        Map<Long, KYC> documents = new HashMap<>();
+        if (!kycIds.isEmpty()) {
+            kycRepository.findAllByIdForUpdate(kycIds).forEach(kyc -> documents.put(kyc.getKycId(), kyc));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> decided = new HashSet<>();
+        List<KYCBatchVerificationResult> results = new ArrayList<>(decisions.size());
+        for (int index = 0; index < decisions.size(); index++) {
+            KYCBatchDecision decision = decisions.get(index);
+            try {
+                results.add(decide(index, decision, documents, decided, verifiedBy, now));
+            } catch (Exception e) {
+                results.add(KYCBatchVerificationResult.failed(index, decision.getKycId(), e.getMessage()));
+            }
+        }
+
+        // Written together at flush, as JDBC batches of identical updates
+        kycRepository.saveAll(decided.stream().map(documents::get).toList());
+
+        KYCBatchVerificationResponse response = new KYCBatchVerificationResponse(results);
+        logger.info("KYC batch completed: {} verified, {} failed", response.getVerifiedCount(), response.getFailedCount());
+        return response;
+    }
+
+    private KYCBatchVerificationResult decide(int index, KYCBatchDecision decision, Map<Long, KYC> documents,
+                                              Set<Long> decided, Long verifiedBy, LocalDateTime now) {
+        if (decision.getKycId() == null) {
+            throw new IllegalArgumentException("KYC id is required");
+        }
+        if (!DECISIONS.contains(decision.getStatus())) {
+            throw new IllegalArgumentException("Decision must be one of " + DECISIONS);
+        }
+        KYC kyc = documents.get(decision.getKycId());
+        if (kyc == null) {
+            throw new RuntimeException("KYC document not found");
+        }
+        if (decided.contains(kyc.getKycId())) {
+            throw new IllegalArgumentException("KYC document already decided earlier in this batch");
+        }
+        checkVerifiable(kyc, verifiedBy, now);
+        applyDecision(kyc, decision.getStatus(), decision.getRejectionReason(), verifiedBy, now);
+        decided.add(kyc.getKycId());
+        return KYCBatchVerificationResult.verified(index, kyc.getKycId(), kyc.getStatus());
+    }
+
+    @Override
+    public List<KYCResponse> claimReviewQueue(Long reviewerId, int limit) {
+        if (reviewerId == null) {
+            throw new IllegalArgumentException("Reviewer is required to claim KYC documents");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_REVIEW_PAGE_SIZE));
+        LocalDateTime now = LocalDateTime.now();
+
+        List<KYC> claimed = kycRepository.findClaimableForUpdate(reviewable(), reviewerId, now,
+                PageRequest.of(0, pageSize));
+        for (KYC kyc : claimed) {
+            kyc.setClaimedBy(reviewerId);
+            kyc.setClaimedUntil(now.plus(claimDuration));
+        }
+        kycRepository.saveAll(claimed);
+        logger.info("Reviewer {} claimed {} KYC documents", reviewerId, claimed.size());
+        return claimed.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    private void checkVerifiable(KYC kyc, Long verifiedBy, LocalDateTime now) {
+        if (documentPipeline.isEnabled() && kyc.getStatus() == KYCStatus.SUBMITTED) {
+            throw new RuntimeException("KYC document is still being processed");
+        }
+        if (!reviewable().contains(kyc.getStatus())) {
+            throw new RuntimeException("KYC document is not in a verifiable state");
+        }
+        if (kyc.getClaimedBy() != null && !kyc.getClaimedBy().equals(verifiedBy)
+                && kyc.getClaimedUntil() != null && kyc.getClaimedUntil().isAfter(now)) {
+            throw new RuntimeException("KYC document is claimed by another reviewer");
+        }
+    }
+
+    private static void applyDecision(KYC kyc, KYCStatus status, String rejectionReason, Long verifiedBy,
+                                      LocalDateTime now) {
+        kyc.setStatus(status);
+        kyc.setVerificationDate(now);
+        kyc.setVerifiedBy(verifiedBy);
+        kyc.setClaimedBy(null);
+        kyc.setClaimedUntil(null);
+
+        if (status == KYCStatus.REJECTED) {
+            kyc.setRejectionReason(rejectionReason);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<KYCResponse> getPendingKyc() {
@@ -191,6 +383,25 @@ public class KYCServiceImpl implements KYCService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExpiringKYCResponse> getExpiringKyc(int withinDays) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusDays(withinDays);
+        // The sweeper only exists with cbs.kyc.expiry.enabled
+        if (expirySweeper.filter(sweeper -> withinDays <= sweeper.getHorizonDays()).isPresent()) {
+            // Precomputed by the sweeper; may still list documents that expired since its last run
+            return expiringRepository.findByExpiryDateBeforeOrderByExpiryDateAsc(until)
+                    .stream()
+                    .map(this::convertToExpiringResponse)
+                    .collect(Collectors.toList());
+        }
+        return kycRepository.findExpiringBetween(now, until)
+                .stream()
+                .map(this::convertToExpiringResponse)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean hasUserCompletedKYC(Long userId) {
@@ -218,7 +429,10 @@ public class KYCServiceImpl implements KYCService {
         KYC kyc = kycRepository.findById(kycId)
                 .orElseThrow(() -> new RuntimeException("KYC document not found"));
 
-        if (kyc.getDocumentUrl() != null) {
+        if (DocumentStore.isKey(kyc.getDocumentUrl())) {
+            // Other KYC rows may share the file; it is removed with the last of them
+            documentStore.release(kyc.getDocumentUrl());
+        } else if (kyc.getDocumentUrl() != null) {
             try {
                 Path filePath = uploadPath.resolve(kyc.getDocumentUrl());
                 Files.deleteIfExists(filePath);
@@ -233,17 +447,10 @@ public class KYCServiceImpl implements KYCService {
 
     @Override
     public String generateDocumentHash(MultipartFile file) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(file.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException | IOException e) {
+        try (DigestInputStream in = new DigestInputStream(file.getInputStream(), sha256())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException e) {
             logger.error("Failed to generate document hash", e);
             return null;
         }
@@ -256,31 +463,57 @@ public class KYCServiceImpl implements KYCService {
             return false;
         }
 
-        String contentType = file.getContentType();
-        return switch (documentType) {
-            case AADHAAR_CARD, PAN_CARD, PASSPORT, VOTER_ID, DRIVING_LICENSE ->
-                    contentType.equals("application/pdf") || contentType.equals("image/jpeg") || contentType.equals("image/png");
-            case PASSPORT_PHOTO, SIGNATURE ->
-                    contentType.equals("image/jpeg") || contentType.equals("image/png");
-            case BANK_STATEMENT, UTILITY_BILL, INCOME_PROOF ->
-                    contentType.equals("application/pdf") || contentType.equals("image/jpeg") || contentType.equals("image/png");
-            default -> true;
-        };
+        try (InputStream in = file.getInputStream()) {
+            byte[] head = new byte[DocumentFormat.SNIFF_LENGTH];
+            int headLength = in.readNBytes(head, 0, head.length);
+            return DocumentFormat.isAllowed(DocumentFormat.sniff(head, headLength), documentType, file.getContentType());
+        } catch (IOException e) {
+            logger.error("Failed to read document file", e);
+            return false;
+        }
     }
 
-    private String saveFile(MultipartFile file) {
-        try {
-            String fileName = UUID.randomUUID() + "_" + Objects.requireNonNull(file.getOriginalFilename());
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            logger.info("File saved at: {}", filePath);
-            return fileName;
+    /**
+     * Writes the upload into the document store's staging area in one pass: the digest is taken
+     * from the same stream that is copied to disk, so the document is never held in memory or
+     * read twice.
+     */
+    private DocumentStore.StagedDocument stageFile(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return documentStore.stage(in, maxFileSize);
         } catch (IOException e) {
             logger.error("Failed to save file", e);
             throw new RuntimeException("Failed to save document file", e);
         }
     }
 
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ExpiringKYCResponse convertToExpiringResponse(KycExpiringDocument document) {
+        ExpiringKYCResponse response = new ExpiringKYCResponse();
+        response.setKycId(document.getKycId());
+        response.setUserId(document.getUserId());
+        response.setDocumentType(document.getDocumentType());
+        response.setExpiryDate(document.getExpiryDate());
+        return response;
+    }
+
+    private ExpiringKYCResponse convertToExpiringResponse(KYC kyc) {
+        ExpiringKYCResponse response = new ExpiringKYCResponse();
+        response.setKycId(kyc.getKycId());
+        response.setUserId(kyc.getUserId());
+        response.setDocumentType(kyc.getDocumentType());
+        response.setExpiryDate(kyc.getExpiryDate());
+        return response;
+    }
+
     private KYCResponse convertToResponse(KYC kyc) {
         KYCResponse response = new KYCResponse();
         response.setKycId(kyc.getKycId());
@@ -299,6 +532,8 @@ public class KYCServiceImpl implements KYCService {
         response.setUpdatedAt(kyc.getUpdatedAt());
         response.setAdditionalInfo(kyc.getAdditionalInfo());
         response.setIsPrimaryDocument(kyc.getIsPrimaryDocument());
+        response.setClaimedBy(kyc.getClaimedBy());
+        response.setClaimedUntil(kyc.getClaimedUntil());
         return response;
     }
 }
@@ -0,0 +1,230 @@
+package com.cbs.service.impl;
+
+import com.cbs.archive.ArchiveCodec;
+import com.cbs.archive.ArchiveQuery;
+import com.cbs.archive.ArchiveStore;
+import com.cbs.model.dto.response.StatementLine;
+import com.cbs.model.entity.Account;
+import com.cbs.model.entity.Transaction;
+import com.cbs.model.enums.StatementFormat;
+import com.cbs.model.enums.TransactionStatus;
+import com.cbs.model.enums.TransactionType;
+import com.cbs.repository.AccountRepository;
+import com.cbs.repository.TransactionRepository;
+import com.cbs.service.interface_.StatementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+public class StatementServiceImpl implements StatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementServiceImpl.class);
+
+    // Reversed transactions moved money when they were posted; the reversal is its own row
+    private static final Set<TransactionStatus> POSTED_STATUSES =
+            EnumSet.of(TransactionStatus.COMPLETED, TransactionStatus.REVERSED);
+    private static final String CSV_HEADER =
+            "transaction_date,transaction_reference,transaction_type,description,debit,credit,fee,balance";
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final ArchiveStore archiveStore;
+    private final ObjectWriter lineWriter;
+
+    @Autowired
+    public StatementServiceImpl(TransactionRepository transactionRepository,
+                                AccountRepository accountRepository,
+                                EntityManager entityManager,
+                                ArchiveStore archiveStore,
+                                ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.archiveStore = archiveStore;
+        this.lineWriter = objectMapper.writerFor(StatementLine.class);
+    }
+
+    // One snapshot for the opening balance and the rows after it, or a posting committed in
+    // between would be counted in one and not the other
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void writeStatement(Long accountId, LocalDate fromDate, LocalDate toDate, StatementFormat format,
+                               OutputStream outputStream) throws IOException {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new RuntimeException("Account not found"));
+        LocalDateTime from = fromDate.atStartOfDay();
+        LocalDateTime to = toDate.plusDays(1).atStartOfDay();
+
+        // Work back from the current balance so the statement agrees with it even if the
+        // account was opened with a balance that has no transaction behind it
+        BigDecimal balance = account.getBalance()
+                .subtract(transactionRepository.sumStatementAmountsSince(accountId, POSTED_STATUSES, from));
+        boolean archived = archiveStore.hasArchive(ArchiveCodec.TRANSACTIONS);
+        if (archived) {
+            BigDecimal[] archivedSum = {BigDecimal.ZERO};
+            archiveStore.forEachOldestFirst(archivedRows(accountId).between(from, null),
+                    transaction -> archivedSum[0] = archivedSum[0].add(statementAmount(transaction, accountId)));
+            balance = balance.subtract(archivedSum[0]);
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == StatementFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long[] rows = {0};
+        BigDecimal[] running = {balance};
+        try {
+            if (archived) {
+                // Archived rows are older than every live row, so they open the statement
+                archiveStore.forEachOldestFirst(archivedRows(accountId).between(from, to.minusNanos(1)),
+                        transaction -> {
+                            BigDecimal amount = statementAmount(transaction, accountId);
+                            if (amount.signum() != 0) {
+                                running[0] = running[0].add(amount);
+                                writeLine(writer, format, toLine(transaction, amount, running[0]));
+                                rows[0]++;
+                            }
+                        });
+            }
+
+            try (Stream<Object[]> statement = transactionRepository.streamStatement(accountId, POSTED_STATUSES,
+                    from, to)) {
+                Iterator<Object[]> iterator = statement.iterator();
+                while (iterator.hasNext()) {
+                    Object[] row = iterator.next();
+                    Transaction transaction = (Transaction) row[0];
+                    BigDecimal amount = (BigDecimal) row[1];
+                    // Keep the persistence context empty so memory stays flat however long the statement is
+                    entityManager.detach(transaction);
+                    if (amount.signum() == 0) {
+                        continue;
+                    }
+
+                    running[0] = running[0].add(amount);
+                    writeLine(writer, format, toLine(transaction, amount, running[0]));
+                    rows[0]++;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        logger.info("Wrote {} statement rows for account {} from {} to {}", rows[0], accountId, fromDate, toDate);
+    }
+
+    private ArchiveQuery<Transaction> archivedRows(Long accountId) {
+        return ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                .orEquals("source_account_id", accountId)
+                .orEquals("destination_account_id", accountId)
+                .where(transaction -> POSTED_STATUSES.contains(transaction.getStatus()));
+    }
+
+    /**
+     * {@link TransactionRepository#STATEMENT_AMOUNT} for a row that is no longer in the database.
+     */
+    static BigDecimal statementAmount(Transaction transaction, Long accountId) {
+        BigDecimal fee = transaction.getFeeAmount();
+        if (transaction.getTransactionType() == TransactionType.TRANSFER
+                && transaction.getSourceAccountId() != null && transaction.getDestinationAccountId() != null) {
+            if (fee != null && accountId.equals(transaction.getSourceAccountId())) {
+                return transaction.getAmount().add(fee).negate();
+            }
+            if (fee == null && accountId.equals(transaction.getDestinationAccountId())) {
+                return transaction.getAmount();
+            }
+            return BigDecimal.ZERO;
+        }
+        if (accountId.equals(transaction.getDestinationAccountId())) {
+            return transaction.getAmount();
+        }
+        return transaction.getAmount().add(fee == null ? BigDecimal.ZERO : fee).negate();
+    }
+
+    private void writeLine(Writer writer, StatementFormat format, StatementLine line) {
+        try {
+            if (format == StatementFormat.CSV) {
+                writeCsv(writer, line);
+            } else {
+                writer.write(lineWriter.writeValueAsString(line));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private StatementLine toLine(Transaction transaction, BigDecimal amount, BigDecimal balance) {
+        StatementLine line = new StatementLine();
+        line.setTransactionDate(transaction.getTransactionDate());
+        line.setTransactionReference(transaction.getTransactionReference());
+        line.setTransactionType(transaction.getTransactionType());
+        line.setDescription(transaction.getDescription());
+        if (amount.signum() > 0) {
+            line.setCredit(transaction.getAmount());
+        } else {
+            line.setDebit(transaction.getAmount());
+            line.setFee(transaction.getFeeAmount());
+        }
+        line.setBalance(balance);
+        return line;
+    }
+
+    private void writeCsv(Writer writer, StatementLine line) throws IOException {
+        writer.write(line.getTransactionDate().toString());
+        writer.write(',');
+        writer.write(line.getTransactionReference());
+        writer.write(',');
+        writer.write(line.getTransactionType().name());
+        writer.write(',');
+        writer.write(csvField(line.getDescription()));
+        writer.write(',');
+        writer.write(plain(line.getDebit()));
+        writer.write(',');
+        writer.write(plain(line.getCredit()));
+        writer.write(',');
+        writer.write(plain(line.getFee()));
+        writer.write(',');
+        writer.write(plain(line.getBalance()));
+        writer.write('\n');
+    }
+
+    private String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
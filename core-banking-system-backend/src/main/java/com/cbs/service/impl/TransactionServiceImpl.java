@@ -1,30 +1,62 @@
 package com.cbs.service.impl;
 
+import com.cbs.archive.ArchiveCodec;
+import com.cbs.archive.ArchiveQuery;
+import com.cbs.archive.ArchiveStore;
+import com.cbs.ledger.LedgerPosting;
+import com.cbs.model.dto.request.BatchPostingItem;
+import com.cbs.model.dto.request.BatchPostingRequest;
 import com.cbs.model.dto.request.DepositRequest;
 import com.cbs.model.dto.request.TransferRequest;
 import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.BatchPostingResponse;
+import com.cbs.model.dto.response.BatchPostingResult;
+import com.cbs.model.dto.response.CursorPage;
 import com.cbs.model.dto.response.TransactionResponse;
 import com.cbs.model.entity.Account;
+import com.cbs.model.entity.AccountDailyTotal;
 import com.cbs.model.entity.Transaction;
 import com.cbs.model.enums.AccountStatus;
 import com.cbs.model.enums.TransactionStatus;
 import com.cbs.model.enums.TransactionType;
+import com.cbs.repository.AccountDailyTotalRepository;
 import com.cbs.repository.AccountRepository;
+import com.cbs.repository.BalanceUpdate;
 import com.cbs.repository.TransactionRepository;
 import com.cbs.service.interface_.AccountService;
+import com.cbs.service.interface_.IdempotencyService;
 import com.cbs.service.interface_.TransactionService;
+import com.cbs.util.AccountCache;
+import com.cbs.util.HistoryCursor;
 import com.cbs.util.TransactionIdGenerator;
+import com.cbs.util.TransferFees;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -32,30 +64,50 @@ public class TransactionServiceImpl implements TransactionService {
     
     private static final Logger logger = LoggerFactory.getLogger(TransactionServiceImpl.class);
     
+    private static final Comparator<Transaction> HISTORY_ORDER = Comparator
+            .comparing(Transaction::getTransactionDate)
+            .thenComparing(Transaction::getTransactionId)
+            .reversed();
+    private static final LocalDateTime HISTORY_BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    // Reversed transactions moved money when they were posted; the reversal is its own row
+    private static final Set<TransactionStatus> POSTED_STATUSES =
+            EnumSet.of(TransactionStatus.COMPLETED, TransactionStatus.REVERSED);
+    
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final AccountDailyTotalRepository accountDailyTotalRepository;
     private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountCache accountCache;
+    private final ArchiveStore archiveStore;
+    private final IdempotencyService idempotencyService;
     
     @Autowired
     public TransactionServiceImpl(TransactionRepository transactionRepository,
                                  AccountRepository accountRepository,
-                                 TransactionIdGenerator transactionIdGenerator) {
+                                 AccountDailyTotalRepository accountDailyTotalRepository,
+                                 TransactionIdGenerator transactionIdGenerator,
+                                 AccountCache accountCache,
+                                 ArchiveStore archiveStore,
+                                 IdempotencyService idempotencyService) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.accountDailyTotalRepository = accountDailyTotalRepository;
         this.transactionIdGenerator = transactionIdGenerator;
+        this.accountCache = accountCache;
+        this.archiveStore = archiveStore;
+        this.idempotencyService = idempotencyService;
     }
     
     @Override
     public TransactionResponse deposit(DepositRequest request) {
         logger.info("Processing deposit for account ID: {}", request.getAccountId());
         
-        // Get account
-        Account account = accountRepository.findById(request.getAccountId())
-                .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new RuntimeException("Cannot deposit to inactive account");
-        }
+        // Credit the account in one conditional statement so concurrent deposits never
+        // overwrite each other's balance
+        BalanceUpdate update = accountRepository.applyBalanceDelta(request.getAccountId(), request.getAmount())
+                .orElseThrow(() -> BalanceUpdateFailures.accountUnavailable(accountRepository,
+                        request.getAccountId(), "Cannot deposit to inactive account"));
+        accountCache.invalidate(request.getAccountId(), update.getUserId());
         
         // Create transaction
         Transaction transaction = new Transaction();
@@ -63,18 +115,13 @@ public class TransactionServiceImpl implements TransactionService {
         transaction.setTransactionType(TransactionType.DEPOSIT);
         transaction.setAmount(request.getAmount());
         transaction.setDestinationAccountId(request.getAccountId());
-        transaction.setUserId(account.getUserId());
+        transaction.setUserId(update.getUserId());
         transaction.setDescription(request.getDescription());
         transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setBalanceAfter(update.getBalanceAfter());
         
-        // Update account balance
-        BigDecimal newBalance = account.getBalance().add(request.getAmount());
-        account.setBalance(newBalance);
-        transaction.setBalanceAfter(newBalance);
-        
-        // Save transaction and account
         Transaction savedTransaction = transactionRepository.save(transaction);
-        accountRepository.save(account);
+        recordDailyTotals(List.of(transaction));
         
         logger.info("Deposit completed successfully. Transaction ID: {}", savedTransaction.getTransactionId());
         return convertToResponse(savedTransaction);
@@ -84,24 +131,12 @@ public class TransactionServiceImpl implements TransactionService {
     public TransactionResponse withdraw(WithdrawalRequest request) throws Exception {
         logger.info("Processing withdrawal for account ID: {}", request.getAccountId());
         
-        // Get account
-        Account account = accountRepository.findById(request.getAccountId())
-                .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new RuntimeException("Cannot withdraw from inactive account");
-        }
-        
-        // Check balance
-        BigDecimal newBalance = account.getBalance().subtract(request.getAmount());
-        if (account.getMinimumBalance() != null && 
-            newBalance.compareTo(account.getMinimumBalance()) < 0) {
-            // Check if overdraft is allowed
-            if (account.getOverdraftLimit() == null || 
-                newBalance.compareTo(account.getOverdraftLimit().negate()) < 0) {
-                throw new Exception("Insufficient balance");
-            }
-        }
+        // Debit the account in one conditional statement; the minimum-balance and overdraft
+        // rules are evaluated against the row as it is at update time
+        BalanceUpdate update = accountRepository.applyBalanceDelta(request.getAccountId(), request.getAmount().negate())
+                .orElseThrow(() -> BalanceUpdateFailures.withdrawalRejected(accountRepository,
+                        request.getAccountId()));
+        accountCache.invalidate(request.getAccountId(), update.getUserId());
         
         // Create transaction
         Transaction transaction = new Transaction();
@@ -109,17 +144,13 @@ public class TransactionServiceImpl implements TransactionService {
         transaction.setTransactionType(TransactionType.WITHDRAWAL);
         transaction.setAmount(request.getAmount());
         transaction.setSourceAccountId(request.getAccountId());
-        transaction.setUserId(account.getUserId());
+        transaction.setUserId(update.getUserId());
         transaction.setDescription(request.getDescription());
         transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setBalanceAfter(update.getBalanceAfter());
         
-        // Update account balance
-        account.setBalance(newBalance);
-        transaction.setBalanceAfter(newBalance);
-        
-        // Save transaction and account
         Transaction savedTransaction = transactionRepository.save(transaction);
-        accountRepository.save(account);
+        recordDailyTotals(List.of(transaction));
         
         logger.info("Withdrawal completed successfully. Transaction ID: {}", savedTransaction.getTransactionId());
         return convertToResponse(savedTransaction);
@@ -130,11 +161,14 @@ public class TransactionServiceImpl implements TransactionService {
         logger.info("Processing transfer from account {} to account {}", 
                 request.getSourceAccountId(), request.getDestinationAccountId());
         
-        // Get accounts
-        Account sourceAccount = accountRepository.findById(request.getSourceAccountId())
+        // Lock both accounts in ascending id order so opposing transfers cannot deadlock
+        Map<Long, Account> lockedAccounts = lockAccountsInOrder(
+                request.getSourceAccountId(), request.getDestinationAccountId());
+        
+        Account sourceAccount = Optional.ofNullable(lockedAccounts.get(request.getSourceAccountId()))
                 .orElseThrow(() -> new RuntimeException("Source account not found"));
         
-        Account destinationAccount = accountRepository.findById(request.getDestinationAccountId())
+        Account destinationAccount = Optional.ofNullable(lockedAccounts.get(request.getDestinationAccountId()))
                 .orElseThrow(() -> new RuntimeException("Destination account not found"));
         
         if (sourceAccount.getStatus() != AccountStatus.ACTIVE) {
@@ -157,7 +191,7 @@ public class TransactionServiceImpl implements TransactionService {
         }
         
         // Calculate fee (if any)
-        BigDecimal feeAmount = calculateTransferFee(request.getAmount());
+        BigDecimal feeAmount = TransferFees.forAmount(request.getAmount());
         BigDecimal totalAmount = request.getAmount().add(feeAmount);
         
         // Check if source account can cover fee as well
@@ -201,10 +235,13 @@ public class TransactionServiceImpl implements TransactionService {
         Transaction savedDebitTransaction = transactionRepository.save(debitTransaction);
         creditTransaction.setRelatedTransactionId(savedDebitTransaction.getTransactionId());
         Transaction savedCreditTransaction = transactionRepository.save(creditTransaction);
+        recordDailyTotals(List.of(debitTransaction, creditTransaction));
         
         // Update accounts
         accountRepository.save(sourceAccount);
         accountRepository.save(destinationAccount);
+        accountCache.invalidate(sourceAccount.getAccountId(), sourceAccount.getUserId());
+        accountCache.invalidate(destinationAccount.getAccountId(), destinationAccount.getUserId());
         
         logger.info("Transfer completed successfully. Debit Transaction ID: {}, Credit Transaction ID: {}", 
                 savedDebitTransaction.getTransactionId(), savedCreditTransaction.getTransactionId());
@@ -212,6 +249,138 @@ public class TransactionServiceImpl implements TransactionService {
         return convertToResponse(savedDebitTransaction);
     }
     
+    @Override
+    public BatchPostingResponse postBatch(BatchPostingRequest request) {
+        List<BatchPostingItem> postings = request.getPostings();
+        logger.info("Processing batch of {} postings", postings.size());
+        
+        // Lock every account the batch touches with one query, in ascending id order
+        Set<Long> accountIds = new TreeSet<>();
+        for (BatchPostingItem item : postings) {
+            if (item.getSourceAccountId() != null) {
+                accountIds.add(item.getSourceAccountId());
+            }
+            if (item.getDestinationAccountId() != null) {
+                accountIds.add(item.getDestinationAccountId());
+            }
+        }
+        Map<Long, Account> accounts = new HashMap<>();
+        if (!accountIds.isEmpty()) {
+            accountRepository.findAllByIdForUpdate(accountIds)
+                    .forEach(account -> accounts.put(account.getAccountId(), account));
+        }
+        
+        // Items are checked against running balances so later postings see the effect of
+        // earlier ones; the accounts themselves are only written once at the end
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accounts.forEach((accountId, account) -> balances.put(accountId, account.getBalance()));
+        
+        List<BatchPostingResult> results = new ArrayList<>(postings.size());
+        List<Transaction> posted = new ArrayList<>();
+        for (int index = 0; index < postings.size(); index++) {
+            try {
+                results.add(postBatchItem(index, postings.get(index), accounts, balances, posted));
+            } catch (Exception e) {
+                results.add(BatchPostingResult.failed(index, e.getMessage()));
+            }
+        }
+        
+        // Apply the aggregated delta: one balance update per account, however many postings touched it
+        List<Account> changedAccounts = new ArrayList<>();
+        balances.forEach((accountId, balance) -> {
+            Account account = accounts.get(accountId);
+            if (account.getBalance().compareTo(balance) != 0) {
+                account.setBalance(balance);
+                changedAccounts.add(account);
+            }
+        });
+        accountRepository.saveAll(changedAccounts);
+        changedAccounts.forEach(account -> accountCache.invalidate(account.getAccountId(), account.getUserId()));
+        recordDailyTotals(posted);
+        
+        BatchPostingResponse response = new BatchPostingResponse(results);
+        logger.info("Batch completed: {} posted, {} failed, {} accounts updated",
+                response.getCompletedCount(), response.getFailedCount(), changedAccounts.size());
+        return response;
+    }
+    
+    @Override
+    public void recordLedgerPostings(List<LedgerPosting> postings) {
+        Set<String> alreadyWritten = new HashSet<>(transactionRepository.findExistingReferences(
+                postings.stream().map(LedgerPosting::getTransactionReference).toList()));
+        
+        // The ledger already checked every posting; here each account's balance moves once by the
+        // net of the batch, in ascending id order like every other multi-account write
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        Map<Long, Long> owners = new HashMap<>();
+        List<Transaction> posted = new ArrayList<>();
+        for (LedgerPosting posting : postings) {
+            if (posting.getIdempotencyKey() != null) {
+                // With the rows it answers for, so a retry finds the key once they are visible
+                idempotencyService.record(posting.getIdempotencyKey(), posting.getIdempotencyOperation(),
+                        posting.getRequestHash(), posting.toResponse());
+            }
+            if (alreadyWritten.contains(posting.getTransactionReference())) {
+                continue;
+            }
+            BigDecimal amount = posting.getAmount();
+            Long sourceAccountId = posting.getSourceAccountId();
+            Long destinationAccountId = posting.getDestinationAccountId();
+            switch (posting.getTransactionType()) {
+                case DEPOSIT -> {
+                    Transaction transaction = newLedgerTransaction(posting, posting.getTransactionReference(),
+                            posting.getDestinationUserId(), posting.getDestinationBalanceAfter());
+                    transaction.setDestinationAccountId(destinationAccountId);
+                    Transaction saved = transactionRepository.save(transaction);
+                    posted.add(saved);
+                    deltas.merge(destinationAccountId, amount, BigDecimal::add);
+                    owners.put(destinationAccountId, posting.getDestinationUserId());
+                }
+                case WITHDRAWAL -> {
+                    Transaction transaction = newLedgerTransaction(posting, posting.getTransactionReference(),
+                            posting.getSourceUserId(), posting.getSourceBalanceAfter());
+                    transaction.setSourceAccountId(sourceAccountId);
+                    Transaction saved = transactionRepository.save(transaction);
+                    posted.add(saved);
+                    deltas.merge(sourceAccountId, amount.negate(), BigDecimal::add);
+                    owners.put(sourceAccountId, posting.getSourceUserId());
+                }
+                case TRANSFER -> {
+                    Transaction debitTransaction = newLedgerTransaction(posting, posting.getTransactionReference(),
+                            posting.getSourceUserId(), posting.getSourceBalanceAfter());
+                    debitTransaction.setSourceAccountId(sourceAccountId);
+                    debitTransaction.setDestinationAccountId(destinationAccountId);
+                    debitTransaction.setFeeAmount(posting.getFeeAmount());
+                    Transaction savedDebit = transactionRepository.save(debitTransaction);
+                    
+                    Transaction creditTransaction = newLedgerTransaction(posting, posting.getCreditReference(),
+                            posting.getDestinationUserId(), posting.getDestinationBalanceAfter());
+                    creditTransaction.setSourceAccountId(sourceAccountId);
+                    creditTransaction.setDestinationAccountId(destinationAccountId);
+                    creditTransaction.setRelatedTransactionId(savedDebit.getTransactionId());
+                    posted.add(savedDebit);
+                    posted.add(transactionRepository.save(creditTransaction));
+                    deltas.merge(sourceAccountId, amount.add(posting.getFeeAmount()).negate(), BigDecimal::add);
+                    deltas.merge(destinationAccountId, amount, BigDecimal::add);
+                    owners.put(sourceAccountId, posting.getSourceUserId());
+                    owners.put(destinationAccountId, posting.getDestinationUserId());
+                }
+                default -> throw new IllegalStateException(
+                        "Ledger postings of type " + posting.getTransactionType() + " are not supported");
+            }
+        }
+        
+        deltas.forEach((accountId, delta) -> {
+            if (delta.signum() != 0) {
+                accountRepository.addToBalance(accountId, delta);
+                accountCache.invalidate(accountId, owners.get(accountId));
+            }
+        });
+        recordDailyTotals(posted);
+        logger.info("Recorded {} ledger postings ({} already on file) across {} accounts",
+                postings.size() - alreadyWritten.size(), alreadyWritten.size(), deltas.size());
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<TransactionResponse> getTransactionById(Long transactionId) {
@@ -228,57 +397,90 @@ public class TransactionServiceImpl implements TransactionService {
     
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByAccountId(Long accountId) {
-        List<Transaction> transactions = transactionRepository.findByAccountId(accountId);
-        return transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public CursorPage<TransactionResponse> getTransactionsByAccountId(Long accountId, String cursor, int limit) {
+        HistoryCursor before = HistoryCursor.decode(cursor);
+        Pageable page = historyPageRequest(limit);
+        
+        // Each side walks its own (account, date, id) index; merging the two short runs is
+        // cheaper than an OR across both columns, which cannot be served in index order
+        List<Transaction> outgoing = transactionRepository.findSourceHistoryBefore(
+                accountId, before.getTransactionDate(), before.getTransactionId(), page);
+        List<Transaction> incoming = transactionRepository.findDestinationHistoryBefore(
+                accountId, before.getTransactionDate(), before.getTransactionId(), page);
+        
+        Map<Long, Transaction> merged = new LinkedHashMap<>();
+        Stream.concat(outgoing.stream(), incoming.stream())
+                .sorted(HISTORY_ORDER)
+                .forEach(transaction -> merged.putIfAbsent(transaction.getTransactionId(), transaction));
+        return toHistoryPage(withArchived(new ArrayList<>(merged.values()), page, before,
+                ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                        .orEquals("source_account_id", accountId)
+                        .orEquals("destination_account_id", accountId)),
+                page.getPageSize() - 1);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByUserId(Long userId) {
-        List<Transaction> transactions = transactionRepository.findByUserId(userId);
-        return transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public CursorPage<TransactionResponse> getTransactionsByUserId(Long userId, String cursor, int limit) {
+        HistoryCursor before = HistoryCursor.decode(cursor);
+        Pageable page = historyPageRequest(limit);
+        return toHistoryPage(withArchived(transactionRepository.findUserHistoryBefore(
+                userId, before.getTransactionDate(), before.getTransactionId(), page), page, before,
+                ArchiveQuery.of(ArchiveCodec.TRANSACTIONS).orEquals("user_id", userId)),
+                page.getPageSize() - 1);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByUserIdAndStatus(Long userId, String status) {
+    public CursorPage<TransactionResponse> getTransactionsByUserIdAndStatus(Long userId, String status, String cursor,
+                                                                            int limit) {
         TransactionStatus transactionStatus = TransactionStatus.valueOf(status.toUpperCase());
-        List<Transaction> transactions = transactionRepository.findByUserIdAndStatus(userId, transactionStatus);
-        return transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        HistoryCursor before = HistoryCursor.decode(cursor);
+        Pageable page = historyPageRequest(limit);
+        return toHistoryPage(withArchived(transactionRepository.findUserHistoryByStatusBefore(
+                userId, transactionStatus, before.getTransactionDate(), before.getTransactionId(), page),
+                page, before, ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                        .orEquals("user_id", userId)
+                        .where(transaction -> transaction.getStatus() == transactionStatus)),
+                page.getPageSize() - 1);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getAllTransactions() {
-        List<Transaction> transactions = transactionRepository.findAll();
-        return transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public CursorPage<TransactionResponse> getAllTransactions(String cursor, int limit) {
+        HistoryCursor before = HistoryCursor.decode(cursor);
+        Pageable page = historyPageRequest(limit);
+        return toHistoryPage(withArchived(transactionRepository.findHistoryBefore(
+                HISTORY_BEGINNING, before.getTransactionDate(), before.getTransactionId(), page),
+                page, before, ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)),
+                page.getPageSize() - 1);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Transaction> transactions = transactionRepository.findByTransactionDateBetween(startDate, endDate);
-        return transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public CursorPage<TransactionResponse> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                                                      String cursor, int limit) {
+        HistoryCursor before = rangeCursor(cursor, endDate);
+        Pageable page = historyPageRequest(limit);
+        return toHistoryPage(withArchived(transactionRepository.findHistoryBefore(
+                startDate, before.getTransactionDate(), before.getTransactionId(), page),
+                page, before, ArchiveQuery.of(ArchiveCodec.TRANSACTIONS).between(startDate, null)),
+                page.getPageSize() - 1);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionsByUserIdAndDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Transaction> transactions = transactionRepository.findByUserIdAndTransactionDateBetween(userId, startDate, endDate);
-        return transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public CursorPage<TransactionResponse> getTransactionsByUserIdAndDateRange(Long userId, LocalDateTime startDate,
+                                                                               LocalDateTime endDate, String cursor,
+                                                                               int limit) {
+        HistoryCursor before = rangeCursor(cursor, endDate);
+        Pageable page = historyPageRequest(limit);
+        return toHistoryPage(withArchived(transactionRepository.findUserHistoryBetweenBefore(
+                userId, startDate, before.getTransactionDate(), before.getTransactionId(), page),
+                page, before, ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                        .between(startDate, null)
+                        .orEquals("user_id", userId)),
+                page.getPageSize() - 1);
     }
     
     @Override
@@ -287,9 +489,13 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
         
         TransactionStatus newStatus = TransactionStatus.valueOf(status.toUpperCase());
+        boolean wasPosted = POSTED_STATUSES.contains(transaction.getStatus());
         transaction.setStatus(newStatus);
         
         Transaction updatedTransaction = transactionRepository.save(transaction);
+        if (wasPosted != POSTED_STATUSES.contains(newStatus)) {
+            applyDailyTotals(List.of(transaction), !wasPosted);
+        }
         logger.info("Transaction status updated to {} for transaction ID: {}", newStatus, transactionId);
         
         return convertToResponse(updatedTransaction);
@@ -319,47 +525,54 @@ public class TransactionServiceImpl implements TransactionService {
             // Original was a deposit, so we need to withdraw
             reversalTransaction.setSourceAccountId(originalTransaction.getDestinationAccountId());
             
-            Account account = accountRepository.findById(originalTransaction.getDestinationAccountId())
+            Account account = accountRepository.findByIdForUpdate(originalTransaction.getDestinationAccountId())
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             
             BigDecimal newBalance = account.getBalance().subtract(originalTransaction.getAmount());
             account.setBalance(newBalance);
             reversalTransaction.setBalanceAfter(newBalance);
             accountRepository.save(account);
+            accountCache.invalidate(account.getAccountId(), account.getUserId());
             
         } else if (originalTransaction.getTransactionType() == TransactionType.WITHDRAWAL) {
             // Original was a withdrawal, so we need to deposit
             reversalTransaction.setDestinationAccountId(originalTransaction.getSourceAccountId());
             
-            Account account = accountRepository.findById(originalTransaction.getSourceAccountId())
+            Account account = accountRepository.findByIdForUpdate(originalTransaction.getSourceAccountId())
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             
             BigDecimal newBalance = account.getBalance().add(originalTransaction.getAmount());
             account.setBalance(newBalance);
             reversalTransaction.setBalanceAfter(newBalance);
             accountRepository.save(account);
+            accountCache.invalidate(account.getAccountId(), account.getUserId());
             
         } else if (originalTransaction.getTransactionType() == TransactionType.TRANSFER) {
             // Original was a transfer, so we need to reverse it
             reversalTransaction.setSourceAccountId(originalTransaction.getDestinationAccountId());
             reversalTransaction.setDestinationAccountId(originalTransaction.getSourceAccountId());
             
+            Map<Long, Account> lockedAccounts = lockAccountsInOrder(
+                    originalTransaction.getSourceAccountId(), originalTransaction.getDestinationAccountId());
+            
             // Reverse source account (give money back)
-            Account sourceAccount = accountRepository.findById(originalTransaction.getSourceAccountId())
+            Account sourceAccount = Optional.ofNullable(lockedAccounts.get(originalTransaction.getSourceAccountId()))
                     .orElseThrow(() -> new RuntimeException("Source account not found"));
             
             BigDecimal newSourceBalance = sourceAccount.getBalance().add(originalTransaction.getAmount());
             sourceAccount.setBalance(newSourceBalance);
             accountRepository.save(sourceAccount);
+            accountCache.invalidate(sourceAccount.getAccountId(), sourceAccount.getUserId());
             
             // Reverse destination account (take money back)
-            Account destinationAccount = accountRepository.findById(originalTransaction.getDestinationAccountId())
+            Account destinationAccount = Optional.ofNullable(lockedAccounts.get(originalTransaction.getDestinationAccountId()))
                     .orElseThrow(() -> new RuntimeException("Destination account not found"));
             
             BigDecimal newDestinationBalance = destinationAccount.getBalance().subtract(originalTransaction.getAmount());
             destinationAccount.setBalance(newDestinationBalance);
             reversalTransaction.setBalanceAfter(newDestinationBalance);
             accountRepository.save(destinationAccount);
+            accountCache.invalidate(destinationAccount.getAccountId(), destinationAccount.getUserId());
         }
         
         // Update original transaction status
@@ -368,6 +581,7 @@ public class TransactionServiceImpl implements TransactionService {
         
         // Save reversal transaction
         Transaction savedReversalTransaction = transactionRepository.save(reversalTransaction);
+        recordDailyTotals(List.of(reversalTransaction));
         
         logger.info("Transaction reversal completed. Original ID: {}, Reversal ID: {}", 
                 transactionId, savedReversalTransaction.getTransactionId());
@@ -378,16 +592,15 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getTotalDebits(Long accountId) {
-        BigDecimal total = transactionRepository.sumDebitsByAccountIdAndStatus(
-                accountId, TransactionStatus.COMPLETED, TransactionType.WITHDRAWAL);
+        // One row per active day; today's row already holds every posting committed so far
+        BigDecimal total = accountDailyTotalRepository.sumDebitsByAccountId(accountId);
         return total != null ? total : BigDecimal.ZERO;
     }
     
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getTotalCredits(Long accountId) {
-        BigDecimal total = transactionRepository.sumCreditsByAccountIdAndStatus(
-                accountId, TransactionStatus.COMPLETED, TransactionType.DEPOSIT);
+        BigDecimal total = accountDailyTotalRepository.sumCreditsByAccountId(accountId);
         return total != null ? total : BigDecimal.ZERO;
     }
     
@@ -405,27 +618,263 @@ public class TransactionServiceImpl implements TransactionService {
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
         
+        boolean wasPosted = POSTED_STATUSES.contains(transaction.getStatus());
         transaction.setStatus(TransactionStatus.CANCELLED);
         transactionRepository.save(transaction);
+        if (wasPosted) {
+            applyDailyTotals(List.of(transaction), false);
+        }
         
         logger.info("Transaction {} marked as cancelled", transactionId);
     }
     
-    private BigDecimal calculateTransferFee(BigDecimal amount) {
-        // Simple fee calculation: 0.5% of transfer amount, minimum $1, maximum $50
-        BigDecimal feePercentage = new BigDecimal("0.005");
-        BigDecimal fee = amount.multiply(feePercentage);
+    /**
+     * Validates and records a single batch line. Nothing is written for a line that fails, and
+     * the running balances are only moved once all checks for the line have passed.
+     */
+    private BatchPostingResult postBatchItem(int index, BatchPostingItem item, Map<Long, Account> accounts,
+                                             Map<Long, BigDecimal> balances, List<Transaction> posted)
+            throws Exception {
+        if (item.getTransactionType() == null) {
+            throw new RuntimeException("Transaction type is required");
+        }
+        if (item.getAmount() == null || item.getAmount().compareTo(new BigDecimal("0.01")) < 0) {
+            throw new RuntimeException("Amount must be greater than 0");
+        }
+        if (item.getDescription() != null && item.getDescription().length() > 255) {
+            throw new RuntimeException("Description must not exceed 255 characters");
+        }
         
-        BigDecimal minFee = new BigDecimal("1.00");
-        BigDecimal maxFee = new BigDecimal("50.00");
+        BigDecimal amount = item.getAmount();
+        switch (item.getTransactionType()) {
+            case DEPOSIT -> {
+                Account destination = batchAccount(accounts, item.getDestinationAccountId(),
+                        "Account not found", "Cannot deposit to inactive account");
+                BigDecimal balanceAfter = balances.get(destination.getAccountId()).add(amount);
+                
+                Transaction transaction = newBatchTransaction(item, destination.getUserId(), balanceAfter);
+                transaction.setDestinationAccountId(destination.getAccountId());
+                Transaction saved = transactionRepository.save(transaction);
+                posted.add(transaction);
+                
+                balances.put(destination.getAccountId(), balanceAfter);
+                return BatchPostingResult.completed(index, saved.getTransactionId(),
+                        saved.getTransactionReference(), balanceAfter);
+            }
+            case WITHDRAWAL -> {
+                Account source = batchAccount(accounts, item.getSourceAccountId(),
+                        "Account not found", "Cannot withdraw from inactive account");
+                BigDecimal balanceAfter = balances.get(source.getAccountId()).subtract(amount);
+                if (!withinLimits(source, balanceAfter)) {
+                    throw new Exception("Insufficient balance");
+                }
+                
+                Transaction transaction = newBatchTransaction(item, source.getUserId(), balanceAfter);
+                transaction.setSourceAccountId(source.getAccountId());
+                Transaction saved = transactionRepository.save(transaction);
+                posted.add(transaction);
+                
+                balances.put(source.getAccountId(), balanceAfter);
+                return BatchPostingResult.completed(index, saved.getTransactionId(),
+                        saved.getTransactionReference(), balanceAfter);
+            }
+            case TRANSFER -> {
+                Account source = batchAccount(accounts, item.getSourceAccountId(),
+                        "Source account not found", "Cannot transfer from inactive source account");
+                Account destination = batchAccount(accounts, item.getDestinationAccountId(),
+                        "Destination account not found", "Cannot transfer to inactive destination account");
+                if (source.getAccountId().equals(destination.getAccountId())) {
+                    throw new RuntimeException("Source and destination accounts must be different");
+                }
+                
+                // Same checks as a single transfer: the amount must respect the account limits
+                // and the current balance must cover amount plus fee
+                BigDecimal sourceBalance = balances.get(source.getAccountId());
+                if (!withinLimits(source, sourceBalance.subtract(amount))) {
+                    throw new Exception("Insufficient balance in source account");
+                }
+                BigDecimal feeAmount = TransferFees.forAmount(amount);
+                BigDecimal totalAmount = amount.add(feeAmount);
+                if (totalAmount.compareTo(sourceBalance) > 0) {
+                    throw new Exception("Insufficient balance to cover transfer amount and fee");
+                }
+                
+                BigDecimal sourceBalanceAfter = sourceBalance.subtract(totalAmount);
+                BigDecimal destinationBalanceAfter = balances.get(destination.getAccountId()).add(amount);
+                
+                Transaction debitTransaction = newBatchTransaction(item, source.getUserId(), sourceBalanceAfter);
+                debitTransaction.setSourceAccountId(source.getAccountId());
+                debitTransaction.setDestinationAccountId(destination.getAccountId());
+                debitTransaction.setFeeAmount(feeAmount);
+                Transaction savedDebit = transactionRepository.save(debitTransaction);
+                
+                Transaction creditTransaction = newBatchTransaction(item, destination.getUserId(), destinationBalanceAfter);
+                creditTransaction.setSourceAccountId(source.getAccountId());
+                creditTransaction.setDestinationAccountId(destination.getAccountId());
+                creditTransaction.setRelatedTransactionId(savedDebit.getTransactionId());
+                transactionRepository.save(creditTransaction);
+                posted.add(debitTransaction);
+                posted.add(creditTransaction);
+                
+                balances.put(source.getAccountId(), sourceBalanceAfter);
+                balances.put(destination.getAccountId(), destinationBalanceAfter);
+                return BatchPostingResult.completed(index, savedDebit.getTransactionId(),
+                        savedDebit.getTransactionReference(), sourceBalanceAfter);
+            }
+            default -> throw new RuntimeException(
+                    "Transaction type " + item.getTransactionType() + " is not supported in batch postings");
+        }
+    }
+    
+    private void recordDailyTotals(Collection<Transaction> transactions) {
+        applyDailyTotals(transactions, true);
+    }
+    
+    /**
+     * Adds the legs of the given transactions to the per-account daily totals, or takes them
+     * back out when {@code add} is false. Legs are split the same way as on a statement: a
+     * transfer is posted as a debit leg carrying the fee and a separate credit leg, every other
+     * row credits its destination and debits its source. Deltas are summed first so each
+     * account and day costs one upsert however many transactions touched it.
+     */
+    private void applyDailyTotals(Collection<Transaction> transactions, boolean add) {
+        Map<AccountDailyTotal.Key, BigDecimal[]> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            LocalDate businessDate = transaction.getTransactionDate() != null
+                    ? transaction.getTransactionDate().toLocalDate() : LocalDate.now();
+            Long sourceAccountId = transaction.getSourceAccountId();
+            Long destinationAccountId = transaction.getDestinationAccountId();
+            boolean transferLeg = transaction.getTransactionType() == TransactionType.TRANSFER
+                    && sourceAccountId != null && destinationAccountId != null;
+            boolean debitLeg = !transferLeg || transaction.getFeeAmount() != null;
+            boolean creditLeg = !transferLeg || transaction.getFeeAmount() == null;
+            
+            if (sourceAccountId != null && debitLeg) {
+                BigDecimal[] delta = deltas.computeIfAbsent(new AccountDailyTotal.Key(sourceAccountId, businessDate),
+                        key -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+                delta[0] = delta[0].add(transaction.getAmount());
+                if (transaction.getFeeAmount() != null) {
+                    delta[2] = delta[2].add(transaction.getFeeAmount());
+                }
+            }
+            if (destinationAccountId != null && creditLeg) {
+                BigDecimal[] delta = deltas.computeIfAbsent(new AccountDailyTotal.Key(destinationAccountId, businessDate),
+                        key -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+                delta[1] = delta[1].add(transaction.getAmount());
+            }
+        }
         
-        if (fee.compareTo(minFee) < 0) {
-            return minFee;
-        } else if (fee.compareTo(maxFee) > 0) {
-            return maxFee;
-        } else {
-            return fee;
+        deltas.forEach((key, delta) -> accountDailyTotalRepository.addToDailyTotals(key.getAccountId(),
+                key.getBusinessDate(),
+                add ? delta[0] : delta[0].negate(),
+                add ? delta[1] : delta[1].negate(),
+                add ? delta[2] : delta[2].negate()));
+    }
+    
+    private Account batchAccount(Map<Long, Account> accounts, Long accountId,
+                                 String notFoundMessage, String inactiveMessage) {
+        Account account = accountId == null ? null : accounts.get(accountId);
+        if (account == null) {
+            throw new RuntimeException(notFoundMessage);
+        }
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            throw new RuntimeException(inactiveMessage);
+        }
+        return account;
+    }
+    
+    private Transaction newBatchTransaction(BatchPostingItem item, Long userId, BigDecimal balanceAfter) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionReference(transactionIdGenerator.generateTransactionId());
+        transaction.setTransactionType(item.getTransactionType());
+        transaction.setAmount(item.getAmount());
+        transaction.setUserId(userId);
+        transaction.setDescription(item.getDescription());
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setBalanceAfter(balanceAfter);
+        return transaction;
+    }
+    
+    private Transaction newLedgerTransaction(LedgerPosting posting, String transactionReference, Long userId,
+                                             BigDecimal balanceAfter) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionReference(transactionReference);
+        transaction.setTransactionType(posting.getTransactionType());
+        transaction.setAmount(posting.getAmount());
+        transaction.setUserId(userId);
+        transaction.setDescription(posting.getDescription());
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setTransactionDate(posting.getPostedAt());
+        transaction.setBalanceAfter(balanceAfter);
+        return transaction;
+    }
+    
+    private boolean withinLimits(Account account, BigDecimal newBalance) {
+        if (account.getMinimumBalance() == null || newBalance.compareTo(account.getMinimumBalance()) >= 0) {
+            return true;
+        }
+        // Below the minimum is only allowed when an overdraft limit covers it
+        return account.getOverdraftLimit() != null
+                && newBalance.compareTo(account.getOverdraftLimit().negate()) >= 0;
+    }
+    
+    /**
+     * Takes row locks on the given accounts in ascending id order. A single global lock order
+     * means two transfers touching the same pair of accounts queue behind each other instead
+     * of deadlocking, however the request names them. Missing accounts are simply absent
+     * from the returned map.
+     */
+    private Map<Long, Account> lockAccountsInOrder(Long... accountIds) {
+        Map<Long, Account> lockedAccounts = new HashMap<>();
+        Arrays.stream(accountIds)
+                .distinct()
+                .sorted()
+                .forEach(accountId -> accountRepository.findByIdForUpdate(accountId)
+                        .ifPresent(account -> lockedAccounts.put(accountId, account)));
+        return lockedAccounts;
+    }
+    
+    /**
+     * Asks for one row more than the page so the presence of a next page is known without a count.
+     */
+    private Pageable historyPageRequest(int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        return PageRequest.ofSize(pageSize + 1);
+    }
+    
+    private HistoryCursor rangeCursor(String cursor, LocalDateTime endDate) {
+        HistoryCursor before = HistoryCursor.decode(cursor);
+        // The first page of a range starts at its (inclusive) end
+        return before == HistoryCursor.START ? new HistoryCursor(endDate, Long.MAX_VALUE) : before;
+    }
+    
+    /**
+     * Tops a page of live history up from the archive once the live rows run out. Archived rows
+     * are older than every live row, so the walk just carries on from the last live row.
+     */
+    private List<Transaction> withArchived(List<Transaction> live, Pageable page, HistoryCursor before,
+                                           ArchiveQuery<Transaction> archived) {
+        if (live.size() >= page.getPageSize() || !archiveStore.hasArchive(ArchiveCodec.TRANSACTIONS)) {
+            return live;
+        }
+        HistoryCursor from = before;
+        if (!live.isEmpty()) {
+            Transaction last = live.get(live.size() - 1);
+            from = new HistoryCursor(last.getTransactionDate(), last.getTransactionId());
+        }
+        List<Transaction> rows = new ArrayList<>(live);
+        rows.addAll(archiveStore.newestFirst(archived.before(from), 0, page.getPageSize() - live.size()));
+        return rows;
+    }
+    
+    private CursorPage<TransactionResponse> toHistoryPage(List<Transaction> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows.stream().map(this::convertToResponse).collect(Collectors.toList()), null);
         }
+        List<Transaction> page = rows.subList(0, pageSize);
+        Transaction last = page.get(pageSize - 1);
+        String nextCursor = new HistoryCursor(last.getTransactionDate(), last.getTransactionId()).encode();
+        return new CursorPage<>(page.stream().map(this::convertToResponse).collect(Collectors.toList()), nextCursor);
     }
     
     private TransactionResponse convertToResponse(Transaction transaction) {
@@ -5,6 +5,7 @@ import com.cbs.model.dto.response.UserResponse;
 import com.cbs.model.entity.User;
 import com.cbs.model.enums.UserStatus;
 import com.cbs.repository.UserRepository;
+import com.cbs.security.PrincipalCache;
 import com.cbs.service.interface_.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,11 +20,14 @@ public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
     
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
     
     @Override
@@ -95,6 +99,8 @@ public class UserServiceImpl implements UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        // Tokens issued under the old username must stop resolving to this user
+        principalCache.invalidate(userId);
         return convertToResponse(updatedUser);
     }
     
@@ -105,6 +111,7 @@ public class UserServiceImpl implements UserService {
         
         user.setStatus(UserStatus.INACTIVE);
         userRepository.save(user);
+        principalCache.invalidate(userId);
     }
     
     @Override
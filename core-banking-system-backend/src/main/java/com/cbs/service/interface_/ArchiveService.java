@@ -0,0 +1,22 @@
+package com.cbs.service.interface_;
+
+import com.cbs.archive.ArchiveCodec;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+public interface ArchiveService {
+
+    /**
+     * The month of the oldest row still in the codec's live table, if it has any rows.
+     */
+    Optional<YearMonth> findOldestLiveMonth(ArchiveCodec<?> codec);
+
+    /**
+     * Moves one month of the codec's live table into the archive: the rows are written to an
+     * archive file and then removed from the table in the same transaction.
+     *
+     * @return the number of rows archived
+     */
+    long archiveMonth(ArchiveCodec<?> codec, YearMonth month);
+}
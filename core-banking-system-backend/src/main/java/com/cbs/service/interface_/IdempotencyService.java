@@ -0,0 +1,54 @@
+package com.cbs.service.interface_;
+
+import com.cbs.model.dto.response.TransactionResponse;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public interface IdempotencyService {
+    
+    int MAX_KEY_LENGTH = 64;
+    
+    /**
+     * Runs {@code action} at most once per idempotency key. A repeat of a completed request gets
+     * the original response back without running anything; a repeat that arrives while the
+     * first is still running waits for it and gets its outcome. Failed requests leave no trace,
+     * so a retry after a failure runs again. Without a key the action simply runs.
+     *
+     * @param operation what the key is being used for, part of the request fingerprint
+     * @param request   the request body, used to reject a key reused for a different request
+     * @throws KeyConflictException if the key belongs to a different request, or the first
+     *                              request is still running after the wait timeout
+     * @throws IllegalArgumentException if the key is blank or longer than {@link #MAX_KEY_LENGTH}
+     */
+    TransactionResponse execute(String idempotencyKey, String operation, Object request,
+                                Callable<TransactionResponse> action) throws Exception;
+    
+    /**
+     * Like {@link #execute}, for actions whose effect is journaled rather than committed in a
+     * database transaction (the ledger engine). Nothing is claimed up front: {@code action} gets
+     * the request fingerprint and must journal it with the key, and whoever writes the journal to
+     * the database calls {@link #record} in that same transaction. Until then the key stays
+     * pending here, so a retry waits for the original outcome instead of running again, even when
+     * its first caller gave up waiting. A failed action leaves no trace.
+     *
+     * @param action starts the action and completes once its effect is durable
+     * @return the response, or the original one for a repeat
+     */
+    CompletableFuture<TransactionResponse> executeJournaled(String idempotencyKey, String operation, Object request,
+                                                            Function<String, CompletableFuture<TransactionResponse>> action)
+            throws Exception;
+    
+    /**
+     * Stores the outcome of an {@link #executeJournaled} action in the caller's transaction. A
+     * key already on file is left alone, so a replayed journal may record it again.
+     */
+    void record(String idempotencyKey, String operation, String requestHash, TransactionResponse response);
+    
+    class KeyConflictException extends RuntimeException {
+        public KeyConflictException(String message) {
+            super(message);
+        }
+    }
+}
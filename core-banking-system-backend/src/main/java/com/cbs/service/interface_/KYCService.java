@@ -1,7 +1,10 @@
 package com.cbs.service.interface_;
 
+import com.cbs.model.dto.request.KYCBatchVerificationRequest;
 import com.cbs.model.dto.request.KYCUploadRequest;
 import com.cbs.model.dto.request.KYCVerificationRequest;
+import com.cbs.model.dto.response.ExpiringKYCResponse;
+import com.cbs.model.dto.response.KYCBatchVerificationResponse;
 import com.cbs.model.dto.response.KYCResponse;
 import com.cbs.model.enums.DocumentType;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,6 +18,8 @@ public interface KYCService {
     
     KYCResponse uploadDocumentWithFile(KYCUploadRequest request, MultipartFile file);
     
+    KYCResponse submitDocumentWithFile(KYCUploadRequest request, MultipartFile file);
+    
     Optional<KYCResponse> getKycById(Long kycId);
     
     List<KYCResponse> getKycByUserId(Long userId);
@@ -29,10 +34,22 @@ public interface KYCService {
     
     KYCResponse rejectKyc(Long kycId, String rejectionReason, Long verifiedBy);
     
+    // Applies every decision in one transaction; a decision that cannot be applied is reported
+    // in its own result and does not affect the others.
+    KYCBatchVerificationResponse verifyKycBatch(KYCBatchVerificationRequest request, Long verifiedBy);
+    
+    // Claims the reviewer's next page of SUBMITTED and UNDER_REVIEW documents, keeping other
+    // reviewers off them for a while; limit is capped at MAX_REVIEW_PAGE_SIZE.
+    List<KYCResponse> claimReviewQueue(Long reviewerId, int limit);
+    
+    int MAX_REVIEW_PAGE_SIZE = 200;
+    
     List<KYCResponse> getPendingKyc();
     
     List<KYCResponse> getExpiredKyc();
     
+    List<ExpiringKYCResponse> getExpiringKyc(int withinDays);
+    
     boolean hasUserCompletedKYC(Long userId);
     
     Optional<KYCResponse> getPrimaryDocument(Long userId);
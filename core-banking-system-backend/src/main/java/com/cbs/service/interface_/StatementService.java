@@ -0,0 +1,18 @@
+package com.cbs.service.interface_;
+
+import com.cbs.model.enums.StatementFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface StatementService {
+    
+    /**
+     * Writes the posted transactions of an account between two dates (both inclusive), oldest
+     * first, each with the running balance after it. Rows are streamed from the database, so
+     * memory use does not depend on the length of the statement.
+     */
+    void writeStatement(Long accountId, LocalDate fromDate, LocalDate toDate, StatementFormat format,
+                        OutputStream outputStream) throws IOException;
+}
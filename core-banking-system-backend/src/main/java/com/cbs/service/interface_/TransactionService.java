@@ -1,8 +1,12 @@
 package com.cbs.service.interface_;
 
+import com.cbs.model.dto.request.BatchPostingRequest;
 import com.cbs.model.dto.request.DepositRequest;
 import com.cbs.model.dto.request.TransferRequest;
 import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.BatchPostingResponse;
+import com.cbs.model.dto.response.CursorPage;
+import com.cbs.ledger.LedgerPosting;
 import com.cbs.model.dto.response.TransactionResponse;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,21 +21,38 @@ public interface TransactionService {
     
     TransactionResponse transfer(TransferRequest request) throws Exception;
     
+    BatchPostingResponse postBatch(BatchPostingRequest request);
+    
+    /**
+     * Writes postings already accepted by the in-memory ledger: their transaction rows and daily
+     * totals, and their net balance change per account. Postings whose
+     * reference is already on file are skipped, so a batch may be written more than once. The
+     * idempotency keys the postings carry are recorded in the same transaction.
+     */
+    void recordLedgerPostings(List<LedgerPosting> postings);
+    
     Optional<TransactionResponse> getTransactionById(Long transactionId);
     
     Optional<TransactionResponse> getTransactionByReference(String transactionReference);
     
-    List<TransactionResponse> getTransactionsByAccountId(Long accountId);
+    // History listings are keyset-paginated, newest first. cursor is null for the first page,
+    // otherwise the nextCursor of the previous page; limit is capped at MAX_HISTORY_PAGE_SIZE.
+    
+    int MAX_HISTORY_PAGE_SIZE = 500;
+    
+    CursorPage<TransactionResponse> getTransactionsByAccountId(Long accountId, String cursor, int limit);
     
-    List<TransactionResponse> getTransactionsByUserId(Long userId);
+    CursorPage<TransactionResponse> getTransactionsByUserId(Long userId, String cursor, int limit);
     
-    List<TransactionResponse> getTransactionsByUserIdAndStatus(Long userId, String status);
+    CursorPage<TransactionResponse> getTransactionsByUserIdAndStatus(Long userId, String status, String cursor, int limit);
     
-    List<TransactionResponse> getAllTransactions();
+    CursorPage<TransactionResponse> getAllTransactions(String cursor, int limit);
     
-    List<TransactionResponse> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+    CursorPage<TransactionResponse> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                                               String cursor, int limit);
     
-    List<TransactionResponse> getTransactionsByUserIdAndDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate);
+    CursorPage<TransactionResponse> getTransactionsByUserIdAndDateRange(Long userId, LocalDateTime startDate,
+                                                                        LocalDateTime endDate, String cursor, int limit);
     
     TransactionResponse updateTransactionStatus(Long transactionId, String status);
     
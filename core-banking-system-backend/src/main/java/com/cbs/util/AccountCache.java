@@ -0,0 +1,193 @@
+package com.cbs.util;
+
+import com.cbs.model.entity.Account;
+import com.cbs.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Read-through cache for the account lookups clients poll: by id, by account number and by user.
+ * <p>
+ * Entries are filled inside Caffeine's per-key compute, and invalidation of a key waits for an
+ * in-flight load of that key, so a load can never put back a row read before the write it
+ * raced with. Writers invalidate after their transaction commits; together this means a read on
+ * this node never sees a balance older than the last committed write. The TTL only bounds how
+ * long writes made by other nodes can go unnoticed should an invalidation from
+ * {@link CacheInvalidationBus} be lost.
+ * <p>
+ * Cached entities are detached snapshots and must never be modified or merged; callers convert
+ * them to responses.
+ */
+@Component
+public class AccountCache {
+
+    static final String ACCOUNT_TOPIC = "account";
+    static final String USER_ACCOUNTS_TOPIC = "user-accounts";
+    static final String ACCOUNT_STATUS_TOPIC = "account-status";
+
+    private final AccountRepository accountRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<Long, Account> accountsById;
+    // Numbers never change hands, so this mapping needs no invalidation beyond size and TTL
+    private final Cache<String, Long> idsByNumber;
+    private final Cache<Long, List<Account>> accountsByUser;
+    private final List<CacheInvalidationBus.Subscriber> statusSubscribers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public AccountCache(AccountRepository accountRepository,
+                        CacheInvalidationBus invalidationBus,
+                        @Value("${cbs.accountCache.maxSize:10000}") long maxSize,
+                        @Value("${cbs.accountCache.ttlMs:60000}") long ttlMs) {
+        this.accountRepository = accountRepository;
+        this.invalidationBus = invalidationBus;
+        // Caffeine's default eviction policy is W-TinyLFU
+        this.accountsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.idsByNumber = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.accountsByUser = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        invalidationBus.subscribe(ACCOUNT_TOPIC, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void invalidate(String key) {
+                accountsById.invalidate(Long.valueOf(key));
+            }
+
+            @Override
+            public void invalidateAll() {
+                accountsById.invalidateAll();
+            }
+        });
+        invalidationBus.subscribe(USER_ACCOUNTS_TOPIC, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void invalidate(String key) {
+                accountsByUser.invalidate(Long.valueOf(key));
+            }
+
+            @Override
+            public void invalidateAll() {
+                accountsByUser.invalidateAll();
+            }
+        });
+    }
+
+    public Optional<Account> getById(Long accountId) {
+        // A missing account is not cached: the loader returns null and the next call asks again
+        return Optional.ofNullable(accountsById.get(accountId,
+                id -> accountRepository.findById(id).orElse(null)));
+    }
+
+    public Optional<Account> getByNumber(String accountNumber) {
+        Long accountId = idsByNumber.get(accountNumber, number -> accountRepository.findByAccountNumber(number)
+                .map(Account::getAccountId)
+                .orElse(null));
+        return accountId == null ? Optional.empty() : getById(accountId);
+    }
+
+    public List<Account> getByUserId(Long userId) {
+        return accountsByUser.get(userId, id -> List.copyOf(accountRepository.findByUserId(id)));
+    }
+
+    /**
+     * Drops an account once the current transaction commits, or straight away outside one.
+     * Pass the owning user's id so their account list is refreshed too; it may be null when
+     * unknown, in which case the list catches up within the TTL. Other nodes are told through
+     * the {@link CacheInvalidationBus}, again only once the write commits.
+     */
+    public void invalidate(Long accountId, Long userId) {
+        invalidationBus.publish(ACCOUNT_TOPIC, accountId);
+        if (userId != null) {
+            invalidationBus.publish(USER_ACCOUNTS_TOPIC, userId);
+        }
+        afterCommit(() -> {
+            accountsById.invalidate(accountId);
+            if (userId != null) {
+                accountsByUser.invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * Drops an account whose status changed, like {@link #invalidate}, and tells the status
+     * subscribers here and on other nodes once the write commits.
+     */
+    public void invalidateStatus(Long accountId, Long userId) {
+        invalidate(accountId, userId);
+        invalidationBus.publish(ACCOUNT_STATUS_TOPIC, accountId);
+        afterCommit(() -> statusSubscribers.forEach(subscriber -> subscriber.invalidate(accountId.toString())));
+    }
+
+    /**
+     * Registers a holder of account state kept outside this cache, such as the ledger engine's
+     * shards, for the status changes passed to {@link #invalidateStatus} on any node.
+     */
+    public void subscribeStatus(CacheInvalidationBus.Subscriber subscriber) {
+        statusSubscribers.add(subscriber);
+        invalidationBus.subscribe(ACCOUNT_STATUS_TOPIC, subscriber);
+    }
+
+    /**
+     * Drops a user's account list, e.g. when an account is opened for them.
+     */
+    public void invalidateUser(Long userId) {
+        invalidationBus.publish(USER_ACCOUNTS_TOPIC, userId);
+        afterCommit(() -> accountsByUser.invalidate(userId));
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("byId", stats(accountsById));
+        stats.put("byNumber", stats(idsByNumber));
+        stats.put("byUser", stats(accountsByUser));
+        return stats;
+    }
+
+    private Map<String, Object> stats(Cache<?, ?> cache) {
+        CacheStats cacheStats = cache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.estimatedSize());
+        stats.put("hitCount", cacheStats.hitCount());
+        stats.put("missCount", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictionCount", cacheStats.evictionCount());
+        stats.put("averageLoadPenaltyNanos", cacheStats.averageLoadPenalty());
+        return stats;
+    }
+
+    private void afterCommit(Runnable invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+}
@@ -1,25 +1,118 @@
 package com.cbs.util;
 
+import com.cbs.model.entity.AccountNumberSequence;
 import com.cbs.model.enums.AccountType;
+import com.cbs.repository.AccountNumberSequenceRepository;
+import com.cbs.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Year;
-import java.util.Random;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Allocates account numbers of the form prefix + two-digit year + six-digit serial + check digit.
+ * <p>
+ * Serials come from the {@code account_number_sequences} table. Each node reserves a block of
+ * serials per series in its own short transaction and then hands them out from memory, so
+ * creating an account does not need a lookup to find a free number. Serials left unused when a
+ * node stops are skipped, not reused.
+ */
 @Component
 public class AccountNumberGenerator {
-    
-    private final Random random = new Random();
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountNumberGenerator.class);
+
+    private static final long SERIALS_PER_SERIES = 1_000_000;
+
+    private final AccountNumberSequenceRepository sequenceRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate reservationTransaction;
+    private final int blockSize;
+
+    private final Map<String, SerialBlock> blocks = new ConcurrentHashMap<>();
+
+    public AccountNumberGenerator(AccountNumberSequenceRepository sequenceRepository,
+                                  AccountRepository accountRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${cbs.app.accountNumberBlockSize:100}") int blockSize) {
+        this.sequenceRepository = sequenceRepository;
+        this.accountRepository = accountRepository;
+        this.reservationTransaction = new TransactionTemplate(transactionManager);
+        // Reservations commit on their own so the sequence row is only locked briefly and a
+        // rolled-back account creation never hands the same block out twice
+        this.reservationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
     public String generateAccountNumber(AccountType accountType) {
-        String prefix = getPrefixForAccountType(accountType);
-        String year = String.valueOf(Year.now().getValue()).substring(2);
-        String randomDigits = String.format("%06d", random.nextInt(1000000));
-        String checkDigit = calculateCheckDigit(prefix + year + randomDigits);
-        
-        return prefix + year + randomDigits + checkDigit;
-    }
-    
+        String series = getPrefixForAccountType(accountType) + String.valueOf(Year.now().getValue()).substring(2);
+        SerialBlock block = blocks.computeIfAbsent(series, key -> new SerialBlock());
+
+        // Reserving a block goes to the database; a lock rather than a monitor so that does not
+        // pin a virtual thread's carrier
+        block.lock.lock();
+        try {
+            long serial;
+            while ((serial = block.next()) < 0) {
+                reserveBlock(series, block);
+            }
+            return format(series, serial);
+        } finally {
+            block.lock.unlock();
+        }
+    }
+
+    private void reserveBlock(String series, SerialBlock block) {
+        Long start;
+        try {
+            start = reservationTransaction.execute(status -> claimSerials(series));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the series row at the same time; claim from its row instead
+            start = reservationTransaction.execute(status -> claimSerials(series));
+        }
+        long end = Math.min(start + blockSize, SERIALS_PER_SERIES);
+
+        // Numbers issued by the old random generator may sit inside the new block; one range
+        // query per block finds them so they can be skipped
+        Set<Long> taken = new HashSet<>();
+        for (String accountNumber : accountRepository.findAccountNumbersBetween(
+                format(series, start), format(series, end - 1))) {
+            taken.add(Long.parseLong(accountNumber.substring(series.length(), series.length() + 6)));
+        }
+
+        block.reset(start, end, taken);
+        logger.debug("Reserved account serials [{}, {}) for series {}", start, end, series);
+    }
+
+    private long claimSerials(String series) {
+        AccountNumberSequence sequence = sequenceRepository.findBySeriesForUpdate(series)
+                .orElseGet(() -> sequenceRepository.saveAndFlush(new AccountNumberSequence(series)));
+
+        long start = sequence.getNextValue();
+        if (start >= SERIALS_PER_SERIES) {
+            throw new RuntimeException("Account number range exhausted for series " + series);
+        }
+        sequence.setNextValue(Math.min(start + blockSize, SERIALS_PER_SERIES));
+        sequenceRepository.save(sequence);
+        return start;
+    }
+
+    private String format(String series, long serial) {
+        String digits = series + String.format("%06d", serial);
+        return digits + calculateCheckDigit(digits);
+    }
+
     private String getPrefixForAccountType(AccountType accountType) {
         switch (accountType) {
             case SAVINGS:
@@ -36,7 +129,7 @@ public class AccountNumberGenerator {
                 return "AC";
         }
     }
-    
+
     private String calculateCheckDigit(String accountNumber) {
         int sum = 0;
         for (int i = 0; i < accountNumber.length(); i++) {
@@ -44,4 +137,30 @@ public class AccountNumberGenerator {
         }
         return String.valueOf(sum % 10);
     }
-}
\ No newline at end of file
+
+    /**
+     * Serials reserved for one series on this node. Guarded by its {@code lock}.
+     */
+    private static final class SerialBlock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long end;
+        private Set<Long> taken = Set.of();
+
+        long next() {
+            while (next < end) {
+                long serial = next++;
+                if (!taken.contains(serial)) {
+                    return serial;
+                }
+            }
+            return -1;
+        }
+
+        void reset(long start, long end, Set<Long> taken) {
+            this.next = start;
+            this.end = end;
+            this.taken = taken;
+        }
+    }
+}
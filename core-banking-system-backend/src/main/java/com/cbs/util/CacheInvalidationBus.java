@@ -0,0 +1,168 @@
+package com.cbs.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Carries cache invalidations between backend instances over PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * {@link #publish} issues {@code pg_notify} on the caller's connection, so inside a transaction
+ * PostgreSQL holds the message until commit and drops it on rollback; other nodes never hear
+ * about a write before it is visible to them. Every node keeps one connection listening on
+ * {@value #CHANNEL} and hands incoming keys to the subscribers of their topic. A node ignores
+ * its own messages, since it invalidates locally once its transaction commits.
+ * <p>
+ * Notifications sent while the listening connection is down are lost, so after every
+ * (re)connect subscribers are asked to drop everything.
+ * <p>
+ * Disabled by default ({@code cbs.invalidation.enabled}); single-node and H2 setups have nothing
+ * to tell.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL = "cbs_cache_invalidation";
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Receives invalidations for one topic.
+     */
+    public interface Subscriber {
+        void invalidate(String key);
+
+        void invalidateAll();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int pollTimeoutMs;
+    private final long reconnectDelayMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Thread listener;
+
+    private volatile boolean running;
+
+    @Autowired
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                @Value("${cbs.invalidation.enabled:false}") boolean enabled,
+                                @Value("${cbs.invalidation.pollTimeoutMs:500}") int pollTimeoutMs,
+                                @Value("${cbs.invalidation.reconnectDelayMs:5000}") long reconnectDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.listener = new Thread(this::listenLoop, "cache-invalidation-listener");
+        this.listener.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            listener.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(5000);
+    }
+
+    public void subscribe(String topic, Subscriber subscriber) {
+        subscribers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    /**
+     * Tells the other nodes to drop {@code key} from their {@code topic} caches once the current
+     * transaction commits, or straight away outside one.
+     */
+    public void publish(String topic, Object key) {
+        if (!enabled) {
+            return;
+        }
+        String payload = nodeId + SEPARATOR + topic + SEPARATOR + key;
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, CHANNEL, payload);
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                // Held for as long as the node runs, so it takes one slot of the pool
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for cache invalidations on {}", CHANNEL);
+                subscribers.values().forEach(topicSubscribers -> topicSubscribers.forEach(Subscriber::invalidateAll));
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Cache invalidation listener lost its connection, retrying in {} ms: {}",
+                        reconnectDelayMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void dispatch(String payload) {
+        int first = payload.indexOf(SEPARATOR);
+        int second = payload.indexOf(SEPARATOR, first + 1);
+        if (first < 0 || second < 0) {
+            logger.warn("Ignoring malformed cache invalidation '{}'", payload);
+            return;
+        }
+        if (payload.startsWith(nodeId) && first == nodeId.length()) {
+            return;
+        }
+        String topic = payload.substring(first + 1, second);
+        String key = payload.substring(second + 1);
+        for (Subscriber subscriber : subscribers.getOrDefault(topic, List.of())) {
+            try {
+                subscriber.invalidate(key);
+            } catch (RuntimeException e) {
+                logger.error("Cache invalidation of {} '{}' failed", topic, key, e);
+            }
+        }
+    }
+}
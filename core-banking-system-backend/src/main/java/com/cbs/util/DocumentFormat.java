@@ -0,0 +1,71 @@
+package com.cbs.util;
+
+import com.cbs.model.enums.DocumentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * File formats accepted for KYC documents, recognised by their leading bytes rather than by the
+ * content type the client declares.
+ */
+public enum DocumentFormat {
+
+    PDF("application/pdf", new byte[]{'%', 'P', 'D', 'F', '-'}),
+    JPEG("image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    PNG("image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+
+    /**
+     * Enough leading bytes to tell every format apart.
+     */
+    public static final int SNIFF_LENGTH = 8;
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentFormat.class);
+
+    private final String contentType;
+    private final byte[] magic;
+
+    DocumentFormat(String contentType, byte[] magic) {
+        this.contentType = contentType;
+        this.magic = magic;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * The format whose signature starts {@code head}, if any.
+     *
+     * @param length how many bytes of {@code head} were actually read
+     */
+    public static Optional<DocumentFormat> sniff(byte[] head, int length) {
+        for (DocumentFormat format : values()) {
+            if (length >= format.magic.length
+                    && Arrays.equals(head, 0, format.magic.length, format.magic, 0, format.magic.length)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether a document of the given type may have the sniffed format. The declared content
+     * type is only logged when it disagrees.
+     */
+    public static boolean isAllowed(Optional<DocumentFormat> format, DocumentType documentType,
+                                    String declaredContentType) {
+        if (format.isPresent() && declaredContentType != null
+                && !format.get().getContentType().equals(declaredContentType)) {
+            logger.warn("Document declared as {} is {}", declaredContentType, format.get().getContentType());
+        }
+        return switch (documentType) {
+            case AADHAAR_CARD, PAN_CARD, PASSPORT, VOTER_ID, DRIVING_LICENSE -> format.isPresent();
+            case PASSPORT_PHOTO, SIGNATURE -> format.filter(f -> f != PDF).isPresent();
+            case BANK_STATEMENT, UTILITY_BILL, INCOME_PROOF -> format.isPresent();
+            default -> true;
+        };
+    }
+}
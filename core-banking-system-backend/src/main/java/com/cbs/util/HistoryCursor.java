@@ -0,0 +1,56 @@
+package com.cbs.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in transaction history, which is listed newest first by
+ * {@code (transaction_date, transaction_id)}. A page holds the rows strictly before the cursor.
+ * <p>
+ * Cursors travel as URL-safe base64 so clients treat them as opaque tokens.
+ */
+public final class HistoryCursor {
+
+    /** Position before every real row: the first page starts here. */
+    public static final HistoryCursor START = new HistoryCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime transactionDate;
+    private final long transactionId;
+
+    public HistoryCursor(LocalDateTime transactionDate, long transactionId) {
+        this.transactionDate = transactionDate;
+        this.transactionId = transactionId;
+    }
+
+    /**
+     * @param cursor a token from {@link #encode()}, or null/blank for the first page
+     * @throws IllegalArgumentException if the token was not produced by this class
+     */
+    public static HistoryCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = transactionDate + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cbs.util;
+
+import com.cbs.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes idempotency keys older than {@code cbs.idempotency.retentionHours}, every
+ * {@code cbs.idempotency.purge.checkIntervalMs}.
+ * <p>
+ * A retry with a purged key runs as a new request, so the retention has to outlast the time
+ * clients keep retrying. Keys go oldest first, {@code cbs.idempotency.purge.batchSize} per
+ * transaction, so a purge never holds locks on more than a batch of rows. Several nodes may run
+ * this side by side; they only share the work.
+ * <p>
+ * Disabled by default ({@code cbs.idempotency.purge.enabled}).
+ */
+@Component
+@ConditionalOnProperty(name = "cbs.idempotency.purge.enabled", havingValue = "true")
+public class IdempotencyKeyPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyKeyPurger.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final long retentionHours;
+    private final int batchSize;
+
+    @Autowired
+    public IdempotencyKeyPurger(IdempotencyRecordRepository idempotencyRecordRepository,
+                                PlatformTransactionManager transactionManager,
+                                Clock clock,
+                                @Value("${cbs.idempotency.retentionHours:72}") long retentionHours,
+                                @Value("${cbs.idempotency.purge.batchSize:1000}") int batchSize) {
+        if (retentionHours < 1) {
+            throw new IllegalArgumentException("cbs.idempotency.retentionHours must be at least 1");
+        }
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.retentionHours = retentionHours;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${cbs.idempotency.purge.checkIntervalMs:3600000}")
+    public void purge() {
+        int purged = purgeExpiredKeys();
+        if (purged > 0) {
+            logger.info("Purged {} idempotency keys older than {} hours", purged, retentionHours);
+        }
+    }
+
+    /**
+     * Deletes every key created before the retention window.
+     *
+     * @return the number of keys deleted
+     */
+    public int purgeExpiredKeys() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minusHours(retentionHours);
+        int purged = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(
+                    status -> idempotencyRecordRepository.deleteCreatedBefore(cutoff, batchSize));
+            int count = deleted == null ? 0 : deleted;
+            purged += count;
+            if (count < batchSize) {
+                return purged;
+            }
+        }
+    }
+}
@@ -1,24 +1,159 @@
 package com.cbs.util;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import java.time.ZoneOffset;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Snowflake-style transaction reference generator.
+ * <p>
+ * A reference is {@code TXN} + {@code yyyyMMddHHmmssSSS} + 4-digit node id + 4-digit sequence
+ * (28 characters). The timestamp and sequence are packed into one {@link AtomicLong} and advanced
+ * with a CAS, so generation never blocks. When the 10,000 sequence values of a millisecond are used
+ * up the generator moves on to the next millisecond instead of waiting, and it never goes back in
+ * time if the wall clock does. The timestamp is always UTC, so it neither repeats nor jumps when the
+ * local zone changes to or from daylight saving time.
+ * <p>
+ * References are unique across JVMs as long as every node runs with a distinct
+ * {@code cbs.app.transactionNodeId}. A multi-node deployment ({@code cbs.invalidation.enabled})
+ * refuses to start without one; a single node falls back to an id derived from its host and pid.
+ */
 @Component
 public class TransactionIdGenerator {
-    
-    private final AtomicLong sequence = new AtomicLong(0);
-    private final Random random = new Random();
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIdGenerator.class);
+
+    private static final String PREFIX = "TXN";
+    private static final int REFERENCE_LENGTH = 28;
+    private static final int MAX_NODE_ID = 9999;
+    private static final long MAX_SEQUENCE = 9999;
+    private static final int SEQUENCE_BITS = 14;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int nodeId;
+    private final Clock clock;
+
+    // (epoch millis << SEQUENCE_BITS) | sequence of the last issued reference
+    private final AtomicLong state = new AtomicLong();
+
+    // yyyyMMddHHmmss for the most recently seen second; replaced as a whole, never mutated
+    private volatile SecondPrefix secondPrefix = new SecondPrefix(Long.MIN_VALUE, null);
+
+    @Autowired
+    public TransactionIdGenerator(@Value("${cbs.app.transactionNodeId:-1}") int configuredNodeId,
+                                  @Value("${cbs.invalidation.enabled:false}") boolean multiNode) {
+        this(configuredNodeId >= 0 ? configuredNodeId : deriveNodeId(multiNode), Clock.systemUTC());
+    }
+
+    public TransactionIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Transaction node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
     public String generateTransactionId() {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String sequenceNumber = String.format("%04d", sequence.getAndIncrement() % 10000);
-        String randomDigits = String.format("%04d", random.nextInt(10000));
-        
-        return "TXN" + timestamp + sequenceNumber + randomDigits;
+        long next = nextState();
+        long millis = next >>> SEQUENCE_BITS;
+        int sequence = (int) (next & SEQUENCE_MASK);
+
+        char[] reference = new char[REFERENCE_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), reference, 0);
+        System.arraycopy(prefixFor(millis / 1000), 0, reference, 3, 14);
+        writeDigits(reference, 17, (int) (millis % 1000), 3);
+        writeDigits(reference, 20, nodeId, 4);
+        writeDigits(reference, 24, sequence, 4);
+        return new String(reference);
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    private long nextState() {
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long now = clock.millis();
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < MAX_SEQUENCE) {
+                // Same millisecond, or the clock stepped back: keep counting on the last one
+                next = current + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond rather than spin
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private char[] prefixFor(long epochSecond) {
+        SecondPrefix cached = secondPrefix;
+        if (cached.epochSecond == epochSecond) {
+            return cached.chars;
+        }
+
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+        char[] chars = new char[14];
+        writeDigits(chars, 0, dateTime.getYear(), 4);
+        writeDigits(chars, 4, dateTime.getMonthValue(), 2);
+        writeDigits(chars, 6, dateTime.getDayOfMonth(), 2);
+        writeDigits(chars, 8, dateTime.getHour(), 2);
+        writeDigits(chars, 10, dateTime.getMinute(), 2);
+        writeDigits(chars, 12, dateTime.getSecond(), 2);
+        secondPrefix = new SecondPrefix(epochSecond, chars);
+        return chars;
+    }
+
+    private static void writeDigits(char[] target, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int deriveNodeId(boolean multiNode) {
+        if (multiNode) {
+            // A hash of host and pid modulo 10,000 can collide between two nodes
+            throw new IllegalStateException("cbs.app.transactionNodeId must be set to a distinct id on every " +
+                    "node when cbs.invalidation.enabled is true");
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        String runtimeName = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        int derived = Math.floorMod(runtimeName.hashCode(), MAX_NODE_ID + 1);
+        logger.info("cbs.app.transactionNodeId is not set; derived node id {} from {}", derived, runtimeName);
+        return derived;
+    }
+
+    private static final class SecondPrefix {
+        private final long epochSecond;
+        private final char[] chars;
+
+        private SecondPrefix(long epochSecond, char[] chars) {
+            this.epochSecond = epochSecond;
+            this.chars = chars;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package com.cbs.util;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} (see V15) ahead of the clock.
+ * <p>
+ * Every {@code cbs.partitions.checkIntervalMs} the current month and the next
+ * {@code cbs.partitions.monthsAhead} are created through {@code create_transaction_partition},
+ * which is idempotent, so several nodes may run this side by side. Rows that land in
+ * {@code transactions_default} anyway are only reported: the database function moves them when
+ * their month is created, and older months are left to an operator.
+ * <p>
+ * {@link #detach} takes a closed month out of the table for archival; it becomes a plain table
+ * that can be dropped without touching the live partitions. {@code ArchiveServiceImpl} does
+ * both once the month is written to the archive.
+ * <p>
+ * Disabled by default ({@code cbs.partitions.enabled}); H2 has no partitions.
+ */
+@Component
+@ConditionalOnProperty(name = "cbs.partitions.enabled", havingValue = "true")
+public class TransactionPartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionMaintainer.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final int monthsAhead;
+
+    private volatile boolean partitioned;
+
+    @Autowired
+    public TransactionPartitionMaintainer(JdbcTemplate jdbcTemplate, Clock clock,
+                                          @Value("${cbs.partitions.monthsAhead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @PostConstruct
+    public void checkPartitioned() {
+        partitioned = isPartitioned();
+        if (!partitioned) {
+            logger.error("cbs.partitions.enabled is set but transactions is not partitioned (V15 has not been "
+                    + "applied); not maintaining partitions");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cbs.partitions.checkIntervalMs:21600000}")
+    public void maintain() {
+        if (partitioned) {
+            // Rows still go to the default partition if this fails, so the next round is soon enough
+            List<String> partitions = ensurePartitions();
+            logger.debug("Transaction partitions: {}", partitions);
+        }
+    }
+
+    /**
+     * Creates the partitions for the current month and the configured months ahead.
+     *
+     * @return the partitions that exist afterwards, oldest first
+     */
+    public List<String> ensurePartitions() {
+        YearMonth current = YearMonth.now(clock);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.queryForObject("SELECT create_transaction_partition(?)", String.class,
+                    Date.valueOf(month.atDay(1)));
+        }
+
+        Long stray = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions_default", Long.class);
+        if (stray != null && stray > 0) {
+            logger.warn("{} transactions are outside every monthly partition; create their months with "
+                    + "create_transaction_partition", stray);
+        }
+        return listPartitions();
+    }
+
+    /**
+     * Detaches a closed month from {@code transactions}. Its rows stay in the returned table until
+     * it is archived and dropped; queries on {@code transactions} no longer see them.
+     *
+     * @throws IllegalStateException if the month is not over yet or has no partition
+     */
+    public String detach(YearMonth month) {
+        if (!month.isBefore(YearMonth.now(clock))) {
+            throw new IllegalStateException("Only months that are over can be detached");
+        }
+        String partition = partitionName(month);
+        if (!hasPartition(month)) {
+            throw new IllegalStateException("No partition for " + month);
+        }
+        // The name is built from a YearMonth, so it is safe to inline
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+        logger.info("Detached {} from transactions", partition);
+        return partition;
+    }
+
+    /**
+     * Drops a partition taken out by {@link #detach}, once its rows are archived.
+     */
+    public void drop(String partition) {
+        if (!partition.matches("transactions_\\d{4}_\\d{2}")) {
+            throw new IllegalArgumentException("Not a monthly transaction partition: " + partition);
+        }
+        if (listPartitions().contains(partition)) {
+            throw new IllegalStateException(partition + " is still attached");
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        logger.info("Dropped {}", partition);
+    }
+
+    public List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'transactions'::regclass AND c.relname <> 'transactions_default' "
+                        + "ORDER BY c.relname", String.class);
+    }
+
+    public boolean hasPartition(YearMonth month) {
+        return listPartitions().contains(partitionName(month));
+    }
+
+    /**
+     * Whether V15 has run: the partition function exists and {@code transactions} is partitioned.
+     */
+    boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT to_regprocedure('create_transaction_partition(date)') IS NOT NULL "
+                        + "AND EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass)",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "transactions_" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,31 @@
+package com.cbs.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fee charged to the source account of a transfer, shared by the database posting path and
+ * the in-memory ledger so both charge the same.
+ */
+public final class TransferFees {
+
+    private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.005");
+    private static final BigDecimal MIN_FEE = new BigDecimal("1.00");
+    private static final BigDecimal MAX_FEE = new BigDecimal("50.00");
+
+    private TransferFees() {
+    }
+
+    public static BigDecimal forAmount(BigDecimal amount) {
+        // Simple fee calculation: 0.5% of transfer amount, minimum $1, maximum $50
+        // Fees are rounded to the cent up front so the debited amount matches what is stored
+        BigDecimal fee = amount.multiply(FEE_PERCENTAGE).setScale(2, RoundingMode.HALF_UP);
+        if (fee.compareTo(MIN_FEE) < 0) {
+            return MIN_FEE;
+        } else if (fee.compareTo(MAX_FEE) > 0) {
+            return MAX_FEE;
+        } else {
+            return fee;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.cbs.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier, e.g. on I/O inside a
+ * {@code synchronized} block. A pinned thread holds one of the few carriers, so a handful of them
+ * is enough to stall every other request.
+ * <p>
+ * Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process; only pins longer than
+ * {@code cbs.virtualThreads.pinningThresholdMs} are recorded. Each call site is logged with its
+ * stack the first time it pins and counted afterwards; the counts are logged on shutdown.
+ * <p>
+ * Only active in virtual-thread mode ({@code spring.threads.virtual.enabled}).
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 16;
+
+    private final long thresholdMs;
+    private final Map<String, LongAdder> pinsBySite = new ConcurrentHashMap<>();
+    private final LongAdder pinnedNanos = new LongAdder();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${cbs.virtualThreads.pinningThresholdMs:20}") long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+        if (!pinsBySite.isEmpty()) {
+            logger.warn("Virtual threads were pinned for {} ms in total: {}",
+                    Duration.ofNanos(pinnedNanos.sum()).toMillis(), stats());
+        }
+    }
+
+    /**
+     * Pins seen so far per call site, the innermost application frame first.
+     */
+    public Map<String, Long> stats() {
+        return pinsBySite.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    void record(RecordedEvent event) {
+        pinnedNanos.add(event.getDuration().toNanos());
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String site = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith("com.cbs."))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse("unknown");
+
+        LongAdder count = pinsBySite.computeIfAbsent(site, key -> new LongAdder());
+        count.increment();
+        if (count.sum() == 1) {
+            logger.warn("Virtual thread pinned for {} ms at {}:\n\t{}", event.getDuration().toMillis(), site,
+                    frames.stream().map(VirtualThreadPinningMonitor::describe).collect(Collectors.joining("\n\t")));
+        }
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return List.of();
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.subList(0, Math.min(frames.size(), STACK_DEPTH));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
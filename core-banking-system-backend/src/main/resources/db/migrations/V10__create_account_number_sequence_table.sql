@@ -0,0 +1,6 @@
+CREATE TABLE account_number_sequences (
+    series VARCHAR(8) PRIMARY KEY,
+    next_value BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_account_number_next_value CHECK (next_value >= 0)
+);
@@ -0,0 +1,12 @@
+-- Keyset pagination walks history newest first on (transaction_date, transaction_id) within an
+-- account or user; these indexes serve each page as a bounded backward index scan.
+CREATE INDEX idx_transaction_source_date ON transactions(source_account_id, transaction_date, transaction_id);
+CREATE INDEX idx_transaction_destination_date ON transactions(destination_account_id, transaction_date, transaction_id);
+CREATE INDEX idx_transaction_user_date ON transactions(user_id, transaction_date, transaction_id);
+CREATE INDEX idx_transaction_date_id ON transactions(transaction_date, transaction_id);
+
+-- Leading columns of the indexes above
+DROP INDEX IF EXISTS idx_transaction_source_account;
+DROP INDEX IF EXISTS idx_transaction_destination_account;
+DROP INDEX IF EXISTS idx_transaction_user;
+DROP INDEX IF EXISTS idx_transaction_date;
@@ -0,0 +1,29 @@
+CREATE TABLE account_daily_totals (
+    account_id BIGINT NOT NULL,
+    business_date DATE NOT NULL,
+    debit_total DECIMAL(19,4) NOT NULL DEFAULT 0,
+    credit_total DECIMAL(19,4) NOT NULL DEFAULT 0,
+    fee_total DECIMAL(19,4) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (account_id, business_date),
+    CONSTRAINT fk_account_daily_totals_account FOREIGN KEY (account_id) REFERENCES accounts(account_id)
+);
+
+-- Backfill from posted history. Each row contributes the same legs the application records:
+-- a transfer is stored as a debit leg (carrying the fee) and a credit leg, every other row
+-- credits its destination and debits its source.
+INSERT INTO account_daily_totals (account_id, business_date, debit_total, credit_total, fee_total, updated_at)
+SELECT account_id, business_date, SUM(debit), SUM(credit), SUM(fee), CURRENT_TIMESTAMP
+FROM (
+    SELECT source_account_id AS account_id, CAST(transaction_date AS DATE) AS business_date,
+           amount AS debit, 0 AS credit, COALESCE(fee_amount, 0) AS fee
+    FROM transactions
+    WHERE status IN ('COMPLETED', 'REVERSED') AND source_account_id IS NOT NULL
+      AND (transaction_type <> 'TRANSFER' OR destination_account_id IS NULL OR fee_amount IS NOT NULL)
+    UNION ALL
+    SELECT destination_account_id, CAST(transaction_date AS DATE), 0, amount, 0
+    FROM transactions
+    WHERE status IN ('COMPLETED', 'REVERSED') AND destination_account_id IS NOT NULL
+      AND (transaction_type <> 'TRANSFER' OR source_account_id IS NULL OR fee_amount IS NULL)
+) legs
+GROUP BY account_id, business_date;
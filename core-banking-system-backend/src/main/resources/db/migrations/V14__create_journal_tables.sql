@@ -0,0 +1,44 @@
+-- Ids are allocated by Hibernate in blocks of 50, as for transactions (see V9)
+CREATE SEQUENCE journal_entries_entry_id_seq INCREMENT BY 50;
+CREATE SEQUENCE journal_lines_line_id_seq INCREMENT BY 50;
+
+CREATE TABLE journal_entries (
+    entry_id BIGINT PRIMARY KEY DEFAULT nextval('journal_entries_entry_id_seq'),
+    entry_type VARCHAR(30) NOT NULL,
+    transaction_id BIGINT,
+    description VARCHAR(255),
+    posted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE journal_lines (
+    line_id BIGINT PRIMARY KEY DEFAULT nextval('journal_lines_line_id_seq'),
+    entry_id BIGINT NOT NULL,
+    ledger_account VARCHAR(30) NOT NULL,
+    account_id BIGINT,
+    amount DECIMAL(19,4) NOT NULL,
+    CONSTRAINT fk_journal_lines_entry FOREIGN KEY (entry_id) REFERENCES journal_entries(entry_id),
+    CONSTRAINT fk_journal_lines_account FOREIGN KEY (account_id) REFERENCES accounts(account_id),
+    CONSTRAINT chk_journal_lines_customer_account
+        CHECK (ledger_account <> 'CUSTOMER_DEPOSITS' OR account_id IS NOT NULL)
+);
+
+CREATE INDEX idx_journal_entry_transaction ON journal_entries(transaction_id);
+CREATE INDEX idx_journal_line_entry ON journal_lines(entry_id);
+CREATE INDEX idx_journal_line_account ON journal_lines(account_id);
+
+-- Carry the current balances over as one opening entry, offset against cash, so every account
+-- starts out equal to the sum of its journal lines
+INSERT INTO journal_entries (entry_type, description)
+SELECT 'OPENING_BALANCE', 'Balances carried over when the journal was introduced'
+WHERE EXISTS (SELECT 1 FROM accounts WHERE balance <> 0);
+
+INSERT INTO journal_lines (entry_id, ledger_account, account_id, amount)
+SELECT currval('journal_entries_entry_id_seq'), 'CUSTOMER_DEPOSITS', account_id, balance
+FROM accounts
+WHERE balance <> 0;
+
+INSERT INTO journal_lines (entry_id, ledger_account, amount)
+SELECT currval('journal_entries_entry_id_seq'), 'CASH', -SUM(balance)
+FROM accounts
+WHERE balance <> 0
+HAVING COUNT(*) > 0;
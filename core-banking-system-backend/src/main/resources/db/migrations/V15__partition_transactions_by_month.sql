@@ -0,0 +1,97 @@
+-- Range-partition transactions by month of transaction_date so that inserts only touch the
+-- current month's (small) indexes, date-bounded queries prune to the months they cover, and old
+-- months can be detached for archival.
+--
+-- PostgreSQL requires unique constraints on a partitioned table to include the partition key, so
+-- the primary key becomes (transaction_id, transaction_date), transaction_reference is indexed
+-- rather than unique (references are unique by construction, see TransactionIdGenerator), and
+-- the self-reference of related_transaction_id can no longer be a foreign key.
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+-- Keep the id sequence (and its increment of 50, see V9) when the old table is dropped
+ALTER SEQUENCE transactions_transaction_id_seq OWNED BY NONE;
+
+CREATE TABLE transactions (
+    transaction_id BIGINT NOT NULL DEFAULT nextval('transactions_transaction_id_seq'),
+    transaction_reference VARCHAR(30) NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(19,4) NOT NULL,
+    source_account_id BIGINT,
+    destination_account_id BIGINT,
+    user_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    description TEXT,
+    transaction_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    balance_after DECIMAL(19,4),
+    fee_amount DECIMAL(19,4),
+    related_transaction_id BIGINT,
+    PRIMARY KEY (transaction_id, transaction_date),
+    CONSTRAINT fk_transaction_source_account FOREIGN KEY (source_account_id) REFERENCES accounts(account_id),
+    CONSTRAINT fk_transaction_destination_account FOREIGN KEY (destination_account_id) REFERENCES accounts(account_id),
+    CONSTRAINT fk_transaction_user FOREIGN KEY (user_id) REFERENCES users(user_id),
+    CONSTRAINT chk_amount_positive CHECK (amount > 0),
+    CONSTRAINT chk_fee_non_negative CHECK (fee_amount >= 0),
+    CONSTRAINT chk_source_or_destination CHECK (source_account_id IS NOT NULL OR destination_account_id IS NOT NULL)
+) PARTITION BY RANGE (transaction_date);
+
+-- Catches rows outside every monthly partition; TransactionPartitionMaintainer keeps months
+-- created ahead of time, so it normally stays empty
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- Creates the partition for the month containing target_month, moving any rows for that month out
+-- of the default partition first (attaching would fail while they are there). Safe to call again.
+CREATE OR REPLACE FUNCTION create_transaction_partition(target_month DATE) RETURNS TEXT AS $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', target_month);
+    month_end TIMESTAMP := date_trunc('month', target_month) + INTERVAL '1 month';
+    partition_name TEXT := 'transactions_' || to_char(target_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM transactions_default WHERE transaction_date >= %L AND transaction_date < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- A month per existing month of history, plus the next few
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', COALESCE((SELECT MIN(transaction_date) FROM transactions_unpartitioned),
+                                                     CURRENT_TIMESTAMP));
+    partition_month DATE;
+BEGIN
+    partition_month := first_month;
+    WHILE partition_month <= date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months' LOOP
+        PERFORM create_transaction_partition(partition_month);
+        partition_month := partition_month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+-- Named columns: a table Hibernate built has them in a different order
+INSERT INTO transactions (transaction_id, transaction_reference, transaction_type, amount, source_account_id,
+                          destination_account_id, user_id, status, description, transaction_date, created_at,
+                          updated_at, balance_after, fee_amount, related_transaction_id)
+SELECT transaction_id, transaction_reference, transaction_type, amount, source_account_id,
+       destination_account_id, user_id, status, description, transaction_date, created_at,
+       updated_at, balance_after, fee_amount, related_transaction_id
+FROM transactions_unpartitioned;
+DROP TABLE transactions_unpartitioned;
+ALTER SEQUENCE transactions_transaction_id_seq OWNED BY transactions.transaction_id;
+
+-- Indexes on the parent are created on every partition, including ones attached later. Only
+-- indexes a query actually uses are kept: the keyset history indexes from V11, reference
+-- lookups, and a partial index for the pending queue.
+CREATE INDEX idx_transaction_source_date ON transactions(source_account_id, transaction_date, transaction_id);
+CREATE INDEX idx_transaction_destination_date ON transactions(destination_account_id, transaction_date, transaction_id);
+CREATE INDEX idx_transaction_user_date ON transactions(user_id, transaction_date, transaction_id);
+CREATE INDEX idx_transaction_date_id ON transactions(transaction_date, transaction_id);
+CREATE INDEX idx_transaction_reference ON transactions(transaction_reference);
+CREATE INDEX idx_transaction_pending ON transactions(transaction_date) WHERE status = 'PENDING';
@@ -0,0 +1,10 @@
+-- One row per distinct KYC document file in the content-addressed store, keyed by its SHA-256.
+-- kyc.document_url points at the file; reference_count says how many kyc rows do.
+CREATE TABLE kyc_document_blobs (
+    content_hash CHAR(64) PRIMARY KEY,
+    reference_count INTEGER NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_kyc_document_blob_references CHECK (reference_count > 0)
+);
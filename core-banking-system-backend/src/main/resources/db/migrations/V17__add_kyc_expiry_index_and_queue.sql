@@ -0,0 +1,15 @@
+-- The expiry sweeper walks approved documents in (expiry_date, kyc_id) order; this index serves
+-- each batch as a bounded range scan within one status.
+CREATE INDEX idx_kyc_status_expiry ON kyc(status, expiry_date, kyc_id);
+
+-- Approved documents expiring within the sweeper's horizon, rebuilt on every sweep so that
+-- dashboards read a handful of rows instead of scanning kyc.
+CREATE TABLE kyc_expiring_documents (
+    kyc_id INTEGER PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    document_type VARCHAR(50) NOT NULL,
+    expiry_date TIMESTAMP NOT NULL,
+    CONSTRAINT fk_kyc_expiring_kyc FOREIGN KEY (kyc_id) REFERENCES kyc(kyc_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_kyc_expiring_expiry_date ON kyc_expiring_documents(expiry_date);
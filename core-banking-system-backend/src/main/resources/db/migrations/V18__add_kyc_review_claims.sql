@@ -0,0 +1,7 @@
+-- Reviewers claim pages of the review backlog; a claim keeps other reviewers off the row until
+-- claimed_until, after which the row is up for grabs again.
+ALTER TABLE kyc ADD COLUMN claimed_by BIGINT;
+ALTER TABLE kyc ADD COLUMN claimed_until TIMESTAMP;
+
+-- The review queue is read oldest submission first within the reviewable statuses
+CREATE INDEX idx_kyc_review_queue ON kyc(status, submission_date, kyc_id);
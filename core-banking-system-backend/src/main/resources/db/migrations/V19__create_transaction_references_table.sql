@@ -0,0 +1,28 @@
+-- A partitioned table cannot have a unique constraint that leaves out the partition key, so since
+-- V15 transactions.transaction_reference is only indexed. Uniqueness is enforced here instead:
+-- every row inserted into transactions also inserts its reference into transaction_references, in
+-- the same transaction, and a duplicate reference fails the insert as it did before V15.
+--
+-- References stay here after their month is detached for archival, so an archived reference can
+-- never be issued again either.
+
+CREATE TABLE transaction_references (
+    transaction_reference VARCHAR(30) PRIMARY KEY
+);
+
+INSERT INTO transaction_references (transaction_reference)
+SELECT transaction_reference FROM transactions;
+
+CREATE OR REPLACE FUNCTION record_transaction_reference() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO transaction_references (transaction_reference) VALUES (NEW.transaction_reference);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Defined on the parent, so it is cloned onto every partition, including ones attached later.
+-- create_transaction_partition moves rows into a new month before attaching it, so those rows
+-- are not recorded twice.
+CREATE TRIGGER trg_transaction_reference
+    AFTER INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION record_transaction_reference();
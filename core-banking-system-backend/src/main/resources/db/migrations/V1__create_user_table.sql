@@ -1,4 +1,6 @@
-CREATE TABLE users (
+-- V1-V8 describe the schema Hibernate used to build with ddl-auto before Flyway ran; databases built
+-- that way already have these tables, so V1-V8 only create what is missing.
+CREATE TABLE IF NOT EXISTS users (
     user_id SERIAL PRIMARY KEY,
     username VARCHAR(20) NOT NULL UNIQUE,
     password VARCHAR(100) NOT NULL,
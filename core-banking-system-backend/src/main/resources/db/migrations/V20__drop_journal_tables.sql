@@ -0,0 +1,6 @@
+-- The double-entry journal from V14 is no longer written: balances stay in accounts.balance and the
+-- transaction rows remain the record of every posting.
+DROP TABLE IF EXISTS journal_lines;
+DROP TABLE IF EXISTS journal_entries;
+DROP SEQUENCE IF EXISTS journal_lines_line_id_seq;
+DROP SEQUENCE IF EXISTS journal_entries_entry_id_seq;
@@ -1,4 +1,4 @@
-CREATE TABLE accounts (
+CREATE TABLE IF NOT EXISTS accounts (
     account_id SERIAL PRIMARY KEY,
     account_number VARCHAR(20) NOT NULL UNIQUE,
     account_type VARCHAR(20) NOT NULL,
@@ -17,7 +17,7 @@ CREATE TABLE accounts (
     CONSTRAINT chk_overdraft_non_negative CHECK (overdraft_limit >= 0)
 );
 
-CREATE INDEX idx_account_user_id ON accounts(user_id);
-CREATE INDEX idx_account_number ON accounts(account_number);
-CREATE INDEX idx_account_status ON accounts(status);
-CREATE INDEX idx_account_type ON accounts(account_type);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_account_user_id ON accounts(user_id);
+CREATE INDEX IF NOT EXISTS idx_account_number ON accounts(account_number);
+CREATE INDEX IF NOT EXISTS idx_account_status ON accounts(status);
+CREATE INDEX IF NOT EXISTS idx_account_type ON accounts(account_type);
\ No newline at end of file
@@ -1,4 +1,4 @@
-CREATE TABLE transactions (
+CREATE TABLE IF NOT EXISTS transactions (
     transaction_id SERIAL PRIMARY KEY,
     transaction_reference VARCHAR(30) NOT NULL UNIQUE,
     transaction_type VARCHAR(20) NOT NULL,
@@ -23,10 +23,10 @@ CREATE TABLE transactions (
     CONSTRAINT chk_source_or_destination CHECK (source_account_id IS NOT NULL OR destination_account_id IS NOT NULL)
 );
 
-CREATE INDEX idx_transaction_source_account ON transactions(source_account_id);
-CREATE INDEX idx_transaction_destination_account ON transactions(destination_account_id);
-CREATE INDEX idx_transaction_user ON transactions(user_id);
-CREATE INDEX idx_transaction_status ON transactions(status);
-CREATE INDEX idx_transaction_type ON transactions(transaction_type);
-CREATE INDEX idx_transaction_date ON transactions(transaction_date);
-CREATE INDEX idx_transaction_reference ON transactions(transaction_reference);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_transaction_source_account ON transactions(source_account_id);
+CREATE INDEX IF NOT EXISTS idx_transaction_destination_account ON transactions(destination_account_id);
+CREATE INDEX IF NOT EXISTS idx_transaction_user ON transactions(user_id);
+CREATE INDEX IF NOT EXISTS idx_transaction_status ON transactions(status);
+CREATE INDEX IF NOT EXISTS idx_transaction_type ON transactions(transaction_type);
+CREATE INDEX IF NOT EXISTS idx_transaction_date ON transactions(transaction_date);
+CREATE INDEX IF NOT EXISTS idx_transaction_reference ON transactions(transaction_reference);
\ No newline at end of file
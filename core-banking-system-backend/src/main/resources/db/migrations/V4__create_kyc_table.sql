@@ -1,4 +1,4 @@
-CREATE TABLE kyc (
+CREATE TABLE IF NOT EXISTS kyc (
     kyc_id SERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL,
     document_type VARCHAR(50) NOT NULL,
@@ -22,9 +22,9 @@ CREATE TABLE kyc (
     CONSTRAINT chk_kyc_status CHECK (status IN ('PENDING', 'SUBMITTED', 'UNDER_REVIEW', 'APPROVED', 'REJECTED', 'EXPIRED', 'RESUBMISSION_REQUIRED'))
 );
 
-CREATE INDEX idx_kyc_user_id ON kyc(user_id);
-CREATE INDEX idx_kyc_status ON kyc(status);
-CREATE INDEX idx_kyc_document_type ON kyc(document_type);
-CREATE INDEX idx_kyc_submission_date ON kyc(submission_date);
-CREATE INDEX idx_kyc_expiry_date ON kyc(expiry_date);
-CREATE INDEX idx_kyc_primary_document ON kyc(is_primary_document);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_kyc_user_id ON kyc(user_id);
+CREATE INDEX IF NOT EXISTS idx_kyc_status ON kyc(status);
+CREATE INDEX IF NOT EXISTS idx_kyc_document_type ON kyc(document_type);
+CREATE INDEX IF NOT EXISTS idx_kyc_submission_date ON kyc(submission_date);
+CREATE INDEX IF NOT EXISTS idx_kyc_expiry_date ON kyc(expiry_date);
+CREATE INDEX IF NOT EXISTS idx_kyc_primary_document ON kyc(is_primary_document);
\ No newline at end of file
@@ -1,6 +1,5 @@
--- src/main/resources/db/migration/V7__create_audit_log_table.sql
-CREATE TABLE audit_logs (
-    audit_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+CREATE TABLE IF NOT EXISTS audit_logs (
+    audit_id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL,
     action VARCHAR(50) NOT NULL,
     entity_type VARCHAR(100),
@@ -9,11 +8,12 @@ CREATE TABLE audit_logs (
     new_values TEXT,
     ip_address VARCHAR(45),
     user_agent TEXT,
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_audit_user_id (user_id),
-    INDEX idx_audit_action (action),
-    INDEX idx_audit_entity_type (entity_type),
-    INDEX idx_audit_created_at (created_at),
-    INDEX idx_audit_user_action (user_id, action),
-    INDEX idx_audit_date_range (created_at, user_id)
-);
\ No newline at end of file
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_user_id ON audit_logs(user_id);
+CREATE INDEX IF NOT EXISTS idx_audit_action ON audit_logs(action);
+CREATE INDEX IF NOT EXISTS idx_audit_entity_type ON audit_logs(entity_type);
+CREATE INDEX IF NOT EXISTS idx_audit_created_at ON audit_logs(created_at);
+CREATE INDEX IF NOT EXISTS idx_audit_user_action ON audit_logs(user_id, action);
+CREATE INDEX IF NOT EXISTS idx_audit_date_range ON audit_logs(created_at, user_id);
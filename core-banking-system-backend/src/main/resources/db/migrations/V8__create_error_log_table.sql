@@ -1,8 +1,10 @@
-CREATE TABLE error_logs (
-    error_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+-- Hibernate could never create this table on PostgreSQL (the entity used to ask for LONGTEXT), so
+-- databases it built get it here
+CREATE TABLE IF NOT EXISTS error_logs (
+    error_id BIGSERIAL PRIMARY KEY,
     error_level VARCHAR(20) NOT NULL,
     error_message TEXT NOT NULL,
-    stack_trace LONGTEXT,
+    stack_trace TEXT,
     user_id BIGINT,
     request_url VARCHAR(2048),
     request_method VARCHAR(10),
@@ -10,9 +12,10 @@ CREATE TABLE error_logs (
     user_agent TEXT,
     entity_type VARCHAR(100),
     entity_id BIGINT,
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_error_level (error_level),
-    INDEX idx_error_user_id (user_id),
-    INDEX idx_error_created_at (created_at),
-    INDEX idx_error_date_range (created_at, error_level)
-);
\ No newline at end of file
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_error_level ON error_logs(error_level);
+CREATE INDEX IF NOT EXISTS idx_error_user_id ON error_logs(user_id);
+CREATE INDEX IF NOT EXISTS idx_error_created_at ON error_logs(created_at);
+CREATE INDEX IF NOT EXISTS idx_error_date_range ON error_logs(created_at, error_level);
@@ -0,0 +1,4 @@
+-- Transaction ids are allocated by Hibernate in blocks of 50 (pooled optimizer) so that
+-- inserts can be sent as JDBC batches. The SERIAL column keeps its sequence; only the
+-- increment changes to match the entity's allocationSize.
+ALTER SEQUENCE transactions_transaction_id_seq INCREMENT BY 50;
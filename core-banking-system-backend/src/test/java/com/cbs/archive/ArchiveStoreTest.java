@@ -0,0 +1,179 @@
+package com.cbs.archive;
+
+import com.cbs.model.entity.AuditLog;
+import com.cbs.model.entity.Transaction;
+import com.cbs.model.enums.AuditAction;
+import com.cbs.model.enums.TransactionStatus;
+import com.cbs.model.enums.TransactionType;
+import com.cbs.util.CacheInvalidationBus;
+import com.cbs.util.HistoryCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ArchiveStoreTest {
+
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2023, 2, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private final CacheInvalidationBus invalidationBus = mock(CacheInvalidationBus.class);
+
+    private ArchiveStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Small blocks so that every month spans several of them
+        store = new ArchiveStore(invalidationBus, directory.toString(), 100);
+        store.load();
+    }
+
+    @Test
+    @DisplayName("Should page archived transactions newest first from a cursor, across months and blocks")
+    void newestFirst_ContinuesFromCursor() {
+        archiveTransactions(YearMonth.of(2023, 1), 0, 1000);
+        archiveTransactions(YearMonth.of(2023, 2), 1000, 1000);
+
+        // Account 3 is the source of ids ending in 3 and the destination of ids ending in 6
+        ArchiveQuery<Transaction> query = ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                .orEquals("source_account_id", 3L)
+                .orEquals("destination_account_id", 3L);
+        List<Transaction> first = store.newestFirst(query.before(HistoryCursor.START), 0, 150);
+        assertEquals(150, first.size());
+        assertEquals(1996L, first.get(0).getTransactionId());
+        Transaction last = first.get(149);
+        List<Transaction> rest = store.newestFirst(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                .orEquals("source_account_id", 3L)
+                .orEquals("destination_account_id", 3L)
+                .before(new HistoryCursor(last.getTransactionDate(), last.getTransactionId())), 0, 1000);
+        assertEquals(250, rest.size());
+        assertEquals(3L, rest.get(249).getTransactionId());
+
+        // Every column comes back as written
+        Transaction transaction = rest.get(0);
+        assertEquals(1246L, transaction.getTransactionId());
+        assertEquals(FEBRUARY.plusMinutes(246 * 40), transaction.getTransactionDate());
+        assertEquals("TXN" + transaction.getTransactionId(), transaction.getTransactionReference());
+        assertEquals(TransactionType.TRANSFER, transaction.getTransactionType());
+        assertEquals(0, new BigDecimal("10.0025").compareTo(transaction.getAmount()));
+        assertEquals(new BigDecimal("1.50"), transaction.getFeeAmount());
+        assertNull(transaction.getRelatedTransactionId());
+        assertEquals(TransactionStatus.COMPLETED, transaction.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should count and filter archived rows within a time range")
+    void count_FiltersOnRangeAndPredicate() {
+        archiveTransactions(YearMonth.of(2023, 1), 0, 1000);
+        archiveTransactions(YearMonth.of(2023, 2), 1000, 1000);
+
+        assertEquals(2000, store.count(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)));
+        // Ids 36..71 are the second of January
+        assertEquals(36, store.count(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                .between(JANUARY.plusDays(1), JANUARY.plusDays(2).minusNanos(1))));
+        assertEquals(1000, store.count(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)
+                .where(transaction -> transaction.getTransactionId() % 2 == 0)));
+        assertEquals(0, store.count(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS).orEquals("user_id", 99L)));
+
+        // A fresh store finds the same files
+        ArchiveStore reopened = new ArchiveStore(invalidationBus, directory.toString(), 100);
+        reopened.load();
+        assertEquals(List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2)),
+                reopened.getArchivedMonths(ArchiveCodec.TRANSACTIONS));
+        assertEquals(2000, reopened.count(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)));
+    }
+
+    @Test
+    @DisplayName("Should continue a newest-first page of live audit logs into the archive")
+    void extend_AppendsArchivedRows() {
+        List<AuditLog> archived = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            AuditLog auditLog = new AuditLog(id % 2 == 0 ? 7L : 8L, AuditAction.LOGIN, "User", id);
+            auditLog.setAuditId(id);
+            auditLog.setCreatedAt(JANUARY.plusHours(id));
+            archived.add(auditLog);
+        }
+        store.archive(ArchiveCodec.AUDIT_LOGS, YearMonth.of(2023, 1), archived.stream());
+
+        // Page 1 of size 10 holds the last 2 of 12 live rows and the newest 8 archived ones
+        PageRequest pageable = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+        List<AuditLog> live = List.of(new AuditLog(7L, AuditAction.LOGIN, "User", 100L),
+                new AuditLog(7L, AuditAction.LOGIN, "User", 101L));
+        Page<AuditLog> page = store.extend(new PageImpl<>(live, pageable, 12),
+                ArchiveQuery.of(ArchiveCodec.AUDIT_LOGS));
+        assertEquals(42, page.getTotalElements());
+        assertEquals(10, page.getContent().size());
+        assertEquals(30L, page.getContent().get(2).getAuditId());
+        assertEquals(23L, page.getContent().get(9).getAuditId());
+
+        // Page 2 lies wholly in the archive, filtered to user 7
+        PageRequest next = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "createdAt"));
+        Page<AuditLog> userPage = store.extend(new PageImpl<>(List.of(), next, 2),
+                ArchiveQuery.of(ArchiveCodec.AUDIT_LOGS).orEquals("user_id", 7L));
+        assertEquals(17, userPage.getTotalElements());
+        assertEquals(List.of(24L, 22L, 20L, 18L, 16L),
+                userPage.getContent().stream().map(AuditLog::getEntityId).toList());
+
+        // Other orders cannot be merged and stay live only
+        Page<AuditLog> byUser = new PageImpl<>(live, PageRequest.of(0, 10, Sort.by("userId")), 2);
+        assertSame(byUser, store.extend(byUser, ArchiveQuery.of(ArchiveCodec.AUDIT_LOGS)));
+    }
+
+    @Test
+    @DisplayName("Should open a month archived by another node when it is announced")
+    void archive_AnnouncesMonthToOtherNodes() {
+        ArgumentCaptor<CacheInvalidationBus.Subscriber> subscribers =
+                ArgumentCaptor.forClass(CacheInvalidationBus.Subscriber.class);
+        ArchiveStore otherNode = new ArchiveStore(invalidationBus, directory.toString(), 100);
+        otherNode.load();
+        verify(invalidationBus, times(2)).subscribe(eq(ArchiveStore.ARCHIVE_TOPIC), subscribers.capture());
+
+        archiveTransactions(YearMonth.of(2023, 1), 0, 10);
+        assertFalse(otherNode.hasArchive(ArchiveCodec.TRANSACTIONS));
+
+        ArgumentCaptor<Object> key = ArgumentCaptor.forClass(Object.class);
+        verify(invalidationBus).publish(eq(ArchiveStore.ARCHIVE_TOPIC), key.capture());
+        subscribers.getAllValues().get(1).invalidate(key.getValue().toString());
+        assertEquals(List.of(YearMonth.of(2023, 1)), otherNode.getArchivedMonths(ArchiveCodec.TRANSACTIONS));
+        assertEquals(10, otherNode.count(ArchiveQuery.of(ArchiveCodec.TRANSACTIONS)));
+    }
+
+    private void archiveTransactions(YearMonth month, int firstId, int count) {
+        store.archive(ArchiveCodec.TRANSACTIONS, month, IntStream.range(firstId, firstId + count).mapToObj(i -> {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId((long) i);
+            // 40 minutes apart from the start of the month
+            transaction.setTransactionDate(month.atDay(1).atStartOfDay().plusMinutes((i - firstId) * 40L));
+            transaction.setCreatedAt(transaction.getTransactionDate());
+            transaction.setTransactionReference("TXN" + i);
+            transaction.setTransactionType(TransactionType.TRANSFER);
+            transaction.setAmount(new BigDecimal("10.0025"));
+            transaction.setFeeAmount(new BigDecimal("1.50"));
+            transaction.setSourceAccountId((long) (i % 10));
+            transaction.setDestinationAccountId((long) ((i + 7) % 10));
+            transaction.setUserId(1L);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            return transaction;
+        }));
+    }
+}
@@ -0,0 +1,129 @@
+package com.cbs.audit;
+
+import com.cbs.model.enums.AuditAction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncAuditWriterTest {
+
+    @Mock
+    private LogBatchWriter logBatchWriter;
+
+    @Mock
+    private AuditJournal journal;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private AsyncAuditWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should batch queued events with the values snapshotted at submit")
+    @SuppressWarnings("unchecked")
+    void submit_WritesInBatches() throws Exception {
+        writer = newWriter(1024, AuditBackpressurePolicy.BLOCK);
+        writer.start();
+
+        for (int i = 0; i < 10; i++) {
+            writer.submit(event(writer.snapshot(Map.of("amount", i))));
+        }
+
+        assertTrue(writer.flush(5000));
+        assertEquals(10, writer.getWrittenCount());
+        ArgumentCaptor<List<AuditRecord>> batches = ArgumentCaptor.forClass(List.class);
+        verify(logBatchWriter, atMost(10)).insertAudits(batches.capture());
+        AuditRecord first = batches.getAllValues().get(0).get(0);
+        assertEquals(AuditAction.UPDATE, first.getAction());
+        assertEquals("{\"amount\":0}", first.getNewValues());
+    }
+
+    @Test
+    @DisplayName("Should drop and count events when the queue is full under the DROP policy")
+    void submit_DropWhenFull() throws Exception {
+        CountDownLatch release = blockDatabase();
+        writer = newWriter(1, AuditBackpressurePolicy.DROP);
+        writer.start();
+
+        for (int i = 0; i < 20; i++) {
+            writer.submit(event("value"));
+        }
+        release.countDown();
+
+        assertTrue(writer.flush(5000));
+        assertTrue(writer.getDroppedCount() > 0);
+        assertEquals(20, writer.getDroppedCount() + writer.getWrittenCount());
+    }
+
+    @Test
+    @DisplayName("Should spill batches to the journal while the database is down")
+    void submit_SpillsToJournal() throws Exception {
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(logBatchWriter).insertAudits(anyList());
+        writer = newWriter(1024, AuditBackpressurePolicy.SPILL);
+        writer.start();
+
+        writer.submit(event("a"));
+        writer.submit(event("b"));
+        writer.submit(event("c"));
+        assertTrue(writer.flush(5000));
+
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+        assertEquals(3, writer.getSpilledCount());
+        verify(journal, times(3)).appendAudit(any(AuditRecord.class));
+    }
+
+    @Test
+    @DisplayName("Should write events still queued at shutdown")
+    void shutdown_FlushesQueue() throws Exception {
+        writer = newWriter(1024, AuditBackpressurePolicy.BLOCK);
+        writer.submit(event("late"));
+
+        writer.shutdown();
+        writer = null;
+
+        verify(logBatchWriter).insertAudits(anyList());
+    }
+
+    private AsyncAuditWriter newWriter(int capacity, AuditBackpressurePolicy policy) {
+        return new AsyncAuditWriter(logBatchWriter, journal, objectMapper, capacity, 4, 20, policy);
+    }
+
+    private CountDownLatch blockDatabase() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(logBatchWriter).insertAudits(anyList());
+        return release;
+    }
+
+    private AuditEvent event(String newValues) {
+        return new AuditEvent(1L, AuditAction.UPDATE, "Account", 1L, null, newValues, "127.0.0.1", "JUnit");
+    }
+}
@@ -0,0 +1,151 @@
+package com.cbs.audit;
+
+import com.cbs.model.enums.AuditAction;
+import com.cbs.model.enums.ErrorLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditJournalReplayerTest {
+
+    @Mock
+    private LogBatchWriter logBatchWriter;
+
+    @TempDir
+    Path directory;
+
+    private AuditJournal journal;
+    private AuditJournalReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        journal = new AuditJournal(objectMapper, directory.toString(), 64 * 1024, true);
+        // Driven directly through replayBatch(); the background thread is never started
+        replayer = new AuditJournalReplayer(journal, logBatchWriter, 100, 10, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should ship audit and error entries in one batch and acknowledge them")
+    @SuppressWarnings("unchecked")
+    void replayBatch_ShipsAndAcknowledges() {
+        journal.appendAudit(audit(1L));
+        journal.appendError(error("boom"));
+        journal.appendAudit(audit(2L));
+
+        assertTrue(replayer.replayBatch());
+
+        ArgumentCaptor<List<AuditRecord>> audits = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<ErrorRecord>> errors = ArgumentCaptor.forClass(List.class);
+        verify(logBatchWriter).insert(audits.capture(), errors.capture());
+        assertEquals(2, audits.getValue().size());
+        assertEquals("boom", errors.getValue().get(0).getErrorMessage());
+        assertEquals(3, replayer.getReplayedCount());
+        assertTrue(journal.read(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep entries in the journal while the database is down")
+    void replayBatch_DatabaseDown() {
+        journal.appendAudit(audit(1L));
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(logBatchWriter).insert(anyList(), anyList());
+        when(logBatchWriter.databaseAvailable()).thenReturn(false);
+
+        assertFalse(replayer.replayBatch());
+
+        assertEquals(1, journal.read(10).size());
+        assertEquals(0, replayer.getReplayedCount());
+    }
+
+    @Test
+    @DisplayName("Should skip only the records the database rejects")
+    void replayBatch_SkipsRejectedRecords() {
+        journal.appendAudit(audit(1L));
+        journal.appendAudit(audit(2L));
+        doThrow(new DataIntegrityViolationException("bad row"))
+                .when(logBatchWriter).insert(anyList(), anyList());
+        when(logBatchWriter.databaseAvailable()).thenReturn(true);
+        doAnswer(invocation -> {
+            List<AuditRecord> records = invocation.getArgument(0);
+            if (records.get(0).getUserId() == 2L) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            return null;
+        }).when(logBatchWriter).insertAudits(anyList());
+
+        assertTrue(replayer.replayBatch());
+
+        assertEquals(1, replayer.getReplayedCount());
+        assertEquals(1, replayer.getRejectedCount());
+        assertTrue(journal.read(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep the records after a failure that is not about the record itself")
+    void replayBatch_KeepsRecordsOnTransientFailure() {
+        journal.appendAudit(audit(1L));
+        journal.appendAudit(audit(2L));
+        journal.appendAudit(audit(3L));
+        doThrow(new DataIntegrityViolationException("bad row"))
+                .when(logBatchWriter).insert(anyList(), anyList());
+        when(logBatchWriter.databaseAvailable()).thenReturn(true);
+        doAnswer(invocation -> {
+            List<AuditRecord> records = invocation.getArgument(0);
+            if (records.get(0).getUserId() == 2L) {
+                throw new QueryTimeoutException("statement timeout");
+            }
+            return null;
+        }).when(logBatchWriter).insertAudits(anyList());
+
+        assertFalse(replayer.replayBatch());
+
+        assertEquals(1, replayer.getReplayedCount());
+        assertEquals(0, replayer.getRejectedCount());
+        assertEquals(2, journal.read(10).size());
+    }
+
+    private AuditRecord audit(Long userId) {
+        AuditRecord record = new AuditRecord();
+        record.setUserId(userId);
+        record.setAction(AuditAction.CREATE);
+        record.setEntityType("Transaction");
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
+
+    private ErrorRecord error(String message) {
+        ErrorRecord record = new ErrorRecord();
+        record.setErrorLevel(ErrorLevel.ERROR);
+        record.setErrorMessage(message);
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
+}
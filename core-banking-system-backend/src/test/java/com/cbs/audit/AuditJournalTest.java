@@ -0,0 +1,166 @@
+package com.cbs.audit;
+
+import com.cbs.model.enums.AuditAction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final List<AuditJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        // Stops the segment workers before the directory is removed
+        opened.forEach(AuditJournal::close);
+    }
+
+    @Test
+    @DisplayName("Should read appended records back in order without consuming them")
+    void appendAndRead() throws Exception {
+        AuditJournal journal = newJournal();
+        journal.appendAudit(audit(1L));
+        journal.appendError(error("boom"));
+
+        List<AuditJournal.Entry> entries = journal.read(10);
+
+        assertEquals(2, entries.size());
+        assertEquals(AuditJournal.RecordType.AUDIT, entries.get(0).getType());
+        assertEquals(1L, journal.decode(entries.get(0), AuditRecord.class).getUserId());
+        assertEquals("boom", journal.decode(entries.get(1), ErrorRecord.class).getErrorMessage());
+        assertEquals(2, journal.read(10).size());
+    }
+
+    @Test
+    @DisplayName("Should only return entries after the acknowledged one")
+    void acknowledge_AdvancesReadPosition() {
+        AuditJournal journal = newJournal();
+        for (long i = 0; i < 5; i++) {
+            journal.appendAudit(audit(i));
+        }
+
+        List<AuditJournal.Entry> firstTwo = journal.read(2);
+        journal.acknowledge(firstTwo.get(1));
+
+        assertEquals(3, journal.read(10).size());
+    }
+
+    @Test
+    @DisplayName("Should roll into new segments and delete them once replayed")
+    void roll_DeletesReplayedSegments() throws Exception {
+        AuditJournal journal = newJournal();
+        for (long i = 0; i < 100; i++) {
+            journal.appendAudit(audit(i));
+        }
+        assertTrue(segmentCount() > 1);
+
+        List<AuditJournal.Entry> entries = journal.read(1000);
+        assertEquals(100, entries.size());
+        journal.acknowledge(entries.get(entries.size() - 1));
+
+        // The active segment, and possibly the next one already prepared for the roll
+        assertTrue(segmentCount() <= 2);
+        assertTrue(journal.read(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should recover unacknowledged entries after a restart")
+    void recover_ResumesFromCheckpoint() throws Exception {
+        AuditJournal journal = newJournal();
+        for (long i = 0; i < 60; i++) {
+            journal.appendAudit(audit(i));
+        }
+        journal.acknowledge(journal.read(10).get(9));
+        journal.close();
+
+        AuditJournal reopened = newJournal();
+        List<AuditJournal.Entry> entries = reopened.read(1000);
+
+        assertEquals(50, entries.size());
+        assertEquals(10L, reopened.decode(entries.get(0), AuditRecord.class).getUserId());
+
+        reopened.appendAudit(audit(60L));
+        assertEquals(51, reopened.read(1000).size());
+    }
+
+    @Test
+    @DisplayName("Should stop recovery at a torn record")
+    void recover_IgnoresTornRecord() throws Exception {
+        AuditJournal journal = newJournal();
+        journal.appendAudit(audit(1L));
+        int end = journal.read(1).get(0).getPayload().length + 9;
+        journal.close();
+
+        // A record whose length made it to disk but whose payload and checksum did not
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.toString().endsWith(".seg")).sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 20), end);
+            channel.write(ByteBuffer.wrap("partial".getBytes(StandardCharsets.UTF_8)), end + 9);
+        }
+
+        AuditJournal reopened = newJournal();
+        assertEquals(1, reopened.read(10).size());
+
+        reopened.appendAudit(audit(2L));
+        List<AuditJournal.Entry> entries = reopened.read(10);
+        assertEquals(2, entries.size());
+        assertEquals(2L, reopened.decode(entries.get(1), AuditRecord.class).getUserId());
+    }
+
+    private AuditJournal newJournal() {
+        AuditJournal journal = new AuditJournal(objectMapper, directory.toString(), SEGMENT_SIZE, true);
+        opened.add(journal);
+        return journal;
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private AuditRecord audit(Long userId) {
+        AuditRecord record = new AuditRecord();
+        record.setUserId(userId);
+        record.setAction(AuditAction.UPDATE);
+        record.setEntityType("Account");
+        record.setEntityId(1L);
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
+
+    private ErrorRecord error(String message) {
+        ErrorRecord record = new ErrorRecord();
+        record.setErrorMessage(message);
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
+}
@@ -5,8 +5,11 @@ import com.cbs.model.dto.request.AccountCreationRequest;
 import com.cbs.model.dto.response.AccountResponse;
 import com.cbs.model.enums.AccountStatus;
 import com.cbs.model.enums.AccountType;
+import com.cbs.security.PrincipalCache;
 import com.cbs.service.impl.CustomUserDetailsService;
 import com.cbs.service.interface_.AccountService;
+import com.cbs.service.interface_.StatementService;
+import com.cbs.util.AccountCache;
 import com.cbs.util.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,12 +46,21 @@ class AccountControllerTest {
         @MockBean
         private AccountService accountService;
 
+        @MockBean
+        private StatementService statementService;
+
+        @MockBean
+        private AccountCache accountCache;
+
         @MockBean
         private JwtUtils jwtUtils;
 
         @MockBean
         private CustomUserDetailsService customUserDetailsService;
 
+        @MockBean
+        private PrincipalCache principalCache;
+
         @Autowired
         private ObjectMapper objectMapper;
 
@@ -5,6 +5,7 @@ import com.cbs.model.dto.request.LoanApplicationRequest;
 import com.cbs.model.dto.response.LoanResponse;
 import com.cbs.model.enums.LoanStatus;
 import com.cbs.model.enums.LoanType;
+import com.cbs.security.PrincipalCache;
 import com.cbs.service.impl.CustomUserDetailsService;
 import com.cbs.service.interface_.LoanService;
 import com.cbs.util.JwtUtils;
@@ -49,6 +50,9 @@ class LoanControllerTest {
     @MockBean
     private CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private PrincipalCache principalCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -1,13 +1,17 @@
 package com.cbs.controller;
 
 import com.cbs.config.SecurityConfig;
+import com.cbs.ledger.ShardedLedger;
 import com.cbs.model.dto.request.DepositRequest;
 import com.cbs.model.dto.request.TransferRequest;
 import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.CursorPage;
 import com.cbs.model.dto.response.TransactionResponse;
 import com.cbs.model.enums.TransactionStatus;
 import com.cbs.model.enums.TransactionType;
+import com.cbs.security.PrincipalCache;
 import com.cbs.service.impl.CustomUserDetailsService;
+import com.cbs.service.interface_.IdempotencyService;
 import com.cbs.service.interface_.TransactionService;
 import com.cbs.util.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,6 +31,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -43,12 +48,22 @@ class TransactionControllerTest {
         @MockBean
         private TransactionService transactionService;
 
+        @MockBean
+        private IdempotencyService idempotencyService;
+
+        // Disabled, as a mock, so postings go to the transaction service
+        @MockBean
+        private ShardedLedger shardedLedger;
+
         @MockBean
         private JwtUtils jwtUtils;
 
         @MockBean
         private CustomUserDetailsService customUserDetailsService;
 
+        @MockBean
+        private PrincipalCache principalCache;
+
         @Autowired
         private ObjectMapper objectMapper;
 
@@ -58,7 +73,11 @@ class TransactionControllerTest {
         private TransferRequest testTransferRequest;
 
         @BeforeEach
-        void setUp() {
+        void setUp() throws Exception {
+                // Requests without a key go straight through to the transaction service
+                when(idempotencyService.execute(any(), any(), any(), any()))
+                                .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(3).call());
+
                 testTransactionResponse = new TransactionResponse();
                 testTransactionResponse.setTransactionId(1L);
                 testTransactionResponse.setTransactionReference("TXN2025012612345678901234");
@@ -205,16 +224,18 @@ class TransactionControllerTest {
         @WithMockUser
         void getTransactionsByAccountId_Success() throws Exception {
                 // Arrange
-                List<TransactionResponse> transactions = Arrays.asList(testTransactionResponse);
-                when(transactionService.getTransactionsByAccountId(1L))
+                CursorPage<TransactionResponse> transactions =
+                                new CursorPage<>(Arrays.asList(testTransactionResponse), "next");
+                when(transactionService.getTransactionsByAccountId(1L, null, 50))
                                 .thenReturn(transactions);
 
                 // Act & Assert
                 mockMvc.perform(get("/api/transactions/account/1"))
                                 .andExpect(status().isOk())
-                                .andExpect(jsonPath("$").isArray())
-                                .andExpect(jsonPath("$[0].destinationAccountId").value(1))
-                                .andExpect(jsonPath("$[0].transactionType").value("DEPOSIT"));
+                                .andExpect(jsonPath("$.items").isArray())
+                                .andExpect(jsonPath("$.items[0].destinationAccountId").value(1))
+                                .andExpect(jsonPath("$.items[0].transactionType").value("DEPOSIT"))
+                                .andExpect(jsonPath("$.nextCursor").value("next"));
         }
 
         @Test
@@ -222,15 +243,17 @@ class TransactionControllerTest {
         @WithMockUser
         void getTransactionsByUserId_Success() throws Exception {
                 // Arrange
-                List<TransactionResponse> transactions = Arrays.asList(testTransactionResponse);
-                when(transactionService.getTransactionsByUserId(1L))
+                CursorPage<TransactionResponse> transactions =
+                                new CursorPage<>(Arrays.asList(testTransactionResponse), null);
+                when(transactionService.getTransactionsByUserId(1L, "abc", 20))
                                 .thenReturn(transactions);
 
                 // Act & Assert
-                mockMvc.perform(get("/api/transactions/user/1"))
+                mockMvc.perform(get("/api/transactions/user/1").param("cursor", "abc").param("limit", "20"))
                                 .andExpect(status().isOk())
-                                .andExpect(jsonPath("$").isArray())
-                                .andExpect(jsonPath("$[0].userId").value(1));
+                                .andExpect(jsonPath("$.items").isArray())
+                                .andExpect(jsonPath("$.items[0].userId").value(1))
+                                .andExpect(jsonPath("$.hasMore").value(false));
         }
 
         @Test
@@ -281,4 +304,21 @@ class TransactionControllerTest {
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.totalCredits").value(2000.00));
         }
-}
\ No newline at end of file
+
+        @Test
+        @DisplayName("Should answer 504 when the ledger engine times out on a posting")
+        @WithMockUser
+        void transfer_LedgerTimeout() throws Exception {
+                // Arrange
+                when(shardedLedger.isEnabled()).thenReturn(true);
+                when(shardedLedger.transfer(any(TransferRequest.class), any()))
+                                .thenThrow(new ShardedLedger.OutcomeUnknownException());
+
+                // Act & Assert
+                mockMvc.perform(post("/api/transactions/transfer")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(testTransferRequest)))
+                                .andExpect(status().isGatewayTimeout())
+                                .andExpect(jsonPath("$.error").exists());
+        }
+}
@@ -4,6 +4,7 @@ import com.cbs.config.TestSecurityConfig;
 import com.cbs.model.dto.request.UserRegistrationRequest;
 import com.cbs.model.dto.response.UserResponse;
 import com.cbs.model.enums.UserStatus;
+import com.cbs.security.PrincipalCache;
 import com.cbs.service.impl.CustomUserDetailsService;
 import com.cbs.service.interface_.UserService;
 import com.cbs.util.JwtUtils;
@@ -49,6 +50,9 @@ class UserControllerTest {
     @MockBean
     private CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private PrincipalCache principalCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,105 @@
+package com.cbs.integration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations the way the dev profile does against a real PostgreSQL, both on an empty
+ * database and on one Hibernate built before Flyway ever ran. Skipped where Docker is unavailable.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FlywayMigrationIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA public");
+    }
+
+    @Test
+    @DisplayName("Should build the whole schema on an empty database")
+    void migrate_EmptyDatabase() {
+        migrate();
+
+        assertEquals("20", currentVersion());
+        assertTrue(isPartitioned());
+        assertEquals(List.of("accounts", "audit_logs", "error_logs", "kyc", "users"), baseTables());
+    }
+
+    @Test
+    @DisplayName("Should migrate a schema Hibernate built and keep its rows")
+    void migrate_HibernateBuiltSchema() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/hibernate-built-schema.sql")).execute(dataSource);
+
+        migrate();
+
+        assertEquals("20", currentVersion());
+        assertTrue(isPartitioned());
+        assertEquals(List.of("TXN2024011009000000000011234", "TXN2024020512000000000025678"),
+                jdbcTemplate.queryForList("SELECT transaction_reference FROM transactions ORDER BY transaction_id",
+                        String.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction_references", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM error_logs", Integer.class));
+        assertEquals(0, new BigDecimal("700.0000").compareTo(jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE account_id = 1", BigDecimal.class)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables "
+                + "WHERE table_name IN ('journal_entries', 'journal_lines')", Integer.class));
+
+        // New ids continue after the existing rows
+        Long nextId = jdbcTemplate.queryForObject("SELECT nextval('transactions_transaction_id_seq')", Long.class);
+        assertTrue(nextId > 2, "sequence restarted at " + nextId);
+    }
+
+    private void migrate() {
+        // As configured in application-dev.yml
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migrations")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    private String currentVersion() {
+        return jdbcTemplate.queryForObject(
+                "SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank DESC LIMIT 1",
+                String.class);
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass)",
+                Boolean.class));
+    }
+
+    private List<String> baseTables() {
+        return jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = 'public' "
+                        + "AND table_name IN ('users', 'accounts', 'kyc', 'audit_logs', 'error_logs') "
+                        + "ORDER BY table_name", String.class);
+    }
+}
@@ -1,10 +1,14 @@
 package com.cbs.integration;
 
 import com.cbs.config.TestSecurityConfig;
+import com.cbs.model.dto.request.BatchPostingItem;
+import com.cbs.model.dto.request.BatchPostingRequest;
 import com.cbs.model.dto.request.DepositRequest;
 import org.springframework.context.annotation.Import;
 import com.cbs.model.dto.request.TransferRequest;
 import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.BatchPostingResponse;
+import com.cbs.model.dto.response.CursorPage;
 import com.cbs.model.dto.response.TransactionResponse;
 import com.cbs.model.entity.Account;
 import com.cbs.model.entity.User;
@@ -12,6 +16,7 @@ import com.cbs.model.enums.*;
 import com.cbs.repository.AccountRepository;
 import com.cbs.repository.TransactionRepository;
 import com.cbs.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -25,9 +30,17 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -145,6 +158,46 @@ class TransactionIntegrationTest {
         assertEquals(depositResponse.getBody().getTransactionReference(), getResponse.getBody().getTransactionReference());
     }
 
+    @Test
+    @DisplayName("Should replay a keyed request, including concurrent duplicates, without posting twice")
+    void deposit_IdempotencyKey() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        HttpEntity<DepositRequest> request = new HttpEntity<>(testDepositRequest, headers);
+        BigDecimal balanceBefore = accountRepository.findById(sourceAccountId).orElseThrow().getBalance();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<ResponseEntity<TransactionResponse>>> attempts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            attempts.add(executor.submit(() -> restTemplate.exchange(
+                    baseUrl + "/deposit", HttpMethod.POST, request, TransactionResponse.class)));
+        }
+        Set<Long> transactionIds = new HashSet<>();
+        for (Future<ResponseEntity<TransactionResponse>> attempt : attempts) {
+            ResponseEntity<TransactionResponse> response = attempt.get(30, TimeUnit.SECONDS);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            transactionIds.add(response.getBody().getTransactionId());
+        }
+        executor.shutdown();
+
+        ResponseEntity<TransactionResponse> retry = restTemplate.exchange(
+                baseUrl + "/deposit", HttpMethod.POST, request, TransactionResponse.class);
+        transactionIds.add(retry.getBody().getTransactionId());
+
+        assertEquals(1, transactionIds.size());
+        BigDecimal balanceAfter = accountRepository.findById(sourceAccountId).orElseThrow().getBalance();
+        assertEquals(0, balanceBefore.add(testDepositRequest.getAmount()).compareTo(balanceAfter));
+
+        // The same key with a different body is refused rather than replayed
+        DepositRequest other = new DepositRequest();
+        other.setAccountId(sourceAccountId);
+        other.setAmount(new BigDecimal("1.00"));
+        ResponseEntity<String> conflict = restTemplate.exchange(
+                baseUrl + "/deposit", HttpMethod.POST, new HttpEntity<>(other, headers), String.class);
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+    }
+
     @Test
     @DisplayName("Should process withdrawal successfully")
     void withdraw_Success() {
@@ -179,7 +232,7 @@ class TransactionIntegrationTest {
 
     @Test
     @DisplayName("Should get transactions by account ID")
-    void getTransactionsByAccountId_Success() {
+    void getTransactionsByAccountId_Success() throws Exception {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
 
@@ -187,12 +240,10 @@ class TransactionIntegrationTest {
         restTemplate.postForEntity(baseUrl + "/deposit", new HttpEntity<>(testDepositRequest, headers), TransactionResponse.class);
         restTemplate.postForEntity(baseUrl + "/withdraw", new HttpEntity<>(testWithdrawalRequest, headers), TransactionResponse.class);
 
-        ResponseEntity<TransactionResponse[]> response = restTemplate.getForEntity(
-                baseUrl + "/account/" + sourceAccountId, TransactionResponse[].class);
+        CursorPage<TransactionResponse> page = getHistoryPage(baseUrl + "/account/" + sourceAccountId);
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
-        List<TransactionType> types = Arrays.stream(response.getBody())
+        assertFalse(page.isHasMore());
+        List<TransactionType> types = page.getItems().stream()
                 .map(TransactionResponse::getTransactionType)
                 .toList();
 
@@ -200,6 +251,96 @@ class TransactionIntegrationTest {
         assertTrue(types.contains(TransactionType.WITHDRAWAL));
     }
 
+    @Test
+    @DisplayName("Should walk account history page by page, newest first, without gaps or repeats")
+    void getTransactionsByAccountId_KeysetPages() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        // Money in and out of the source account, so both sides of the history are merged
+        for (int i = 0; i < 4; i++) {
+            restTemplate.postForEntity(baseUrl + "/deposit", new HttpEntity<>(testDepositRequest, headers), TransactionResponse.class);
+            restTemplate.postForEntity(baseUrl + "/transfer", new HttpEntity<>(testTransferRequest, headers), TransactionResponse.class);
+        }
+
+        List<TransactionResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = baseUrl + "/account/" + sourceAccountId + "?limit=3" + (cursor != null ? "&cursor=" + cursor : "");
+            CursorPage<TransactionResponse> page = getHistoryPage(url);
+            assertTrue(page.getItems().size() <= 3);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        int total = transactionRepository.findByAccountId(sourceAccountId).size();
+        assertTrue(total >= 8);
+        assertEquals(total, seen.size());
+        assertEquals((total + 2) / 3, pages);
+        assertEquals(total, seen.stream().map(TransactionResponse::getTransactionId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            TransactionResponse newer = seen.get(i - 1);
+            TransactionResponse older = seen.get(i);
+            assertTrue(newer.getTransactionDate().isAfter(older.getTransactionDate())
+                    || (newer.getTransactionDate().isEqual(older.getTransactionDate())
+                        && newer.getTransactionId() > older.getTransactionId()));
+        }
+
+        ResponseEntity<String> invalid = restTemplate.getForEntity(
+                baseUrl + "/account/" + sourceAccountId + "?cursor=not-a-cursor", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should export a statement with running balances as CSV and NDJSON")
+    void exportStatement_RunningBalances() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        restTemplate.postForEntity(baseUrl + "/deposit", new HttpEntity<>(testDepositRequest, headers), TransactionResponse.class);
+        restTemplate.postForEntity(baseUrl + "/withdraw", new HttpEntity<>(testWithdrawalRequest, headers), TransactionResponse.class);
+        restTemplate.postForEntity(baseUrl + "/transfer", new HttpEntity<>(testTransferRequest, headers), TransactionResponse.class);
+        String statementUrl = "http://localhost:" + port + "/api/accounts/%d/statement?format=%s";
+
+        ResponseEntity<String> csv = restTemplate.getForEntity(String.format(statementUrl, sourceAccountId, "csv"), String.class);
+        assertEquals(HttpStatus.OK, csv.getStatusCode());
+        assertTrue(csv.getHeaders().getContentType().isCompatibleWith(MediaType.parseMediaType("text/csv")));
+        String[] lines = csv.getBody().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("transaction_date,"));
+        assertEquals(0, new BigDecimal(lastField(lines[1])).compareTo(new BigDecimal("6000.00")));
+        assertEquals(0, new BigDecimal(lastField(lines[2])).compareTo(new BigDecimal("5500.00")));
+        // Transfer of 300 plus its 0.5% fee of 1.50
+        assertEquals(0, new BigDecimal(lastField(lines[3])).compareTo(new BigDecimal("5198.50")));
+        BigDecimal sourceBalance = accountRepository.findById(sourceAccountId).orElseThrow().getBalance();
+        assertEquals(0, new BigDecimal(lastField(lines[3])).compareTo(sourceBalance));
+
+        // The destination only sees the credit leg of the transfer
+        ResponseEntity<String> ndjson = restTemplate.getForEntity(
+                String.format(statementUrl, destinationAccountId, "ndjson"), String.class);
+        assertEquals(HttpStatus.OK, ndjson.getStatusCode());
+        String[] records = ndjson.getBody().split("\n");
+        assertEquals(1, records.length);
+        Map<?, ?> credit = objectMapper.readValue(records[0], Map.class);
+        assertEquals("TRANSFER", credit.get("transactionType"));
+        assertEquals(0, new BigDecimal(credit.get("balance").toString()).compareTo(new BigDecimal("2300.00")));
+
+        ResponseEntity<String> unsupported = restTemplate.getForEntity(
+                String.format(statementUrl, sourceAccountId, "xml"), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, unsupported.getStatusCode());
+    }
+
+    private String lastField(String csvLine) {
+        return csvLine.substring(csvLine.lastIndexOf(',') + 1);
+    }
+
+    private CursorPage<TransactionResponse> getHistoryPage(String url) throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return objectMapper.readValue(response.getBody(), new TypeReference<CursorPage<TransactionResponse>>() {});
+    }
+
     @Test
     @DisplayName("Should reverse transaction successfully")
     void reverseTransaction_Success() {
@@ -229,6 +370,10 @@ class TransactionIntegrationTest {
 
         restTemplate.postForEntity(baseUrl + "/deposit", new HttpEntity<>(testDepositRequest, headers), TransactionResponse.class);
         restTemplate.postForEntity(baseUrl + "/withdraw", new HttpEntity<>(testWithdrawalRequest, headers), TransactionResponse.class);
+        ResponseEntity<TransactionResponse> transfer = restTemplate.postForEntity(
+                baseUrl + "/transfer", new HttpEntity<>(testTransferRequest, headers), TransactionResponse.class);
+        restTemplate.exchange(baseUrl + "/" + transfer.getBody().getTransactionId() + "/reverse",
+                HttpMethod.POST, null, TransactionResponse.class);
 
         Class<Map<String, Object>> responseType = (Class<Map<String, Object>>) (Class<?>) Map.class;
         ResponseEntity<Map<String, Object>> debitsResponse = restTemplate.getForEntity(
@@ -238,7 +383,67 @@ class TransactionIntegrationTest {
 
         assertEquals(HttpStatus.OK, debitsResponse.getStatusCode());
         assertEquals(HttpStatus.OK, creditsResponse.getStatusCode());
-        assertNotNull(debitsResponse.getBody().get("totalDebits"));
-        assertNotNull(creditsResponse.getBody().get("totalCredits"));
+        // Withdrawal 500 + transfer 300 + fee 1.50; the deposit 1000 and the refund of the transfer 300
+        assertEquals(0, new BigDecimal("801.50").compareTo(
+                new BigDecimal(debitsResponse.getBody().get("totalDebits").toString())));
+        assertEquals(0, new BigDecimal("1300.00").compareTo(
+                new BigDecimal(creditsResponse.getBody().get("totalCredits").toString())));
+
+        ResponseEntity<Map<String, Object>> destinationCredits = restTemplate.getForEntity(
+                baseUrl + "/account/" + destinationAccountId + "/credits", responseType);
+        ResponseEntity<Map<String, Object>> destinationDebits = restTemplate.getForEntity(
+                baseUrl + "/account/" + destinationAccountId + "/debits", responseType);
+        assertEquals(0, new BigDecimal("300.00").compareTo(
+                new BigDecimal(destinationCredits.getBody().get("totalCredits").toString())));
+        assertEquals(0, new BigDecimal("300.00").compareTo(
+                new BigDecimal(destinationDebits.getBody().get("totalDebits").toString())));
+    }
+
+    @Test
+    @DisplayName("Should post a batch with per-item results and one balance update per account")
+    void postBatch_MixedResults() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        List<BatchPostingItem> postings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            postings.add(batchItem(TransactionType.DEPOSIT, null, destinationAccountId, "10.00"));
+        }
+        postings.add(batchItem(TransactionType.TRANSFER, sourceAccountId, destinationAccountId, "300.00"));
+        postings.add(batchItem(TransactionType.WITHDRAWAL, sourceAccountId, null, "9000.00"));
+        postings.add(batchItem(TransactionType.DEPOSIT, null, 999999L, "10.00"));
+        BatchPostingRequest batchRequest = new BatchPostingRequest();
+        batchRequest.setPostings(postings);
+
+        ResponseEntity<BatchPostingResponse> response = restTemplate.exchange(
+                baseUrl + "/batch", HttpMethod.POST, new HttpEntity<>(batchRequest, headers), BatchPostingResponse.class);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        BatchPostingResponse body = response.getBody();
+        assertNotNull(body);
+        assertEquals(203, body.getTotalCount());
+        assertEquals(201, body.getCompletedCount());
+        assertEquals(2, body.getFailedCount());
+        assertEquals(TransactionStatus.COMPLETED, body.getResults().get(200).getStatus());
+        assertEquals("Insufficient balance", body.getResults().get(201).getError());
+        assertEquals("Account not found", body.getResults().get(202).getError());
+
+        // 200 deposits + 2 transfer legs
+        assertEquals(202, transactionRepository.count());
+        // 5000 - 300 - 1.50 fee; 2000 + 200 * 10 + 300
+        assertEquals(0, new BigDecimal("4698.50").compareTo(
+                accountRepository.findById(sourceAccountId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("4300.00").compareTo(
+                accountRepository.findById(destinationAccountId).orElseThrow().getBalance()));
+    }
+
+    private BatchPostingItem batchItem(TransactionType type, Long sourceAccountId, Long destinationAccountId, String amount) {
+        BatchPostingItem item = new BatchPostingItem();
+        item.setTransactionType(type);
+        item.setSourceAccountId(sourceAccountId);
+        item.setDestinationAccountId(destinationAccountId);
+        item.setAmount(new BigDecimal(amount));
+        item.setDescription("Batch posting");
+        return item;
     }
 }
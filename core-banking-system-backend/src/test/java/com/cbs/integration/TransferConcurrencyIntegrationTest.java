@@ -0,0 +1,145 @@
+package com.cbs.integration;
+
+import com.cbs.model.dto.request.TransferRequest;
+import com.cbs.model.entity.Account;
+import com.cbs.model.entity.Transaction;
+import com.cbs.model.entity.User;
+import com.cbs.model.enums.AccountStatus;
+import com.cbs.model.enums.AccountType;
+import com.cbs.model.enums.TransactionType;
+import com.cbs.model.enums.UserStatus;
+import com.cbs.repository.AccountRepository;
+import com.cbs.repository.TransactionRepository;
+import com.cbs.repository.UserRepository;
+import com.cbs.service.interface_.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferConcurrencyIntegrationTest {
+
+    private static final int THREADS = 64;
+    private static final int TRANSFERS_PER_THREAD = 20;
+    private static final int ACCOUNTS = 6;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("stressuser");
+        user.setEmail("stress@test.com");
+        user.setPassword("password");
+        user.setFirstName("Stress");
+        user.setLastName("User");
+        user.setStatus(UserStatus.ACTIVE);
+        userRepository.save(user);
+
+        accountIds.clear();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber("STRESS00" + i);
+            account.setAccountType(AccountType.CURRENT);
+            account.setBalance(OPENING_BALANCE);
+            account.setUserId(user.getUserId());
+            account.setStatus(AccountStatus.ACTIVE);
+            account.setMinimumBalance(BigDecimal.ZERO);
+            accountIds.add(accountRepository.save(account).getAccountId());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers between a few hot accounts should neither deadlock nor drift balances")
+    void concurrentTransfers_NoBalanceDrift() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            executor.submit(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+
+                        TransferRequest request = new TransferRequest();
+                        request.setSourceAccountId(accountIds.get(from));
+                        request.setDestinationAccountId(accountIds.get(to));
+                        request.setAmount(new BigDecimal(1 + random.nextInt(500) + ".25"));
+                        transactionService.transfer(request);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Transfers did not finish - possible deadlock");
+        assertTrue(failures.isEmpty(), () -> "Transfers failed: " + failures.peek());
+
+        // Every debit leg carries the fee, so money is only ever lost to fees
+        List<Transaction> debitLegs = transactionRepository.findAll().stream()
+                .filter(tx -> tx.getTransactionType() == TransactionType.TRANSFER && tx.getRelatedTransactionId() == null)
+                .toList();
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, debitLegs.size());
+
+        Map<Long, BigDecimal> expected = accountIds.stream()
+                .collect(Collectors.toMap(id -> id, id -> OPENING_BALANCE));
+        for (Transaction leg : debitLegs) {
+            expected.merge(leg.getSourceAccountId(), leg.getAmount().add(leg.getFeeAmount()).negate(), BigDecimal::add);
+            expected.merge(leg.getDestinationAccountId(), leg.getAmount(), BigDecimal::add);
+        }
+
+        for (Long accountId : accountIds) {
+            BigDecimal actual = accountRepository.findById(accountId).orElseThrow().getBalance();
+            assertEquals(0, expected.get(accountId).compareTo(actual),
+                    "Balance drift on account " + accountId + ": expected " + expected.get(accountId) + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.cbs.kyc;
+
+import com.cbs.model.entity.KycDocumentBlob;
+import com.cbs.repository.KycDocumentBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentStoreTest {
+
+    private static final byte[] CONTENT = "%PDF-1.7\nsame document".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    private KycDocumentBlobRepository blobRepository;
+
+    @TempDir
+    Path directory;
+
+    private DocumentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new DocumentStore(blobRepository, directory.toString());
+    }
+
+    @Test
+    @DisplayName("Should store identical uploads once and count both references")
+    void publish_DeduplicatesIdenticalContent() throws Exception {
+        DocumentStore.StagedDocument first = store.stage(new ByteArrayInputStream(CONTENT), 1024);
+        DocumentStore.StagedDocument second = store.stage(new ByteArrayInputStream(CONTENT), 1024);
+        when(blobRepository.addReference(first.getHash(), CONTENT.length)).thenReturn(1, 2);
+
+        String key = store.publish(first);
+
+        assertEquals(key, store.publish(second));
+        verify(blobRepository, times(2)).addReference(first.getHash(), CONTENT.length);
+        assertTrue(DocumentStore.isKey(key));
+        assertEquals(List.of(store.resolve(key)), listFiles());
+    }
+
+    @Test
+    @DisplayName("Should delete the file with its last reference")
+    void release_DeletesFileWithLastReference() throws Exception {
+        DocumentStore.StagedDocument staged = store.stage(new ByteArrayInputStream(CONTENT), 1024);
+        when(blobRepository.addReference(staged.getHash(), CONTENT.length)).thenReturn(1);
+        String key = store.publish(staged);
+        KycDocumentBlob blob = new KycDocumentBlob(staged.getHash(), CONTENT.length);
+        blob.setReferenceCount(1);
+        when(blobRepository.findByContentHashForUpdate(staged.getHash())).thenReturn(Optional.of(blob));
+
+        store.release(key);
+
+        verify(blobRepository).delete(blob);
+        assertEquals(List.of(), listFiles());
+    }
+
+    @Test
+    @DisplayName("Should stop reading one byte past the size limit")
+    void stage_StopsPastMaxSize() throws Exception {
+        DocumentStore.StagedDocument staged = store.stage(new ByteArrayInputStream(CONTENT), 10);
+
+        assertEquals(11, staged.getSize());
+        store.discard(staged);
+        assertEquals(List.of(), listFiles());
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (var files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.cbs.kyc;
+
+import com.cbs.model.enums.DocumentType;
+import com.cbs.model.enums.KYCStatus;
+import com.cbs.repository.KYCRepository;
+import com.cbs.repository.KycDocumentBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KycDocumentPipelineTest {
+
+    @Mock
+    private KYCRepository kycRepository;
+
+    @Mock
+    private KycDocumentBlobRepository blobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private KycDocumentPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new KycDocumentPipeline(kycRepository, new DocumentStore(blobRepository, directory.toString()),
+                transactionManager, true, 1, 1, 1, 1024);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pipeline.stop();
+    }
+
+    @Test
+    @DisplayName("Should store a valid upload and move the record to review")
+    void submit_MovesValidDocumentToReview() throws Exception {
+        when(kycRepository.resolveSubmitted(eq(9L), eq(KYCStatus.UNDER_REVIEW), isNull(), any())).thenReturn(1);
+        when(blobRepository.addReference(anyString(), anyLong())).thenReturn(1);
+
+        process(new MockMultipartFile("file", "passport.pdf", "application/pdf",
+                "%PDF-1.7\npassport".getBytes(StandardCharsets.US_ASCII)));
+
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(kycRepository).attachDocument(eq(9L), key.capture(), hash.capture());
+        assertTrue(DocumentStore.isKey(key.getValue()));
+        assertEquals(key.getValue().substring(6), hash.getValue());
+        assertEquals(List.of(directory.resolve(key.getValue())), listFiles());
+    }
+
+    @Test
+    @DisplayName("Should reject an upload whose bytes do not match the document type")
+    void submit_RejectsSpoofedDocument() throws Exception {
+        when(kycRepository.resolveSubmitted(eq(9L), eq(KYCStatus.REJECTED), eq("Invalid document file"), any()))
+                .thenReturn(1);
+
+        process(new MockMultipartFile("file", "passport.pdf", "application/pdf",
+                "<html></html>".getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(List.of(), listFiles());
+        verify(blobRepository, never()).addReference(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should leave a record decided elsewhere alone and store nothing")
+    void submit_SkipsRecordNoLongerSubmitted() throws Exception {
+        when(kycRepository.resolveSubmitted(eq(9L), eq(KYCStatus.UNDER_REVIEW), isNull(), any())).thenReturn(0);
+
+        process(new MockMultipartFile("file", "passport.pdf", "application/pdf",
+                "%PDF-1.7\npassport".getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(List.of(), listFiles());
+        verify(blobRepository, never()).addReference(anyString(), anyLong());
+        verify(kycRepository, never()).attachDocument(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should ask for resubmission when recording fails, and keep the upload if that fails too")
+    void submit_KeepsUploadWhenRecordingFails() throws Exception {
+        when(kycRepository.resolveSubmitted(eq(9L), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1)
+                .thenThrow(new QueryTimeoutException("timeout"));
+        MockMultipartFile file = new MockMultipartFile("file", "passport.pdf", "application/pdf",
+                "%PDF-1.7\npassport".getBytes(StandardCharsets.US_ASCII));
+
+        process(file);
+        verify(kycRepository).resolveSubmitted(eq(9L), eq(KYCStatus.RESUBMISSION_REQUIRED),
+                eq("Document could not be processed"), any());
+        assertEquals(List.of(), listFiles());
+
+        process(file);
+        assertEquals(List.of(directory.resolve(".staging").resolve("kyc-9.upload")), listFiles());
+    }
+
+    @Test
+    @DisplayName("Should refuse uploads beyond its capacity until one is abandoned")
+    void receive_IsBoundedByCapacity() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "a.pdf", "application/pdf", new byte[]{'%'});
+
+        Path received = pipeline.receive(file);
+
+        assertThrows(KycDocumentPipeline.BusyException.class, () -> pipeline.receive(file));
+        pipeline.abandon(received);
+        pipeline.abandon(pipeline.receive(file));
+        assertEquals(List.of(), listFiles());
+    }
+
+    private void process(MockMultipartFile file) throws Exception {
+        pipeline.submit(9L, pipeline.receive(file), DocumentType.PASSPORT, file.getContentType());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.isProcessing(9L)) {
+            assertTrue(System.currentTimeMillis() < deadline, "pipeline did not finish");
+            Thread.sleep(10);
+        }
+    }
+
+    private List<Path> listFiles() throws Exception {
+        try (var files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
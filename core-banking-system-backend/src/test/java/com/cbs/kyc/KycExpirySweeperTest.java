@@ -0,0 +1,108 @@
+package com.cbs.kyc;
+
+import com.cbs.model.entity.KYC;
+import com.cbs.model.entity.KycExpiringDocument;
+import com.cbs.model.enums.DocumentType;
+import com.cbs.model.enums.KYCStatus;
+import com.cbs.repository.KYCRepository;
+import com.cbs.repository.KycExpiringDocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class KycExpirySweeperTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private KYCRepository kycRepository;
+
+    @Autowired
+    private KycExpiringDocumentRepository expiringRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private KycExpirySweeper sweeper;
+    private long documentNumber;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+        // Batches of two, so the keyset walk has to continue past equal expiry dates
+        sweeper = new KycExpirySweeper(kycRepository, expiringRepository, transactionManager, clock, 2, 30);
+    }
+
+    @Test
+    @DisplayName("Should expire every approved document past its expiry date in batches")
+    void expireDueDocuments_ExpiresInBatches() {
+        LocalDateTime sameDay = NOW.minusDays(3);
+        KYC first = persist(KYCStatus.APPROVED, sameDay);
+        KYC second = persist(KYCStatus.APPROVED, sameDay);
+        KYC third = persist(KYCStatus.APPROVED, sameDay);
+        KYC older = persist(KYCStatus.APPROVED, NOW.minusYears(1));
+        KYC current = persist(KYCStatus.APPROVED, NOW.plusDays(3));
+        KYC rejected = persist(KYCStatus.REJECTED, NOW.minusDays(3));
+
+        assertEquals(4, sweeper.expireDueDocuments());
+        entityManager.clear();
+
+        for (KYC kyc : List.of(first, second, third, older)) {
+            assertEquals(KYCStatus.EXPIRED, kycRepository.findById(kyc.getKycId()).orElseThrow().getStatus());
+        }
+        assertEquals(KYCStatus.APPROVED, kycRepository.findById(current.getKycId()).orElseThrow().getStatus());
+        assertEquals(KYCStatus.REJECTED, kycRepository.findById(rejected.getKycId()).orElseThrow().getStatus());
+        assertEquals(0, sweeper.expireDueDocuments());
+    }
+
+    @Test
+    @DisplayName("Should queue only approved documents expiring within the horizon")
+    void refreshExpiringDocuments_QueuesHorizon() {
+        KYC soon = persist(KYCStatus.APPROVED, NOW.plusDays(5));
+        KYC later = persist(KYCStatus.APPROVED, NOW.plusDays(20));
+        persist(KYCStatus.APPROVED, NOW.plusDays(45));
+        persist(KYCStatus.APPROVED, NOW.minusDays(1));
+        persist(KYCStatus.UNDER_REVIEW, NOW.plusDays(5));
+
+        assertEquals(2, sweeper.refreshExpiringDocuments());
+        // A second run replaces rather than adds
+        assertEquals(2, sweeper.refreshExpiringDocuments());
+        entityManager.clear();
+
+        List<KycExpiringDocument> withinWeek =
+                expiringRepository.findByExpiryDateBeforeOrderByExpiryDateAsc(NOW.plusDays(7));
+        assertEquals(List.of(soon.getKycId()), withinWeek.stream().map(KycExpiringDocument::getKycId).toList());
+        assertEquals(List.of(soon.getKycId(), later.getKycId()),
+                expiringRepository.findByExpiryDateBeforeOrderByExpiryDateAsc(NOW.plusDays(30))
+                        .stream().map(KycExpiringDocument::getKycId).toList());
+    }
+
+    private KYC persist(KYCStatus status, LocalDateTime expiryDate) {
+        documentNumber++;
+        KYC kyc = new KYC();
+        kyc.setUserId(documentNumber);
+        kyc.setDocumentType(DocumentType.PASSPORT);
+        kyc.setDocumentNumber("P" + documentNumber);
+        kyc.setStatus(status);
+        kyc.setExpiryDate(expiryDate);
+        return entityManager.persistAndFlush(kyc);
+    }
+}
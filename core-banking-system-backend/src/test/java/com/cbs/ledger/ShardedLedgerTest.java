@@ -0,0 +1,280 @@
+package com.cbs.ledger;
+
+import com.cbs.audit.AuditJournal;
+import com.cbs.model.dto.request.DepositRequest;
+import com.cbs.model.dto.request.TransferRequest;
+import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.TransactionResponse;
+import com.cbs.model.entity.Account;
+import com.cbs.model.enums.AccountStatus;
+import com.cbs.model.enums.TransactionType;
+import com.cbs.repository.AccountRepository;
+import com.cbs.repository.IdempotencyRecordRepository;
+import com.cbs.service.impl.IdempotencyServiceImpl;
+import com.cbs.service.interface_.TransactionService;
+import com.cbs.util.AccountCache;
+import com.cbs.util.CacheInvalidationBus;
+import com.cbs.util.TransactionIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShardedLedgerTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerWriteBehind writeBehind;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @TempDir
+    Path directory;
+
+    private ObjectMapper objectMapper;
+    private IdempotencyServiceImpl idempotencyService;
+    private AccountCache accountCache;
+    private ShardedLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        stubAccount(1L, "5000.00", AccountStatus.ACTIVE);
+        stubAccount(2L, "5000.00", AccountStatus.ACTIVE);
+        stubAccount(3L, "5000.00", AccountStatus.ACTIVE);
+        stubAccount(4L, "100.00", AccountStatus.FROZEN);
+
+        // The write-behind is a mock, so postings stay in the journal
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository,
+                objectMapper, transactionManager, 100, 60_000, 5000);
+        accountCache = new AccountCache(accountRepository, invalidationBus, 100, 60_000);
+        ledger = newLedger(directory, 5000);
+        ledger.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ledger.stop();
+    }
+
+    @Test
+    @DisplayName("Should keep money conserved under concurrent transfers across shards")
+    void transfer_Concurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<TransactionResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            long source = 1 + i % 3;
+            long destination = 1 + (i + 1) % 3;
+            results.add(executor.submit(() -> ledger.transfer(transfer(source, destination, "10.00"))));
+        }
+        BigDecimal fees = BigDecimal.ZERO;
+        for (Future<TransactionResponse> result : results) {
+            fees = fees.add(result.get().getFeeAmount());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Every account sent and received 100 transfers of 10, so only the fees are gone
+        BigDecimal total = BigDecimal.ZERO;
+        for (long accountId = 1; accountId <= 3; accountId++) {
+            BigDecimal balance = ledger.getBalance(accountId).orElseThrow();
+            assertEquals(0, new BigDecimal("4900.00").compareTo(balance));
+            total = total.add(balance);
+        }
+        assertEquals(0, new BigDecimal("15000.00").subtract(fees).compareTo(total));
+        // Each account is read from the database once, by its own shard
+        verify(accountRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should reject postings that break the account rules without moving any balance")
+    void postings_Rejected() throws Exception {
+        Exception insufficient = assertThrows(Exception.class, () -> ledger.withdraw(withdrawal(1L, "6000.00")));
+        assertEquals("Insufficient balance", insufficient.getMessage());
+
+        RuntimeException inactive = assertThrows(RuntimeException.class,
+                () -> ledger.transfer(transfer(1L, 4L, "100.00")));
+        assertEquals("Cannot transfer to inactive destination account", inactive.getMessage());
+
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> ledger.deposit(deposit(99L, "1.00")));
+        assertEquals("Account not found", missing.getMessage());
+
+        assertEquals(0, new BigDecimal("5000.00").compareTo(ledger.getBalance(1L).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Should hand journaled postings to the database when the write-behind starts")
+    @SuppressWarnings("unchecked")
+    void writeBehind_RecordsJournaledPostings() throws Exception {
+        ledger.deposit(deposit(1L, "250.00"));
+        TransactionResponse transfer = ledger.transfer(transfer(1L, 2L, "1000.00"));
+        assertNull(transfer.getTransactionId());
+        assertEquals(0, new BigDecimal("4245.00").compareTo(transfer.getBalanceAfter()));
+        ledger.stop();
+
+        // As after a restart: a fresh journal over the same directory, written out before start() returns
+        AuditJournal journal = new AuditJournal(objectMapper, directory.toString(), 1024 * 1024, false);
+        LedgerWriteBehind restarted = new LedgerWriteBehind(transactionService, 100, 60_000, 1000);
+        restarted.start(journal);
+        restarted.stop();
+
+        ArgumentCaptor<List<LedgerPosting>> postings = ArgumentCaptor.forClass(List.class);
+        verify(transactionService).recordLedgerPostings(postings.capture());
+        assertEquals(2, postings.getValue().size());
+        assertEquals(TransactionType.DEPOSIT, postings.getValue().get(0).getTransactionType());
+        LedgerPosting posted = postings.getValue().get(1);
+        assertEquals(TransactionType.TRANSFER, posted.getTransactionType());
+        assertEquals(transfer.getTransactionReference(), posted.getTransactionReference());
+        assertNotNull(posted.getCreditReference());
+        assertEquals(0, new BigDecimal("6000.00").compareTo(posted.getDestinationBalanceAfter()));
+        assertTrue(journal.read(1).isEmpty());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should post a keyed request once and journal the key with it")
+    @SuppressWarnings("unchecked")
+    void deposit_IdempotencyKey() throws Exception {
+        TransactionResponse first = ledger.deposit(deposit(3L, "100.00"), "key-1");
+        TransactionResponse retry = ledger.deposit(deposit(3L, "100.00"), "key-1");
+
+        assertEquals(first.getTransactionReference(), retry.getTransactionReference());
+        assertEquals(0, new BigDecimal("5100.00").compareTo(ledger.getBalance(3L).orElseThrow()));
+        assertThrows(IdempotencyServiceImpl.KeyConflictException.class,
+                () -> ledger.deposit(deposit(3L, "200.00"), "key-1"));
+        ledger.stop();
+
+        AuditJournal journal = new AuditJournal(objectMapper, directory.toString(), 1024 * 1024, false);
+        LedgerWriteBehind restarted = new LedgerWriteBehind(transactionService, 100, 60_000, 1000);
+        restarted.start(journal);
+        restarted.stop();
+        journal.close();
+
+        ArgumentCaptor<List<LedgerPosting>> postings = ArgumentCaptor.forClass(List.class);
+        verify(transactionService).recordLedgerPostings(postings.capture());
+        assertEquals(1, postings.getValue().size());
+        assertEquals("key-1", postings.getValue().get(0).getIdempotencyKey());
+        assertEquals("DEPOSIT", postings.getValue().get(0).getIdempotencyOperation());
+        assertNotNull(postings.getValue().get(0).getRequestHash());
+    }
+
+    @Test
+    @DisplayName("Should stop posting to an account once its status changes, keeping the balance held")
+    void statusChange_RereadsStatus() throws Exception {
+        ledger.deposit(deposit(2L, "500.00"));
+
+        stubAccount(2L, "5000.00", AccountStatus.FROZEN);
+        accountCache.invalidateStatus(2L, 2L);
+
+        RuntimeException frozen = assertThrows(RuntimeException.class, () -> ledger.deposit(deposit(2L, "1.00")));
+        assertEquals("Cannot deposit to inactive account", frozen.getMessage());
+        RuntimeException source = assertThrows(RuntimeException.class,
+                () -> ledger.transfer(transfer(2L, 1L, "1.00")));
+        assertEquals("Cannot transfer from inactive source account", source.getMessage());
+
+        stubAccount(2L, "5000.00", AccountStatus.ACTIVE);
+        accountCache.invalidateStatus(2L, 2L);
+        ledger.deposit(deposit(2L, "1.00"));
+        // The balance in memory is ahead of the row and survives both changes
+        assertEquals(0, new BigDecimal("5501.00").compareTo(ledger.getBalance(2L).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Should report a posting it could not answer for in time as of unknown outcome")
+    void timeout_OutcomeUnknown() throws Exception {
+        Account account = new Account();
+        account.setAccountId(5L);
+        account.setUserId(5L);
+        account.setBalance(new BigDecimal("100.00"));
+        account.setStatus(AccountStatus.ACTIVE);
+        when(accountRepository.findById(5L)).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return Optional.of(account);
+        });
+        ShardedLedger slow = newLedger(directory.resolve("slow"), 50);
+        slow.start();
+        try {
+            assertThrows(ShardedLedger.OutcomeUnknownException.class, () -> slow.deposit(deposit(5L, "1.00")));
+        } finally {
+            slow.stop();
+        }
+    }
+
+    private ShardedLedger newLedger(Path journalDirectory, long timeoutMs) {
+        return new ShardedLedger(accountRepository, new TransactionIdGenerator(1, Clock.systemDefaultZone()),
+                writeBehind, idempotencyService, accountCache, objectMapper, true, 4, journalDirectory.toString(),
+                1024 * 1024, timeoutMs);
+    }
+
+    private void stubAccount(Long accountId, String balance, AccountStatus status) {
+        Account account = new Account();
+        account.setAccountId(accountId);
+        account.setUserId(accountId);
+        account.setBalance(new BigDecimal(balance));
+        account.setMinimumBalance(new BigDecimal("0.00"));
+        account.setStatus(status);
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+    }
+
+    private DepositRequest deposit(Long accountId, String amount) {
+        DepositRequest request = new DepositRequest();
+        request.setAccountId(accountId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private WithdrawalRequest withdrawal(Long accountId, String amount) {
+        WithdrawalRequest request = new WithdrawalRequest();
+        request.setAccountId(accountId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private TransferRequest transfer(Long sourceAccountId, Long destinationAccountId, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setSourceAccountId(sourceAccountId);
+        request.setDestinationAccountId(destinationAccountId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
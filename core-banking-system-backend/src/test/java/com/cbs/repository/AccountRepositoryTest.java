@@ -195,4 +195,77 @@ class AccountRepositoryTest {
         // Assert
         assertEquals(1, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should apply balance delta and return the updated row")
+    void applyBalanceDelta_Credit() {
+        // Arrange
+        Account saved = entityManager.persistAndFlush(testAccount);
+
+        // Act
+        Optional<BalanceUpdate> result = accountRepository.applyBalanceDelta(saved.getAccountId(), new BigDecimal("250.00"));
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(0, new BigDecimal("1250.00").compareTo(result.get().getBalanceAfter()));
+        assertEquals(1L, result.get().getUserId());
+        Account updated = result.get().getAccount();
+        assertEquals(saved.getAccountId(), updated.getAccountId());
+        assertEquals(saved.getAccountNumber(), updated.getAccountNumber());
+        assertEquals(saved.getAccountType(), updated.getAccountType());
+        assertEquals(AccountStatus.ACTIVE, updated.getStatus());
+        assertNotNull(updated.getCreatedAt());
+        assertNotNull(updated.getUpdatedAt());
+        entityManager.clear();
+        assertEquals(0, new BigDecimal("1250.00").compareTo(
+                accountRepository.findById(saved.getAccountId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    @DisplayName("Should not apply a debit that breaches the minimum balance")
+    void applyBalanceDelta_DebitBelowMinimum() {
+        // Arrange
+        testAccount.setBalance(new BigDecimal("1500.00"));
+        Account saved = entityManager.persistAndFlush(testAccount);
+
+        // Act
+        Optional<BalanceUpdate> allowed = accountRepository.applyBalanceDelta(saved.getAccountId(), new BigDecimal("-500.00"));
+        Optional<BalanceUpdate> rejected = accountRepository.applyBalanceDelta(saved.getAccountId(), new BigDecimal("-0.01"));
+
+        // Assert
+        assertTrue(allowed.isPresent());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(allowed.get().getBalanceAfter()));
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should allow a debit into the overdraft limit")
+    void applyBalanceDelta_DebitWithinOverdraft() {
+        // Arrange
+        testAccount.setOverdraftLimit(new BigDecimal("200.00"));
+        Account saved = entityManager.persistAndFlush(testAccount);
+
+        // Act
+        Optional<BalanceUpdate> allowed = accountRepository.applyBalanceDelta(saved.getAccountId(), new BigDecimal("-1200.00"));
+        Optional<BalanceUpdate> rejected = accountRepository.applyBalanceDelta(saved.getAccountId(), new BigDecimal("-0.01"));
+
+        // Assert
+        assertTrue(allowed.isPresent());
+        assertEquals(0, new BigDecimal("-200.00").compareTo(allowed.get().getBalanceAfter()));
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not update an inactive account")
+    void applyBalanceDelta_InactiveAccount() {
+        // Arrange
+        testAccount.setStatus(AccountStatus.FROZEN);
+        Account saved = entityManager.persistAndFlush(testAccount);
+
+        // Act
+        Optional<BalanceUpdate> result = accountRepository.applyBalanceDelta(saved.getAccountId(), new BigDecimal("100.00"));
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.KYC;
+import com.cbs.model.enums.DocumentType;
+import com.cbs.model.enums.KYCStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class KYCRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private KYCRepository kycRepository;
+
+    private long documentNumber;
+
+    @Test
+    @DisplayName("Should offer unclaimed, lapsed and own claims oldest first")
+    void findClaimableForUpdate_SkipsOtherReviewersClaims() {
+        KYC lapsed = persist(KYCStatus.SUBMITTED, NOW.minusDays(4), 2L, NOW.minusMinutes(1));
+        KYC own = persist(KYCStatus.UNDER_REVIEW, NOW.minusDays(3), 1L, NOW.plusMinutes(10));
+        persist(KYCStatus.SUBMITTED, NOW.minusDays(2), 2L, NOW.plusMinutes(10));
+        KYC unclaimed = persist(KYCStatus.SUBMITTED, NOW.minusDays(1), null, null);
+        persist(KYCStatus.APPROVED, NOW.minusDays(5), null, null);
+
+        List<KYC> page = kycRepository.findClaimableForUpdate(
+                EnumSet.of(KYCStatus.SUBMITTED, KYCStatus.UNDER_REVIEW), 1L, NOW, PageRequest.of(0, 2));
+
+        assertEquals(List.of(lapsed.getKycId(), own.getKycId()), page.stream().map(KYC::getKycId).toList());
+        assertEquals(List.of(lapsed.getKycId(), own.getKycId(), unclaimed.getKycId()),
+                kycRepository.findClaimableForUpdate(EnumSet.of(KYCStatus.SUBMITTED, KYCStatus.UNDER_REVIEW),
+                        1L, NOW, PageRequest.of(0, 10)).stream().map(KYC::getKycId).toList());
+    }
+
+    @Test
+    @DisplayName("Should move a document out of SUBMITTED only while it is still submitted")
+    void resolveSubmitted_LeavesDecidedDocuments() {
+        KYC submitted = persist(KYCStatus.SUBMITTED, NOW, null, null);
+        KYC decided = persist(KYCStatus.REJECTED, NOW, null, null);
+
+        assertEquals(1, kycRepository.resolveSubmitted(submitted.getKycId(), KYCStatus.UNDER_REVIEW, null, NOW));
+        assertEquals(0, kycRepository.resolveSubmitted(decided.getKycId(), KYCStatus.UNDER_REVIEW, null, NOW));
+        assertEquals(0, kycRepository.resolveSubmitted(submitted.getKycId(), KYCStatus.REJECTED, "late", NOW));
+        entityManager.clear();
+
+        assertEquals(KYCStatus.UNDER_REVIEW, kycRepository.findById(submitted.getKycId()).orElseThrow().getStatus());
+        assertEquals(KYCStatus.REJECTED, kycRepository.findById(decided.getKycId()).orElseThrow().getStatus());
+    }
+
+    private KYC persist(KYCStatus status, LocalDateTime submissionDate, Long claimedBy, LocalDateTime claimedUntil) {
+        documentNumber++;
+        KYC kyc = new KYC();
+        kyc.setUserId(documentNumber);
+        kyc.setDocumentType(DocumentType.PASSPORT);
+        kyc.setDocumentNumber("P" + documentNumber);
+        kyc.setStatus(status);
+        kyc.setSubmissionDate(submissionDate);
+        kyc.setClaimedBy(claimedBy);
+        kyc.setClaimedUntil(claimedUntil);
+        return entityManager.persistAndFlush(kyc);
+    }
+}
@@ -0,0 +1,38 @@
+package com.cbs.repository;
+
+import com.cbs.model.entity.KycDocumentBlob;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class KycDocumentBlobRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private KycDocumentBlobRepository blobRepository;
+
+    @Test
+    @DisplayName("Should create the row on the first reference and count the following ones")
+    void addReference_CreatesThenCounts() {
+        String hash = "ab".repeat(32);
+
+        assertEquals(1, blobRepository.addReference(hash, 8));
+        assertEquals(2, blobRepository.addReference(hash, 8));
+        assertEquals(1, blobRepository.addReference("cd".repeat(32), 16));
+        entityManager.clear();
+
+        KycDocumentBlob blob = blobRepository.findById(hash).orElseThrow();
+        assertEquals(2, blob.getReferenceCount());
+        assertEquals(8L, blob.getSizeBytes());
+        assertNotNull(blob.getCreatedAt());
+    }
+}
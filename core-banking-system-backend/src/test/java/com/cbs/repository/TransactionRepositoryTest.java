@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
@@ -68,6 +69,24 @@ class TransactionRepositoryTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    @DisplayName("Should reject a second transaction with the same reference")
+    void save_DuplicateReference() {
+        // Arrange
+        entityManager.persistAndFlush(testTransaction);
+        Transaction duplicate = new Transaction();
+        duplicate.setTransactionReference(testTransaction.getTransactionReference());
+        duplicate.setTransactionType(TransactionType.WITHDRAWAL);
+        duplicate.setAmount(new BigDecimal("50.00"));
+        duplicate.setSourceAccountId(1L);
+        duplicate.setUserId(1L);
+        duplicate.setStatus(TransactionStatus.COMPLETED);
+        duplicate.setTransactionDate(LocalDateTime.now());
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> transactionRepository.saveAndFlush(duplicate));
+    }
+
     @Test
     @DisplayName("Should find transactions by source account ID")
     void findBySourceAccountId_Success() {
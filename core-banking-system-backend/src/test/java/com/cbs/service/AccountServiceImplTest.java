@@ -6,13 +6,15 @@ import com.cbs.model.entity.Account;
 import com.cbs.model.enums.AccountStatus;
 import com.cbs.model.enums.AccountType;
 import com.cbs.repository.AccountRepository;
+import com.cbs.repository.BalanceUpdate;
 import com.cbs.service.impl.AccountServiceImpl;
+import com.cbs.util.AccountCache;
 import com.cbs.util.AccountNumberGenerator;
+import com.cbs.util.CacheInvalidationBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -35,7 +37,6 @@ class AccountServiceImplTest {
     @Mock
     private AccountNumberGenerator accountNumberGenerator;
 
-    @InjectMocks
     private AccountServiceImpl accountService;
 
     private Account testAccount;
@@ -43,6 +44,10 @@ class AccountServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        // A real cache over the mocked repository, so lookups still reach the stubs on a miss
+        accountService = new AccountServiceImpl(accountRepository, accountNumberGenerator,
+                new AccountCache(accountRepository, mock(CacheInvalidationBus.class), 100, 60_000));
+
         testAccount = new Account();
         testAccount.setAccountId(1L);
         testAccount.setAccountNumber("SB250001001");
@@ -68,8 +73,6 @@ class AccountServiceImplTest {
         // Arrange
         when(accountNumberGenerator.generateAccountNumber(AccountType.SAVINGS))
                 .thenReturn("SB250001001");
-        when(accountRepository.existsByAccountNumber("SB250001001"))
-                .thenReturn(false);
         when(accountRepository.save(any(Account.class)))
                 .thenReturn(testAccount);
 
@@ -83,6 +86,7 @@ class AccountServiceImplTest {
         assertEquals(new BigDecimal("1000.00"), result.getBalance());
         assertEquals(1L, result.getUserId());
         verify(accountRepository).save(any(Account.class));
+        verify(accountRepository, never()).existsByAccountNumber(any());
     }
 
     @Test
@@ -100,12 +104,35 @@ class AccountServiceImplTest {
         verify(accountRepository).findById(1L);
     }
 
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache until a balance change invalidates it")
+    void getAccountById_CachedUntilBalanceChanges() {
+        // Arrange
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(accountRepository.applyBalanceDelta(1L, new BigDecimal("500.00")))
+                .thenReturn(Optional.of(balanceUpdate("1500.00")));
+
+        // Act
+        accountService.getAccountById(1L);
+        accountService.getAccountById(1L);
+        accountService.deposit(1L, new BigDecimal("500.00"));
+        testAccount.setBalance(new BigDecimal("1500.00"));
+        Optional<AccountResponse> result = accountService.getAccountById(1L);
+
+        // Assert
+        assertEquals(new BigDecimal("1500.00"), result.get().getBalance());
+        // One load before the deposit and one after the invalidation; the deposit response comes
+        // from the row the update returned
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
     @Test
     @DisplayName("Should get account by number successfully")
     void getAccountByNumber_Success() {
         // Arrange
         when(accountRepository.findByAccountNumber("SB250001001"))
                 .thenReturn(Optional.of(testAccount));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
 
         // Act
         Optional<AccountResponse> result = accountService.getAccountByNumber("SB250001001");
@@ -136,14 +163,8 @@ class AccountServiceImplTest {
     @DisplayName("Should deposit to account successfully")
     void deposit_Success() {
         // Arrange
-        Account updatedAccount = new Account();
-        updatedAccount.setAccountId(1L);
-        updatedAccount.setAccountNumber("SB250001001");
-        updatedAccount.setBalance(new BigDecimal("1500.00"));
-        updatedAccount.setStatus(AccountStatus.ACTIVE);
-        
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-        when(accountRepository.save(any(Account.class))).thenReturn(updatedAccount);
+        when(accountRepository.applyBalanceDelta(1L, new BigDecimal("500.00")))
+                .thenReturn(Optional.of(balanceUpdate("1500.00")));
 
         // Act
         AccountResponse result = accountService.deposit(1L, new BigDecimal("500.00"));
@@ -151,7 +172,9 @@ class AccountServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(new BigDecimal("1500.00"), result.getBalance());
-        verify(accountRepository).save(any(Account.class));
+        assertEquals("SB250001001", result.getAccountNumber());
+        verify(accountRepository, never()).findById(any());
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
@@ -170,14 +193,8 @@ class AccountServiceImplTest {
     @DisplayName("Should withdraw from account successfully")
     void withdraw_Success() throws Exception {
         // Arrange
-        Account updatedAccount = new Account();
-        updatedAccount.setAccountId(1L);
-        updatedAccount.setAccountNumber("SB250001001");
-        updatedAccount.setBalance(new BigDecimal("500.00"));
-        updatedAccount.setStatus(AccountStatus.ACTIVE);
-        
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-        when(accountRepository.save(any(Account.class))).thenReturn(updatedAccount);
+        when(accountRepository.applyBalanceDelta(1L, new BigDecimal("-500.00")))
+                .thenReturn(Optional.of(balanceUpdate("500.00")));
 
         // Act
         AccountResponse result = accountService.withdraw(1L, new BigDecimal("500.00"));
@@ -185,7 +202,7 @@ class AccountServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(new BigDecimal("500.00"), result.getBalance());
-        verify(accountRepository).save(any(Account.class));
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
@@ -216,6 +233,21 @@ class AccountServiceImplTest {
         verify(accountRepository, never()).save(any(Account.class));
     }
 
+    @Test
+    @DisplayName("Should reject withdrawal when the conditional update finds the balance too low")
+    void withdraw_InsufficientBalance() {
+        // Arrange
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+
+        // Act & Assert
+        Exception exception = assertThrows(
+                Exception.class,
+                () -> accountService.withdraw(1L, new BigDecimal("5000.00"))
+        );
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(accountRepository).applyBalanceDelta(1L, new BigDecimal("-5000.00"));
+    }
+
     @Test
     @DisplayName("Should update account status successfully")
     void updateAccountStatus_Success() {
@@ -264,4 +296,17 @@ class AccountServiceImplTest {
         verify(accountRepository).save(testAccount);
         assertEquals(AccountStatus.CLOSED, testAccount.getStatus());
     }
-}
\ No newline at end of file
+
+    private BalanceUpdate balanceUpdate(String balanceAfter) {
+        Account updated = new Account();
+        updated.setAccountId(testAccount.getAccountId());
+        updated.setAccountNumber(testAccount.getAccountNumber());
+        updated.setAccountType(testAccount.getAccountType());
+        updated.setBalance(new BigDecimal(balanceAfter));
+        updated.setUserId(testAccount.getUserId());
+        updated.setStatus(testAccount.getStatus());
+        updated.setCreatedAt(testAccount.getCreatedAt());
+        updated.setMinimumBalance(testAccount.getMinimumBalance());
+        return new BalanceUpdate(updated);
+    }
+}
@@ -1,15 +1,20 @@
 // src/test/java/com/cbs/service/AuditServiceImplTest.java
 package com.cbs.service;
 
+import com.cbs.archive.ArchiveStore;
+import com.cbs.audit.AuditJournal;
+import com.cbs.audit.AuditRecord;
 import com.cbs.model.entity.AuditLog;
 import com.cbs.model.enums.AuditAction;
 import com.cbs.repository.AuditLogRepository;
 import com.cbs.service.impl.AuditServiceImpl;
+import com.cbs.util.CacheInvalidationBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -31,6 +36,13 @@ public class AuditServiceImplTest {
     @Mock
     private AuditLogRepository auditLogRepository;
 
+    @Mock
+    private AuditJournal auditJournal;
+
+    // Never loaded, so nothing is archived
+    @Spy
+    private ArchiveStore archiveStore = new ArchiveStore(mock(CacheInvalidationBus.class), "target/archive", 4096);
+
     @InjectMocks
     private AuditServiceImpl auditService;
 
@@ -68,6 +80,22 @@ public class AuditServiceImplTest {
         verify(auditLogRepository, times(1)).save(any(AuditLog.class));
     }
 
+    @Test
+    void testLogAction_WriteAheadJournal() {
+        // Given
+        when(auditJournal.isWriteAhead()).thenReturn(true);
+
+        // When
+        AuditLog result = auditService.logAction(testUserId, AuditAction.LOGIN, testEntityType, testEntityId,
+                null, null, "192.168.1.1", "Mozilla/5.0");
+
+        // Then
+        assertNull(result.getAuditId());
+        assertNotNull(result.getCreatedAt());
+        verify(auditJournal).appendAudit(any(AuditRecord.class));
+        verify(auditLogRepository, never()).save(any(AuditLog.class));
+    }
+
     @Test
     void testLogActionMinimal() {
         // Given
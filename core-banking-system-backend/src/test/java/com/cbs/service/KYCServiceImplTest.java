@@ -0,0 +1,250 @@
+package com.cbs.service;
+
+import com.cbs.kyc.DocumentStore;
+import com.cbs.kyc.KycDocumentPipeline;
+import com.cbs.model.dto.request.KYCBatchDecision;
+import com.cbs.model.dto.request.KYCBatchVerificationRequest;
+import com.cbs.model.dto.request.KYCUploadRequest;
+import com.cbs.model.dto.request.KYCVerificationRequest;
+import com.cbs.model.dto.response.KYCBatchVerificationResponse;
+import com.cbs.model.dto.response.KYCResponse;
+import com.cbs.model.entity.KYC;
+import com.cbs.model.enums.DocumentType;
+import com.cbs.model.enums.KYCStatus;
+import com.cbs.model.entity.KycDocumentBlob;
+import com.cbs.repository.KYCRepository;
+import com.cbs.repository.KycDocumentBlobRepository;
+import com.cbs.repository.KycExpiringDocumentRepository;
+import com.cbs.service.impl.KYCServiceImpl;
+import com.cbs.service.interface_.KYCService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KYCServiceImplTest {
+
+    @Mock
+    private KYCRepository kycRepository;
+
+    @Mock
+    private KycDocumentBlobRepository blobRepository;
+
+    @Mock
+    private KycDocumentPipeline documentPipeline;
+
+    @Mock
+    private KycExpiringDocumentRepository expiringRepository;
+
+    @TempDir
+    Path uploadDirectory;
+
+    private KYCServiceImpl kycService;
+    private KYCUploadRequest request;
+
+    @BeforeEach
+    void setUp() {
+        kycService = new KYCServiceImpl(kycRepository,
+                new DocumentStore(blobRepository, uploadDirectory.toString()), documentPipeline,
+                expiringRepository, Optional.empty(), uploadDirectory.toString(), 1024 * 1024, 15);
+
+        request = new KYCUploadRequest();
+        request.setUserId(7L);
+        request.setDocumentType(DocumentType.PASSPORT);
+        request.setDocumentNumber("X1234567");
+    }
+
+    @Test
+    @DisplayName("Should store, sniff and hash an upload in one pass")
+    void uploadDocumentWithFile_StoresAndHashes() throws Exception {
+        byte[] content = new byte[300_000];
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, content, 0, header.length);
+        for (int i = header.length; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        // The declared type is not trusted either way
+        MockMultipartFile file = new MockMultipartFile("file", "passport.pdf", "application/octet-stream", content);
+        when(kycRepository.save(any(KYC.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(blobRepository.addReference(anyString(), eq((long) content.length))).thenReturn(1);
+
+        KYCResponse response = kycService.uploadDocumentWithFile(request, file);
+
+        String expectedHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(expectedHash, response.getDocumentHash());
+        assertEquals(expectedHash, kycService.generateDocumentHash(file));
+        // Stored under its hash, two directory levels deep
+        String key = expectedHash.substring(0, 2) + "/" + expectedHash.substring(2, 4) + "/" + expectedHash;
+        assertEquals(key, response.getDocumentUrl());
+        assertArrayEquals(content, Files.readAllBytes(uploadDirectory.resolve(key)));
+        assertEquals(List.of(uploadDirectory.resolve(key)), listUploads());
+        verify(blobRepository).addReference(expectedHash, content.length);
+    }
+
+    @Test
+    @DisplayName("Should reject a file whose bytes do not match an allowed format")
+    void uploadDocumentWithFile_RejectsSpoofedContentType() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "passport.pdf", "application/pdf",
+                "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.US_ASCII));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> kycService.uploadDocumentWithFile(request, file));
+
+        assertEquals("Invalid document file", exception.getMessage());
+        assertFalse(kycService.validateDocument(file, DocumentType.PASSPORT));
+        assertEquals(List.of(), listUploads());
+        verify(kycRepository, never()).save(any(KYC.class));
+    }
+
+    @Test
+    @DisplayName("Should not store anything for a duplicate document")
+    void uploadDocumentWithFile_StoresNothingForDuplicate() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+        request.setDocumentType(DocumentType.PASSPORT_PHOTO);
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", png);
+        when(kycRepository.existsByUserIdAndDocumentType(7L, DocumentType.PASSPORT_PHOTO)).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> kycService.uploadDocumentWithFile(request, file));
+
+        assertEquals(List.of(), listUploads());
+        verify(blobRepository, never()).addReference(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should release a stored document when its KYC record is deleted")
+    void deleteKyc_ReleasesStoredDocument() throws Exception {
+        String hash = "ab".repeat(32);
+        Path file = uploadDirectory.resolve("ab/ab/" + hash);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "%PDF-1.7");
+        KycDocumentBlob blob = new KycDocumentBlob(hash, 8);
+        blob.setReferenceCount(2);
+        KYC kyc = new KYC();
+        kyc.setKycId(5L);
+        kyc.setDocumentUrl("ab/ab/" + hash);
+        when(kycRepository.findById(5L)).thenReturn(Optional.of(kyc));
+        when(blobRepository.findByContentHashForUpdate(hash)).thenReturn(Optional.of(blob));
+
+        kycService.deleteKyc(5L);
+
+        // Another record still uses the file
+        assertEquals(1, blob.getReferenceCount());
+        assertTrue(Files.exists(file));
+        verify(kycRepository).deleteById(5L);
+    }
+
+    @Test
+    @DisplayName("Should apply valid decisions and report each failed one on its own")
+    void verifyKycBatch_ReportsPerItemOutcomes() {
+        KYC approvable = reviewable(1L, null);
+        KYC rejectable = reviewable(2L, 7L);
+        KYC claimedByOther = reviewable(3L, 8L);
+        when(kycRepository.findAllByIdForUpdate(any())).thenReturn(List.of(approvable, rejectable, claimedByOther));
+        KYCBatchVerificationRequest batch = new KYCBatchVerificationRequest();
+        batch.setDecisions(List.of(
+                decision(1L, KYCStatus.APPROVED),
+                decision(2L, KYCStatus.REJECTED),
+                decision(3L, KYCStatus.APPROVED),
+                decision(1L, KYCStatus.REJECTED),
+                decision(4L, KYCStatus.APPROVED),
+                decision(2L, KYCStatus.PENDING)));
+
+        KYCBatchVerificationResponse response = kycService.verifyKycBatch(batch, 7L);
+
+        assertEquals(2, response.getVerifiedCount());
+        assertEquals(4, response.getFailedCount());
+        assertEquals(KYCStatus.APPROVED, approvable.getStatus());
+        assertEquals(KYCStatus.REJECTED, rejectable.getStatus());
+        assertEquals("blurred", rejectable.getRejectionReason());
+        assertNull(rejectable.getClaimedBy());
+        assertEquals(KYCStatus.UNDER_REVIEW, claimedByOther.getStatus());
+        assertEquals("KYC document is claimed by another reviewer", response.getResults().get(2).getError());
+        assertEquals("KYC document already decided earlier in this batch", response.getResults().get(3).getError());
+        assertEquals("KYC document not found", response.getResults().get(4).getError());
+        assertNotNull(response.getResults().get(5).getError());
+        verify(kycRepository).saveAll(List.of(approvable, rejectable));
+    }
+
+    @Test
+    @DisplayName("Should claim the next page of the review queue for the reviewer")
+    void claimReviewQueue_ClaimsPage() {
+        KYC kyc = reviewable(1L, null);
+        when(kycRepository.findClaimableForUpdate(any(), eq(7L), any(), any())).thenReturn(List.of(kyc));
+
+        List<KYCResponse> page = kycService.claimReviewQueue(7L, 10_000);
+
+        assertEquals(1, page.size());
+        assertEquals(7L, page.get(0).getClaimedBy());
+        assertTrue(kyc.getClaimedUntil().isAfter(LocalDateTime.now().plusMinutes(14)));
+        verify(kycRepository).findClaimableForUpdate(any(), eq(7L), any(),
+                eq(PageRequest.of(0, KYCService.MAX_REVIEW_PAGE_SIZE)));
+    }
+
+    @Test
+    @DisplayName("Should offer and decide only processed documents while the pipeline is on")
+    void claimReviewQueue_SkipsDocumentsInPipeline() {
+        when(documentPipeline.isEnabled()).thenReturn(true);
+        KYC inPipeline = reviewable(2L, null);
+        inPipeline.setStatus(KYCStatus.SUBMITTED);
+        when(kycRepository.findById(2L)).thenReturn(Optional.of(inPipeline));
+
+        kycService.claimReviewQueue(7L, 10);
+
+        verify(kycRepository).findClaimableForUpdate(eq(EnumSet.of(KYCStatus.UNDER_REVIEW)), eq(7L), any(), any());
+        KYCVerificationRequest approval = new KYCVerificationRequest();
+        approval.setStatus(KYCStatus.APPROVED);
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> kycService.verifyKyc(2L, approval, 7L));
+        assertEquals("KYC document is still being processed", exception.getMessage());
+        verify(kycRepository, never()).save(any(KYC.class));
+    }
+
+    private static KYC reviewable(Long kycId, Long claimedBy) {
+        KYC kyc = new KYC();
+        kyc.setKycId(kycId);
+        kyc.setStatus(KYCStatus.UNDER_REVIEW);
+        if (claimedBy != null) {
+            kyc.setClaimedBy(claimedBy);
+            kyc.setClaimedUntil(LocalDateTime.now().plusMinutes(5));
+        }
+        return kyc;
+    }
+
+    private static KYCBatchDecision decision(Long kycId, KYCStatus status) {
+        KYCBatchDecision decision = new KYCBatchDecision();
+        decision.setKycId(kycId);
+        decision.setStatus(status);
+        decision.setRejectionReason("blurred");
+        return decision;
+    }
+
+    private List<Path> listUploads() throws IOException {
+        try (var files = Files.walk(uploadDirectory)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
@@ -1,27 +1,43 @@
 package com.cbs.service;
 
+import com.cbs.archive.ArchiveStore;
+import com.cbs.ledger.LedgerPosting;
+import com.cbs.model.dto.request.BatchPostingItem;
+import com.cbs.model.dto.request.BatchPostingRequest;
 import com.cbs.model.dto.request.DepositRequest;
 import com.cbs.model.dto.request.TransferRequest;
 import com.cbs.model.dto.request.WithdrawalRequest;
+import com.cbs.model.dto.response.BatchPostingResponse;
+import com.cbs.model.dto.response.CursorPage;
 import com.cbs.model.dto.response.TransactionResponse;
 import com.cbs.model.entity.Account;
 import com.cbs.model.entity.Transaction;
 import com.cbs.model.enums.AccountStatus;
 import com.cbs.model.enums.TransactionStatus;
 import com.cbs.model.enums.TransactionType;
+import com.cbs.repository.AccountDailyTotalRepository;
 import com.cbs.repository.AccountRepository;
+import com.cbs.repository.BalanceUpdate;
 import com.cbs.repository.TransactionRepository;
 import com.cbs.service.impl.TransactionServiceImpl;
+import com.cbs.service.interface_.IdempotencyService;
+import com.cbs.util.AccountCache;
+import com.cbs.util.CacheInvalidationBus;
+import com.cbs.util.HistoryCursor;
 import com.cbs.util.TransactionIdGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -29,6 +45,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,9 +59,22 @@ class TransactionServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountDailyTotalRepository accountDailyTotalRepository;
+
     @Mock
     private TransactionIdGenerator transactionIdGenerator;
 
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    // Never loaded, so nothing is archived
+    @Spy
+    private ArchiveStore archiveStore = new ArchiveStore(mock(CacheInvalidationBus.class), "target/archive", 4096);
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -94,16 +126,10 @@ class TransactionServiceImplTest {
     @DisplayName("Should process deposit successfully")
     void deposit_Success() {
         // Arrange
-        Account destinationAccount = new Account();
-        destinationAccount.setAccountId(1L);
-        destinationAccount.setBalance(new BigDecimal("1000.00"));
-        destinationAccount.setUserId(1L);
-        destinationAccount.setStatus(AccountStatus.ACTIVE);
-
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(destinationAccount));
+        when(accountRepository.applyBalanceDelta(1L, testDepositRequest.getAmount()))
+                .thenReturn(Optional.of(balanceUpdate(1L, "2000.00")));
         when(transactionIdGenerator.generateTransactionId()).thenReturn("TXN123456");
         when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
-        when(accountRepository.save(any(Account.class))).thenReturn(destinationAccount);
 
         // Act
         TransactionResponse result = transactionService.deposit(testDepositRequest);
@@ -113,8 +139,10 @@ class TransactionServiceImplTest {
         assertEquals(TransactionType.DEPOSIT, result.getTransactionType());
         assertEquals(new BigDecimal("1000.00"), result.getAmount());
         assertEquals(1L, result.getDestinationAccountId());
-        verify(transactionRepository).save(any(Transaction.class));
-        verify(accountRepository).save(any(Account.class));
+        verify(transactionRepository).save(argThat(txn ->
+                new BigDecimal("2000.00").equals(txn.getBalanceAfter()) && txn.getUserId() == 1L));
+        verify(accountRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
@@ -138,13 +166,6 @@ class TransactionServiceImplTest {
     @DisplayName("Should process withdrawal successfully")
     void withdraw_Success() throws Exception {
         // Arrange
-        Account sourceAccount = new Account();
-        sourceAccount.setAccountId(1L);
-        sourceAccount.setBalance(new BigDecimal("2000.00"));
-        sourceAccount.setUserId(1L);
-        sourceAccount.setStatus(AccountStatus.ACTIVE);
-        sourceAccount.setMinimumBalance(new BigDecimal("1000.00"));
-
         // Create WITHDRAWAL transaction (not DEPOSIT!)
         Transaction withdrawalTransaction = new Transaction();
         withdrawalTransaction.setTransactionId(1L);
@@ -155,10 +176,10 @@ class TransactionServiceImplTest {
         withdrawalTransaction.setUserId(1L);
         withdrawalTransaction.setStatus(TransactionStatus.COMPLETED);
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.applyBalanceDelta(1L, testWithdrawalRequest.getAmount().negate()))
+                .thenReturn(Optional.of(balanceUpdate(1L, "1500.00")));
         when(transactionIdGenerator.generateTransactionId()).thenReturn("TXN123456");
         when(transactionRepository.save(any(Transaction.class))).thenReturn(withdrawalTransaction);
-        when(accountRepository.save(any(Account.class))).thenReturn(sourceAccount);
 
         // Act
         TransactionResponse result = transactionService.withdraw(testWithdrawalRequest);
@@ -168,8 +189,8 @@ class TransactionServiceImplTest {
         assertEquals(TransactionType.WITHDRAWAL, result.getTransactionType());
         assertEquals(new BigDecimal("500.00"), result.getAmount());
         assertEquals(1L, result.getSourceAccountId());
-        verify(transactionRepository).save(any(Transaction.class));
-        verify(accountRepository).save(any(Account.class));
+        verify(transactionRepository).save(argThat(txn -> new BigDecimal("1500.00").equals(txn.getBalanceAfter())));
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
@@ -238,8 +259,8 @@ class TransactionServiceImplTest {
         transferTransaction.setUserId(1L);
         transferTransaction.setStatus(TransactionStatus.COMPLETED);
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destinationAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(destinationAccount));
         when(transactionIdGenerator.generateTransactionId()).thenReturn("TXN123456", "TXN123457");
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transferTransaction);
         when(accountRepository.save(any(Account.class))).thenReturn(sourceAccount, destinationAccount);
@@ -255,6 +276,17 @@ class TransactionServiceImplTest {
         assertEquals(2L, result.getDestinationAccountId());
         verify(transactionRepository, times(2)).save(any(Transaction.class));
         verify(accountRepository, times(2)).save(any(Account.class));
+
+        // The debit leg carries amount and fee for the source, the credit leg only the amount
+        verify(accountDailyTotalRepository).addToDailyTotals(eq(1L), any(LocalDate.class),
+                argThat(debit -> debit.compareTo(new BigDecimal("300.00")) == 0),
+                argThat(credit -> credit.signum() == 0),
+                argThat(fee -> fee.signum() > 0));
+        verify(accountDailyTotalRepository).addToDailyTotals(eq(2L), any(LocalDate.class),
+                argThat(debit -> debit.signum() == 0),
+                argThat(credit -> credit.compareTo(new BigDecimal("300.00")) == 0),
+                argThat(fee -> fee.signum() == 0));
+
     }
 
     @Test
@@ -269,8 +301,8 @@ class TransactionServiceImplTest {
         activeAccount.setAccountId(2L);
         activeAccount.setStatus(AccountStatus.ACTIVE);
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(inactiveAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(activeAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(inactiveAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(activeAccount));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class,
@@ -279,6 +311,42 @@ class TransactionServiceImplTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    @Test
+    @DisplayName("Should lock transfer accounts in ascending id order regardless of direction")
+    void transfer_LocksAccountsInIdOrder() throws Exception {
+        // Arrange
+        Account lowerAccount = new Account();
+        lowerAccount.setAccountId(1L);
+        lowerAccount.setBalance(new BigDecimal("1000.00"));
+        lowerAccount.setUserId(1L);
+        lowerAccount.setStatus(AccountStatus.ACTIVE);
+
+        Account higherAccount = new Account();
+        higherAccount.setAccountId(2L);
+        higherAccount.setBalance(new BigDecimal("2000.00"));
+        higherAccount.setUserId(2L);
+        higherAccount.setStatus(AccountStatus.ACTIVE);
+
+        testTransferRequest.setSourceAccountId(2L);
+        testTransferRequest.setDestinationAccountId(1L);
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(lowerAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(higherAccount));
+        when(transactionIdGenerator.generateTransactionId()).thenReturn("TXN123456", "TXN123457");
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transactionService.transfer(testTransferRequest);
+
+        // Assert
+        InOrder lockOrder = inOrder(accountRepository);
+        lockOrder.verify(accountRepository).findByIdForUpdate(1L);
+        lockOrder.verify(accountRepository).findByIdForUpdate(2L);
+        verify(accountRepository, never()).findById(any());
+        assertEquals(0, new BigDecimal("1698.50").compareTo(higherAccount.getBalance()));
+        assertEquals(0, new BigDecimal("1300.00").compareTo(lowerAccount.getBalance()));
+    }
+
     @Test
     @DisplayName("Should get transaction by ID successfully")
     void getTransactionById_Success() {
@@ -299,15 +367,48 @@ class TransactionServiceImplTest {
     void getTransactionsByAccountId_Success() {
         // Arrange
         List<Transaction> transactions = Arrays.asList(testTransaction);
-        when(transactionRepository.findByAccountId(1L)).thenReturn(transactions);
+        when(transactionRepository.findSourceHistoryBefore(eq(1L), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(transactions);
+        when(transactionRepository.findDestinationHistoryBefore(eq(1L), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(transactions);
+
+        // Act
+        CursorPage<TransactionResponse> result = transactionService.getTransactionsByAccountId(1L, null, 50);
+
+        // Assert
+        assertEquals(1, result.getItems().size());
+        assertEquals("TXN2025012612345678901234", result.getItems().get(0).getTransactionReference());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should return a cursor when there are more rows than the page size")
+    void getTransactionsByUserId_NextCursor() {
+        // Arrange
+        Transaction older = new Transaction();
+        older.setTransactionId(2L);
+        older.setTransactionDate(testTransaction.getTransactionDate().minusMinutes(1));
+        older.setTransactionType(TransactionType.DEPOSIT);
+        older.setAmount(BigDecimal.TEN);
+        when(transactionRepository.findUserHistoryBefore(eq(1L), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testTransaction, older));
 
         // Act
-        List<TransactionResponse> result = transactionService.getTransactionsByAccountId(1L);
+        CursorPage<TransactionResponse> result = transactionService.getTransactionsByUserId(1L, null, 1);
 
         // Assert
-        assertEquals(1, result.size());
-        assertEquals("TXN2025012612345678901234", result.get(0).getTransactionReference());
-        verify(transactionRepository).findByAccountId(1L);
+        assertEquals(1, result.getItems().size());
+        assertTrue(result.isHasMore());
+        HistoryCursor next = HistoryCursor.decode(result.getNextCursor());
+        assertEquals(testTransaction.getTransactionId(), next.getTransactionId());
+        assertEquals(testTransaction.getTransactionDate(), next.getTransactionDate());
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor it did not issue")
+    void getTransactionsByUserId_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getTransactionsByUserId(1L, "bogus", 10));
     }
 
     @Test
@@ -326,7 +427,7 @@ class TransactionServiceImplTest {
 
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(testTransaction));
         when(transactionIdGenerator.generateTransactionId()).thenReturn("TXN123456");
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(reversalTransaction);
         when(accountRepository.save(any(Account.class))).thenReturn(account);
 
@@ -359,29 +460,118 @@ class TransactionServiceImplTest {
     @DisplayName("Should calculate total debits successfully")
     void getTotalDebits_Success() {
         // Arrange
-        when(transactionRepository.sumDebitsByAccountIdAndStatus(1L, TransactionStatus.COMPLETED, TransactionType.WITHDRAWAL))
-                .thenReturn(new BigDecimal("1500.00"));
+        when(accountDailyTotalRepository.sumDebitsByAccountId(1L)).thenReturn(new BigDecimal("1500.00"));
 
         // Act
         BigDecimal result = transactionService.getTotalDebits(1L);
 
         // Assert
         assertEquals(new BigDecimal("1500.00"), result);
-        verify(transactionRepository).sumDebitsByAccountIdAndStatus(1L, TransactionStatus.COMPLETED, TransactionType.WITHDRAWAL);
+        verify(accountDailyTotalRepository).sumDebitsByAccountId(1L);
+        verify(transactionRepository, never()).sumDebitsByAccountIdAndStatus(any(), any(), any());
     }
 
     @Test
     @DisplayName("Should calculate total credits successfully")
     void getTotalCredits_Success() {
         // Arrange
-        when(transactionRepository.sumCreditsByAccountIdAndStatus(1L, TransactionStatus.COMPLETED, TransactionType.DEPOSIT))
-                .thenReturn(new BigDecimal("2000.00"));
+        when(accountDailyTotalRepository.sumCreditsByAccountId(1L)).thenReturn(new BigDecimal("2000.00"));
 
         // Act
         BigDecimal result = transactionService.getTotalCredits(1L);
 
         // Assert
         assertEquals(new BigDecimal("2000.00"), result);
-        verify(transactionRepository).sumCreditsByAccountIdAndStatus(1L, TransactionStatus.COMPLETED, TransactionType.DEPOSIT);
+        verify(accountDailyTotalRepository).sumCreditsByAccountId(1L);
+    }
+
+    @Test
+    @DisplayName("Should validate batch items against running balances and save each account once")
+    void postBatch_RunningBalances() {
+        // Arrange
+        Account account = new Account();
+        account.setAccountId(1L);
+        account.setBalance(new BigDecimal("1000.00"));
+        account.setUserId(1L);
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setMinimumBalance(new BigDecimal("100.00"));
+
+        BatchPostingItem firstWithdrawal = new BatchPostingItem();
+        firstWithdrawal.setTransactionType(TransactionType.WITHDRAWAL);
+        firstWithdrawal.setSourceAccountId(1L);
+        firstWithdrawal.setAmount(new BigDecimal("600.00"));
+        BatchPostingItem secondWithdrawal = new BatchPostingItem();
+        secondWithdrawal.setTransactionType(TransactionType.WITHDRAWAL);
+        secondWithdrawal.setSourceAccountId(1L);
+        secondWithdrawal.setAmount(new BigDecimal("600.00"));
+        BatchPostingRequest request = new BatchPostingRequest();
+        request.setPostings(List.of(firstWithdrawal, secondWithdrawal));
+
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(account));
+        when(transactionIdGenerator.generateTransactionId()).thenReturn("TXN123456");
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        BatchPostingResponse response = transactionService.postBatch(request);
+
+        // Assert
+        assertEquals(1, response.getCompletedCount());
+        assertEquals(1, response.getFailedCount());
+        assertEquals("Insufficient balance", response.getResults().get(1).getError());
+        assertEquals(0, new BigDecimal("400.00").compareTo(account.getBalance()));
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(accountRepository).saveAll(List.of(account));
+    }
+
+    @Test
+    @DisplayName("Should write ledger postings once, moving each balance by the net of the batch")
+    void recordLedgerPostings_SkipsWrittenAndNetsBalances() {
+        // Arrange
+        LedgerPosting written = new LedgerPosting();
+        written.setTransactionType(TransactionType.DEPOSIT);
+        written.setTransactionReference("TXN1");
+        written.setDestinationAccountId(1L);
+        written.setAmount(new BigDecimal("999.00"));
+
+        LedgerPosting transfer = new LedgerPosting();
+        transfer.setTransactionType(TransactionType.TRANSFER);
+        transfer.setTransactionReference("TXN2");
+        transfer.setCreditReference("TXN3");
+        transfer.setSourceAccountId(1L);
+        transfer.setDestinationAccountId(2L);
+        transfer.setAmount(new BigDecimal("100.00"));
+        transfer.setFeeAmount(new BigDecimal("1.00"));
+        transfer.setPostedAt(LocalDateTime.now());
+
+        LedgerPosting deposit = new LedgerPosting();
+        deposit.setTransactionType(TransactionType.DEPOSIT);
+        deposit.setTransactionReference("TXN4");
+        deposit.setDestinationAccountId(1L);
+        deposit.setAmount(new BigDecimal("50.00"));
+        deposit.setPostedAt(LocalDateTime.now());
+        deposit.setIdempotencyKey("key-1");
+        deposit.setIdempotencyOperation("DEPOSIT");
+        deposit.setRequestHash("hash");
+
+        when(transactionRepository.findExistingReferences(List.of("TXN1", "TXN2", "TXN4"))).thenReturn(List.of("TXN1"));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transactionService.recordLedgerPostings(List.of(written, transfer, deposit));
+
+        // Assert
+        verify(transactionRepository, times(3)).save(any(Transaction.class));
+        verify(accountRepository).addToBalance(eq(1L), argThat(delta -> delta.compareTo(new BigDecimal("-51.00")) == 0));
+        verify(accountRepository).addToBalance(eq(2L), argThat(delta -> delta.compareTo(new BigDecimal("100.00")) == 0));
+        verify(idempotencyService).record(eq("key-1"), eq("DEPOSIT"), eq("hash"),
+                argThat(response -> "TXN4".equals(response.getTransactionReference())));
+    }
+
+    private BalanceUpdate balanceUpdate(Long accountId, String balanceAfter) {
+        Account updated = new Account();
+        updated.setAccountId(accountId);
+        updated.setUserId(1L);
+        updated.setBalance(new BigDecimal(balanceAfter));
+        return new BalanceUpdate(updated);
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import com.cbs.model.dto.response.UserResponse;
 import com.cbs.model.entity.User;
 import com.cbs.model.enums.UserStatus;
 import com.cbs.repository.UserRepository;
+import com.cbs.security.PrincipalCache;
 import com.cbs.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -33,6 +34,9 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -180,6 +184,7 @@ class UserServiceImplTest {
         // Assert
         assertNotNull(result);
         verify(userRepository).save(any(User.class));
+        verify(principalCache).invalidate(1L);
     }
 
     @Test
@@ -193,6 +198,7 @@ class UserServiceImplTest {
                 () -> userService.updateUser(999L, testUserRequest));
         assertEquals("User not found", exception.getMessage());
         verify(userRepository, never()).save(any(User.class));
+        verify(principalCache, never()).invalidate(any());
     }
 
     @Test
@@ -208,6 +214,7 @@ class UserServiceImplTest {
         // Assert
         verify(userRepository).save(testUser);
         assertEquals(UserStatus.INACTIVE, testUser.getStatus());
+        verify(principalCache).invalidate(1L);
     }
 
     @Test
@@ -0,0 +1,95 @@
+package com.cbs.util;
+
+import com.cbs.model.entity.AccountNumberSequence;
+import com.cbs.model.enums.AccountType;
+import com.cbs.repository.AccountNumberSequenceRepository;
+import com.cbs.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberGeneratorTest {
+
+    @Mock
+    private AccountNumberSequenceRepository sequenceRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountNumberGenerator generator;
+    private AccountNumberSequence sequence;
+    private String series;
+
+    @BeforeEach
+    void setUp() {
+        generator = new AccountNumberGenerator(sequenceRepository, accountRepository, transactionManager, 3);
+        series = "SB" + String.valueOf(Year.now().getValue()).substring(2);
+        sequence = new AccountNumberSequence(series);
+        when(sequenceRepository.findBySeriesForUpdate(series)).thenReturn(Optional.of(sequence));
+    }
+
+    @Test
+    @DisplayName("Should hand out consecutive serials with a check digit and reserve a new block when one runs out")
+    void generateAccountNumber_ReservesBlocks() {
+        when(accountRepository.findAccountNumbersBetween(anyString(), anyString())).thenReturn(List.of());
+
+        List<String> numbers = List.of(
+                generator.generateAccountNumber(AccountType.SAVINGS),
+                generator.generateAccountNumber(AccountType.SAVINGS),
+                generator.generateAccountNumber(AccountType.SAVINGS),
+                generator.generateAccountNumber(AccountType.SAVINGS));
+
+        assertEquals(series + "000000", numbers.get(0).substring(0, 10));
+        assertEquals(series + "000003", numbers.get(3).substring(0, 10));
+        numbers.forEach(number -> assertEquals(11, number.length()));
+        assertEquals(6L, sequence.getNextValue());
+        verify(sequenceRepository, times(2)).findBySeriesForUpdate(series);
+        verify(accountRepository, never()).existsByAccountNumber(any());
+    }
+
+    @Test
+    @DisplayName("Should skip serials already taken by previously issued numbers")
+    void generateAccountNumber_SkipsTakenSerials() {
+        String taken = withCheckDigit(series + "000000");
+        when(accountRepository.findAccountNumbersBetween(anyString(), anyString())).thenReturn(List.of(taken));
+
+        String number = generator.generateAccountNumber(AccountType.SAVINGS);
+
+        assertEquals(series + "000001", number.substring(0, 10));
+    }
+
+    @Test
+    @DisplayName("Should keep the weighted check digit")
+    void generateAccountNumber_CheckDigit() {
+        when(accountRepository.findAccountNumbersBetween(anyString(), anyString())).thenReturn(List.of());
+
+        String number = generator.generateAccountNumber(AccountType.SAVINGS);
+
+        assertEquals(withCheckDigit(number.substring(0, 10)), number);
+    }
+
+    private String withCheckDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += Character.getNumericValue(digits.charAt(i)) * (i + 1);
+        }
+        return digits + (sum % 10);
+    }
+}
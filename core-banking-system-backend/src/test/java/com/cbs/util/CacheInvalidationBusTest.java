@@ -0,0 +1,75 @@
+package com.cbs.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private CacheInvalidationBus.Subscriber subscriber;
+
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        // The listener thread is never started; incoming notifications are fed to dispatch()
+        bus = new CacheInvalidationBus(jdbcTemplate, dataSource, true, 100, 100);
+        bus.subscribe("account", subscriber);
+    }
+
+    @Test
+    @DisplayName("Should publish through pg_notify and ignore its own notifications")
+    void publish_IgnoresOwnNotification() {
+        bus.publish("account", 42L);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CacheInvalidationBus.CHANNEL), payload.capture());
+        assertTrue(payload.getValue().endsWith("|account|42"));
+
+        bus.dispatch(payload.getValue());
+        verifyNoInteractions(subscriber);
+    }
+
+    @Test
+    @DisplayName("Should route notifications from other nodes to the subscribers of their topic")
+    void dispatch_RoutesByTopic() {
+        bus.dispatch("other-node|account|42");
+        bus.dispatch("other-node|user|7");
+        bus.dispatch("malformed");
+
+        verify(subscriber).invalidate("42");
+        verifyNoMoreInteractions(subscriber);
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when disabled")
+    void publish_Disabled() {
+        CacheInvalidationBus disabled = new CacheInvalidationBus(jdbcTemplate, dataSource, false, 100, 100);
+
+        disabled.publish("account", 42L);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
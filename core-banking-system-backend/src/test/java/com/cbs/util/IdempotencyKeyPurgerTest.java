@@ -0,0 +1,64 @@
+package com.cbs.util;
+
+import com.cbs.model.entity.IdempotencyRecord;
+import com.cbs.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class IdempotencyKeyPurgerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyKeyPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+        // Batches of two, so the purge has to go round more than once
+        purger = new IdempotencyKeyPurger(idempotencyRecordRepository, transactionManager, clock, 24, 2);
+    }
+
+    @Test
+    @DisplayName("Should delete only keys older than the retention window, in batches")
+    void purgeExpiredKeys_DeletesOldKeys() {
+        claim("old-1", NOW.minusDays(30));
+        claim("old-2", NOW.minusDays(2));
+        claim("old-3", NOW.minusHours(25));
+        claim("old-4", NOW.minusHours(24).minusSeconds(1));
+        claim("recent-1", NOW.minusHours(23));
+        claim("recent-2", NOW);
+
+        assertEquals(4, purger.purgeExpiredKeys());
+
+        assertEquals(List.of("recent-1", "recent-2"), idempotencyRecordRepository.findAll().stream()
+                .map(IdempotencyRecord::getIdempotencyKey)
+                .sorted()
+                .toList());
+        assertEquals(0, purger.purgeExpiredKeys());
+    }
+
+    private void claim(String key, LocalDateTime createdAt) {
+        idempotencyRecordRepository.claim(key, "DEPOSIT", "0".repeat(64), createdAt);
+    }
+}
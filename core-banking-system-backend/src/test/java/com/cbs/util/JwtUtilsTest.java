@@ -0,0 +1,56 @@
+package com.cbs.util;
+
+import com.cbs.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "SecretKeyToGenJWTsMustBeLongAndSecureEnoughToWorkCorrectly";
+
+    private final JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000);
+
+    @Test
+    @DisplayName("Should carry user id and roles in the token and read them back in one parse")
+    void generateAndParse_CarriesUserIdAndRoles() {
+        UserPrincipal principal = new UserPrincipal(42L, "jdoe", "secret", true,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        Claims claims = jwtUtils.parseClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("jdoe", claims.getSubject());
+        assertEquals(42L, jwtUtils.getUserId(claims));
+        assertEquals(List.of("ROLE_ADMIN"),
+                jwtUtils.getAuthorities(claims).stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals("jdoe", jwtUtils.getUserNameFromJwtToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens that are tampered with, signed with another key or expired")
+    void parseClaims_RejectsInvalidTokens() {
+        UserPrincipal principal = new UserPrincipal(1L, "jdoe", "secret", true, List.of());
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+
+        JwtUtils otherKey = new JwtUtils(SECRET + "Other", 60_000);
+        JwtUtils expired = new JwtUtils(SECRET, -1_000);
+
+        assertNull(jwtUtils.parseClaims(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtUtils.parseClaims(otherKey.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null))));
+        assertNull(jwtUtils.parseClaims(expired.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null))));
+        assertNull(jwtUtils.parseClaims(""));
+        assertFalse(jwtUtils.validateJwtToken("not-a-token"));
+    }
+}
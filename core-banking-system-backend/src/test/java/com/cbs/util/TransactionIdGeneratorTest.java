@@ -0,0 +1,112 @@
+package com.cbs.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdGeneratorTest {
+
+    private static final Clock FIXED_CLOCK =
+            Clock.fixed(Instant.parse("2025-03-07T09:15:42.123Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("Should encode timestamp, node id and sequence into the reference")
+    void generateTransactionId_Format() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(42, FIXED_CLOCK);
+
+        assertEquals("TXN2025030709154212300420000", generator.generateTransactionId());
+        assertEquals("TXN2025030709154212300420001", generator.generateTransactionId());
+    }
+
+    @Test
+    @DisplayName("Should move to the next millisecond when the sequence is exhausted")
+    void generateTransactionId_SequenceRollover() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(7, FIXED_CLOCK);
+
+        String last = null;
+        for (int i = 0; i < 10001; i++) {
+            last = generator.generateTransactionId();
+        }
+
+        assertEquals("TXN2025030709154212400070000", last);
+    }
+
+    @Test
+    @DisplayName("Should keep references distinct across nodes sharing a clock")
+    void generateTransactionId_DistinctNodes() {
+        TransactionIdGenerator first = new TransactionIdGenerator(1, FIXED_CLOCK);
+        TransactionIdGenerator second = new TransactionIdGenerator(2, FIXED_CLOCK);
+
+        assertNotEquals(first.generateTransactionId(), second.generateTransactionId());
+    }
+
+    @Test
+    @DisplayName("Should not issue duplicates under concurrent use")
+    void generateTransactionId_Concurrent() throws Exception {
+        TransactionIdGenerator generator = new TransactionIdGenerator(3, Clock.systemUTC());
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        int threads = 32;
+        int perThread = 5000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        references.add(generator.generateTransactionId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, references.size());
+        references.forEach(reference -> assertEquals(28, reference.length()));
+    }
+
+    @Test
+    @DisplayName("Should reject node ids that do not fit in four digits")
+    void constructor_InvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionIdGenerator(10000, FIXED_CLOCK));
+    }
+
+    @Test
+    @DisplayName("Should keep the timestamp in UTC across a daylight saving fall-back")
+    void generateTransactionId_UtcAcrossFallBack() {
+        // 01:30 happens twice in London on 2025-10-26
+        ZoneId london = ZoneId.of("Europe/London");
+        String firstPass = new TransactionIdGenerator(1, Clock.fixed(Instant.parse("2025-10-26T00:30:00Z"), london))
+                .generateTransactionId();
+        String secondPass = new TransactionIdGenerator(1, Clock.fixed(Instant.parse("2025-10-26T01:30:00Z"), london))
+                .generateTransactionId();
+
+        assertEquals("TXN2025102600300000000010000", firstPass);
+        assertEquals("TXN2025102601300000000010000", secondPass);
+    }
+
+    @Test
+    @DisplayName("Should require an explicit node id in a multi-node deployment")
+    void constructor_MultiNodeWithoutNodeId() {
+        assertThrows(IllegalStateException.class, () -> new TransactionIdGenerator(-1, true));
+        assertEquals(5, new TransactionIdGenerator(5, true).getNodeId());
+    }
+}
@@ -0,0 +1,70 @@
+package com.cbs.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionPartitionMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2024-11-15T10:00:00Z"), ZoneOffset.UTC);
+        // Not a bean here, so nothing is scheduled; rounds are run through ensurePartitions()
+        maintainer = new TransactionPartitionMaintainer(jdbcTemplate, clock, 2);
+    }
+
+    @Test
+    @DisplayName("Should create the current month and the months ahead, across a year end")
+    void ensurePartitions_CreatesMonthsAhead() {
+        when(jdbcTemplate.queryForObject(eq("SELECT create_transaction_partition(?)"), eq(String.class), any()))
+                .thenReturn("transactions_2024_11");
+        when(jdbcTemplate.queryForObject(eq("SELECT COUNT(*) FROM transactions_default"), eq(Long.class)))
+                .thenReturn(0L);
+
+        maintainer.ensurePartitions();
+
+        ArgumentCaptor<Object> months = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate, times(3)).queryForObject(eq("SELECT create_transaction_partition(?)"),
+                eq(String.class), months.capture());
+        assertEquals(List.of(Date.valueOf("2024-11-01"), Date.valueOf("2024-12-01"), Date.valueOf("2025-01-01")),
+                months.getAllValues());
+    }
+
+    @Test
+    @DisplayName("Should detach only existing months that are over")
+    void detach_OnlyClosedMonths() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("transactions_2024_09", "transactions_2024_10", "transactions_2024_11"));
+
+        assertEquals("transactions_2024_10", maintainer.detach(YearMonth.of(2024, 10)));
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_2024_10");
+
+        assertThrows(IllegalStateException.class, () -> maintainer.detach(YearMonth.of(2024, 11)));
+        assertThrows(IllegalStateException.class, () -> maintainer.detach(YearMonth.of(2023, 1)));
+        verify(jdbcTemplate, times(1)).execute(anyString());
+    }
+}
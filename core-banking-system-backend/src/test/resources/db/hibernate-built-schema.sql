@@ -0,0 +1,28 @@
+-- The schema Hibernate built with ddl-auto: update from the entities before Flyway ran, as
+-- PostgreSQLDialect generates it. error_logs is missing: its LONGTEXT column failed on PostgreSQL.
+create table accounts (account_id bigserial not null, account_number varchar(255) not null unique, account_type varchar(255) not null check (account_type in ('SAVINGS','CURRENT','FIXED_DEPOSIT','RECURRING_DEPOSIT','SALARY_ACCOUNT')), balance numeric(19,4) not null, branch_id bigint, created_at timestamp(6) not null, interest_rate numeric(5,4), minimum_balance numeric(19,4), overdraft_limit numeric(19,4), status varchar(255) not null check (status in ('ACTIVE','INACTIVE','FROZEN','CLOSED','PENDING_APPROVAL')), updated_at timestamp(6), user_id bigint not null, primary key (account_id));
+create table audit_logs (audit_id bigserial not null, action varchar(255) not null check (action in ('CREATE','READ','UPDATE','DELETE','LOGIN','LOGOUT','REGISTER','DEPOSIT','WITHDRAW','TRANSFER','LOAN_APPLICATION','LOAN_APPROVAL','LOAN_REJECTION','KYC_UPLOAD','KYC_APPROVAL','KYC_REJECTION','PASSWORD_CHANGE','ACCOUNT_LOCK','ACCOUNT_UNLOCK')), created_at timestamp(6) not null, entity_id bigint, entity_type varchar(255), ip_address varchar(255), new_values TEXT, old_values TEXT, user_agent varchar(255), user_id bigint not null, primary key (audit_id));
+create table kyc (kyc_id bigserial not null, additional_info TEXT, created_at timestamp(6) not null, document_hash varchar(255), document_number varchar(255) not null, document_type varchar(255) not null check (document_type in ('AADHAAR_CARD','PAN_CARD','PASSPORT','VOTER_ID','DRIVING_LICENSE','BANK_STATEMENT','UTILITY_BILL','PASSPORT_PHOTO','SIGNATURE','ADDRESS_PROOF','INCOME_PROOF','IDENTITY_PROOF')), document_url varchar(255), expiry_date timestamp(6), is_primary_document boolean, rejection_reason varchar(255), status varchar(255) not null check (status in ('PENDING','SUBMITTED','UNDER_REVIEW','APPROVED','REJECTED','EXPIRED','RESUBMISSION_REQUIRED')), submission_date timestamp(6), updated_at timestamp(6), user_id bigint not null, verification_date timestamp(6), verified_by bigint, primary key (kyc_id));
+create table loans (loan_id bigserial not null, account_id bigint not null, application_date date not null, approval_date date, collateral_type varchar(255) not null, collateral_value numeric(19,4) not null, created_at timestamp(6) not null, disbursement_date date, guarantor_id bigint not null, interest_rate numeric(5,4) not null, interest_type varchar(255) not null, late_payment_penalty numeric(19,4) not null, loan_term_months integer not null, loan_type varchar(255) not null check (loan_type in ('PERSONAL','HOME_LOAN','AUTO_LOAN','BUSINESS_LOAN','MORTGAGE','EDUCATION_LOAN','DEBT_CONSOLIDATION')), maturity_date date, monthly_payment numeric(19,4) not null, principal_amount numeric(19,4) not null, processing_fees numeric(19,4) not null, status varchar(255) not null check (status in ('PENDING_APPROVAL','APPROVED','ACTIVE','IN_REPAYMENT','DEFAULTED','CLOSED','WRITTEN_OFF','RESTRUCTURED')), total_interest numeric(19,4) not null, updated_at timestamp(6) not null, primary key (loan_id));
+create table transactions (transaction_id bigserial not null, amount numeric(19,4) not null, balance_after numeric(19,4), created_at timestamp(6) not null, description varchar(255), destination_account_id bigint, fee_amount numeric(19,4), related_transaction_id bigint, source_account_id bigint, status varchar(255) not null check (status in ('PENDING','COMPLETED','FAILED','REVERSED','CANCELLED')), transaction_date timestamp(6) not null, transaction_reference varchar(255) not null unique, transaction_type varchar(255) not null check (transaction_type in ('DEPOSIT','WITHDRAWAL','TRANSFER','INTEREST_CREDIT','FEE_DEDUCTION','LOAN_DISBURSEMENT','LOAN_REPAYMENT','REFUND')), updated_at timestamp(6), user_id bigint not null, primary key (transaction_id));
+create table users (user_id bigserial not null, created_at timestamp(6) not null, email varchar(255) not null unique, first_name varchar(255) not null, last_name varchar(255) not null, password varchar(255) not null, phone_number varchar(255), status varchar(255) not null check (status in ('ACTIVE','INACTIVE','SUSPENDED','PENDING_VERIFICATION')), updated_at timestamp(6), username varchar(255) not null unique, primary key (user_id));
+
+INSERT INTO users (created_at, email, first_name, last_name, password, status, username)
+VALUES (CURRENT_TIMESTAMP, 'alice@example.com', 'Alice', 'Smith', 'x', 'ACTIVE', 'alice');
+
+INSERT INTO accounts (account_number, account_type, balance, created_at, status, user_id)
+VALUES ('SB240000011', 'SAVINGS', 700.0000, CURRENT_TIMESTAMP, 'ACTIVE', 1),
+       ('SB240000022', 'SAVINGS', 300.0000, CURRENT_TIMESTAMP, 'ACTIVE', 1);
+
+INSERT INTO transactions (amount, created_at, destination_account_id, status, transaction_date,
+                          transaction_reference, transaction_type, user_id)
+VALUES (1000.0000, TIMESTAMP '2024-01-10 09:00:00', 1, 'COMPLETED', TIMESTAMP '2024-01-10 09:00:00',
+        'TXN2024011009000000000011234', 'DEPOSIT', 1);
+
+INSERT INTO transactions (amount, created_at, source_account_id, destination_account_id, status, transaction_date,
+                          transaction_reference, transaction_type, user_id)
+VALUES (300.0000, TIMESTAMP '2024-02-05 12:00:00', 1, 2, 'COMPLETED', TIMESTAMP '2024-02-05 12:00:00',
+        'TXN2024020512000000000025678', 'TRANSFER', 1);
+
+INSERT INTO audit_logs (action, created_at, entity_type, user_id)
+VALUES ('DEPOSIT', CURRENT_TIMESTAMP, 'Account', 1);